@@ -0,0 +1,101 @@
+package pcv.benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Benchmarks do lado do worker da solução distribuída, sem RMI: mede uma tarefa (origem e segunda
+// cidade fixas) tanto no CalculadorDePermutacao puro quanto em TSPWorker.resolverPrefixo, com a
+// instância já carregada no cache do worker como o servidor faz antes da primeira tarefa. O worker guarda
+// o limite de poda da instância entre as tarefas, então ela é recarregada (sem servidor) antes de cada
+// chamada de resolverPrefixo, para que todas comecem com limite infinito. O CalculadorDePermutacao é medido
+// com cada AvaliadorDeRotas (estado Avaliador).
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Avaliador.MODULO_VETORIAL)
+public class DistribuidoBenchmark {
+    private static final Class<?> MATRIZ = Reflexao.classe("MatrizDistancias");
+    private static final MethodHandle NOVA_MATRIZ = Reflexao.construtor("MatrizDistancias", List.class);
+    private static final MethodHandle NOVO_CALCULADOR = Reflexao.construtor("CalculadorDePermutacao", MATRIZ, int.class, int.class);
+    private static final MethodHandle PERMUTAR = Reflexao.virtual("CalculadorDePermutacao", "permutar", void.class, int[].class);
+    private static final MethodHandle MENOR_DISTANCIA = Reflexao.virtual("CalculadorDePermutacao", "getMenorDistanciaLocal", double.class);
+    private static final MethodHandle NOVO_WORKER = Reflexao.construtor("TSPWorker");
+    private static final MethodHandle CARREGAR_INSTANCIA = Reflexao.virtual("TSPWorker", "carregarInstancia",
+            void.class, long.class, int[].class, int[].class, Reflexao.classe("CanalDeLimites"));
+    private static final MethodHandle RESOLVER_PREFIXO = Reflexao.virtual("TSPWorker", "resolverPrefixo",
+            Reflexao.classe("ResultadoCompacto"), long.class, int[].class, double.class);
+    private static final MethodHandle GET_X = Reflexao.virtual("CidadePCV", "getX", int.class);
+    private static final MethodHandle GET_Y = Reflexao.virtual("CidadePCV", "getY", int.class);
+    private static final long ID_DA_INSTANCIA = 1L;
+
+    @Param({"8", "9", "10", "11", "12", "13"})
+    public int cidades;
+
+    @Param({"42"})
+    public long semente;
+
+    private List<Object> lista;
+    private Object matriz;
+    private Object worker;
+    private int[] resto;
+    private int[] xs;
+    private int[] ys;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Throwable {
+        SaidaSilenciosa.ligar();
+        lista = Instancias.gerar("CidadePCV", cidades, semente);
+        matriz = NOVA_MATRIZ.invoke(lista);
+        worker = NOVO_WORKER.invoke();
+        xs = new int[cidades];
+        ys = new int[cidades];
+        for (int i = 0; i < cidades; i++) {
+            xs[i] = (int) GET_X.invoke(lista.get(i));
+            ys[i] = (int) GET_Y.invoke(lista.get(i));
+        }
+        // Mesma tarefa que o servidor envia para a segunda cidade de índice 1
+        resto = new int[cidades - 2];
+        for (int i = 0; i < resto.length; i++) {
+            resto[i] = i + 2;
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void recarregarInstancia() throws Throwable {
+        CARREGAR_INSTANCIA.invoke(worker, ID_DA_INSTANCIA, xs, ys, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        SaidaSilenciosa.desligar();
+    }
+
+    @Benchmark
+    public double calculadorDePermutacao(Avaliador avaliador) throws Throwable {
+        Object calculador = NOVO_CALCULADOR.invoke(matriz, 0, 1);
+        PERMUTAR.invoke(calculador, resto.clone());
+        return (double) MENOR_DISTANCIA.invoke(calculador);
+    }
+
+    @Benchmark
+    public Object resolverPrefixo() throws Throwable {
+        return RESOLVER_PREFIXO.invoke(worker, ID_DA_INSTANCIA, new int[] { 0, 1 }, Double.POSITIVE_INFINITY);
+    }
+}
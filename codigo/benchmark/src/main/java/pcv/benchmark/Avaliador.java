@@ -0,0 +1,45 @@
+package pcv.benchmark;
+
+import java.lang.invoke.MethodHandle;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// Escolhe o AvaliadorDeRotas que as soluções usam (propriedade pcv.avaliador), para comparar a Força Bruta
+// com os núcleos escalar e vetorial no mesmo fork. A vetorial só existe com o módulo jdk.incubator.vector:
+// os benchmarks que recebem este estado usam @Fork(jvmArgsAppend = Avaliador.MODULO_VETORIAL), e sem ela o
+// setup falha em vez de medir a escalar com o nome errado.
+@State(Scope.Benchmark)
+public class Avaliador {
+    static final String MODULO_VETORIAL = "--add-modules=jdk.incubator.vector";
+
+    private static final String PROPRIEDADE = "pcv.avaliador";
+    private static final Class<?> AVALIADOR = Reflexao.classe("AvaliadorDeRotas");
+    private static final MethodHandle ESCALAR = Reflexao.estatico("AvaliadorDeRotas", "escalar", AVALIADOR);
+    private static final MethodHandle VETORIAL = Reflexao.estatico("AvaliadorDeRotas", "vetorial", AVALIADOR);
+
+    @Param({"vetorial", "escalar"})
+    public String avaliador;
+
+    // A instância de AvaliadorDeRotas escolhida, para os benchmarks que chamam os núcleos diretamente
+    Object escolhido;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Throwable {
+        System.setProperty(PROPRIEDADE, avaliador);
+        escolhido = "escalar".equals(avaliador) ? ESCALAR.invoke() : VETORIAL.invoke();
+        if (escolhido == null) {
+            throw new IllegalStateException("AvaliadorVetorial indisponivel: o fork precisa de " + MODULO_VETORIAL
+                    + " e de uma CPU com SIMD para double.");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        System.clearProperty(PROPRIEDADE);
+    }
+}
@@ -0,0 +1,115 @@
+package pcv.benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Os dois núcleos do AvaliadorDeRotas isolados, escalar contra vetorial; existe nas três variantes, que têm
+// as mesmas classes. caudas dá o tempo por cauda da Força Bruta (as 24 ordens das 4 últimas cidades), com
+// lotes de CAUDAS caudas de arestas aleatórias; maisProximo dá o tempo de uma varredura linear pelo ponto
+// mais próximo entre cidades pontos.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Avaliador.MODULO_VETORIAL)
+public class AvaliadorBenchmark {
+    private static final MethodHandle GET_PISTAS = Reflexao.virtual("AvaliadorDeRotas", "getPistas", int.class);
+    private static final MethodHandle MENORES_DAS_CAUDAS = Reflexao.virtual("AvaliadorDeRotas", "menoresDasCaudas",
+            void.class, double[].class, double[].class, double[].class);
+    private static final MethodHandle MAIS_PROXIMO = Reflexao.virtual("AvaliadorDeRotas", "maisProximo",
+            int.class, double[].class, double[].class, int.class, double.class, double.class);
+    private static final int CAUDAS = 1024;
+    // Arestas distintas de uma cauda: da anterior para as 4 livres, entre elas (4 x 4) e delas para a origem
+    private static final int ARESTAS_POR_CAUDA = 24;
+    private static final int CONSULTAS = 64;
+    private static final int LADO = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Caudas {
+        double[][] arestas;
+        double[][] bases;
+        double[] menores;
+
+        @Setup(Level.Trial)
+        public void preparar(Avaliador avaliador) throws Throwable {
+            int pistas = (int) GET_PISTAS.invoke(avaliador.escolhido);
+            SplittableRandom aleatorio = new SplittableRandom(42);
+            arestas = new double[CAUDAS / pistas][ARESTAS_POR_CAUDA * pistas];
+            bases = new double[CAUDAS / pistas][pistas];
+            for (int lote = 0; lote < arestas.length; lote++) {
+                for (int i = 0; i < arestas[lote].length; i++) {
+                    arestas[lote][i] = aleatorio.nextDouble(LADO);
+                }
+                for (int i = 0; i < pistas; i++) {
+                    bases[lote][i] = aleatorio.nextDouble(10 * LADO);
+                }
+            }
+            menores = new double[pistas];
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Pontos {
+        @Param({"1000", "10000", "100000"})
+        public int cidades;
+
+        double[] xs;
+        double[] ys;
+        // Pontos procurados, sorteados à parte: o mais próximo de cada um pode estar em qualquer posição
+        double[] xsConsultados;
+        double[] ysConsultados;
+
+        @Setup(Level.Trial)
+        public void preparar() {
+            SplittableRandom aleatorio = new SplittableRandom(42);
+            xs = new double[cidades];
+            ys = new double[cidades];
+            for (int i = 0; i < cidades; i++) {
+                xs[i] = aleatorio.nextInt(LADO);
+                ys[i] = aleatorio.nextInt(LADO);
+            }
+            xsConsultados = new double[CONSULTAS];
+            ysConsultados = new double[CONSULTAS];
+            for (int i = 0; i < CONSULTAS; i++) {
+                xsConsultados[i] = aleatorio.nextDouble(LADO);
+                ysConsultados[i] = aleatorio.nextDouble(LADO);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CAUDAS)
+    public double caudas(Avaliador avaliador, Caudas caudas) throws Throwable {
+        double soma = 0;
+        for (int lote = 0; lote < caudas.arestas.length; lote++) {
+            MENORES_DAS_CAUDAS.invoke(avaliador.escolhido, caudas.arestas[lote], caudas.bases[lote], caudas.menores);
+            soma += caudas.menores[0];
+        }
+        return soma;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONSULTAS)
+    public int maisProximo(Avaliador avaliador, Pontos pontos) throws Throwable {
+        int soma = 0;
+        for (int i = 0; i < CONSULTAS; i++) {
+            soma += (int) MAIS_PROXIMO.invoke(avaliador.escolhido, pontos.xs, pontos.ys, pontos.cidades, pontos.xsConsultados[i], pontos.ysConsultados[i]);
+        }
+        return soma;
+    }
+}
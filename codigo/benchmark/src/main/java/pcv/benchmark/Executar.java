@@ -0,0 +1,21 @@
+package pcv.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Ponto de entrada do jar de benchmarks. Aceita as mesmas opções do JMH (-p, -f, -wi, -i, filtros...)
+// e sempre liga o profiler de GC, para que a taxa de alocação apareça junto com os tempos.
+public final class Executar {
+    private Executar() {}
+
+    public static void main(String[] args) throws Exception {
+        Options opcoes = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opcoes).run();
+    }
+}
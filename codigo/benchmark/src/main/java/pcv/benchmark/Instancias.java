@@ -0,0 +1,25 @@
+package pcv.benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Instâncias aleatórias reproduzíveis: a mesma semente gera sempre as mesmas cidades,
+// em um quadrado de 1000 x 1000 como o do arquivo cidades.txt.
+final class Instancias {
+    private static final int LADO = 1000;
+
+    private Instancias() {}
+
+    // classeCidade é "Cidade" na solução sequencial e "CidadePCV" nas demais
+    static List<Object> gerar(String classeCidade, int quantidade, long semente) throws Throwable {
+        MethodHandle novaCidade = Reflexao.construtor(classeCidade, String.class, int.class, int.class);
+        SplittableRandom aleatorio = new SplittableRandom(semente);
+        List<Object> cidades = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            cidades.add(novaCidade.invoke("Cidade_" + i, aleatorio.nextInt(LADO), aleatorio.nextInt(LADO)));
+        }
+        return cidades;
+    }
+}
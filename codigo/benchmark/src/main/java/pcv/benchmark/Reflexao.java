@@ -0,0 +1,46 @@
+package pcv.benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+// As classes das soluções estão no pacote padrão, que não pode ser importado de um pacote nomeado
+// (e o JMH exige que os benchmarks estejam em um). O acesso é feito por MethodHandles guardados em
+// campos static final, que o JIT trata como constantes e chama sem o custo da reflexão comum.
+final class Reflexao {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private Reflexao() {}
+
+    static Class<?> classe(String nome) {
+        try {
+            return Class.forName(nome);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Classe " + nome + " nao encontrada; confira o perfil usado no build.", e);
+        }
+    }
+
+    static MethodHandle construtor(String classe, Class<?>... parametros) {
+        try {
+            return LOOKUP.findConstructor(classe(classe), MethodType.methodType(void.class, parametros));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Construtor de " + classe + " nao encontrado.", e);
+        }
+    }
+
+    static MethodHandle estatico(String classe, String metodo, Class<?> retorno, Class<?>... parametros) {
+        try {
+            return LOOKUP.findStatic(classe(classe), metodo, MethodType.methodType(retorno, parametros));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Metodo " + classe + "." + metodo + " nao encontrado.", e);
+        }
+    }
+
+    static MethodHandle virtual(String classe, String metodo, Class<?> retorno, Class<?>... parametros) {
+        try {
+            return LOOKUP.findVirtual(classe(classe), metodo, MethodType.methodType(retorno, parametros));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Metodo " + classe + "." + metodo + " nao encontrado.", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package pcv.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+// Os resolvedores imprimem mensagens a cada execução; durante a medição elas são descartadas para que
+// a escrita no console não entre no tempo medido nem polua a saída do JMH.
+final class SaidaSilenciosa {
+    private static PrintStream original;
+
+    private SaidaSilenciosa() {}
+
+    static synchronized void ligar() {
+        if (original == null) {
+            original = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+    }
+
+    static synchronized void desligar() {
+        if (original != null) {
+            System.setOut(original);
+            original = null;
+        }
+    }
+}
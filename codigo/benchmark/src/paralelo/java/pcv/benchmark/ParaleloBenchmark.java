@@ -0,0 +1,119 @@
+package pcv.benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Benchmarks da solução paralela (ResolvedorParalelo). A quantidade de threads fica em um estado separado
+// para que o Vizinho Mais Próximo, que é sequencial, não seja repetido para cada valor dela; a Força Bruta é
+// medida também com cada AvaliadorDeRotas (estado Avaliador).
+//
+// servicoEmLote mede a vazão do ServicoDeResolucao em instâncias por ms: cada operação é uma instância de um
+// lote de INSTANCIAS_POR_LOTE instâncias diferentes do mesmo tamanho, resolvido pelo serviço com um pool fixo.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Avaliador.MODULO_VETORIAL)
+public class ParaleloBenchmark {
+    private static final Class<?> RESULTADO = Reflexao.classe("ResultadoPCV");
+    private static final MethodHandle VIZINHO_MAIS_PROXIMO =
+            Reflexao.estatico("ResolvedorParalelo", "resolverVizinhoMaisProximo", RESULTADO, List.class);
+    private static final MethodHandle FORCA_BRUTA =
+            Reflexao.estatico("ResolvedorParalelo", "resolverForcaBrutaForkJoin", RESULTADO, List.class, int.class, int.class);
+    private static final MethodHandle PROFUNDIDADE_PADRAO =
+            Reflexao.estatico("ResolvedorParalelo", "profundidadeDeCortePadrao", int.class, int.class, int.class);
+    private static final MethodHandle INSTANCIA_DE =
+            Reflexao.estatico("Instancia", "de", Reflexao.classe("Instancia"), List.class);
+    private static final MethodHandle NOVO_SERVICO = Reflexao.construtor("ServicoDeResolucao", int.class, int.class);
+    private static final MethodHandle RESOLVER_LOTE = Reflexao.virtual("ServicoDeResolucao", "resolverLote", List.class, List.class);
+    private static final MethodHandle FECHAR_SERVICO = Reflexao.virtual("ServicoDeResolucao", "close", void.class);
+    private static final int INSTANCIAS_POR_LOTE = 256;
+
+    @State(Scope.Benchmark)
+    public static class Instancia {
+        @Param({"8", "9", "10", "11", "12", "13"})
+        public int cidades;
+
+        @Param({"42"})
+        public long semente;
+
+        List<Object> lista;
+
+        @Setup(Level.Trial)
+        public void preparar() throws Throwable {
+            SaidaSilenciosa.ligar();
+            lista = Instancias.gerar("CidadePCV", cidades, semente);
+        }
+
+        @TearDown(Level.Trial)
+        public void encerrar() {
+            SaidaSilenciosa.desligar();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Paralelismo {
+        @Param({"1", "2", "4", "8"})
+        public int threads;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Lote {
+        List<Object> instancias;
+        Object servico;
+
+        @Setup(Level.Trial)
+        public void preparar(Instancia instancia, Paralelismo paralelismo) throws Throwable {
+            instancias = new ArrayList<>(INSTANCIAS_POR_LOTE);
+            for (int i = 0; i < INSTANCIAS_POR_LOTE; i++) {
+                instancias.add(INSTANCIA_DE.invoke(Instancias.gerar("CidadePCV", instancia.cidades, instancia.semente + i)));
+            }
+            servico = NOVO_SERVICO.invoke(paralelismo.threads, INSTANCIAS_POR_LOTE);
+        }
+
+        @TearDown(Level.Trial)
+        public void encerrar() throws Throwable {
+            FECHAR_SERVICO.invoke(servico);
+        }
+    }
+
+    @Benchmark
+    public Object vizinhoMaisProximo(Instancia instancia) throws Throwable {
+        return VIZINHO_MAIS_PROXIMO.invoke(instancia.lista);
+    }
+
+    @Benchmark
+    public Object forcaBruta(Instancia instancia, Paralelismo paralelismo, Avaliador avaliador) throws Throwable {
+        int profundidade = (int) PROFUNDIDADE_PADRAO.invoke(instancia.cidades, paralelismo.threads);
+        return FORCA_BRUTA.invoke(instancia.lista, profundidade, paralelismo.threads);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSTANCIAS_POR_LOTE)
+    public Object servicoEmLote(Lote lote) throws Throwable {
+        List<?> futuros = (List<?>) RESOLVER_LOTE.invoke(lote.servico, lote.instancias);
+        Object ultimo = null;
+        for (Object futuro : futuros) {
+            ultimo = ((CompletableFuture<?>) futuro).join();
+        }
+        return ultimo;
+    }
+}
@@ -0,0 +1,63 @@
+package pcv.benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Benchmarks da solução sequencial (ResolvedorPCV). A Força Bruta é medida com os dois AvaliadorDeRotas,
+// para comparar as caudas avaliadas pela Vector API com o núcleo escalar.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Avaliador.MODULO_VETORIAL)
+public class SequencialBenchmark {
+    private static final Class<?> RESULTADO = Reflexao.classe("Resultado");
+    private static final MethodHandle NOVO_RESOLVEDOR = Reflexao.construtor("ResolvedorPCV", List.class);
+    private static final MethodHandle VIZINHO_MAIS_PROXIMO = Reflexao.virtual("ResolvedorPCV", "resolverVizinhoMaisProximo", RESULTADO);
+    private static final MethodHandle FORCA_BRUTA = Reflexao.virtual("ResolvedorPCV", "resolverForcaBruta", RESULTADO);
+
+    @Param({"8", "9", "10", "11", "12", "13"})
+    public int cidades;
+
+    @Param({"42"})
+    public long semente;
+
+    private Object resolvedor;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Throwable {
+        SaidaSilenciosa.ligar();
+        resolvedor = NOVO_RESOLVEDOR.invoke(Instancias.gerar("Cidade", cidades, semente));
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        SaidaSilenciosa.desligar();
+    }
+
+    @Benchmark
+    public Object vizinhoMaisProximo() throws Throwable {
+        return VIZINHO_MAIS_PROXIMO.invoke(resolvedor);
+    }
+
+    @Benchmark
+    public Object forcaBruta(Avaliador avaliador) throws Throwable {
+        return FORCA_BRUTA.invoke(resolvedor);
+    }
+}
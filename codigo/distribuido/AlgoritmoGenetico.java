@@ -0,0 +1,148 @@
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Logger;
+
+// Algoritmo genético distribuído em ilhas: cada worker mantém uma IlhaGenetica (iniciarIlha) e o servidor a
+// faz evoluir em rodadas de GERACOES_ENTRE_MIGRACOES gerações (evoluirIlha), uma thread por worker. A cada
+// rodada a melhor rota de uma ilha segue para a ilha seguinte do anel, que a recebe como imigrante na chamada
+// seguinte; como cada rodada já devolve a melhor rota da ilha, a migração não custa chamadas extras.
+//
+// As ilhas só trocam rotas pelas caixas de entrada do servidor (caixas[i] guarda a última rota enviada para a
+// ilha i, retirada com getAndSet), sem travas entre as threads, como no AlgoritmoGenetico da solução paralela.
+//
+// Falhas: um worker que perdeu a ilha (InstanciaDesconhecidaException) recebe uma nova, e a melhor rota global
+// vai para ela como imigrante; um worker com FALHAS_SEGUIDAS_PARA_DESCARTE falhas seguidas sai do anel e as
+// demais ilhas continuam. Com um prazo, cada rodada leva o tempo que resta, e o worker para no meio dela.
+public class AlgoritmoGenetico {
+    private static final Logger LOG = Log.de(AlgoritmoGenetico.class);
+    public static final int GERACOES_ENTRE_MIGRACOES = 5;
+    private static final int FALHAS_SEGUIDAS_PARA_DESCARTE = 3;
+
+    private final Instancia instancia;
+    private final long idDaInstancia;
+    private final List<TSPInterface> workers;
+    private final long[] sementes;
+    private final AtomicReferenceArray<int[]> caixas;
+    // 1 enquanto a ilha i evolui, 0 depois que ela termina ou é descartada
+    private final AtomicIntegerArray ativas;
+    private final Metricas metricas = Metricas.doProcesso();
+    private volatile ResultadoCompacto melhorGlobal = new ResultadoCompacto(null, Double.POSITIVE_INFINITY);
+
+    public AlgoritmoGenetico(Instancia instancia, List<TSPInterface> workers, long semente) {
+        this.instancia = instancia;
+        this.idDaInstancia = HashDeCoordenadas.calcular(instancia.getXs(), instancia.getYs());
+        this.workers = workers;
+        SplittableRandom gerador = new SplittableRandom(semente);
+        this.sementes = new long[workers.size()];
+        for (int i = 0; i < sementes.length; i++) {
+            sementes[i] = gerador.nextLong();
+        }
+        this.caixas = new AtomicReferenceArray<>(workers.size());
+        this.ativas = new AtomicIntegerArray(workers.size());
+        for (int i = 0; i < workers.size(); i++) {
+            ativas.set(i, 1);
+        }
+    }
+
+    // Evolui as ilhas por até o número de gerações dado, ou até o prazo (que pode ser null), e devolve a melhor
+    // rota entre elas, nunca marcada como ótimo comprovado
+    public ResultadoPCV executar(int geracoes, Prazo prazo) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(workers.size());
+        try {
+            List<Future<?>> ilhas = new ArrayList<>();
+            for (int i = 0; i < workers.size(); i++) {
+                int indice = i;
+                ilhas.add(threads.submit(() -> evoluir(indice, geracoes, prazo)));
+            }
+            for (Future<?> ilha : ilhas) {
+                ilha.get();
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+        ResultadoCompacto melhor = melhorGlobal;
+        if (melhor.getRota() == null) {
+            throw new IllegalStateException("Todos os workers falharam antes de devolver uma rota.");
+        }
+        return new ResultadoPCV(instancia.montarRota(melhor.getRota()), melhor.getRota(), melhor.getDistancia(), false);
+    }
+
+    private void evoluir(int indice, int geracoes, Prazo prazo) {
+        TSPInterface worker = workers.get(indice);
+        int n = instancia.getTamanho();
+        int falhasSeguidas = 0;
+        boolean iniciada = false;
+        int feitas = 0;
+        while (feitas < geracoes && (prazo == null || !prazo.esgotado())) {
+            try {
+                if (!iniciada) {
+                    long inicio = System.nanoTime();
+                    try {
+                        worker.iniciarIlha(idDaInstancia, instancia.getXs(), instancia.getYs(), IlhaGenetica.POPULACAO_PADRAO, sementes[indice]++);
+                    } finally {
+                        metricas.registrarChamada("iniciarIlha", System.nanoTime() - inicio);
+                    }
+                    iniciada = true;
+                }
+                long tempoMaximoMs = prazo == null ? Long.MAX_VALUE : TimeUnit.NANOSECONDS.toMillis(prazo.getRestanteNs());
+                int passo = Math.min(GERACOES_ENTRE_MIGRACOES, geracoes - feitas);
+                ResultadoCompacto resultado;
+                long inicio = System.nanoTime();
+                try {
+                    resultado = worker.evoluirIlha(idDaInstancia, passo, tempoMaximoMs, caixas.getAndSet(indice, null));
+                } finally {
+                    metricas.registrarChamada("evoluirIlha", System.nanoTime() - inicio);
+                }
+                falhasSeguidas = 0;
+                feitas += passo;
+                registrar(resultado);
+                int proxima = proximaAtiva(indice);
+                if (proxima != indice) {
+                    caixas.set(proxima, Arrays.copyOf(resultado.getRota(), n));
+                }
+            } catch (InstanciaDesconhecidaException e) {
+                // O worker foi reiniciado ou descartou a ilha: começa outra, que recebe a melhor rota conhecida
+                LOG.warning("SERVIDOR: worker " + indice + " perdeu a ilha; iniciando outra.");
+                iniciada = false;
+                ResultadoCompacto melhor = melhorGlobal;
+                if (melhor.getRota() != null) {
+                    caixas.set(indice, Arrays.copyOf(melhor.getRota(), n));
+                }
+            } catch (RemoteException e) {
+                LOG.warning("SERVIDOR: worker " + indice + " falhou na ilha: " + e);
+                if (++falhasSeguidas >= FALHAS_SEGUIDAS_PARA_DESCARTE) {
+                    LOG.warning("SERVIDOR: worker " + indice + " descartado após " + FALHAS_SEGUIDAS_PARA_DESCARTE + " falhas seguidas.");
+                    break;
+                }
+            }
+        }
+        ativas.set(indice, 0);
+    }
+
+    // A próxima ilha do anel que ainda está evoluindo
+    private int proximaAtiva(int indice) {
+        for (int passo = 1; passo < ativas.length(); passo++) {
+            int outra = (indice + passo) % ativas.length();
+            if (ativas.get(outra) == 1) {
+                return outra;
+            }
+        }
+        return indice;
+    }
+
+    private synchronized void registrar(ResultadoCompacto resultado) {
+        if (resultado.getRota() != null && resultado.getDistancia() < melhorGlobal.getDistancia()) {
+            melhorGlobal = resultado;
+            LOG.fine(() -> String.format("SERVIDOR: nova melhor rota do algoritmo genético: %.2f", resultado.getDistancia()));
+        }
+    }
+}
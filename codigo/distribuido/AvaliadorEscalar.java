@@ -0,0 +1,45 @@
+// Implementação de referência do AvaliadorDeRotas, uma cauda ou um candidato por vez. É a usada quando a Vector
+// API não está disponível, e a base de comparação dos benchmarks da AvaliadorVetorial.
+public class AvaliadorEscalar extends AvaliadorDeRotas {
+    @Override
+    public int getPistas() {
+        return 1;
+    }
+
+    @Override
+    public void menoresDasCaudas(double[] arestas, double[] bases, double[] menores) {
+        int[][] aresta = CaudaDaPermutacao.ARESTA;
+        double menor = Double.POSITIVE_INFINITY;
+        for (int o = 0; o < CaudaDaPermutacao.ORDENS; o++) {
+            double total = bases[0];
+            for (int e = 0; e <= CaudaDaPermutacao.CIDADES; e++) {
+                total += arestas[aresta[e][o]];
+            }
+            if (total < menor) {
+                menor = total;
+            }
+        }
+        menores[0] = menor;
+    }
+
+    @Override
+    public int maisProximo(double[] xs, double[] ys, int quantos, double x, double y) {
+        int melhor = -1;
+        double menor = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < quantos; i++) {
+            double dx = xs[i] - x;
+            double dy = ys[i] - y;
+            double distancia = dx * dx + dy * dy;
+            if (distancia < menor) {
+                menor = distancia;
+                melhor = i;
+            }
+        }
+        return melhor;
+    }
+
+    @Override
+    public String toString() {
+        return "escalar";
+    }
+}
@@ -0,0 +1,275 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Cache de rotas ótimas comprovadas, para não repetir a busca exata de um conjunto de cidades já resolvido.
+//
+// A chave é a forma canônica das coordenadas: transladadas para que o menor x e o menor y sejam 0 e ordenadas
+// por (x, y). O mesmo conjunto de pontos, em qualquer ordem e em qualquer posição do plano, tem a mesma forma
+// canônica e as mesmas rotas ótimas, então uma rota guardada volta nos índices de quem pergunta, começando pela
+// cidade 0 como as dos algoritmos. A chave guarda as coordenadas inteiras, e não só o hash: duas instâncias
+// diferentes nunca se confundem.
+//
+// Só entram rotas ótimas comprovadas. As heurísticas não passam pelo cache (calcular a chave custa tanto quanto
+// o Vizinho Mais Próximo), nem as buscas interrompidas por prazo, que uma nova execução pode melhorar.
+//
+// Em memória, as entradas usadas há mais tempo saem primeiro quando a soma estimada dos tamanhos passa do
+// limite. Com um diretório, cada entrada também é gravada em um arquivo próprio (escrito à parte e renomeado,
+// para que uma queda não deixe um arquivo pela metade) e procurada nele quando não está na memória, de modo que
+// um processo novo começa com o que os anteriores resolveram.
+public class CacheDeResultados {
+    public static final long BYTES_PADRAO = 64L << 20;
+
+    private static final int MAGICO = 0x50435652; // "PCVR"
+    private static final int VERSAO = 1;
+    // Estimativa do que cada entrada ocupa além dos arrays
+    private static final long BYTES_POR_ENTRADA = 128;
+
+    private final long bytesMaximos;
+    private final Path diretorio;
+    private final LinkedHashMap<Chave, int[]> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long acertos;
+    private long falhas;
+
+    public CacheDeResultados() {
+        this(BYTES_PADRAO);
+    }
+
+    public CacheDeResultados(long bytesMaximos) {
+        this.bytesMaximos = bytesMaximos;
+        this.diretorio = null;
+    }
+
+    public CacheDeResultados(long bytesMaximos, Path diretorio) throws IOException {
+        this.bytesMaximos = bytesMaximos;
+        this.diretorio = Files.createDirectories(diretorio);
+    }
+
+    // A rota ótima guardada para estas coordenadas, nos índices delas e repetindo a cidade 0 no fim; null se não
+    // houver
+    public int[] buscar(int[] xs, int[] ys) {
+        FormaCanonica forma = new FormaCanonica(xs, ys);
+        int[] rota;
+        synchronized (this) {
+            rota = entradas.get(forma.chave);
+        }
+        if (rota == null && diretorio != null) {
+            rota = lerDoDisco(forma.chave);
+            if (rota != null) {
+                synchronized (this) {
+                    guardarNaMemoria(forma.chave, rota);
+                }
+            }
+        }
+        synchronized (this) {
+            if (rota == null) {
+                falhas++;
+                return null;
+            }
+            acertos++;
+        }
+        return forma.paraOriginal(rota);
+    }
+
+    // rota: rota ótima comprovada nos índices de xs/ys, fechando o ciclo
+    public void guardar(int[] xs, int[] ys, int[] rota) {
+        FormaCanonica forma = new FormaCanonica(xs, ys);
+        int[] canonica = forma.paraCanonica(rota);
+        synchronized (this) {
+            guardarNaMemoria(forma.chave, canonica);
+        }
+        if (diretorio != null) {
+            try {
+                gravarNoDisco(forma.chave, canonica);
+            } catch (IOException e) {
+                // A entrada continua valendo na memória; só não sobrevive ao processo
+                System.err.println("Erro ao gravar no cache de resultados: " + e);
+            }
+        }
+    }
+
+    public synchronized long getAcertos() {
+        return acertos;
+    }
+
+    public synchronized long getFalhas() {
+        return falhas;
+    }
+
+    public synchronized int getEntradas() {
+        return entradas.size();
+    }
+
+    private void guardarNaMemoria(Chave chave, int[] rota) {
+        int[] anterior = entradas.put(chave, rota);
+        if (anterior == null) {
+            bytes += tamanho(chave);
+        }
+        // Remove as usadas há mais tempo, mas nunca a que acabou de entrar
+        Iterator<Map.Entry<Chave, int[]>> maisAntigas = entradas.entrySet().iterator();
+        while (bytes > bytesMaximos && entradas.size() > 1) {
+            Chave removida = maisAntigas.next().getKey();
+            maisAntigas.remove();
+            bytes -= tamanho(removida);
+        }
+    }
+
+    private static long tamanho(Chave chave) {
+        // Coordenadas canônicas e rota (n + 1 índices)
+        return 12L * chave.xs.length + BYTES_POR_ENTRADA;
+    }
+
+    private Path arquivo(Chave chave) {
+        return diretorio.resolve(String.format("%016x.pcvr", chave.hash));
+    }
+
+    private int[] lerDoDisco(Chave chave) {
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo(chave))))) {
+            int n = chave.xs.length;
+            if (entrada.readInt() != MAGICO || entrada.readInt() != VERSAO || entrada.readInt() != n) {
+                return null;
+            }
+            // Hashes iguais não bastam: as coordenadas gravadas precisam ser as mesmas
+            for (int i = 0; i < n; i++) {
+                if (entrada.readInt() != chave.xs[i] || entrada.readInt() != chave.ys[i]) {
+                    return null;
+                }
+            }
+            int[] rota = new int[n + 1];
+            for (int i = 0; i <= n; i++) {
+                rota[i] = entrada.readInt();
+                if (rota[i] < 0 || rota[i] >= n) {
+                    return null;
+                }
+            }
+            return rota;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // Arquivo ilegível conta como ausente; a busca exata o regrava
+            return null;
+        }
+    }
+
+    private void gravarNoDisco(Chave chave, int[] rota) throws IOException {
+        Path temporario = Files.createTempFile(diretorio, "entrada", ".tmp");
+        try {
+            try (DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporario)))) {
+                saida.writeInt(MAGICO);
+                saida.writeInt(VERSAO);
+                saida.writeInt(chave.xs.length);
+                for (int i = 0; i < chave.xs.length; i++) {
+                    saida.writeInt(chave.xs[i]);
+                    saida.writeInt(chave.ys[i]);
+                }
+                for (int cidade : rota) {
+                    saida.writeInt(cidade);
+                }
+            }
+            Files.move(temporario, arquivo(chave), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+
+    // Coordenadas canônicas de uma instância e a correspondência entre as duas numerações:
+    // original[c] é o índice, na instância, da cidade que ficou na posição c da forma canônica
+    private static final class FormaCanonica {
+        final Chave chave;
+        final int[] original;
+
+        FormaCanonica(int[] xs, int[] ys) {
+            int n = xs.length;
+            int menorX = Integer.MAX_VALUE;
+            int menorY = Integer.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                menorX = Math.min(menorX, xs[i]);
+                menorY = Math.min(menorY, ys[i]);
+            }
+            // Ordena os índices por (x, y); cidades no mesmo ponto são intercambiáveis em qualquer rota
+            long[] ordenacao = new long[n];
+            for (int i = 0; i < n; i++) {
+                ordenacao[i] = ((long) (xs[i] - menorX) << 32) | ((long) (ys[i] - menorY) & 0xffffffffL);
+            }
+            Integer[] indices = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                indices[i] = i;
+            }
+            Arrays.sort(indices, (a, b) -> Long.compare(ordenacao[a], ordenacao[b]));
+
+            original = new int[n];
+            int[] cxs = new int[n];
+            int[] cys = new int[n];
+            for (int c = 0; c < n; c++) {
+                original[c] = indices[c];
+                cxs[c] = xs[original[c]] - menorX;
+                cys[c] = ys[original[c]] - menorY;
+            }
+            chave = new Chave(cxs, cys);
+        }
+
+        int[] paraCanonica(int[] rota) {
+            int[] canonica = new int[original.length];
+            for (int c = 0; c < original.length; c++) {
+                canonica[original[c]] = c;
+            }
+            int[] resultado = new int[rota.length];
+            for (int i = 0; i < rota.length; i++) {
+                resultado[i] = canonica[rota[i]];
+            }
+            return resultado;
+        }
+
+        // Traduz a rota e a gira para começar (e terminar) na cidade 0 da instância
+        int[] paraOriginal(int[] rota) {
+            int n = original.length;
+            int inicio = 0;
+            while (original[rota[inicio]] != 0) {
+                inicio++;
+            }
+            int[] resultado = new int[n + 1];
+            for (int i = 0; i <= n; i++) {
+                resultado[i] = original[rota[(inicio + i) % n]];
+            }
+            return resultado;
+        }
+    }
+
+    private static final class Chave {
+        final int[] xs;
+        final int[] ys;
+        final long hash;
+
+        Chave(int[] xs, int[] ys) {
+            this.xs = xs;
+            this.ys = ys;
+            // Calculado sobre as coordenadas canônicas
+            this.hash = HashDeCoordenadas.calcular(xs, ys);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash);
+        }
+
+        @Override
+        public boolean equals(Object outro) {
+            if (!(outro instanceof Chave)) {
+                return false;
+            }
+            Chave chave = (Chave) outro;
+            return hash == chave.hash && Arrays.equals(xs, chave.xs) && Arrays.equals(ys, chave.ys);
+        }
+    }
+}
@@ -1,51 +1,233 @@
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
+// Busca executada pelo worker sobre os índices das cidades do subproblema recebido.
+// As distâncias vêm da matriz pré-calculada, e não dos objetos CidadePCV.
+//
+// O subproblema é um prefixo fixo da rota (prefixo[0] é a origem) seguido de todas as ordens das
+// cidades restantes. Com um LimiteCompartilhado, a busca poda qualquer prefixo cujo comprimento somado às
+// menores saídas das cidades que faltam já não seja menor que a melhor rota conhecida pelo cluster, e
+// oferece a ele cada rota melhor que encontra. A enumeração é iterativa, com uma pilha explícita: escolha[k] guarda o próximo
+// candidato da posição k e parcial[k] a distância desde a origem até a cidade da posição k - 1. Cada
+// passo soma uma única aresta, e nenhum objeto é alocado durante a busca. No modo INCREMENTAL as
+// CaudaDaPermutacao.CIDADES últimas posições não são percorridas: a CaudaDaPermutacao avalia as ordens delas de
+// uma vez, junto com as de outros prefixos (uma cauda por pista do AvaliadorDeRotas), sem poda dentro da cauda.
 public class CalculadorDePermutacao {
-    private List<CidadePCV> melhorRotaLocal;
+    private int[] melhorRotaLocal;
     private double menorDistanciaLocal = Double.POSITIVE_INFINITY;
-    private final CidadePCV cidadeOrigem;
-    private final CidadePCV cidadeInicialDaPermutacao;
-
-    public CalculadorDePermutacao(CidadePCV origem, CidadePCV inicialDaPermutacao) {
-        this.cidadeOrigem = origem;
-        this.cidadeInicialDaPermutacao = inicialDaPermutacao;
-    }
-    
-    
-    public void permutar(List<CidadePCV> cidades, int k) {
-        if (k == cidades.size()) {
-            double distanciaAtual = calcularDistanciaDaRota(cidades);
-            if (distanciaAtual < this.menorDistanciaLocal) {
+    private long folhasVisitadas;
+    // Subárvores descartadas pelo limite; contadas aqui, e não nas Metricas, para não pesar no laço
+    private long nosPodados;
+    private final MatrizDistancias matriz;
+    private final int[] prefixo;
+    private final ModoAvaliacao modo;
+    // Restrição de simetria: só gera rotas em que cidadeAntes aparece antes de cidadeDepois (-1 desliga)
+    private final int cidadeAntes;
+    private final int cidadeDepois;
+    // Usados apenas na busca com poda
+    private final LimiteCompartilhado limite;
+    private final double[] menoresSaidas;
+
+    public CalculadorDePermutacao(MatrizDistancias matriz, int origem, int inicialDaPermutacao) {
+        this(matriz, origem, inicialDaPermutacao, ModoAvaliacao.INCREMENTAL);
+    }
+
+    public CalculadorDePermutacao(MatrizDistancias matriz, int origem, int inicialDaPermutacao, ModoAvaliacao modo) {
+        this(matriz, origem, inicialDaPermutacao, modo, -1, -1);
+    }
+
+    public CalculadorDePermutacao(MatrizDistancias matriz, int origem, int inicialDaPermutacao, ModoAvaliacao modo, int cidadeAntes, int cidadeDepois) {
+        this(matriz, new int[] { origem, inicialDaPermutacao }, modo, cidadeAntes, cidadeDepois);
+    }
+
+    public CalculadorDePermutacao(MatrizDistancias matriz, int[] prefixo, ModoAvaliacao modo, int cidadeAntes, int cidadeDepois) {
+        this(matriz, prefixo, modo, cidadeAntes, cidadeDepois, null, null);
+    }
+
+    public CalculadorDePermutacao(MatrizDistancias matriz, int[] prefixo, ModoAvaliacao modo, int cidadeAntes, int cidadeDepois,
+            LimiteCompartilhado limite, double[] menoresSaidas) {
+        this.matriz = matriz;
+        this.prefixo = prefixo;
+        this.modo = modo;
+        this.cidadeAntes = cidadeAntes;
+        this.cidadeDepois = cidadeDepois;
+        this.limite = limite;
+        this.menoresSaidas = menoresSaidas;
+    }
+
+    public void permutar(int[] cidades) {
+        final int m = cidades.length;
+        final int n = matriz.getTamanho();
+        final double[] d = matriz.getDistancias();
+        final int origem = prefixo[0];
+        final int ultimaDoPrefixo = prefixo[prefixo.length - 1];
+
+        // Se cidadeDepois está no prefixo antes de cidadeAntes (ou sem ela), todas as rotas deste prefixo são
+        // espelhos de rotas de outros prefixos; se cidadeAntes já está no prefixo, qualquer ordem do restante
+        // respeita a restrição de simetria
+        int depoisRestrita = cidadeDepois;
+        if (cidadeDepois >= 0) {
+            int posicaoAntes = posicao(prefixo, cidadeAntes);
+            int posicaoDepois = posicao(prefixo, cidadeDepois);
+            if (posicaoDepois >= 0 && (posicaoAntes < 0 || posicaoDepois < posicaoAntes)) {
+                return;
+            }
+            if (posicaoAntes >= 0) {
+                depoisRestrita = -1;
+            }
+        }
+
+        // Buffers alocados uma única vez por busca
+        final double[] parcial = new double[m + 1];
+        final int[] escolha = new int[m + 1];
+        final boolean recalcular = modo == ModoAvaliacao.COMPLETA;
+        final int[] rota = new int[prefixo.length + m + 1];
+        System.arraycopy(prefixo, 0, rota, 0, prefixo.length);
+        rota[prefixo.length + m] = origem;
+        boolean encontrou = false;
+
+        for (int i = 1; i < prefixo.length; i++) {
+            parcial[0] += d[prefixo[i - 1] * n + prefixo[i]];
+        }
+
+        // Na busca com poda, somaMinimas[k] é a soma das menores saídas das cidades em cidades[k..], ainda não
+        // visitadas; com a menor saída da última cidade fixada, dá um limite inferior para o que falta percorrer
+        final boolean podar = limite != null;
+        final double[] somaMinimas = podar ? new double[m + 1] : null;
+        if (podar) {
+            for (int cidade : cidades) {
+                somaMinimas[0] += menoresSaidas[cidade];
+            }
+            if (parcial[0] + menoresSaidas[ultimaDoPrefixo] + somaMinimas[0] >= limiteAtual()) {
+                nosPodados++;
+                return;
+            }
+        }
+        final CaudaDaPermutacao cauda = !recalcular && m >= CaudaDaPermutacao.CIDADES
+                ? new CaudaDaPermutacao(AvaliadorDeRotas.padrao(), matriz, origem, cidadeAntes, depoisRestrita, m) : null;
+        final int folha = cauda != null ? m - CaudaDaPermutacao.CIDADES : m;
+        int k = 0;
+        while (k >= 0) {
+            if (k == folha && cauda != null) {
+                folhasVisitadas += cauda.adicionar(cidades, k == 0 ? ultimaDoPrefixo : cidades[k - 1], parcial[k]);
+                if (cauda.isCheia()) {
+                    encontrou |= avaliarCaudas(cauda, rota, podar);
+                }
+            } else if (k == m) {
+                folhasVisitadas++;
+                int ultima = m == 0 ? ultimaDoPrefixo : cidades[m - 1];
+                double distanciaAtual = recalcular ? calcularDistanciaDaRota(cidades) : parcial[m] + d[ultima * n + origem];
+                if (distanciaAtual < (podar ? limiteAtual() : this.menorDistanciaLocal)) {
+                    this.menorDistanciaLocal = distanciaAtual;
+                    System.arraycopy(cidades, 0, rota, prefixo.length, m);
+                    encontrou = true;
+                    if (podar) {
+                        // As outras threads do worker passam a podar com ela, e o servidor a recebe na próxima publicação
+                        limite.oferecer(rota, distanciaAtual);
+                    }
+                }
+            } else if (escolha[k] < m) {
+                trocar(cidades, k, escolha[k]);
+                // Descarta a subárvore em que cidadeDepois vem antes de cidadeAntes: ela só contém rotas espelhadas
+                if (cidades[k] == depoisRestrita && contem(cidades, k + 1, cidadeAntes)) {
+                    trocar(cidades, k, escolha[k]);
+                    escolha[k]++;
+                    continue;
+                }
+                int anterior = k == 0 ? ultimaDoPrefixo : cidades[k - 1];
+                double novoParcial = parcial[k] + d[anterior * n + cidades[k]];
+                if (podar && novoParcial + somaMinimas[k] >= limiteAtual()) {
+                    nosPodados++;
+                    trocar(cidades, k, escolha[k]);
+                    escolha[k]++;
+                    continue;
+                }
+                parcial[k + 1] = novoParcial;
+                if (podar) {
+                    somaMinimas[k + 1] = somaMinimas[k] - menoresSaidas[cidades[k]];
+                }
+                k++;
+                escolha[k] = k;
+                continue;
+            }
+            // Posição esgotada (ou rota completa, ou entregue à cauda): volta um nível, desfaz a troca e avança o candidato
+            k--;
+            if (k >= 0) {
+                trocar(cidades, k, escolha[k]);
+                escolha[k]++;
+            }
+        }
+        if (cauda != null && cauda.getPendentes() > 0) {
+            encontrou |= avaliarCaudas(cauda, rota, podar);
+        }
+
+        if (encontrou) {
+            this.melhorRotaLocal = rota;
+        }
+    }
+
+    // Avalia as caudas guardadas e fica com a primeira rota, na ordem da enumeração, menor que a melhor conhecida
+    private boolean avaliarCaudas(CaudaDaPermutacao cauda, int[] rota, boolean podar) {
+        cauda.avaliar();
+        boolean encontrou = false;
+        for (int pista = 0; pista < cauda.getPendentes(); pista++) {
+            double distanciaAtual = cauda.getComprimento(pista);
+            if (distanciaAtual < (podar ? limiteAtual() : this.menorDistanciaLocal)) {
                 this.menorDistanciaLocal = distanciaAtual;
-                this.melhorRotaLocal = new ArrayList<>();
-                this.melhorRotaLocal.add(cidadeOrigem);
-                this.melhorRotaLocal.add(cidadeInicialDaPermutacao);
-                this.melhorRotaLocal.addAll(cidades);
-                this.melhorRotaLocal.add(cidadeOrigem);
+                cauda.copiarRota(pista, rota, prefixo.length);
+                encontrou = true;
+                if (podar) {
+                    limite.oferecer(rota, distanciaAtual);
+                }
+            }
+        }
+        cauda.esvaziar();
+        return encontrou;
+    }
+
+    private double limiteAtual() {
+        return Math.min(menorDistanciaLocal, limite.get());
+    }
+
+    private static void trocar(int[] cidades, int i, int j) {
+        int temp = cidades[i];
+        cidades[i] = cidades[j];
+        cidades[j] = temp;
+    }
+
+    private static int posicao(int[] cidades, int cidade) {
+        for (int i = 0; i < cidades.length; i++) {
+            if (cidades[i] == cidade) {
+                return i;
             }
-        } else {
-            for (int i = k; i < cidades.size(); i++) {
-                Collections.swap(cidades, k, i);
-                permutar(cidades, k + 1);
-                Collections.swap(cidades, k, i);
+        }
+        return -1;
+    }
+
+    private static boolean contem(int[] cidades, int inicio, int cidade) {
+        for (int i = inicio; i < cidades.length; i++) {
+            if (cidades[i] == cidade) {
+                return true;
             }
         }
+        return false;
     }
-    
-    private double calcularDistanciaDaRota(List<CidadePCV> cidadesPermutadas) {
+
+    // Usado apenas no modo COMPLETA: soma a rota inteira a partir da origem
+    private double calcularDistanciaDaRota(int[] cidadesPermutadas) {
         double distancia = 0;
-        CidadePCV anterior = cidadeInicialDaPermutacao;
-        distancia += cidadeOrigem.distanciaPara(anterior);
-        for (CidadePCV atual : cidadesPermutadas) {
-            distancia += anterior.distanciaPara(atual);
+        int anterior = prefixo[0];
+        for (int i = 1; i < prefixo.length; i++) {
+            distancia += matriz.distancia(anterior, prefixo[i]);
+            anterior = prefixo[i];
+        }
+        for (int atual : cidadesPermutadas) {
+            distancia += matriz.distancia(anterior, atual);
             anterior = atual;
         }
-        distancia += anterior.distanciaPara(cidadeOrigem);
+        distancia += matriz.distancia(anterior, prefixo[0]);
         return distancia;
     }
 
-    public List<CidadePCV> getMelhorRotaLocal() { return melhorRotaLocal; }
+    public int[] getMelhorRotaLocal() { return melhorRotaLocal; }
     public double getMenorDistanciaLocal() { return menorDistanciaLocal; }
-}
\ No newline at end of file
+    public long getFolhasVisitadas() { return folhasVisitadas; }
+    public long getNosPodados() { return nosPodados; }
+}
@@ -0,0 +1,18 @@
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+// Objeto remoto exportado pelo servidor durante uma execução, pelo qual os workers informam as rotas
+// melhores que encontram. O stub vai para cada worker junto com a instância (carregarInstancia).
+public interface CanalDeLimites extends Remote {
+    /**
+     * Chamado pelo worker quando encontra uma rota menor que o limite que conhecia.
+     * A rota vai junto com a distância, para que o servidor nunca difunda um limite cuja rota ele não tenha:
+     * se a tarefa que a encontrou se perder, a rota continua no servidor.
+     * @param idDaInstancia Instância à qual a rota pertence.
+     * @param rota Índices das cidades, começando e terminando na origem.
+     * @param distancia Distância total da rota.
+     * @return A menor distância conhecida pelo servidor, já contando esta rota, que o worker passa a usar na poda.
+     * @throws RemoteException
+     */
+    double publicarRota(long idDaInstancia, int[] rota, double distancia) throws RemoteException;
+}
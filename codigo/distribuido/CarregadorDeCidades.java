@@ -0,0 +1,290 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Lê instâncias direto de um arquivo mapeado em memória, sem passar por String linha a linha. Três formatos:
+//
+// - CSV "nome,x,y" (o cidades.txt): os números são convertidos byte a byte e os nomes ficam como posições
+//   no arquivo (ver Instancia). Linhas que não têm três campos são ignoradas, como antes.
+// - Binário: cabeçalho (MAGICO, VERSAO, número de cidades) e depois todos os x e todos os y em int32
+//   little-endian. Não há o que converter: os arrays são copiados em bloco do arquivo mapeado.
+// - TSPLIB (.tsp) com NODE_COORD_SECTION e distância EUC_2D ou CEIL_2D. Coordenadas com casas decimais são
+//   arredondadas para o inteiro mais próximo, já que as cidades aqui têm coordenadas inteiras.
+//
+// O formato é reconhecido pelo conteúdo (binário) ou pela extensão (.tsp); o resto é lido como CSV.
+public final class CarregadorDeCidades {
+    public static final int MAGICO = 0x42564350; // "PCVB" em little-endian
+    public static final int VERSAO = 1;
+    private static final int TAMANHO_DO_CABECALHO = 12;
+
+    private CarregadorDeCidades() {}
+
+    // Converte qualquer formato suportado para o binário: java CarregadorDeCidades entrada saida
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: java CarregadorDeCidades <entrada (.txt, .csv, .tsp ou binário)> <saída binária>");
+            return;
+        }
+        Instancia instancia = carregar(Paths.get(args[0]));
+        gravarBinario(instancia, Paths.get(args[1]));
+        System.out.println(instancia.getTamanho() + " cidades gravadas em '" + args[1] + "'.");
+    }
+
+    public static Instancia carregar(Path arquivo) throws IOException {
+        ByteBuffer bytes = mapear(arquivo);
+        if (bytes.remaining() >= TAMANHO_DO_CABECALHO && bytes.order(ByteOrder.LITTLE_ENDIAN).getInt(0) == MAGICO) {
+            return lerBinario(bytes, arquivo);
+        }
+        if (arquivo.getFileName().toString().toLowerCase().endsWith(".tsp")) {
+            return lerTsplib(bytes, arquivo);
+        }
+        return lerCsv(bytes, arquivo);
+    }
+
+    public static void gravarBinario(Instancia instancia, Path arquivo) throws IOException {
+        int n = instancia.getTamanho();
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_DO_CABECALHO + 8 * n).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGICO).putInt(VERSAO).putInt(n);
+        buffer.asIntBuffer().put(instancia.getXs()).put(instancia.getYs());
+        // A visão de ints não move a posição do buffer; grava desde o cabeçalho
+        buffer.rewind();
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+        }
+    }
+
+    private static MappedByteBuffer mapear(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException(arquivo + " tem mais de 2 GB; converta-o para o formato binário em partes menores.");
+            }
+            // O mapeamento continua válido depois de fechar o canal
+            return canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+    }
+
+    private static Instancia lerBinario(ByteBuffer bytes, Path arquivo) throws IOException {
+        int versao = bytes.getInt(4);
+        int n = bytes.getInt(8);
+        if (versao != VERSAO || n < 0 || (long) TAMANHO_DO_CABECALHO + 8L * n > bytes.limit()) {
+            throw new IOException(arquivo + " não é um arquivo binário de cidades válido (versão " + versao + ", " + n + " cidades).");
+        }
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        bytes.position(TAMANHO_DO_CABECALHO);
+        bytes.asIntBuffer().get(xs).get(ys);
+        return new Instancia(xs, ys);
+    }
+
+    private static Instancia lerCsv(ByteBuffer bytes, Path arquivo) throws IOException {
+        int limite = bytes.limit();
+        // Uma linha por '\n' (mais a última, sem ele); os arrays são cortados no fim se sobrarem posições
+        int linhas = 1;
+        for (int i = 0; i < limite; i++) {
+            if (bytes.get(i) == '\n') {
+                linhas++;
+            }
+        }
+        int[] xs = new int[linhas];
+        int[] ys = new int[linhas];
+        int[] inicioDosNomes = new int[linhas];
+        int[] tamanhoDosNomes = new int[linhas];
+
+        int n = 0;
+        int numeroDaLinha = 0;
+        int inicio = 0;
+        while (inicio < limite) {
+            // Acha o fim da linha e as vírgulas em uma única passada
+            int primeiraVirgula = -1;
+            int segundaVirgula = -1;
+            int virgulas = 0;
+            int fim = inicio;
+            for (byte b; fim < limite && (b = bytes.get(fim)) != '\n'; fim++) {
+                if (b == ',') {
+                    virgulas++;
+                    if (virgulas == 1) {
+                        primeiraVirgula = fim;
+                    } else if (virgulas == 2) {
+                        segundaVirgula = fim;
+                    }
+                }
+            }
+            numeroDaLinha++;
+            if (virgulas == 2) {
+                int inicioDoNome = pularEspacos(bytes, inicio, primeiraVirgula);
+                int fimDoNome = voltarEspacos(bytes, inicioDoNome, primeiraVirgula);
+                inicioDosNomes[n] = inicioDoNome;
+                tamanhoDosNomes[n] = fimDoNome - inicioDoNome;
+                xs[n] = lerInteiro(bytes, primeiraVirgula + 1, segundaVirgula, arquivo, numeroDaLinha);
+                ys[n] = lerInteiro(bytes, segundaVirgula + 1, fim, arquivo, numeroDaLinha);
+                n++;
+            }
+            inicio = fim + 1;
+        }
+        if (n < linhas) {
+            xs = Arrays.copyOf(xs, n);
+            ys = Arrays.copyOf(ys, n);
+            inicioDosNomes = Arrays.copyOf(inicioDosNomes, n);
+            tamanhoDosNomes = Arrays.copyOf(tamanhoDosNomes, n);
+        }
+        return new Instancia(xs, ys, bytes, inicioDosNomes, tamanhoDosNomes);
+    }
+
+    private static Instancia lerTsplib(ByteBuffer bytes, Path arquivo) throws IOException {
+        int limite = bytes.limit();
+        int dimensao = -1;
+        int inicio = 0;
+        int numeroDaLinha = 0;
+        // Cabeçalho "CHAVE : VALOR" até a seção de coordenadas
+        boolean achouCoordenadas = false;
+        while (inicio < limite && !achouCoordenadas) {
+            int fim = fimDaLinha(bytes, inicio);
+            numeroDaLinha++;
+            String linha = new String(bytes(bytes, inicio, fim), StandardCharsets.US_ASCII).strip();
+            inicio = fim + 1;
+            int separador = linha.indexOf(':');
+            String chave = (separador < 0 ? linha : linha.substring(0, separador)).strip().toUpperCase();
+            String valor = separador < 0 ? "" : linha.substring(separador + 1).strip();
+            if (chave.equals("DIMENSION")) {
+                dimensao = Integer.parseInt(valor);
+            } else if (chave.equals("EDGE_WEIGHT_TYPE") && !valor.equals("EUC_2D") && !valor.equals("CEIL_2D")) {
+                throw new IOException(arquivo + ": distância " + valor + " não suportada; só EUC_2D e CEIL_2D, que têm coordenadas no plano.");
+            } else if (chave.equals("NODE_COORD_SECTION")) {
+                achouCoordenadas = true;
+            }
+        }
+        if (!achouCoordenadas || dimensao < 0) {
+            throw new IOException(arquivo + ": falta DIMENSION ou NODE_COORD_SECTION.");
+        }
+
+        // Linhas "id x y"; o id vira o nome da cidade
+        int[] xs = new int[dimensao];
+        int[] ys = new int[dimensao];
+        int[] inicioDosNomes = new int[dimensao];
+        int[] tamanhoDosNomes = new int[dimensao];
+        int n = 0;
+        while (inicio < limite && n < dimensao) {
+            int fim = fimDaLinha(bytes, inicio);
+            numeroDaLinha++;
+            int inicioDoId = pularEspacos(bytes, inicio, fim);
+            int fimDoId = fimDoCampo(bytes, inicioDoId, fim);
+            if (fimDoId > inicioDoId) {
+                if (bytes.get(inicioDoId) == 'E') {
+                    break; // EOF
+                }
+                int inicioDoX = pularEspacos(bytes, fimDoId, fim);
+                int fimDoX = fimDoCampo(bytes, inicioDoX, fim);
+                int inicioDoY = pularEspacos(bytes, fimDoX, fim);
+                int fimDoY = fimDoCampo(bytes, inicioDoY, fim);
+                inicioDosNomes[n] = inicioDoId;
+                tamanhoDosNomes[n] = fimDoId - inicioDoId;
+                xs[n] = lerCoordenada(bytes, inicioDoX, fimDoX, arquivo, numeroDaLinha);
+                ys[n] = lerCoordenada(bytes, inicioDoY, fimDoY, arquivo, numeroDaLinha);
+                n++;
+            }
+            inicio = fim + 1;
+        }
+        if (n < dimensao) {
+            throw new IOException(arquivo + ": DIMENSION é " + dimensao + ", mas só há " + n + " coordenadas.");
+        }
+        return new Instancia(xs, ys, bytes, inicioDosNomes, tamanhoDosNomes);
+    }
+
+    // Inteiro com sinal opcional entre espaços, sem criar String
+    private static int lerInteiro(ByteBuffer bytes, int inicio, int fim, Path arquivo, int numeroDaLinha) throws IOException {
+        int i = pularEspacos(bytes, inicio, fim);
+        int fimDoNumero = voltarEspacos(bytes, i, fim);
+        boolean negativo = i < fimDoNumero && bytes.get(i) == '-';
+        if (negativo || (i < fimDoNumero && bytes.get(i) == '+')) {
+            i++;
+        }
+        if (i == fimDoNumero) {
+            throw coordenadaInvalida(bytes, inicio, fim, arquivo, numeroDaLinha);
+        }
+        long valor = 0;
+        for (; i < fimDoNumero; i++) {
+            int digito = bytes.get(i) - '0';
+            if (digito < 0 || digito > 9 || valor > Integer.MAX_VALUE) {
+                throw coordenadaInvalida(bytes, inicio, fim, arquivo, numeroDaLinha);
+            }
+            valor = valor * 10 + digito;
+        }
+        valor = negativo ? -valor : valor;
+        if (valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE) {
+            throw coordenadaInvalida(bytes, inicio, fim, arquivo, numeroDaLinha);
+        }
+        return (int) valor;
+    }
+
+    // Coordenada TSPLIB: inteira pelo caminho rápido; com ponto ou expoente, convertida e arredondada
+    private static int lerCoordenada(ByteBuffer bytes, int inicio, int fim, Path arquivo, int numeroDaLinha) throws IOException {
+        for (int i = inicio; i < fim; i++) {
+            byte b = bytes.get(i);
+            if (b == '.' || b == 'e' || b == 'E') {
+                try {
+                    return Math.toIntExact(Math.round(Double.parseDouble(new String(bytes(bytes, inicio, fim), StandardCharsets.US_ASCII))));
+                } catch (NumberFormatException | ArithmeticException e) {
+                    throw coordenadaInvalida(bytes, inicio, fim, arquivo, numeroDaLinha);
+                }
+            }
+        }
+        return lerInteiro(bytes, inicio, fim, arquivo, numeroDaLinha);
+    }
+
+    private static IOException coordenadaInvalida(ByteBuffer bytes, int inicio, int fim, Path arquivo, int numeroDaLinha) {
+        String texto = new String(bytes(bytes, inicio, fim), StandardCharsets.UTF_8).strip();
+        return new IOException(arquivo + ", linha " + numeroDaLinha + ": coordenada inválida '" + texto + "'.");
+    }
+
+    private static byte[] bytes(ByteBuffer bytes, int inicio, int fim) {
+        byte[] copia = new byte[fim - inicio];
+        bytes.get(inicio, copia);
+        return copia;
+    }
+
+    private static int fimDaLinha(ByteBuffer bytes, int inicio) {
+        int fim = inicio;
+        while (fim < bytes.limit() && bytes.get(fim) != '\n') {
+            fim++;
+        }
+        return fim;
+    }
+
+    private static int fimDoCampo(ByteBuffer bytes, int inicio, int fim) {
+        int i = inicio;
+        while (i < fim && !espaco(bytes.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int pularEspacos(ByteBuffer bytes, int inicio, int fim) {
+        int i = inicio;
+        while (i < fim && espaco(bytes.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int voltarEspacos(ByteBuffer bytes, int inicio, int fim) {
+        int i = fim;
+        while (i > inicio && espaco(bytes.get(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    // Inclui o '\r' das linhas terminadas em "\r\n"
+    private static boolean espaco(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
@@ -17,8 +17,8 @@ public class CidadePCV implements Serializable {
     public int getY() { return y; }
 
     public double distanciaPara(CidadePCV outra) {
-        double dx = this.x - outra.x;
-        double dy = this.y - outra.y;
+        double dx = (double) this.x - outra.x;
+        double dy = (double) this.y - outra.y;
         return Math.sqrt(dx * dx + dy * dy);
     }
 
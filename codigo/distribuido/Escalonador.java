@@ -0,0 +1,656 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.rmi.NoSuchObjectException;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+// Distribui as tarefas (prefixos da rota) sob demanda: todas ficam em uma fila central e cada worker
+// busca a próxima assim que termina uma. Um worker rápido acaba levando mais tarefas, e o tempo total
+// passa a depender da capacidade somada dos workers e não do mais lento.
+//
+// Cada worker tem pelo menos TAREFAS_EM_VOO_POR_WORKER despachantes, então sempre há uma tarefa a caminho
+// enquanto outra está sendo resolvida, e mais um a cada NUCLEOS_POR_DESPACHANTE_EXTRA núcleos que ele
+// informa em getNucleos(), já que cada tarefa é dividida entre os núcleos do worker.
+//
+// A instância vai uma única vez para cada worker (carregarInstancia) e fica em cache sob um id calculado a
+// partir das coordenadas; cada tarefa é só o id e um prefixo de índices, e a resposta volta como índices e
+// distância. O servidor também só trabalha sobre a Instancia (coordenadas em arrays); a melhor rota final é a
+// única convertida em objetos CidadePCV.
+//
+// Falhas: uma chamada que lança RemoteException (inclusive por estourar o tempo limite de resposta do RMI)
+// devolve a tarefa para o início da fila, e um worker com FALHAS_SEGUIDAS_PARA_DESCARTE falhas seguidas
+// deixa de receber tarefas. Se todos forem descartados, a execução termina com a melhor rota encontrada até
+// ali (no mínimo a do Vizinho Mais Próximo), marcada como não comprovadamente ótima. Perto do fim, despachantes
+// ociosos duplicam tarefas que estão demorando bem mais que a média em outro worker; vale o resultado da cópia
+// que terminar primeiro.
+//
+// Limite compartilhado: durante a execução o escalonador fica exportado como CanalDeLimites. Os workers
+// publicam nele as rotas melhores que encontram (com a rota, não só a distância), cada tarefa leva a melhor
+// distância conhecida, e um difusor repassa a todos os workers, a cada INTERVALO_DE_DIFUSAO_MS, o limite que
+// melhorou. Assim cada busca poda contra a melhor rota do cluster, e não só contra a sua.
+//
+// Andamento: a cobertura do espaço de rotas é contada aqui, por tarefa concluída (cada cópia conta uma vez só),
+// e a melhor rota é a do limite compartilhado. As rotas avaliadas vêm dos workers: com um observador, o
+// difusor consulta getProgresso de cada worker a cada MonitorDeProgresso.INTERVALO_PADRAO_MS e soma o que cada
+// um avançou desde a consulta anterior.
+//
+// Prazo: com um prazo, o limite compartilhado já começa com a rota do Vizinho Mais Próximo, para que haja uma
+// resposta razoável mesmo que o prazo acabe cedo. Quando ele esgota, o servidor para de despachar, pede a cada
+// worker que cancele as tarefas da instância (cancelar) e devolve a melhor rota conhecida, marcada como não
+// comprovadamente ótima. Com prazo e mais de Prazo.CIDADES_MAXIMAS_PARA_BUSCA_EXATA cidades, a resposta é a rota
+// do Vizinho Mais Próximo melhorada pela BuscaLocal, sem despachar nada.
+//
+// Ponto de controle: com um arquivo, as tarefas concluídas (pelo índice na lista de prefixos) e as rotas que
+// melhoram o limite são gravadas nele periodicamente. Um servidor reiniciado com o mesmo arquivo e a mesma
+// instância usa a profundidade gravada, não enfileira o que já foi concluído e parte da rota gravada. Tarefas
+// entregues depois da interrupção por prazo não são marcadas, pois podem ter sido cortadas pelo cancelamento.
+//
+// Métricas: cada chamada aos workers entra no histograma de latência do seu método nas Metricas do processo, a
+// profundidade da fila é amostrada pelo difusor, e no fim cada worker tem registrada a sua ocupação (tempo
+// esperando respostas de resolverPrefixo sobre o tempo disponível dos seus despachantes).
+public class Escalonador implements CanalDeLimites {
+    private static final Logger LOG = Log.de(Escalonador.class);
+    public static final int TAREFAS_EM_VOO_POR_WORKER = 2;
+    private static final int NUCLEOS_POR_DESPACHANTE_EXTRA = 4;
+    // Pelo menos tantas tarefas por despachante, para que o fim da execução fique bem dividido
+    private static final int TAREFAS_MINIMAS_POR_DESPACHANTE = 8;
+    private static final int FALHAS_SEGUIDAS_PARA_DESCARTE = 3;
+    // Uma tarefa só é duplicada depois de rodar por esse múltiplo da duração média das já concluídas
+    private static final int FATOR_DE_RETARDATARIA = 2;
+    private static final long ESPERA_OCIOSA_MS = 20;
+    private static final long INTERVALO_DE_DIFUSAO_MS = 100;
+
+    // Tempo máximo de espera pela resposta de uma chamada RMI, se nada for passado com -D na linha de comando
+    public static final long TEMPO_LIMITE_DE_RESPOSTA_PADRAO_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final String PROPRIEDADE_TEMPO_LIMITE = "sun.rmi.transport.tcp.responseTimeout";
+
+    enum EstadoDaTarefa { PENDENTE, EM_EXECUCAO, CONCLUIDA }
+
+    private static final class Tarefa {
+        final int[] prefixo;
+        // Posição na lista de prefixos, que identifica a tarefa no ponto de controle
+        final int indice;
+        final AtomicBoolean concluida = new AtomicBoolean();
+        final AtomicInteger copiasEmVoo = new AtomicInteger();
+        volatile EstadoDaTarefa estado = EstadoDaTarefa.PENDENTE;
+        volatile int workerDaCopiaOriginal = -1;
+        volatile long inicio;
+
+        Tarefa(int[] prefixo, int indice) {
+            this.prefixo = prefixo;
+            this.indice = indice;
+        }
+    }
+
+    private static final class EstadoDoWorker {
+        final TSPInterface stub;
+        final AtomicInteger falhasSeguidas = new AtomicInteger();
+        final AtomicInteger concluidas = new AtomicInteger();
+        final AtomicInteger falhas = new AtomicInteger();
+        volatile boolean saudavel = true;
+        volatile boolean instanciaCarregada;
+        int nucleos = 1;
+        // Total de rotas avaliadas informado pelo worker na última consulta de andamento
+        long rotasAvaliadasInformadas;
+        final LongAdder tempoEmTarefasNs = new LongAdder();
+
+        EstadoDoWorker(TSPInterface stub) {
+            this.stub = stub;
+        }
+    }
+
+    private final Instancia instancia;
+    private final int[] xs;
+    private final int[] ys;
+    private final long idDaInstancia;
+    private final ObservadorDeProgresso observador;
+    private final MonitorDeProgresso monitor;
+    private final Prazo prazo;
+    private final Path arquivoDePontoDeControle;
+    private PontoDeControle pontoDeControle;
+    private volatile boolean interrompida;
+    private final List<EstadoDoWorker> workers = new ArrayList<>();
+    private final Metricas metricas = Metricas.doProcesso();
+    private final LinkedBlockingDeque<Tarefa> fila = new LinkedBlockingDeque<>();
+    private final Set<Tarefa> emExecucao = ConcurrentHashMap.newKeySet();
+    private final LongAdder duracaoDasConcluidasNs = new LongAdder();
+    private final LongAdder quantidadeDeConcluidas = new LongAdder();
+    private final LongAdder copiasEspeculativas = new LongAdder();
+    private final LongAdder rotasPublicadas = new LongAdder();
+    private final LongAdder limitesDifundidos = new LongAdder();
+    private CountDownLatch restantes;
+    private CanalDeLimites canal;
+    private volatile ResultadoCompacto melhorGlobal = new ResultadoCompacto(null, Double.POSITIVE_INFINITY);
+    private double ultimoLimiteDifundido = Double.POSITIVE_INFINITY;
+    // Rotas completas sob cada prefixo da fila
+    private double rotasPorTarefa;
+
+    public Escalonador(List<CidadePCV> cidades, List<TSPInterface> workers) {
+        this(cidades, workers, null);
+    }
+
+    public Escalonador(List<CidadePCV> cidades, List<TSPInterface> workers, ObservadorDeProgresso observador) {
+        this(cidades, workers, observador, null);
+    }
+
+    public Escalonador(List<CidadePCV> cidades, List<TSPInterface> workers, ObservadorDeProgresso observador, Prazo prazo) {
+        this(cidades, workers, observador, prazo, null);
+    }
+
+    public Escalonador(List<CidadePCV> cidades, List<TSPInterface> workers, ObservadorDeProgresso observador, Prazo prazo,
+            Path arquivoDePontoDeControle) {
+        this(Instancia.de(cidades), workers, observador, prazo, arquivoDePontoDeControle);
+    }
+
+    public Escalonador(Instancia instancia, List<TSPInterface> workers, ObservadorDeProgresso observador, Prazo prazo,
+            Path arquivoDePontoDeControle) {
+        this.instancia = instancia;
+        this.observador = observador;
+        this.prazo = prazo;
+        this.arquivoDePontoDeControle = arquivoDePontoDeControle;
+        this.monitor = new MonitorDeProgresso(instancia.getTamanho() - 1);
+        this.xs = instancia.getXs();
+        this.ys = instancia.getYs();
+        this.idDaInstancia = HashDeCoordenadas.calcular(xs, ys);
+        for (TSPInterface stub : workers) {
+            this.workers.add(new EstadoDoWorker(stub));
+        }
+    }
+
+    // Precisa ser chamado antes da primeira chamada RMI do processo, que é quando o valor é lido
+    public static void configurarTempoLimiteDeResposta() {
+        if (System.getProperty(PROPRIEDADE_TEMPO_LIMITE) == null) {
+            System.setProperty(PROPRIEDADE_TEMPO_LIMITE, String.valueOf(TEMPO_LIMITE_DE_RESPOSTA_PADRAO_MS));
+        }
+    }
+
+    public ResultadoPCV executar() throws Exception {
+        // Uma instância cuja matriz não cabe aqui não caberia nos workers, e só a lista de prefixos já teria n²
+        // tarefas: a resposta é a rota da busca local, calculada sobre as coordenadas
+        if (!LimitesDeMemoria.cabeNaMemoria(LimitesDeMemoria.matrizDeDistancias(xs.length))) {
+            LOG.warning("SERVIDOR: a matriz de distâncias de " + xs.length + " cidades não cabe na memória; sem busca exata, "
+                    + "a rota devolvida é a da busca local.");
+            return montarResultado(rotaDaBuscaLocal(), false);
+        }
+        if (prazo != null && xs.length > Prazo.CIDADES_MAXIMAS_PARA_BUSCA_EXATA) {
+            LOG.warning("SERVIDOR: " + xs.length + " cidades são demais para a busca exata com prazo; a rota devolvida é a da busca local.");
+            return montarResultado(rotaDaBuscaLocal(), false);
+        }
+        // As distâncias vêm das coordenadas e são simétricas. Os workers só geram rotas com a cidade 1 antes da
+        // cidade 2, então os prefixos que trazem a cidade 2 antes da cidade 1 conteriam apenas rotas espelhadas
+        // e não são enviados
+        boolean simetrica = xs.length >= 3;
+        int despachantes = 0;
+        for (EstadoDoWorker worker : workers) {
+            long inicio = System.nanoTime();
+            try {
+                worker.nucleos = Math.max(1, worker.stub.getNucleos());
+            } catch (RemoteException e) {
+                // Um worker que não responde fica com o mínimo; as falhas nas tarefas decidem o resto
+                worker.nucleos = 1;
+            } finally {
+                metricas.registrarChamada("getNucleos", System.nanoTime() - inicio);
+            }
+            despachantes += tarefasEmVoo(worker);
+        }
+        int profundidade = profundidadeDosPrefixos(xs.length, despachantes);
+        if (arquivoDePontoDeControle != null) {
+            pontoDeControle = abrirPontoDeControle(profundidade);
+            profundidade = pontoDeControle.getProfundidade();
+        }
+        // Depois de abrir o ponto de controle, para que ele grave também esta rota: tarefas podadas contra ela
+        // podem ser marcadas concluídas, e uma retomada sem prazo não a recalcula
+        if (prazo != null) {
+            registrar(vizinhoMaisProximo(instancia));
+        }
+        List<int[]> prefixos = gerarPrefixos(xs.length, profundidade, simetrica);
+        for (int i = 0; i < prefixos.size(); i++) {
+            if (pontoDeControle == null || !pontoDeControle.isConcluido(i)) {
+                fila.add(new Tarefa(prefixos.get(i), i));
+            }
+        }
+        restantes = new CountDownLatch(fila.size());
+        // Os prefixos espelhados que nem entram na fila já estão cobertos, assim como os concluídos antes
+        rotasPorTarefa = monitor.fatorial(xs.length - 1 - profundidade);
+        monitor.registrar(0, monitor.fatorial(xs.length - 1) - fila.size() * rotasPorTarefa);
+        LOG.info("SERVIDOR: " + fila.size() + " tarefas de profundidade " + profundidade + " na fila.");
+        metricas.amostrarFila(fila.size());
+        long inicioDaExecucao = System.nanoTime();
+
+        // Threads daemon: uma cópia especulativa ainda presa em um worker lento não impede o fim do processo
+        ExecutorService executor = Executors.newFixedThreadPool(despachantes, r -> {
+            Thread t = new Thread(r, "despachante");
+            t.setDaemon(true);
+            return t;
+        });
+        ScheduledExecutorService difusor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "difusor-de-limites");
+            t.setDaemon(true);
+            return t;
+        });
+        canal = (CanalDeLimites) UnicastRemoteObject.exportObject(this, 0);
+        try {
+            difusor.scheduleWithFixedDelay(this::difundirLimite, INTERVALO_DE_DIFUSAO_MS, INTERVALO_DE_DIFUSAO_MS, TimeUnit.MILLISECONDS);
+            if (observador != null) {
+                difusor.scheduleWithFixedDelay(this::coletarProgresso, 0, MonitorDeProgresso.INTERVALO_PADRAO_MS, TimeUnit.MILLISECONDS);
+                monitor.iniciar(observador, MonitorDeProgresso.INTERVALO_PADRAO_MS);
+            }
+            for (int i = 0; i < workers.size(); i++) {
+                final int indiceDoWorker = i;
+                for (int d = 0; d < tarefasEmVoo(workers.get(i)); d++) {
+                    executor.execute(() -> despachar(indiceDoWorker));
+                }
+            }
+
+            while (!restantes.await(esperaAteAProximaVerificacao(), TimeUnit.MILLISECONDS)) {
+                if (prazo != null && prazo.esgotado()) {
+                    interromper();
+                    break;
+                }
+                if (workers.stream().noneMatch(w -> w.saudavel)) {
+                    abandonar();
+                    break;
+                }
+            }
+            if (observador != null) {
+                coletarProgresso();
+            }
+
+            long duracao = System.nanoTime() - inicioDaExecucao;
+            metricas.amostrarFila(fila.size());
+            for (int i = 0; i < workers.size(); i++) {
+                EstadoDoWorker w = workers.get(i);
+                double ocupacao = duracao == 0 ? 0 : (double) w.tempoEmTarefasNs.sum() / ((double) duracao * tarefasEmVoo(w));
+                metricas.registrarOcupacao("worker " + i, ocupacao);
+                LOG.info("SERVIDOR: worker " + i + " (" + w.nucleos + " núcleos) concluiu " + w.concluidas.get() + " tarefas"
+                        + (w.falhas.get() > 0 ? " e falhou em " + w.falhas.get() : "")
+                        + String.format(", ocupação %.0f%%", 100 * ocupacao)
+                        + (w.saudavel ? "." : " (descartado)."));
+            }
+            if (copiasEspeculativas.sum() > 0) {
+                LOG.info("SERVIDOR: " + copiasEspeculativas.sum() + " cópias especulativas de tarefas lentas.");
+            }
+            LOG.info("SERVIDOR: " + rotasPublicadas.sum() + " rotas publicadas pelos workers; limite difundido "
+                    + limitesDifundidos.sum() + " vezes.");
+            return montarResultado(melhorGlobal, !interrompida);
+        } finally {
+            difusor.shutdownNow();
+            executor.shutdownNow();
+            monitor.encerrar();
+            if (pontoDeControle != null) {
+                pontoDeControle.close();
+            }
+            try {
+                UnicastRemoteObject.unexportObject(this, true);
+            } catch (NoSuchObjectException e) {
+                // Já não estava exportado
+            }
+        }
+    }
+
+    // Abre o arquivo e retoma o que ele registrou: a melhor rota gravada entra no limite compartilhado
+    private PontoDeControle abrirPontoDeControle(int profundidade) throws IOException {
+        PontoDeControle ponto = PontoDeControle.abrir(arquivoDePontoDeControle, idDaInstancia, xs.length, profundidade);
+        if (ponto.getMelhorRota() != null) {
+            registrar(new ResultadoCompacto(ponto.getMelhorRota(), ponto.getMelhorDistancia()));
+        }
+        if (ponto.getConcluidos() > 0) {
+            LOG.info("SERVIDOR: retomando de " + arquivoDePontoDeControle + ": " + ponto.getConcluidos()
+                    + " tarefas já concluídas, melhor distância " + String.format("%.2f", ponto.getMelhorDistancia()) + ".");
+        }
+        ponto.iniciar(PontoDeControle.INTERVALO_PADRAO_MS);
+        return ponto;
+    }
+
+    @Override
+    public double publicarRota(long idDaInstancia, int[] rota, double distancia) throws RemoteException {
+        // Rotas de outra instância ou malformadas não entram no limite
+        if (idDaInstancia == this.idDaInstancia && rota != null && rota.length == xs.length + 1) {
+            rotasPublicadas.increment();
+            registrar(new ResultadoCompacto(rota, distancia));
+        }
+        return melhorGlobal.getDistancia();
+    }
+
+    // Rota gulosa a partir da origem, sempre para a cidade não visitada mais próxima. A procura é uma varredura
+    // linear das coordenadas das cidades livres pelo AvaliadorDeRotas (vetorial, se disponível); elas ficam em
+    // ordem de índice, para que um empate continue indo para a de menor índice, e o comprimento da rota é somado
+    // pelas distâncias da Instancia, sem matriz.
+    private static ResultadoCompacto vizinhoMaisProximo(Instancia instancia) {
+        AvaliadorDeRotas avaliador = AvaliadorDeRotas.padrao();
+        int[] xs = instancia.getXs();
+        int[] ys = instancia.getYs();
+        int n = instancia.getTamanho();
+        int[] rota = new int[n + 1];
+        int livres = n - 1;
+        int[] cidadesLivres = new int[livres];
+        double[] xsLivres = new double[livres];
+        double[] ysLivres = new double[livres];
+        for (int c = 1; c < n; c++) {
+            cidadesLivres[c - 1] = c;
+            xsLivres[c - 1] = xs[c];
+            ysLivres[c - 1] = ys[c];
+        }
+        double distancia = 0;
+        for (int i = 1; i < n; i++) {
+            int atual = rota[i - 1];
+            int posicao = avaliador.maisProximo(xsLivres, ysLivres, livres, xs[atual], ys[atual]);
+            int proxima = cidadesLivres[posicao];
+            livres--;
+            System.arraycopy(cidadesLivres, posicao + 1, cidadesLivres, posicao, livres - posicao);
+            System.arraycopy(xsLivres, posicao + 1, xsLivres, posicao, livres - posicao);
+            System.arraycopy(ysLivres, posicao + 1, ysLivres, posicao, livres - posicao);
+            rota[i] = proxima;
+            distancia += instancia.distancia(atual, proxima);
+        }
+        distancia += instancia.distancia(rota[n - 1], 0);
+        return new ResultadoCompacto(rota, distancia);
+    }
+
+    // A rota do Vizinho Mais Próximo melhorada pela BuscaLocal, começando pela origem
+    private ResultadoCompacto rotaDaBuscaLocal() {
+        int n = xs.length;
+        int[] ciclo = new BuscaLocal(xs, ys).melhorar(Arrays.copyOf(vizinhoMaisProximo(instancia).getRota(), n));
+        int inicio = 0;
+        while (ciclo[inicio] != 0) {
+            inicio++;
+        }
+        int[] rota = new int[n + 1];
+        for (int i = 0; i <= n; i++) {
+            rota[i] = ciclo[(inicio + i) % n];
+        }
+        return new ResultadoCompacto(rota, instancia.comprimento(rota));
+    }
+
+    private long esperaAteAProximaVerificacao() {
+        long espera = ESPERA_OCIOSA_MS * 10;
+        if (prazo != null) {
+            espera = Math.min(espera, Math.max(1, TimeUnit.NANOSECONDS.toMillis(prazo.getRestanteNs())));
+        }
+        return espera;
+    }
+
+    // Para de despachar e pede aos workers que abandonem as tarefas em andamento. Falhas são ignoradas: o
+    // resultado já não depende deles, e um worker que não recebeu o pedido só termina a tarefa atual à toa.
+    private void interromper() {
+        interrompida = true;
+        LOG.info("SERVIDOR: prazo esgotado com " + restantes.getCount() + " tarefas sem resultado; cancelando os workers.");
+        for (EstadoDoWorker worker : workers) {
+            if (worker.instanciaCarregada) {
+                long inicio = System.nanoTime();
+                try {
+                    worker.stub.cancelar(idDaInstancia);
+                } catch (RemoteException e) {
+                    // Segue para o próximo worker
+                } finally {
+                    metricas.registrarChamada("cancelar", System.nanoTime() - inicio);
+                }
+            }
+        }
+    }
+
+    // Sem nenhum worker saudável as tarefas restantes não têm quem as resolva: encerra como uma interrupção,
+    // devolvendo a melhor rota conhecida (no mínimo a do Vizinho Mais Próximo), que deixa de ser
+    // comprovadamente ótima.
+    private void abandonar() {
+        interrompida = true;
+        LOG.warning("SERVIDOR: todos os workers falharam; " + restantes.getCount() + " tarefas ficaram sem resultado.");
+        if (melhorGlobal.getRota() == null) {
+            registrar(vizinhoMaisProximo(instancia));
+        }
+    }
+
+    // Repassa o limite aos workers que já têm a instância, só quando ele melhorou desde a última difusão.
+    // Falhas são ignoradas: o limite também vai com a próxima tarefa de cada worker.
+    private void difundirLimite() {
+        metricas.amostrarFila(fila.size());
+        double limite = melhorGlobal.getDistancia();
+        if (!(limite < ultimoLimiteDifundido)) {
+            return;
+        }
+        ultimoLimiteDifundido = limite;
+        limitesDifundidos.increment();
+        for (EstadoDoWorker worker : workers) {
+            if (worker.saudavel && worker.instanciaCarregada) {
+                long inicio = System.nanoTime();
+                try {
+                    worker.stub.atualizarLimite(idDaInstancia, limite);
+                } catch (RemoteException e) {
+                    // O worker recebe o limite na próxima tarefa
+                } finally {
+                    metricas.registrarChamada("atualizarLimite", System.nanoTime() - inicio);
+                }
+            }
+        }
+    }
+
+    // Soma ao monitor as rotas que cada worker avaliou desde a consulta anterior. Um worker que recarregou a
+    // instância recomeça a contagem, e então tudo o que ele informa é novo. Falhas são ignoradas.
+    private void coletarProgresso() {
+        synchronized (workers) {
+            for (EstadoDoWorker worker : workers) {
+                if (!worker.saudavel || !worker.instanciaCarregada) {
+                    continue;
+                }
+                long inicio = System.nanoTime();
+                try {
+                    Progresso progresso = worker.stub.getProgresso(idDaInstancia);
+                    metricas.registrarChamada("getProgresso", System.nanoTime() - inicio);
+                    if (progresso == null) {
+                        continue;
+                    }
+                    long total = progresso.getRotasAvaliadas();
+                    long novas = total >= worker.rotasAvaliadasInformadas ? total - worker.rotasAvaliadasInformadas : total;
+                    worker.rotasAvaliadasInformadas = total;
+                    monitor.registrar(novas, 0);
+                } catch (RemoteException e) {
+                    // Fica para a próxima consulta
+                }
+            }
+        }
+    }
+
+    // Laço de um despachante: pega tarefas da fila (ou duplica uma retardatária quando a fila está vazia)
+    // até todas estarem concluídas ou o seu worker ser descartado
+    private void despachar(int indiceDoWorker) {
+        EstadoDoWorker worker = workers.get(indiceDoWorker);
+        try {
+            // Com o prazo esgotado nenhuma tarefa nova sai, mesmo antes de o laço principal notar e interromper
+            while (restantes.getCount() > 0 && worker.saudavel && !interrompida && (prazo == null || !prazo.esgotado())) {
+                Tarefa tarefa = fila.poll();
+                if (tarefa != null) {
+                    if (tarefa.concluida.get()) {
+                        continue;
+                    }
+                    tarefa.copiasEmVoo.incrementAndGet();
+                    tarefa.workerDaCopiaOriginal = indiceDoWorker;
+                    tarefa.inicio = System.nanoTime();
+                    tarefa.estado = EstadoDaTarefa.EM_EXECUCAO;
+                    emExecucao.add(tarefa);
+                } else {
+                    tarefa = reservarRetardataria(indiceDoWorker);
+                    if (tarefa == null) {
+                        restantes.await(ESPERA_OCIOSA_MS, TimeUnit.MILLISECONDS);
+                        continue;
+                    }
+                    copiasEspeculativas.increment();
+                }
+                executar(tarefa, indiceDoWorker);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void executar(Tarefa tarefa, int indiceDoWorker) {
+        EstadoDoWorker worker = workers.get(indiceDoWorker);
+        ResultadoCompacto resultado;
+        try {
+            resultado = resolver(worker, tarefa.prefixo);
+        } catch (RemoteException e) {
+            worker.falhas.incrementAndGet();
+            LOG.warning("SERVIDOR: worker " + indiceDoWorker + " falhou na tarefa " + Arrays.toString(tarefa.prefixo) + ": " + e);
+            if (worker.falhasSeguidas.incrementAndGet() >= FALHAS_SEGUIDAS_PARA_DESCARTE && worker.saudavel) {
+                worker.saudavel = false;
+                LOG.warning("SERVIDOR: worker " + indiceDoWorker + " descartado após " + FALHAS_SEGUIDAS_PARA_DESCARTE + " falhas seguidas.");
+            }
+            // Só volta para a fila se nenhuma outra cópia ainda pode entregar o resultado
+            if (tarefa.copiasEmVoo.decrementAndGet() == 0 && !tarefa.concluida.get()) {
+                tarefa.estado = EstadoDaTarefa.PENDENTE;
+                emExecucao.remove(tarefa);
+                fila.addFirst(tarefa);
+            }
+            return;
+        }
+
+        worker.falhasSeguidas.set(0);
+        tarefa.copiasEmVoo.decrementAndGet();
+        // A primeira cópia a terminar fica com a tarefa; as demais são descartadas
+        if (tarefa.concluida.compareAndSet(false, true)) {
+            tarefa.estado = EstadoDaTarefa.CONCLUIDA;
+            emExecucao.remove(tarefa);
+            duracaoDasConcluidasNs.add(System.nanoTime() - tarefa.inicio);
+            quantidadeDeConcluidas.increment();
+            worker.concluidas.incrementAndGet();
+            monitor.registrar(0, rotasPorTarefa);
+            registrar(resultado);
+            if (pontoDeControle != null && !interrompida) {
+                pontoDeControle.marcarConcluido(tarefa.indice);
+            }
+            restantes.countDown();
+        }
+    }
+
+    private ResultadoCompacto resolver(EstadoDoWorker worker, int[] prefixo) throws RemoteException {
+        // Os despachantes do worker começam juntos; só um deles envia a instância
+        synchronized (worker) {
+            if (!worker.instanciaCarregada) {
+                enviarInstancia(worker);
+            }
+        }
+        try {
+            return resolverPrefixo(worker, prefixo);
+        } catch (InstanciaDesconhecidaException e) {
+            // O worker perdeu a instância (foi reiniciado ou a tirou do cache): reenvia e repete uma vez
+            enviarInstancia(worker);
+            try {
+                return resolverPrefixo(worker, prefixo);
+            } catch (InstanciaDesconhecidaException deNovo) {
+                throw new RemoteException("Worker não manteve a instância enviada.", deNovo);
+            }
+        }
+    }
+
+    private ResultadoCompacto resolverPrefixo(EstadoDoWorker worker, int[] prefixo) throws RemoteException, InstanciaDesconhecidaException {
+        long inicio = System.nanoTime();
+        try {
+            return worker.stub.resolverPrefixo(idDaInstancia, prefixo, melhorGlobal.getDistancia());
+        } finally {
+            long duracao = System.nanoTime() - inicio;
+            worker.tempoEmTarefasNs.add(duracao);
+            metricas.registrarChamada("resolverPrefixo", duracao);
+        }
+    }
+
+    private void enviarInstancia(EstadoDoWorker worker) throws RemoteException {
+        long inicio = System.nanoTime();
+        try {
+            worker.stub.carregarInstancia(idDaInstancia, xs, ys, canal);
+        } finally {
+            metricas.registrarChamada("carregarInstancia", System.nanoTime() - inicio);
+        }
+        worker.instanciaCarregada = true;
+    }
+
+    private ResultadoPCV montarResultado(ResultadoCompacto resultado, boolean otimoComprovado) {
+        if (resultado.getRota() == null) {
+            return new ResultadoPCV(null, Double.POSITIVE_INFINITY, otimoComprovado);
+        }
+        return new ResultadoPCV(instancia.montarRota(resultado.getRota()), resultado.getRota(), resultado.getDistancia(), otimoComprovado);
+    }
+
+    private synchronized void registrar(ResultadoCompacto resultado) {
+        if (resultado != null && resultado.getDistancia() < melhorGlobal.getDistancia()) {
+            melhorGlobal = resultado;
+            monitor.oferecerRota(resultado.getRota(), resultado.getDistancia());
+            if (pontoDeControle != null) {
+                pontoDeControle.oferecerRota(resultado.getRota(), resultado.getDistancia());
+            }
+        }
+    }
+
+    // A tarefa em execução há mais tempo, com uma única cópia em outro worker, se ela já passou bastante
+    // da duração média; reserva a segunda cópia antes de devolver
+    private Tarefa reservarRetardataria(int indiceDoWorker) {
+        long concluidas = quantidadeDeConcluidas.sum();
+        if (concluidas == 0) {
+            return null;
+        }
+        long limite = FATOR_DE_RETARDATARIA * (duracaoDasConcluidasNs.sum() / concluidas);
+        long agora = System.nanoTime();
+        Tarefa escolhida = null;
+        for (Tarefa t : emExecucao) {
+            if (t.workerDaCopiaOriginal != indiceDoWorker && t.copiasEmVoo.get() == 1 && !t.concluida.get()
+                    && agora - t.inicio > limite && (escolhida == null || t.inicio < escolhida.inicio)) {
+                escolhida = t;
+            }
+        }
+        if (escolhida != null && escolhida.copiasEmVoo.compareAndSet(1, 2)) {
+            return escolhida;
+        }
+        return null;
+    }
+
+    private static int tarefasEmVoo(EstadoDoWorker worker) {
+        return TAREFAS_EM_VOO_POR_WORKER + (worker.nucleos - 1) / NUCLEOS_POR_DESPACHANTE_EXTRA;
+    }
+
+    // Prefixos de 2 cidades além da origem quando já dão tarefas suficientes para todos os despachantes,
+    // senão de 3 (limitado ao tamanho da instância)
+    static int profundidadeDosPrefixos(int n, int despachantes) {
+        long tarefasComDuas = (long) (n - 1) * (n - 2);
+        int profundidade = tarefasComDuas >= (long) TAREFAS_MINIMAS_POR_DESPACHANTE * despachantes ? 2 : 3;
+        return Math.max(0, Math.min(profundidade, n - 1));
+    }
+
+    // Todos os prefixos [0, c1, ..., c_profundidade] com cidades distintas, em ordem lexicográfica. Com simetrica,
+    // a cidade 2 só entra no prefixo depois da cidade 1
+    static List<int[]> gerarPrefixos(int n, int profundidade, boolean simetrica) {
+        List<int[]> prefixos = new ArrayList<>();
+        int[] atual = new int[profundidade + 1];
+        boolean[] usada = new boolean[n];
+        usada[0] = true;
+        gerarPrefixos(atual, 1, usada, simetrica, prefixos);
+        return prefixos;
+    }
+
+    private static void gerarPrefixos(int[] atual, int posicao, boolean[] usada, boolean simetrica, List<int[]> prefixos) {
+        if (posicao == atual.length) {
+            prefixos.add(atual.clone());
+            return;
+        }
+        for (int cidade = 1; cidade < usada.length; cidade++) {
+            if (!usada[cidade] && !(simetrica && cidade == 2 && !usada[1])) {
+                usada[cidade] = true;
+                atual[posicao] = cidade;
+                gerarPrefixos(atual, posicao + 1, usada, simetrica, prefixos);
+                usada[cidade] = false;
+            }
+        }
+    }
+}
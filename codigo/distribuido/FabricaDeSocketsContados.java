@@ -0,0 +1,89 @@
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.Socket;
+import java.rmi.server.RMIClientSocketFactory;
+
+// Fábrica de sockets que o worker exporta junto com o seu stub: quem chama o worker (o servidor) abre as
+// conexões por ela, e cada byte enviado e recebido nelas é somado nas Metricas do processo que chama. É assim
+// que o servidor mede quantos bytes cada chamada remota serializa, incluindo o tráfego do próprio RMI.
+public class FabricaDeSocketsContados implements RMIClientSocketFactory, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Socket createSocket(String host, int porta) throws IOException {
+        return new SocketContado(host, porta, Metricas.doProcesso());
+    }
+
+    // Todas as instâncias são equivalentes, o que permite ao RMI reaproveitar as conexões entre stubs
+    @Override
+    public boolean equals(Object outro) {
+        return outro instanceof FabricaDeSocketsContados;
+    }
+
+    @Override
+    public int hashCode() {
+        return FabricaDeSocketsContados.class.hashCode();
+    }
+
+    private static final class SocketContado extends Socket {
+        private final Metricas metricas;
+        private InputStream entrada;
+        private OutputStream saida;
+
+        SocketContado(String host, int porta, Metricas metricas) throws IOException {
+            super(host, porta);
+            this.metricas = metricas;
+        }
+
+        @Override
+        public synchronized InputStream getInputStream() throws IOException {
+            if (entrada == null) {
+                entrada = new FilterInputStream(super.getInputStream()) {
+                    @Override
+                    public int read() throws IOException {
+                        int b = super.read();
+                        if (b >= 0) {
+                            metricas.registrarBytesRecebidos(1);
+                        }
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] buffer, int inicio, int tamanho) throws IOException {
+                        int lidos = super.read(buffer, inicio, tamanho);
+                        if (lidos > 0) {
+                            metricas.registrarBytesRecebidos(lidos);
+                        }
+                        return lidos;
+                    }
+                };
+            }
+            return entrada;
+        }
+
+        @Override
+        public synchronized OutputStream getOutputStream() throws IOException {
+            if (saida == null) {
+                OutputStream original = super.getOutputStream();
+                saida = new FilterOutputStream(original) {
+                    @Override
+                    public void write(int b) throws IOException {
+                        original.write(b);
+                        metricas.registrarBytesEnviados(1);
+                    }
+
+                    @Override
+                    public void write(byte[] buffer, int inicio, int tamanho) throws IOException {
+                        original.write(buffer, inicio, tamanho);
+                        metricas.registrarBytesEnviados(tamanho);
+                    }
+                };
+            }
+            return saida;
+        }
+    }
+}
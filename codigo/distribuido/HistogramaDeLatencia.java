@@ -0,0 +1,79 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histograma de durações em nanossegundos com baldes log-lineares, no estilo do HdrHistogram: valores abaixo de
+// 16 têm um balde cada, e cada potência de 2 acima disso é dividida em 16 baldes iguais, então qualquer valor
+// fica no máximo 1/16 (6,25%) acima do início do seu balde. São 960 contadores para toda a faixa de um long.
+//
+// Registrar é só um incremento atômico no balde e nos totais, sem trava, e pode ser feito por qualquer thread.
+// Os percentis devolvem o fim do balde em que caem, limitado ao maior valor registrado.
+public class HistogramaDeLatencia {
+    private static final int BITS_DE_SUBDIVISAO = 4;
+    private static final int SUBDIVISOES = 1 << BITS_DE_SUBDIVISAO;
+    private static final int BALDES = SUBDIVISOES + (63 - BITS_DE_SUBDIVISAO) * SUBDIVISOES;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(BALDES);
+    private final LongAdder quantidade = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        contagens.incrementAndGet(balde(valor));
+        quantidade.increment();
+        soma.add(valor);
+        maximo.accumulate(valor);
+    }
+
+    public long getQuantidade() {
+        return quantidade.sum();
+    }
+
+    public double getMediaNs() {
+        long n = quantidade.sum();
+        return n == 0 ? 0 : (double) soma.sum() / n;
+    }
+
+    public long getMaximoNs() {
+        return maximo.get();
+    }
+
+    // Menor valor v tal que pelo menos a fração dada dos registros é <= v (0 sem registros)
+    public long percentilNs(double fracao) {
+        long total = 0;
+        for (int i = 0; i < BALDES; i++) {
+            total += contagens.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long alvo = Math.max(1, (long) Math.ceil(fracao * total));
+        long acumulado = 0;
+        for (int i = 0; i < BALDES; i++) {
+            acumulado += contagens.get(i);
+            if (acumulado >= alvo) {
+                return Math.min(fimDoBalde(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    private static int balde(long valor) {
+        if (valor < SUBDIVISOES) {
+            return (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        int sub = (int) (valor >>> (expoente - BITS_DE_SUBDIVISAO)) & (SUBDIVISOES - 1);
+        return SUBDIVISOES + (expoente - BITS_DE_SUBDIVISAO) * SUBDIVISOES + sub;
+    }
+
+    private static long fimDoBalde(int indice) {
+        if (indice < SUBDIVISOES) {
+            return indice;
+        }
+        int deslocamento = (indice - SUBDIVISOES) / SUBDIVISOES;
+        long sub = (indice - SUBDIVISOES) % SUBDIVISOES;
+        return ((SUBDIVISOES + sub + 1) << deslocamento) - 1;
+    }
+}
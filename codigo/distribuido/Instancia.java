@@ -0,0 +1,125 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// As cidades de uma instância em arrays de coordenadas, identificadas pelo índice (0 a n - 1). É o que os
+// algoritmos usam: distâncias e rotas são calculadas sobre xs/ys e arrays de índices, sem passar por objetos.
+// Os objetos CidadePCV só existem para montar a rota de um ResultadoPCV.
+//
+// Os nomes ficam à parte. Vindos do CarregadorDeCidades, não viram String na leitura: ficam como posições no
+// arquivo mapeado e só são decodificados quando pedidos. Vindos de uma lista (de), são os das próprias cidades,
+// e getCidade devolve os objetos da lista, para que as rotas tenham as mesmas instâncias recebidas.
+public class Instancia {
+    private final int[] xs;
+    private final int[] ys;
+    // Nulos quando o formato não guarda nomes (binário): a cidade i se chama i + 1, como no TSPLIB
+    private final ByteBuffer bytesDosNomes;
+    private final int[] inicioDosNomes;
+    private final int[] tamanhoDosNomes;
+    // Objetos já criados (ou recebidos) para cada índice; alocado só quando o primeiro é pedido
+    private CidadePCV[] cidades;
+
+    public Instancia(int[] xs, int[] ys) {
+        this(xs, ys, null, null, null);
+    }
+
+    Instancia(int[] xs, int[] ys, ByteBuffer bytesDosNomes, int[] inicioDosNomes, int[] tamanhoDosNomes) {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("xs e ys precisam ter o mesmo tamanho.");
+        }
+        this.xs = xs;
+        this.ys = ys;
+        this.bytesDosNomes = bytesDosNomes;
+        this.inicioDosNomes = inicioDosNomes;
+        this.tamanhoDosNomes = tamanhoDosNomes;
+    }
+
+    public static Instancia de(List<CidadePCV> lista) {
+        int n = lista.size();
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        CidadePCV[] cidades = new CidadePCV[n];
+        for (int i = 0; i < n; i++) {
+            CidadePCV c = lista.get(i);
+            xs[i] = c.getX();
+            ys[i] = c.getY();
+            cidades[i] = c;
+        }
+        Instancia instancia = new Instancia(xs, ys);
+        instancia.cidades = cidades;
+        return instancia;
+    }
+
+    public int getTamanho() {
+        return xs.length;
+    }
+
+    // Os próprios arrays, sem cópia
+    public int[] getXs() {
+        return xs;
+    }
+
+    public int[] getYs() {
+        return ys;
+    }
+
+    // Mesma conta de CidadePCV.distanciaPara
+    public double distancia(int i, int j) {
+        double dx = (double) xs[i] - xs[j];
+        double dy = (double) ys[i] - ys[j];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    // Soma das arestas entre posições consecutivas; a rota deve repetir a origem no fim para contar a volta
+    public double comprimento(int[] rota) {
+        double total = 0;
+        for (int i = 0; i + 1 < rota.length; i++) {
+            total += distancia(rota[i], rota[i + 1]);
+        }
+        return total;
+    }
+
+    public String getNome(int cidade) {
+        synchronized (this) {
+            if (cidades != null && cidades[cidade] != null) {
+                return cidades[cidade].getNome();
+            }
+        }
+        if (inicioDosNomes == null) {
+            return String.valueOf(cidade + 1);
+        }
+        byte[] bytes = new byte[tamanhoDosNomes[cidade]];
+        bytesDosNomes.get(inicioDosNomes[cidade], bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Sempre o mesmo objeto para o mesmo índice
+    public synchronized CidadePCV getCidade(int cidade) {
+        if (cidades == null) {
+            cidades = new CidadePCV[xs.length];
+        }
+        if (cidades[cidade] == null) {
+            cidades[cidade] = new CidadePCV(getNome(cidade), xs[cidade], ys[cidade]);
+        }
+        return cidades[cidade];
+    }
+
+    // Uma CidadePCV por ponto, para as APIs que recebem a lista
+    public List<CidadePCV> getCidades() {
+        List<CidadePCV> lista = new ArrayList<>(xs.length);
+        for (int i = 0; i < xs.length; i++) {
+            lista.add(getCidade(i));
+        }
+        return lista;
+    }
+
+    // Converte uma rota de índices na lista de cidades correspondente
+    public List<CidadePCV> montarRota(int[] indices) {
+        List<CidadePCV> rota = new ArrayList<>(indices.length);
+        for (int indice : indices) {
+            rota.add(getCidade(indice));
+        }
+        return rota;
+    }
+}
@@ -0,0 +1,9 @@
+// Lançada pelo worker quando recebe uma tarefa de uma instância que não está no seu cache
+// (por exemplo, porque o worker foi reiniciado); o servidor reenvia a instância e repete a tarefa.
+public class InstanciaDesconhecidaException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public InstanciaDesconhecidaException(long idDaInstancia) {
+        super("Instância " + Long.toHexString(idDaInstancia) + " não carregada neste worker.");
+    }
+}
@@ -0,0 +1,74 @@
+import java.rmi.RemoteException;
+import java.util.logging.Logger;
+
+// Limite de poda de uma instância dentro do worker: a menor distância conhecida, seja de uma rota encontrada
+// pelas threads do próprio worker, seja a melhor do cluster, recebida do servidor.
+//
+// As rotas melhores encontradas aqui não são enviadas na hora: a mais curta fica pendente e publicarPendente()
+// a envia pelo CanalDeLimites, chamado periodicamente e ao fim de cada tarefa. Uma sequência de melhorias
+// seguidas vira uma única chamada RMI, e as threads da busca nunca esperam pela rede.
+public class LimiteCompartilhado {
+    private static final Logger LOG = Log.de(LimiteCompartilhado.class);
+
+    private final long idDaInstancia;
+    // Nulo quando a instância foi carregada sem servidor (benchmarks): o limite fica só dentro do worker
+    private final CanalDeLimites canal;
+    private final IncumbenteGlobal incumbente = new IncumbenteGlobal(Double.POSITIVE_INFINITY);
+    private int[] rotaPendente;
+    private double distanciaPendente = Double.POSITIVE_INFINITY;
+
+    public LimiteCompartilhado(long idDaInstancia, CanalDeLimites canal) {
+        this.idDaInstancia = idDaInstancia;
+        this.canal = canal;
+    }
+
+    public double get() {
+        return incumbente.get();
+    }
+
+    // Limite vindo do servidor, com a tarefa ou difundido durante a execução
+    public void receber(double limite) {
+        incumbente.atualizar(limite);
+    }
+
+    // Chamado pela busca ao completar uma rota; só guarda uma cópia se ela baixou o limite
+    public void oferecer(int[] rota, double distancia) {
+        if (!incumbente.atualizar(distancia)) {
+            return;
+        }
+        synchronized (this) {
+            if (distancia < distanciaPendente) {
+                rotaPendente = rota.clone();
+                distanciaPendente = distancia;
+            }
+        }
+    }
+
+    public void publicarPendente() {
+        if (canal == null) {
+            return;
+        }
+        int[] rota;
+        double distancia;
+        synchronized (this) {
+            if (rotaPendente == null) {
+                return;
+            }
+            rota = rotaPendente;
+            distancia = distanciaPendente;
+        }
+        try {
+            double global = canal.publicarRota(idDaInstancia, rota, distancia);
+            synchronized (this) {
+                if (rotaPendente == rota) {
+                    rotaPendente = null;
+                    distanciaPendente = Double.POSITIVE_INFINITY;
+                }
+            }
+            incumbente.atualizar(global);
+        } catch (RemoteException e) {
+            // A rota continua pendente e vai na próxima publicação
+            LOG.warning("WORKER: Falha ao publicar rota para o servidor: " + e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+// Quanto as estruturas que crescem com o número de cidades ocupam no heap, para que um algoritmo recuse
+// (ou troque por outro) uma instância grande demais antes de tentar alocá-las.
+public final class LimitesDeMemoria {
+    // Maior quantidade de posições que um vetor costuma poder ter na JVM
+    private static final long MAIOR_VETOR = Integer.MAX_VALUE - 8;
+
+    private LimitesDeMemoria() {}
+
+    // Quantidade de bytes da matriz de distâncias de n cidades, ou -1 se ela não puder ser indexada por um vetor
+    public static long matrizDeDistancias(int n) {
+        long posicoes = (long) n * n;
+        if (posicoes > MAIOR_VETOR) {
+            return -1;
+        }
+        return posicoes * Double.BYTES;
+    }
+
+    // Verifica se a estrutura cabe no heap disponível, deixando uma folga para o restante do programa
+    public static boolean cabeNaMemoria(long bytes) {
+        return bytes >= 0 && bytes < Runtime.getRuntime().maxMemory() * 0.8;
+    }
+}
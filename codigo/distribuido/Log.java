@@ -0,0 +1,41 @@
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Configura o java.util.logging para os programas deste módulo: uma linha por mensagem, com o nível escolhido
+// por -Dpcv.log (INFO por padrão; FINE mostra cada tarefa resolvida e cada melhoria, WARNING só as falhas).
+// As mensagens abaixo do nível nem chegam a ser montadas, já que as de FINE são passadas como Supplier.
+//
+// Os loggers das classes ficam sob "pcv" (de), e só eles seguem o nível escolhido; os do próprio JDK, como
+// os do RMI, continuam em INFO.
+public final class Log {
+    public static final String PROPRIEDADE_NIVEL = "pcv.log";
+    private static final String RAIZ = "pcv";
+    private static final String PROPRIEDADE_FORMATO = "java.util.logging.SimpleFormatter.format";
+
+    // Mantido aqui para que a configuração do nível não se perca se o logger for coletado
+    private static final Logger PCV = Logger.getLogger(RAIZ);
+
+    private Log() {
+    }
+
+    public static Logger de(Class<?> classe) {
+        return Logger.getLogger(RAIZ + "." + classe.getName());
+    }
+
+    public static void configurar() {
+        if (System.getProperty(PROPRIEDADE_FORMATO) == null) {
+            System.setProperty(PROPRIEDADE_FORMATO, "%4$s %5$s%6$s%n");
+        }
+        Level nivel = Level.parse(System.getProperty(PROPRIEDADE_NIVEL, "INFO").toUpperCase());
+        Logger raiz = Logger.getLogger("");
+        for (Handler handler : raiz.getHandlers()) {
+            raiz.removeHandler(handler);
+        }
+        ConsoleHandler console = new ConsoleHandler();
+        console.setLevel(Level.ALL);
+        raiz.addHandler(console);
+        PCV.setLevel(nivel);
+    }
+}
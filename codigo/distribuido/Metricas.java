@@ -0,0 +1,233 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Métricas de um processo (servidor ou worker), baratas o bastante para ficarem sempre ligadas: contadores
+// LongAdder (um contador por núcleo, somados só na leitura) e histogramas sem trava. Nada é registrado dentro
+// do laço da enumeração: o CalculadorDePermutacao conta folhas e podas em campos próprios, e o total entra
+// aqui uma vez por subproblema, junto com o tempo que a thread passou nele.
+//
+// No worker: rotas avaliadas, nós podados, rotas por segundo de cada thread do pool e a duração de cada
+// tarefa recebida. No servidor: a latência de cada método remoto chamado nos workers (um histograma por
+// método), os bytes trafegados nessas chamadas (contados pela FabricaDeSocketsContados), a profundidade da
+// fila de tarefas e a ocupação de cada worker, a fração do tempo da execução em que os despachantes dele
+// estiveram esperando uma resposta.
+//
+// Tudo fica visível por JMX (registrarNoJmx) e pode ser gravado em JSON no fim da execução (gravarJson).
+public class Metricas implements MetricasMBean {
+    private static final Logger LOG = Log.de(Metricas.class);
+    private static final Metricas DO_PROCESSO = new Metricas();
+
+    private static final class PorThread {
+        final LongAdder rotas = new LongAdder();
+        final LongAdder ocupadaNs = new LongAdder();
+    }
+
+    private final long inicioNs = System.nanoTime();
+    private final LongAdder rotasAvaliadas = new LongAdder();
+    private final LongAdder nosPodados = new LongAdder();
+    private final LongAdder ocupadaNs = new LongAdder();
+    private final ConcurrentHashMap<String, PorThread> porThread = new ConcurrentHashMap<>();
+    private final HistogramaDeLatencia duracaoDasTarefas = new HistogramaDeLatencia();
+    private final ConcurrentHashMap<String, HistogramaDeLatencia> latenciaPorMetodo = new ConcurrentHashMap<>();
+    private final LongAdder bytesEnviados = new LongAdder();
+    private final LongAdder bytesRecebidos = new LongAdder();
+    private volatile int profundidadeDaFila;
+    private final LongAccumulator maiorProfundidadeDaFila = new LongAccumulator(Math::max, 0);
+    private final ConcurrentHashMap<String, Double> ocupacaoPorWorker = new ConcurrentHashMap<>();
+
+    // As métricas compartilhadas por tudo o que roda neste processo
+    public static Metricas doProcesso() {
+        return DO_PROCESSO;
+    }
+
+    // Um subproblema enumerado pela thread atual, do começo ao fim
+    public void registrarBusca(long rotas, long podados, long duracaoNs) {
+        rotasAvaliadas.add(rotas);
+        nosPodados.add(podados);
+        ocupadaNs.add(duracaoNs);
+        PorThread thread = porThread.computeIfAbsent(Thread.currentThread().getName(), nome -> new PorThread());
+        thread.rotas.add(rotas);
+        thread.ocupadaNs.add(duracaoNs);
+    }
+
+    // Prefixos descartados antes de virarem subproblemas
+    public void registrarPodados(long podados) {
+        nosPodados.add(podados);
+    }
+
+    // Uma tarefa recebida do servidor, do ponto de vista do worker
+    public void registrarTarefa(long duracaoNs) {
+        duracaoDasTarefas.registrar(duracaoNs);
+    }
+
+    // Uma chamada remota feita por este processo, do envio até a resposta (ou a falha)
+    public void registrarChamada(String metodo, long duracaoNs) {
+        latenciaPorMetodo.computeIfAbsent(metodo, m -> new HistogramaDeLatencia()).registrar(duracaoNs);
+    }
+
+    public void registrarBytesEnviados(long bytes) {
+        bytesEnviados.add(bytes);
+    }
+
+    public void registrarBytesRecebidos(long bytes) {
+        bytesRecebidos.add(bytes);
+    }
+
+    public void amostrarFila(int profundidade) {
+        profundidadeDaFila = profundidade;
+        maiorProfundidadeDaFila.accumulate(profundidade);
+    }
+
+    public void registrarOcupacao(String worker, double fracao) {
+        ocupacaoPorWorker.put(worker, fracao);
+    }
+
+    @Override
+    public long getRotasAvaliadas() {
+        return rotasAvaliadas.sum();
+    }
+
+    @Override
+    public long getNosPodados() {
+        return nosPodados.sum();
+    }
+
+    @Override
+    public long getTarefasResolvidas() {
+        return duracaoDasTarefas.getQuantidade();
+    }
+
+    @Override
+    public double getRotasPorSegundoPorThread() {
+        return porSegundo(rotasAvaliadas.sum(), ocupadaNs.sum());
+    }
+
+    @Override
+    public int getProfundidadeDaFila() {
+        return profundidadeDaFila;
+    }
+
+    @Override
+    public int getMaiorProfundidadeDaFila() {
+        return (int) maiorProfundidadeDaFila.get();
+    }
+
+    @Override
+    public long getChamadasRemotas() {
+        long total = 0;
+        for (HistogramaDeLatencia h : latenciaPorMetodo.values()) {
+            total += h.getQuantidade();
+        }
+        return total;
+    }
+
+    @Override
+    public long getBytesEnviados() {
+        return bytesEnviados.sum();
+    }
+
+    @Override
+    public long getBytesRecebidos() {
+        return bytesRecebidos.sum();
+    }
+
+    @Override
+    public double getBytesPorChamada() {
+        long chamadas = getChamadasRemotas();
+        return chamadas == 0 ? 0 : (double) (bytesEnviados.sum() + bytesRecebidos.sum()) / chamadas;
+    }
+
+    @Override
+    public String getJson() {
+        StringBuilder json = new StringBuilder("{\n");
+        campo(json, "segundosDesdeOInicio", (System.nanoTime() - inicioNs) / 1e9);
+        campo(json, "rotasAvaliadas", getRotasAvaliadas());
+        campo(json, "nosPodados", getNosPodados());
+        campo(json, "rotasPorSegundoPorThread", getRotasPorSegundoPorThread());
+        json.append("  \"threads\": {");
+        String separador = "\n";
+        for (Map.Entry<String, PorThread> e : new TreeMap<>(porThread).entrySet()) {
+            PorThread t = e.getValue();
+            json.append(separador).append("    \"").append(e.getKey()).append("\": {\"rotas\": ").append(t.rotas.sum())
+                    .append(", \"rotasPorSegundo\": ").append(numero(porSegundo(t.rotas.sum(), t.ocupadaNs.sum()))).append('}');
+            separador = ",\n";
+        }
+        json.append(porThread.isEmpty() ? "},\n" : "\n  },\n");
+        json.append("  \"tarefasResolvidas\": ");
+        histograma(json, duracaoDasTarefas);
+        json.append(",\n  \"chamadasRemotas\": {");
+        separador = "\n";
+        for (Map.Entry<String, HistogramaDeLatencia> e : new TreeMap<>(latenciaPorMetodo).entrySet()) {
+            json.append(separador).append("    \"").append(e.getKey()).append("\": ");
+            histograma(json, e.getValue());
+            separador = ",\n";
+        }
+        json.append(latenciaPorMetodo.isEmpty() ? "},\n" : "\n  },\n");
+        campo(json, "bytesEnviados", getBytesEnviados());
+        campo(json, "bytesRecebidos", getBytesRecebidos());
+        campo(json, "bytesPorChamada", getBytesPorChamada());
+        campo(json, "profundidadeDaFila", getProfundidadeDaFila());
+        campo(json, "maiorProfundidadeDaFila", getMaiorProfundidadeDaFila());
+        json.append("  \"ocupacaoPorWorker\": {");
+        separador = "";
+        for (Map.Entry<String, Double> e : new TreeMap<>(ocupacaoPorWorker).entrySet()) {
+            json.append(separador).append('"').append(e.getKey()).append("\": ").append(numero(e.getValue()));
+            separador = ", ";
+        }
+        return json.append("}\n}\n").toString();
+    }
+
+    public void gravarJson(Path arquivo) throws IOException {
+        Files.write(arquivo, getJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Publica estas métricas no servidor de MBeans da JVM como pcv:type=Metricas,name=<nome>
+    public void registrarNoJmx(String nome) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("pcv:type=Metricas,name=" + nome));
+        } catch (InstanceAlreadyExistsException e) {
+            // Já registradas por uma execução anterior no mesmo processo
+        } catch (JMException e) {
+            LOG.log(Level.WARNING, "Métricas não registradas no JMX", e);
+        }
+    }
+
+    private static double porSegundo(long quantidade, long ns) {
+        return ns == 0 ? 0 : quantidade * 1e9 / ns;
+    }
+
+    private static void campo(StringBuilder json, String nome, double valor) {
+        json.append("  \"").append(nome).append("\": ").append(numero(valor)).append(",\n");
+    }
+
+    private static void campo(StringBuilder json, String nome, long valor) {
+        json.append("  \"").append(nome).append("\": ").append(valor).append(",\n");
+    }
+
+    private static void histograma(StringBuilder json, HistogramaDeLatencia h) {
+        json.append("{\"quantidade\": ").append(h.getQuantidade())
+                .append(", \"mediaUs\": ").append(numero(h.getMediaNs() / 1e3))
+                .append(", \"p50Us\": ").append(numero(h.percentilNs(0.50) / 1e3))
+                .append(", \"p90Us\": ").append(numero(h.percentilNs(0.90) / 1e3))
+                .append(", \"p99Us\": ").append(numero(h.percentilNs(0.99) / 1e3))
+                .append(", \"maximoUs\": ").append(numero(h.getMaximoNs() / 1e3)).append('}');
+    }
+
+    private static String numero(double valor) {
+        return String.format(Locale.ROOT, "%.3f", valor);
+    }
+}
@@ -0,0 +1,26 @@
+// Atributos das Metricas publicados por JMX (por exemplo no jconsole, em pcv:type=Metricas)
+public interface MetricasMBean {
+    long getRotasAvaliadas();
+
+    long getNosPodados();
+
+    long getTarefasResolvidas();
+
+    // Rotas avaliadas por segundo de thread ocupada, somando todas as threads de busca
+    double getRotasPorSegundoPorThread();
+
+    int getProfundidadeDaFila();
+
+    int getMaiorProfundidadeDaFila();
+
+    long getChamadasRemotas();
+
+    long getBytesEnviados();
+
+    long getBytesRecebidos();
+
+    double getBytesPorChamada();
+
+    // Tudo o que as métricas guardam, inclusive os histogramas e os valores por thread e por worker
+    String getJson();
+}
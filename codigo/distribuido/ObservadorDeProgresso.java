@@ -0,0 +1,11 @@
+// Recebe periodicamente o andamento de uma busca longa. É chamado pela thread do monitor, e não pelas que
+// fazem a busca, então pode demorar (imprimir, gravar, decidir parar) sem atrasar a enumeração.
+@FunctionalInterface
+public interface ObservadorDeProgresso {
+    void atualizar(Progresso progresso);
+
+    // Imprime cada retrato no console, precedido de um rótulo
+    static ObservadorDeProgresso console(String rotulo) {
+        return progresso -> System.out.println(rotulo + ": " + progresso);
+    }
+}
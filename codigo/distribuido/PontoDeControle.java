@@ -0,0 +1,254 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+// Ponto de controle de uma execução distribuída longa: quais tarefas (prefixos, pelo índice na ordem em que
+// o escalonador os gera) já foram resolvidas por inteiro e a melhor rota conhecida, para que um servidor que
+// caiu ou parou no prazo seja reiniciado sem refazer o que já terminou.
+//
+// O arquivo só cresce: um registro de cabeçalho (instância, número de cidades, profundidade do corte) e depois
+// um registro por gravação, com os prefixos concluídos desde a anterior e a rota, se ela melhorou. Cada
+// registro é [tamanho][conteúdo][CRC32], escrito de uma vez e seguido de um único force(); um registro
+// cortado no fim por uma queda no meio da escrita não passa no CRC, é descartado e sobrescrito.
+//
+// Ordem importa: o escalonador oferece a melhor rota de uma tarefa antes de marcá-la concluída, então uma
+// tarefa nunca aparece como concluída sem que a rota dela (ou uma melhor) já esteja no arquivo.
+public class PontoDeControle implements Closeable {
+    private static final Logger LOG = Log.de(PontoDeControle.class);
+    public static final long INTERVALO_PADRAO_MS = 1000;
+
+    private static final int MAGICO = 0x50435643; // "PCVC"
+    private static final int VERSAO = 1;
+
+    private final FileChannel canal;
+    private final int profundidade;
+    private final BitSet concluidos = new BitSet();
+    private int[] melhorRota;
+    private double melhorDistancia = Double.POSITIVE_INFINITY;
+    // O que ainda não foi para o disco
+    private final List<Integer> concluidosPendentes = new ArrayList<>();
+    private boolean rotaPendente;
+    private ScheduledExecutorService gravador;
+
+    private PontoDeControle(FileChannel canal, int profundidade) {
+        this.canal = canal;
+        this.profundidade = profundidade;
+    }
+
+    // Abre o arquivo, retomando o que ele já registrou, ou o cria com a profundidade proposta. Um arquivo de
+    // outra instância é recusado, e não sobrescrito. Se ele já existir, vale a profundidade gravada: os
+    // índices dos prefixos só têm sentido com o mesmo corte.
+    public static PontoDeControle abrir(Path arquivo, long idDaInstancia, int cidades, int profundidadeProposta) throws IOException {
+        FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            List<byte[]> registros = new ArrayList<>();
+            long fimValido = lerRegistros(canal, registros);
+            PontoDeControle ponto;
+            if (registros.isEmpty()) {
+                ponto = new PontoDeControle(canal, profundidadeProposta);
+                canal.truncate(0);
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream saida = new DataOutputStream(bytes);
+                saida.writeInt(MAGICO);
+                saida.writeInt(VERSAO);
+                saida.writeLong(idDaInstancia);
+                saida.writeInt(cidades);
+                saida.writeInt(profundidadeProposta);
+                ponto.anexar(bytes.toByteArray());
+                canal.force(false);
+            } else {
+                DataInputStream cabecalho = new DataInputStream(new ByteArrayInputStream(registros.get(0)));
+                if (cabecalho.readInt() != MAGICO || cabecalho.readInt() != VERSAO) {
+                    throw new IOException(arquivo + " não é um ponto de controle desta versão.");
+                }
+                long id = cabecalho.readLong();
+                int n = cabecalho.readInt();
+                if (id != idDaInstancia || n != cidades) {
+                    throw new IOException(arquivo + " é o ponto de controle de outra instância (" + Long.toHexString(id) + ", " + n + " cidades).");
+                }
+                ponto = new PontoDeControle(canal, cabecalho.readInt());
+                for (int i = 1; i < registros.size(); i++) {
+                    ponto.aplicar(registros.get(i));
+                }
+                // Descarta um registro incompleto no fim, para que os próximos fiquem legíveis
+                canal.truncate(fimValido);
+            }
+            canal.position(fimValido == 0 ? canal.size() : fimValido);
+            return ponto;
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    // Lê os registros íntegros do início do arquivo e devolve onde termina o último deles
+    private static long lerRegistros(FileChannel canal, List<byte[]> registros) throws IOException {
+        canal.position(0);
+        DataInputStream entrada = new DataInputStream(new BufferedInputStream(Channels.newInputStream(canal)));
+        long fimValido = 0;
+        try {
+            while (true) {
+                int tamanho = entrada.readInt();
+                if (tamanho < 0 || tamanho > canal.size()) {
+                    break;
+                }
+                byte[] conteudo = new byte[tamanho];
+                entrada.readFully(conteudo);
+                int crc = entrada.readInt();
+                CRC32 verificacao = new CRC32();
+                verificacao.update(conteudo);
+                if ((int) verificacao.getValue() != crc) {
+                    break;
+                }
+                registros.add(conteudo);
+                fimValido += 8 + tamanho;
+            }
+        } catch (EOFException e) {
+            // Fim do arquivo, possivelmente no meio de um registro
+        }
+        return fimValido;
+    }
+
+    private void aplicar(byte[] registro) throws IOException {
+        DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(registro));
+        int quantidade = entrada.readInt();
+        for (int i = 0; i < quantidade; i++) {
+            concluidos.set(entrada.readInt());
+        }
+        int tamanhoDaRota = entrada.readInt();
+        if (tamanhoDaRota > 0) {
+            int[] rota = new int[tamanhoDaRota];
+            for (int i = 0; i < tamanhoDaRota; i++) {
+                rota[i] = entrada.readInt();
+            }
+            double distancia = entrada.readDouble();
+            if (distancia < melhorDistancia) {
+                melhorRota = rota;
+                melhorDistancia = distancia;
+            }
+        }
+    }
+
+    private void anexar(byte[] conteudo) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(conteudo);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + conteudo.length);
+        buffer.putInt(conteudo.length).put(conteudo).putInt((int) crc.getValue()).flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+    }
+
+    public int getProfundidade() {
+        return profundidade;
+    }
+
+    public synchronized boolean isConcluido(int indice) {
+        return concluidos.get(indice);
+    }
+
+    public synchronized int getConcluidos() {
+        return concluidos.cardinality();
+    }
+
+    public synchronized int[] getMelhorRota() {
+        return melhorRota == null ? null : melhorRota.clone();
+    }
+
+    public synchronized double getMelhorDistancia() {
+        return melhorDistancia;
+    }
+
+    public synchronized void oferecerRota(int[] rota, double distancia) {
+        if (rota != null && distancia < melhorDistancia) {
+            melhorRota = rota.clone();
+            melhorDistancia = distancia;
+            rotaPendente = true;
+        }
+    }
+
+    public synchronized void marcarConcluido(int indice) {
+        if (!concluidos.get(indice)) {
+            concluidos.set(indice);
+            concluidosPendentes.add(indice);
+        }
+    }
+
+    // Anexa ao arquivo o que mudou desde a última gravação e força a escrita no disco
+    public synchronized void gravar() throws IOException {
+        if (concluidosPendentes.isEmpty() && !rotaPendente) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream saida = new DataOutputStream(bytes);
+        saida.writeInt(concluidosPendentes.size());
+        for (int indice : concluidosPendentes) {
+            saida.writeInt(indice);
+        }
+        if (rotaPendente) {
+            saida.writeInt(melhorRota.length);
+            for (int cidade : melhorRota) {
+                saida.writeInt(cidade);
+            }
+            saida.writeDouble(melhorDistancia);
+        } else {
+            saida.writeInt(0);
+        }
+        anexar(bytes.toByteArray());
+        canal.force(false);
+        concluidosPendentes.clear();
+        rotaPendente = false;
+    }
+
+    // Grava a cada intervalo, em uma thread daemon, até close()
+    public void iniciar(long intervaloMs) {
+        gravador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ponto-de-controle");
+            t.setDaemon(true);
+            return t;
+        });
+        gravador.scheduleWithFixedDelay(() -> {
+            try {
+                gravar();
+            } catch (IOException e) {
+                // A busca segue; só a retomada perde o que não foi gravado
+                LOG.warning("Erro ao gravar o ponto de controle: " + e);
+            }
+        }, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (gravador != null) {
+            gravador.shutdown();
+            try {
+                gravador.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            gravar();
+        } finally {
+            canal.close();
+        }
+    }
+}
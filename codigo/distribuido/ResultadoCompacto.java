@@ -0,0 +1,18 @@
+import java.io.Serializable;
+
+// Resposta de uma tarefa no protocolo por índices: a rota vem como os índices das cidades na instância
+// carregada (começando e terminando na origem), sem nomes nem objetos CidadePCV.
+public class ResultadoCompacto implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int[] rota;
+    private final double distancia;
+
+    public ResultadoCompacto(int[] rota, double distancia) {
+        this.rota = rota;
+        this.distancia = distancia;
+    }
+
+    public int[] getRota() { return rota; }
+    public double getDistancia() { return distancia; }
+}
@@ -2,16 +2,32 @@ import java.io.Serializable;
 import java.util.List;
 
 public class ResultadoPCV implements Serializable {
-    private static final long serialVersionUID = 2L;
+    private static final long serialVersionUID = 3L;
 
     private final List<CidadePCV> rota;
     private final double distancia;
+    // Se a busca terminou e garante que não existe rota menor; falso para buscas interrompidas
+    private final boolean otimoComprovado;
+    // A mesma rota em índices da Instancia, quando foi o Escalonador que a montou; nulo se não
+    private final int[] indices;
 
     public ResultadoPCV(List<CidadePCV> rota, double distancia) {
+        this(rota, distancia, false);
+    }
+
+    public ResultadoPCV(List<CidadePCV> rota, double distancia, boolean otimoComprovado) {
+        this(rota, null, distancia, otimoComprovado);
+    }
+
+    ResultadoPCV(List<CidadePCV> rota, int[] indices, double distancia, boolean otimoComprovado) {
         this.rota = rota;
+        this.indices = indices;
         this.distancia = distancia;
+        this.otimoComprovado = otimoComprovado;
     }
 
     public List<CidadePCV> getRota() { return rota; }
     public double getDistancia() { return distancia; }
+    public boolean isOtimoComprovado() { return otimoComprovado; }
+    int[] getIndices() { return indices; }
 }
\ No newline at end of file
@@ -1,16 +1,91 @@
 import java.rmi.Remote;
 import java.rmi.RemoteException;
-import java.util.List;
 
 public interface TSPInterface extends Remote {
+    /**
+     * Quantos núcleos o worker usa para resolver cada tarefa; o servidor mantém mais tarefas em voo
+     * para os workers com mais núcleos.
+     * @return O paralelismo interno do worker.
+     * @throws RemoteException
+     */
+    int getNucleos() throws RemoteException;
+
+    /**
+     * Envia a instância uma única vez para o worker, que a guarda em cache sob o id informado.
+     * As coordenadas seguem a ordem das cidades na instância; o índice 0 é a origem de todas as rotas.
+     * @param idDaInstancia Identificador da instância, usado nas tarefas seguintes.
+     * @param xs Coordenadas x das cidades.
+     * @param ys Coordenadas y das cidades.
+     * @param canal Canal do servidor para o qual o worker publica as rotas melhores que encontrar, ou null.
+     * @throws RemoteException
+     */
+    void carregarInstancia(long idDaInstancia, int[] xs, int[] ys, CanalDeLimites canal) throws RemoteException;
+
+    /**
+     * Chamado pelo servidor quando a melhor rota do cluster melhora, para que as buscas em andamento no worker
+     * passem a podar com ela.
+     * @param idDaInstancia Instância à qual o limite se refere; ignorado se não estiver no cache.
+     * @param limite Distância da melhor rota conhecida pelo servidor.
+     * @throws RemoteException
+     */
+    void atualizarLimite(long idDaInstancia, double limite) throws RemoteException;
+
+    /**
+     * Chamado pelo servidor quando desiste da execução (por exemplo, ao esgotar o prazo): as tarefas da instância
+     * em andamento no worker param no próximo ponto de verificação e devolvem a melhor rota que já tinham, e as
+     * que chegarem depois voltam sem rota. Recarregar a instância desfaz o cancelamento.
+     * @param idDaInstancia Instância cujas tarefas devem parar; ignorado se não estiver no cache.
+     * @throws RemoteException
+     */
+    void cancelar(long idDaInstancia) throws RemoteException;
+
+    /**
+     * Andamento acumulado das tarefas da instância já resolvidas por este worker: rotas avaliadas, fração do
+     * espaço de rotas da instância que elas cobrem e a melhor rota que o worker encontrou.
+     * @param idDaInstancia Instância previamente enviada com carregarInstancia.
+     * @return O retrato do andamento, ou null se a instância não está no cache do worker.
+     * @throws RemoteException
+     */
+    Progresso getProgresso(long idDaInstancia) throws RemoteException;
+
     /**
      * Método que será chamado remotamente pelo Servidor.
-     * Ele resolve um subconjunto do problema do caixeiro viajante.
-     * @param origem A cidade inicial global da rota.
-     * @param segundaCidade A segunda cidade da rota, que define o subproblema desta tarefa.
-     * @param cidadesParaPermutar A lista de cidades restantes a serem permutadas.
-     * @return O melhor resultado (rota e distância) encontrado para este subproblema.
+     * Ele resolve um subconjunto do problema do caixeiro viajante: todas as rotas que começam pelo prefixo dado.
+     * Em instâncias simétricas, só são geradas rotas em que a cidade de índice 1 aparece antes da de índice 2;
+     * as rotas espelhadas ficam de fora.
+     * @param idDaInstancia Instância previamente enviada com carregarInstancia.
+     * @param prefixo Índices das primeiras cidades da rota (prefixo[0] == 0), que definem o subproblema desta tarefa.
+     * @param limite Melhor distância conhecida pelo servidor; rotas que não a melhoram são podadas.
+     * @return A melhor rota (em índices) e a sua distância, com rota nula e distância infinita se o prefixo
+     *         só contém rotas espelhadas ou nenhuma rota dele fica abaixo do limite.
+     * @throws InstanciaDesconhecidaException Se a instância não está no cache do worker.
+     * @throws RemoteException
+     */
+    ResultadoCompacto resolverPrefixo(long idDaInstancia, int[] prefixo, double limite) throws RemoteException, InstanciaDesconhecidaException;
+
+    /**
+     * Cria neste worker uma ilha do algoritmo genético para a instância, substituindo a que já houvesse com o
+     * mesmo id. As coordenadas vão à parte de carregarInstancia porque a ilha não usa a matriz de distâncias,
+     * que não caberia na memória nas instâncias grandes para as quais o algoritmo genético serve.
+     * @param idDaInstancia Identificador da instância, usado em evoluirIlha.
+     * @param xs Coordenadas x das cidades.
+     * @param ys Coordenadas y das cidades.
+     * @param tamanhoDaPopulacao Quantidade de rotas mantidas pela ilha.
+     * @param semente Semente do gerador de números aleatórios da ilha.
+     * @throws RemoteException
+     */
+    void iniciarIlha(long idDaInstancia, int[] xs, int[] ys, int tamanhoDaPopulacao, long semente) throws RemoteException;
+
+    /**
+     * Evolui a ilha da instância por algumas gerações, depois de oferecer a ela a rota que migrou de outra ilha.
+     * @param idDaInstancia Instância previamente enviada com iniciarIlha.
+     * @param geracoes Quantas gerações executar nesta chamada.
+     * @param tempoMaximoMs Tempo máximo da chamada, em milissegundos; a ilha para no meio das gerações ao atingi-lo.
+     *        Long.MAX_VALUE para nenhum.
+     * @param imigrante Ciclo (índices das n cidades, sem repetir a inicial) vindo de outra ilha, ou null.
+     * @return A melhor rota da ilha (em índices, começando e terminando na origem) e a sua distância.
+     * @throws InstanciaDesconhecidaException Se o worker não tem uma ilha para a instância.
      * @throws RemoteException
      */
-    ResultadoPCV resolverSubRota(CidadePCV origem, CidadePCV segundaCidade, List<CidadePCV> cidadesParaPermutar) throws RemoteException;
-}
\ No newline at end of file
+    ResultadoCompacto evoluirIlha(long idDaInstancia, int geracoes, long tempoMaximoMs, int[] imigrante) throws RemoteException, InstanciaDesconhecidaException;
+}
@@ -1,30 +1,49 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 public class TSPServer {
+    private static final Logger LOG = Log.de(TSPServer.class);
+    // Gerações de cada ilha do algoritmo genético quando não há prazo
+    public static final int GERACOES_PADRAO_DO_GENETICO = 100;
 
     public static void main(String[] args) {
+        // Nível das mensagens com -Dpcv.log (por exemplo FINE ou WARNING); métricas em JSON com -Dpcv.metricas=<arquivo>
+        Log.configurar();
+        Metricas.doProcesso().registrarNoJmx("servidor");
         try {
             //Carrega os dados das cidades a partir de um arquivo de texto.
-            List<CidadePCV> cidades = carregarCidadesDeArquivo("cidades.txt");
-            
-            System.out.println("\n--- Executando Algoritmo de Forca Bruta Distribuido ---");
+            Instancia instancia = carregarInstanciaDeArquivo("cidades.txt");
             
             // Medição de tempo: marca o início da execução.
             long inicio = System.nanoTime();
             
+            // Primeiro argumento opcional: prazo em segundos (0 para nenhum); com ele, o servidor devolve a melhor
+            // rota encontrada até o fim do prazo
+            long segundos = args.length > 0 ? Long.parseLong(args[0]) : 0;
+            Prazo prazo = segundos > 0 ? Prazo.de(segundos, TimeUnit.SECONDS) : null;
+            // Segundo argumento opcional: arquivo de ponto de controle, de onde uma execução interrompida é retomada
+            // ("-" para nenhum)
+            Path pontoDeControle = args.length > 1 && !args[1].equals("-") ? Paths.get(args[1]) : null;
+            // Terceiro argumento opcional: diretório do cache de resultados, que guarda as rotas ótimas entre execuções
+            // ("-" para nenhum)
+            CacheDeResultados cache = args.length > 2 && !args[2].equals("-") ? new CacheDeResultados(CacheDeResultados.BYTES_PADRAO, Paths.get(args[2])) : null;
+            // Quarto argumento opcional: "genetico" troca a busca exata pelo algoritmo genético, uma ilha por worker
+            boolean genetico = args.length > 3 && args[3].equalsIgnoreCase("genetico");
+            System.out.println(genetico ? "\n--- Executando Algoritmo Genetico Distribuido ---" : "\n--- Executando Algoritmo de Forca Bruta Distribuido ---");
+
             // Chama o método principal que resolve o problema de forma distribuída.
-            ResultadoPCV resultadoFinal = resolverDistribuido(cidades);
+            ResultadoPCV resultadoFinal = genetico
+                    ? resolverGeneticoDistribuido(instancia, GERACOES_PADRAO_DO_GENETICO, prazo)
+                    : resolverDistribuido(instancia, ObservadorDeProgresso.console("Forca Bruta Distribuida"), prazo, pontoDeControle, cache);
             
             // Medição de tempo: calcula a duração total em nanossegundos.
             long tempoTotal = (System.nanoTime() - inicio);
@@ -37,110 +56,136 @@ public class TSPServer {
                 System.out.println("Melhor Rota Global: " + resultadoFinal.getRota().stream().map(CidadePCV::getNome).collect(Collectors.joining(" -> ")));
                 
                 System.out.printf("Distancia Total: %.2f\n", resultadoFinal.getDistancia());
+                System.out.println("Otimo comprovado: " + (resultadoFinal.isOtimoComprovado() ? "sim" : "nao"));
             } else {
                 System.out.println("Nenhuma solucao foi encontrada.");
             }
 
+            String arquivoDeMetricas = System.getProperty("pcv.metricas");
+            if (arquivoDeMetricas != null) {
+                Metricas.doProcesso().gravarJson(Paths.get(arquivoDeMetricas));
+                System.out.println("Metricas gravadas em " + arquivoDeMetricas);
+            }
+
         } catch (IOException e) {
-            System.err.println("Erro ao carregar o arquivo de cidades: " + e.getMessage());
+            System.err.println("Erro ao carregar o arquivo de cidades ou gravar as metricas: " + e.getMessage());
         }
     }
 
-    // Método que orquestra a resolução distribuída do problema.
     public static ResultadoPCV resolverDistribuido(List<CidadePCV> cidades) {
+        return resolverDistribuido(cidades, null);
+    }
+
+    public static ResultadoPCV resolverDistribuido(List<CidadePCV> cidades, ObservadorDeProgresso observador) {
+        return resolverDistribuido(cidades, observador, null);
+    }
+
+    // Método que orquestra a resolução distribuída do problema. Com um observador, entrega periodicamente a
+    // melhor rota até o momento, as rotas avaliadas pelos workers, a fração coberta e o tempo restante estimado.
+    // Com um prazo, devolve a melhor rota conhecida quando ele esgota, mesmo que os workers não tenham terminado.
+    public static ResultadoPCV resolverDistribuido(List<CidadePCV> cidades, ObservadorDeProgresso observador, Prazo prazo) {
+        return resolverDistribuido(cidades, observador, prazo, null);
+    }
+
+    // Com um arquivo de ponto de controle, grava nele periodicamente as tarefas concluídas e a melhor rota, e, se
+    // ele já existir para esta instância, retoma a execução que o gravou em vez de começar do zero.
+    public static ResultadoPCV resolverDistribuido(List<CidadePCV> cidades, ObservadorDeProgresso observador, Prazo prazo, Path pontoDeControle) {
+        return resolverDistribuido(cidades == null ? null : Instancia.de(cidades), observador, prazo, pontoDeControle);
+    }
+
+    public static ResultadoPCV resolverDistribuido(Instancia instancia, ObservadorDeProgresso observador, Prazo prazo, Path pontoDeControle) {
+        return resolverDistribuido(instancia, observador, prazo, pontoDeControle, null);
+    }
+
+    // Com um cache, a instância é procurada nele antes de qualquer contato com os workers, e uma rota ótima
+    // comprovada encontrada por eles é guardada nele.
+    public static ResultadoPCV resolverDistribuido(Instancia instancia, ObservadorDeProgresso observador, Prazo prazo, Path pontoDeControle,
+            CacheDeResultados cache) {
         // Checagem de segurança para evitar erros com listas vazias.
-        if (cidades == null || cidades.size() < 2) return null;
+        if (instancia == null || instancia.getTamanho() < 2) return null;
+
+        if (cache != null) {
+            int[] rota = cache.buscar(instancia.getXs(), instancia.getYs());
+            if (rota != null) {
+                LOG.info("SERVIDOR: rota ótima encontrada no cache de resultados.");
+                return new ResultadoPCV(instancia.montarRota(rota), rota, instancia.comprimento(rota), true);
+            }
+        }
 
         // Variável para armazenar o melhor resultado encontrado entre todos os workers.
         ResultadoPCV melhorGlobal = new ResultadoPCV(null, Double.POSITIVE_INFINITY);
 
-        ExecutorService executorDoServidor = null;
+        // Uma chamada sem resposta dentro do tempo limite conta como falha do worker e a tarefa é reenviada
+        Escalonador.configurarTempoLimiteDeResposta();
 
         try {
-            // Conecta-se ao serviço de registro RMI que está rodando.
-            Registry registry = LocateRegistry.getRegistry("localhost");
-            
-            // Lista para armazenar as referências (stubs) dos workers remotos.
-            List<TSPInterface> workers = new ArrayList<>();
-            
-            // Procura no registro por todos os serviços com nome "TSPWorker".
-            for (String name : registry.list()) {
-                if (name.startsWith("TSPWorker")) {
-                    System.out.println("SERVIDOR: Encontrado worker: " + name);
-                    workers.add((TSPInterface) registry.lookup(name));
-                }
-            }
-
+            List<TSPInterface> workers = procurarWorkers();
             // Se nenhum worker for encontrado, o programa não pode continuar.
             if (workers.isEmpty()) {
-                System.err.println("Nenhum worker RMI encontrado. Abortando.");
+                LOG.severe("Nenhum worker RMI encontrado. Abortando.");
                 return null;
             }
-            System.out.println(cidades.size() + " cidades, usando " + workers.size() + " workers...");
-
-            // Define a cidade de origem (a primeira da lista) como fixa para todas as rotas.
-            final CidadePCV origem = cidades.get(0);
-            
-            // Cria uma CÓPIA da sublista de cidades. Isso é crucial para que seja 'Serializable'.
-            final List<CidadePCV> cidadesParaPermutar = new ArrayList<>(cidades.subList(1, cidades.size()));
-
-            // Cria um pool de threads no servidor do tamanho do número de workers.
-            executorDoServidor = Executors.newFixedThreadPool(workers.size());
-            List<Future<ResultadoPCV>> futurosResultados = new ArrayList<>();
-            int workerIndex = 0;
-
-            // Loop principal de distribuição: para cada "segunda cidade" possível, cria uma tarefa.
-            for (final CidadePCV segundaCidade : cidadesParaPermutar) {
-                final TSPInterface worker = workers.get(workerIndex);
-                final int indexDaTarefa = workerIndex;
-                
-                // Submete a tarefa para o pool de threads do servidor.
-                Future<ResultadoPCV> future = executorDoServidor.submit(() -> {
-                    System.out.println("SERVIDOR: Enviando tarefa para " + segundaCidade.getNome() + " para o worker " + indexDaTarefa);
-                    // A chamada de rede (RMI). O servidor chama o método no worker.
-                    return worker.resolverSubRota(origem, segundaCidade, cidadesParaPermutar);
-                });
-                futurosResultados.add(future);
-                
-                workerIndex = (workerIndex + 1) % workers.size();
-            }
+            LOG.info(instancia.getTamanho() + " cidades, usando " + workers.size() + " workers...");
 
-            // Loop de agregação: agora, o servidor espera a resposta de todas as tarefas.
-            for (Future<ResultadoPCV> f : futurosResultados) {
-                // O método .get() bloqueia a execução até que o resultado daquela tarefa chegue.
-                ResultadoPCV resultadoParcial = f.get();
-                
-                // Compara o resultado do worker com o melhor resultado global encontrado até agora.
-                if (resultadoParcial != null && resultadoParcial.getDistancia() < melhorGlobal.getDistancia()) {
-                    melhorGlobal = resultadoParcial;
-                }
+            // As tarefas ficam em uma fila central e cada worker busca a próxima quando termina a anterior
+            melhorGlobal = new Escalonador(instancia, workers, observador, prazo, pontoDeControle).executar();
+            if (cache != null && melhorGlobal.isOtimoComprovado() && melhorGlobal.getIndices() != null) {
+                cache.guardar(instancia.getXs(), instancia.getYs(), melhorGlobal.getIndices());
             }
 
         } catch (Exception e) {
-            System.err.println("Excecao no Servidor: " + e.toString());
-            e.printStackTrace();
-        } finally {
-            // garante que o pool de threads do servidor seja encerrado.
-            if (executorDoServidor != null) {
-                executorDoServidor.shutdown();
-            }
+            LOG.log(Level.SEVERE, "Excecao no Servidor: " + e, e);
         }
         return melhorGlobal;
     }
     
-    // Método utilitário para ler as cidades de um arquivo.
-    public static List<CidadePCV> carregarCidadesDeArquivo(String filepath) throws IOException {
-        List<CidadePCV> cidades = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(filepath))) {
-            String linha;
-            while ((linha = br.readLine()) != null) {
-                String[] partes = linha.strip().split(",");
-                if (partes.length == 3) {
-                    cidades.add(new CidadePCV(partes[0].trim(), Integer.parseInt(partes[1].trim()), Integer.parseInt(partes[2].trim())));
-                }
+    // Algoritmo genético com uma ilha em cada worker (ver AlgoritmoGenetico), para instâncias grandes demais para
+    // a busca exata. Para depois das gerações pedidas ou quando o prazo (que pode ser null) esgota; a rota
+    // devolvida nunca é marcada como ótimo comprovado.
+    public static ResultadoPCV resolverGeneticoDistribuido(Instancia instancia, int geracoes, Prazo prazo) {
+        if (instancia == null || instancia.getTamanho() < 2) return null;
+        // Com menos de 5 cidades não há o que cruzar; a busca exata é imediata
+        if (instancia.getTamanho() < 5) {
+            return resolverDistribuido(instancia, null, prazo, null);
+        }
+
+        Escalonador.configurarTempoLimiteDeResposta();
+        try {
+            List<TSPInterface> workers = procurarWorkers();
+            if (workers.isEmpty()) {
+                LOG.severe("Nenhum worker RMI encontrado. Abortando.");
+                return null;
+            }
+            LOG.info(instancia.getTamanho() + " cidades, usando " + workers.size() + " ilhas...");
+            return new AlgoritmoGenetico(instancia, workers, System.nanoTime()).executar(geracoes, prazo);
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Excecao no Servidor: " + e, e);
+            return new ResultadoPCV(null, Double.POSITIVE_INFINITY);
+        }
+    }
+
+    // Procura no registro RMI local todos os serviços com nome "TSPWorker"
+    private static List<TSPInterface> procurarWorkers() throws Exception {
+        Registry registry = LocateRegistry.getRegistry("localhost");
+        List<TSPInterface> workers = new ArrayList<>();
+        for (String name : registry.list()) {
+            if (name.startsWith("TSPWorker")) {
+                LOG.info("SERVIDOR: Encontrado worker: " + name);
+                workers.add((TSPInterface) registry.lookup(name));
             }
         }
-        System.out.println(cidades.size() + " cidades carregadas do arquivo '" + filepath + "'.");
-        return cidades;
+        return workers;
+    }
+
+    // Método utilitário para ler as cidades de um arquivo.
+    public static List<CidadePCV> carregarCidadesDeArquivo(String filepath) throws IOException {
+        return carregarInstanciaDeArquivo(filepath).getCidades();
+    }
+
+    // Lido pelo CarregadorDeCidades: CSV, binário ou TSPLIB, pelo arquivo mapeado em memória
+    public static Instancia carregarInstanciaDeArquivo(String filepath) throws IOException {
+        Instancia instancia = CarregadorDeCidades.carregar(Paths.get(filepath));
+        System.out.println(instancia.getTamanho() + " cidades carregadas do arquivo '" + filepath + "'.");
+        return instancia;
     }
 }
\ No newline at end of file
@@ -1,34 +1,283 @@
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class TSPWorker implements TSPInterface {
+    private static final Logger LOG = Log.de(TSPWorker.class);
 
-    public TSPWorker() {}
+    // Quantas instâncias o worker mantém em cache; as usadas há mais tempo saem primeiro
+    private static final int INSTANCIAS_EM_CACHE = 4;
+    // Subtarefas mínimas por núcleo ao dividir uma tarefa recebida dentro do worker
+    private static final int SUBTAREFAS_POR_NUCLEO = 4;
+    // Intervalo entre publicações das rotas melhores para o servidor; melhorias dentro dele vão juntas
+    private static final long INTERVALO_DE_PUBLICACAO_MS = 100;
+
+    // O que o worker guarda de cada instância: as distâncias, o limite de poda compartilhado com o cluster e
+    // o andamento acumulado das tarefas dela que este worker resolveu, que o servidor consulta em getProgresso,
+    // e o cancelamento pedido pelo servidor
+    private static final class InstanciaCarregada {
+        final MatrizDistancias matriz;
+        final double[] menoresSaidas;
+        final LimiteCompartilhado limite;
+        final MonitorDeProgresso monitor;
+        final Prazo cancelamento = Prazo.semLimite();
+
+        InstanciaCarregada(MatrizDistancias matriz, LimiteCompartilhado limite) {
+            this.matriz = matriz;
+            this.menoresSaidas = matriz.menoresSaidas();
+            this.limite = limite;
+            this.monitor = new MonitorDeProgresso(matriz.getTamanho() - 1);
+        }
+    }
+
+    private final Map<Long, IlhaGenetica> ilhas = Collections.synchronizedMap(
+            new LinkedHashMap<Long, IlhaGenetica>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, IlhaGenetica> maisAntiga) {
+                    return size() > INSTANCIAS_EM_CACHE;
+                }
+            });
+    private final ModoAvaliacao modo;
+    private final int nucleos;
+    private final ForkJoinPool pool;
+    private final Metricas metricas = Metricas.doProcesso();
+    private final ScheduledExecutorService publicador;
+    private final Map<Long, InstanciaCarregada> instancias = Collections.synchronizedMap(
+            new LinkedHashMap<Long, InstanciaCarregada>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, InstanciaCarregada> maisAntiga) {
+                    return size() > INSTANCIAS_EM_CACHE;
+                }
+            });
+
+    public TSPWorker() {
+        this(ModoAvaliacao.INCREMENTAL);
+    }
+
+    public TSPWorker(ModoAvaliacao modo) {
+        this(modo, Runtime.getRuntime().availableProcessors());
+    }
+
+    public TSPWorker(ModoAvaliacao modo, int nucleos) {
+        this.modo = modo;
+        this.nucleos = nucleos;
+        // Com um único núcleo as tarefas pequenas rodam direto na thread da chamada RMI; as grandes passam
+        // pelo pool mesmo assim, para serem divididas em partes que consultam o cancelamento
+        this.pool = new ForkJoinPool(nucleos);
+        this.publicador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "publicador-de-limites");
+            t.setDaemon(true);
+            return t;
+        });
+        publicador.scheduleWithFixedDelay(this::publicarPendentes, INTERVALO_DE_PUBLICACAO_MS, INTERVALO_DE_PUBLICACAO_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void publicarPendentes() {
+        List<InstanciaCarregada> carregadas;
+        synchronized (instancias) {
+            carregadas = new ArrayList<>(instancias.values());
+        }
+        for (InstanciaCarregada instancia : carregadas) {
+            instancia.limite.publicarPendente();
+        }
+    }
+
+    @Override
+    public int getNucleos() throws RemoteException {
+        return nucleos;
+    }
+
+    @Override
+    public void carregarInstancia(long idDaInstancia, int[] xs, int[] ys, CanalDeLimites canal) throws RemoteException {
+        // Calcula as distâncias da instância uma única vez, e não a cada tarefa. Recarregar a instância
+        // recomeça o limite: ele só vale para a execução do servidor que a enviou.
+        // Uma matriz que não cabe na memória deste worker é recusada como falha dele: o servidor segue com os
+        // demais e, sem nenhum, com a melhor rota que conhece.
+        if (!LimitesDeMemoria.cabeNaMemoria(LimitesDeMemoria.matrizDeDistancias(xs.length))) {
+            LOG.warning("WORKER: Instância " + Long.toHexString(idDaInstancia) + " recusada: a matriz de " + xs.length
+                    + " cidades não cabe na memória.");
+            throw new RemoteException("A matriz de distancias de " + xs.length + " cidades nao cabe na memoria do worker.");
+        }
+        instancias.put(idDaInstancia, new InstanciaCarregada(new MatrizDistancias(xs, ys), new LimiteCompartilhado(idDaInstancia, canal)));
+        LOG.info("WORKER: Instância " + Long.toHexString(idDaInstancia) + " carregada (" + xs.length + " cidades).");
+    }
+
+    @Override
+    public void atualizarLimite(long idDaInstancia, double limite) throws RemoteException {
+        InstanciaCarregada instancia = instancias.get(idDaInstancia);
+        if (instancia != null) {
+            instancia.limite.receber(limite);
+        }
+    }
 
     @Override
-    public ResultadoPCV resolverSubRota(CidadePCV origem, CidadePCV segundaCidade, List<CidadePCV> cidadesParaPermutar) throws RemoteException {
-        System.out.println("WORKER: Recebida tarefa para rota iniciando com " + origem.getNome() + " -> " + segundaCidade.getNome());
-        
-        List<CidadePCV> restoDasCidades = new ArrayList<>(cidadesParaPermutar);
-        restoDasCidades.remove(segundaCidade);
+    public void cancelar(long idDaInstancia) throws RemoteException {
+        InstanciaCarregada instancia = instancias.get(idDaInstancia);
+        if (instancia != null) {
+            instancia.cancelamento.cancelar();
+            LOG.info("WORKER: Tarefas da instância " + Long.toHexString(idDaInstancia) + " canceladas pelo servidor.");
+        }
+    }
+
+    @Override
+    public Progresso getProgresso(long idDaInstancia) throws RemoteException {
+        InstanciaCarregada instancia = instancias.get(idDaInstancia);
+        return instancia == null ? null : instancia.monitor.amostrar();
+    }
+
+    @Override
+    public ResultadoCompacto resolverPrefixo(long idDaInstancia, int[] prefixo, double limite) throws RemoteException, InstanciaDesconhecidaException {
+        InstanciaCarregada instancia = instancias.get(idDaInstancia);
+        if (instancia == null) {
+            throw new InstanciaDesconhecidaException(idDaInstancia);
+        }
+        long inicio = System.nanoTime();
+        MatrizDistancias matriz = instancia.matriz;
+        instancia.limite.receber(limite);
+        int n = matriz.getTamanho();
+
+        // As cidades a permutar são todas as que não estão no prefixo
+        boolean[] noPrefixo = new boolean[n];
+        for (int cidade : prefixo) {
+            noPrefixo[cidade] = true;
+        }
+        int[] restoDasCidades = new int[n - prefixo.length];
+        int r = 0;
+        for (int i = 0; i < n; i++) {
+            if (!noPrefixo[i]) {
+                restoDasCidades[r++] = i;
+            }
+        }
 
-        CalculadorDePermutacao calculador = new CalculadorDePermutacao(origem, segundaCidade);
-        calculador.permutar(restoDasCidades, 0);
+        // Restrição de simetria combinada com o servidor: a cidade 1 vem antes da cidade 2
+        int cidadeAntes = -1;
+        int cidadeDepois = -1;
+        if (matriz.isSimetrica() && n >= 3) {
+            cidadeAntes = 1;
+            cidadeDepois = 2;
+        }
+
+        ResultadoCompacto resultado;
+        if (instancia.cancelamento.esgotado()) {
+            return new ResultadoCompacto(null, Double.POSITIVE_INFINITY);
+        } else if (nucleos == 1 && restoDasCidades.length <= TarefaDoWorker.MAXIMO_SEM_VERIFICAR) {
+            CalculadorDePermutacao calculador = new CalculadorDePermutacao(matriz, prefixo, modo, cidadeAntes, cidadeDepois,
+                    instancia.limite, instancia.menoresSaidas);
+            calculador.permutar(restoDasCidades);
+            metricas.registrarBusca(calculador.getFolhasVisitadas(), calculador.getNosPodados(), System.nanoTime() - inicio);
+            instancia.monitor.registrar(calculador.getFolhasVisitadas(), instancia.monitor.fatorial(restoDasCidades.length));
+            resultado = new ResultadoCompacto(calculador.getMelhorRotaLocal(), calculador.getMenorDistanciaLocal());
+        } else {
+            // Divide o subproblema entre os núcleos: o corte fica fundo o bastante para gerar
+            // SUBTAREFAS_POR_NUCLEO subtarefas por núcleo, e o pool rouba trabalho a partir daí
+            int corte = prefixo.length - 1;
+            long subtarefas = 1;
+            for (int m = restoDasCidades.length; m > 1 && subtarefas < (long) SUBTAREFAS_POR_NUCLEO * nucleos; m--) {
+                subtarefas *= m;
+                corte++;
+            }
+            double distanciaDoPrefixo = 0;
+            for (int i = 1; i < prefixo.length; i++) {
+                distanciaDoPrefixo += matriz.distancia(prefixo[i - 1], prefixo[i]);
+            }
+            TarefaDoWorker.ContextoDaBusca contexto = new TarefaDoWorker.ContextoDaBusca(matriz, modo, corte, cidadeAntes, cidadeDepois,
+                    instancia.limite, instancia.menoresSaidas, instancia.monitor, instancia.cancelamento);
+            resultado = pool.invoke(new TarefaDoWorker(contexto, prefixo, restoDasCidades, distanciaDoPrefixo));
+        }
+        // Garante que o servidor tenha as rotas desta tarefa antes da resposta, mesmo que ela se perca no caminho
+        instancia.limite.publicarPendente();
+
+        if (resultado.getRota() != null) {
+            instancia.monitor.oferecerRota(resultado.getRota(), resultado.getDistancia());
+        }
+        metricas.registrarTarefa(System.nanoTime() - inicio);
+        // Uma mensagem por tarefa só no nível FINE; fora dele nem a String é montada
+        ResultadoCompacto entregue = resultado;
+        if (instancia.cancelamento.esgotado()) {
+            LOG.fine(() -> "WORKER: Prefixo " + Arrays.toString(prefixo) + " interrompido por cancelamento.");
+        } else if (resultado.getRota() != null) {
+            LOG.fine(() -> "WORKER: Prefixo " + Arrays.toString(prefixo) + " concluído. Menor distância local: " + String.format("%.2f", entregue.getDistancia()));
+        } else {
+            LOG.fine(() -> "WORKER: Prefixo " + Arrays.toString(prefixo) + " concluído sem rota abaixo do limite " + String.format("%.2f", instancia.limite.get()) + ".");
+        }
+        return resultado;
+    }
 
-        System.out.println("WORKER: Tarefa " + segundaCidade.getNome() + " concluída. Menor distância local: " + String.format("%.2f", calculador.getMenorDistanciaLocal()));
-        return new ResultadoPCV(calculador.getMelhorRotaLocal(), calculador.getMenorDistanciaLocal());
+    @Override
+    public void iniciarIlha(long idDaInstancia, int[] xs, int[] ys, int tamanhoDaPopulacao, long semente) throws RemoteException {
+        long inicio = System.nanoTime();
+        ilhas.put(idDaInstancia, new IlhaGenetica(xs, ys, tamanhoDaPopulacao, semente));
+        LOG.info(String.format("WORKER: Ilha da instância %s iniciada (%d cidades) em %dms.", Long.toHexString(idDaInstancia), xs.length,
+                (System.nanoTime() - inicio) / 1_000_000));
+    }
+
+    @Override
+    public ResultadoCompacto evoluirIlha(long idDaInstancia, int geracoes, long tempoMaximoMs, int[] imigrante) throws RemoteException, InstanciaDesconhecidaException {
+        IlhaGenetica ilha = ilhas.get(idDaInstancia);
+        if (ilha == null) {
+            throw new InstanciaDesconhecidaException(idDaInstancia);
+        }
+        // O servidor conversa com a ilha por uma chamada de cada vez; a trava só protege contra um servidor repetido
+        synchronized (ilha) {
+            ilha.receberImigrante(imigrante);
+            ilha.evoluir(geracoes, tempoMaximoMs == Long.MAX_VALUE ? null : Prazo.de(tempoMaximoMs, TimeUnit.MILLISECONDS));
+            int[] ciclo = ilha.getMelhor();
+            int n = ciclo.length;
+            int inicio = 0;
+            while (ciclo[inicio] != 0) {
+                inicio++;
+            }
+            int[] rota = new int[n + 1];
+            for (int i = 0; i <= n; i++) {
+                rota[i] = ciclo[(inicio + i) % n];
+            }
+            return new ResultadoCompacto(rota, ilha.getMelhorComprimento());
+        }
     }
 
     public static void main(String[] args) {
+        Log.configurar();
         try {
             String host = (args.length < 1) ? "localhost" : args[0];
+            // Segundo argumento opcional: modo de avaliação das rotas (INCREMENTAL ou COMPLETA)
+            ModoAvaliacao modo = (args.length < 2) ? ModoAvaliacao.INCREMENTAL : ModoAvaliacao.valueOf(args[1].toUpperCase());
+            // Terceiro argumento opcional: quantos núcleos usar (por padrão, todos os da máquina)
+            int nucleos = (args.length < 3) ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[2]);
             
-            TSPWorker worker = new TSPWorker();
-            TSPInterface stub = (TSPInterface) UnicastRemoteObject.exportObject(worker, 0);
+            TSPWorker worker = new TSPWorker(modo, nucleos);
+            // As conexões abertas pelo servidor com este stub contam os bytes de cada chamada (ver Metricas)
+            TSPInterface stub = (TSPInterface) UnicastRemoteObject.exportObject(worker, 0, new FabricaDeSocketsContados(), null);
+            Metricas.doProcesso().registrarNoJmx("worker");
+            // Com -Dpcv.metricas=<arquivo>, as métricas são gravadas em JSON quando o worker é encerrado
+            String arquivoDeMetricas = System.getProperty("pcv.metricas");
+            if (arquivoDeMetricas != null) {
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        Metricas.doProcesso().gravarJson(Paths.get(arquivoDeMetricas));
+                    } catch (IOException e) {
+                        System.err.println("Erro ao gravar as métricas: " + e);
+                    }
+                }));
+            }
 
             Registry registry = LocateRegistry.getRegistry(host);
             
@@ -36,11 +285,10 @@ public class TSPWorker implements TSPInterface {
             String workerName = "TSPWorker-" + System.currentTimeMillis();
             registry.rebind(workerName, stub);
 
-            System.out.println("Worker '" + workerName + "' pronto e registrado no host '" + host + "'.");
+            LOG.info("Worker '" + workerName + "' pronto e registrado no host '" + host + "' com " + nucleos + " núcleos.");
 
         } catch (Exception e) {
-            System.err.println("Excecao no Worker: " + e.toString());
-            e.printStackTrace();
+            LOG.log(Level.SEVERE, "Excecao no Worker: " + e, e);
         }
     }
 }
\ No newline at end of file
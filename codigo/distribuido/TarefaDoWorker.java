@@ -0,0 +1,146 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+// Divide, dentro do worker, o subproblema recebido do servidor entre os núcleos da máquina.
+// Mesmo esquema da Força Bruta da versão paralela: até a profundidade de corte a tarefa sempre cria uma
+// subtarefa para cada próxima cidade possível; depois disso só continua dividindo se o subproblema ainda
+// for grande e houver poucas tarefas na fila da thread, e as folhas rodam o CalculadorDePermutacao.
+// Prefixos que já não podem melhorar o limite compartilhado do cluster nem viram subtarefas.
+// Cada tarefa consulta o cancelamento da instância ao começar e, cancelada, termina sem explorar o seu prefixo.
+public class TarefaDoWorker extends RecursiveTask<ResultadoCompacto> {
+    private static final long serialVersionUID = 1L;
+
+    // Além da profundidade de corte, divide apenas se a fila local tiver menos tarefas sobrando que isso
+    private static final int EXCEDENTE_MAXIMO = 2;
+    // Além da profundidade de corte, divide apenas se restarem pelo menos essa quantidade de cidades
+    private static final int MINIMO_PARA_DIVIDIR = 8;
+    // Divide sempre que restarem mais cidades que isso, para que nenhuma folha demore muito sem consultar o
+    // cancelamento (10! são cerca de 3,6 milhões de rotas)
+    static final int MAXIMO_SEM_VERIFICAR = 10;
+
+    private final ContextoDaBusca contexto;
+    private final int[] prefixo;
+    private final int[] resto;
+    private final double distanciaDoPrefixo;
+
+    public TarefaDoWorker(ContextoDaBusca contexto, int[] prefixo, int[] resto, double distanciaDoPrefixo) {
+        this.contexto = contexto;
+        this.prefixo = prefixo;
+        this.resto = resto;
+        this.distanciaDoPrefixo = distanciaDoPrefixo;
+    }
+
+    @Override
+    protected ResultadoCompacto compute() {
+        if (contexto.prazo.esgotado()) {
+            return new ResultadoCompacto(null, Double.POSITIVE_INFINITY);
+        }
+        int profundidade = prefixo.length - 1;
+        boolean dividir = resto.length > 1
+                && (profundidade < contexto.profundidadeDeCorte
+                    || (resto.length >= MINIMO_PARA_DIVIDIR && getSurplusQueuedTaskCount() < EXCEDENTE_MAXIMO)
+                    || resto.length > MAXIMO_SEM_VERIFICAR);
+
+        if (!dividir) {
+            long inicio = System.nanoTime();
+            CalculadorDePermutacao calculador = new CalculadorDePermutacao(contexto.matriz, prefixo, contexto.modo,
+                    contexto.cidadeAntes, contexto.cidadeDepois, contexto.limite, contexto.menoresSaidas);
+            calculador.permutar(resto);
+            Metricas.doProcesso().registrarBusca(calculador.getFolhasVisitadas(), calculador.getNosPodados(), System.nanoTime() - inicio);
+            // Andamento registrado uma vez por folha, fora do laço da busca: a subárvore inteira está coberta
+            contexto.monitor.registrar(calculador.getFolhasVisitadas(), contexto.monitor.fatorial(resto.length));
+            return new ResultadoCompacto(calculador.getMelhorRotaLocal(), calculador.getMenorDistanciaLocal());
+        }
+
+        // Se apenas cidadeDepois já está no prefixo, todas as rotas dele são espelhos de rotas de outros prefixos
+        boolean antesNoPrefixo = contem(prefixo, contexto.cidadeAntes);
+        if (contexto.cidadeDepois >= 0 && !antesNoPrefixo && contem(prefixo, contexto.cidadeDepois)) {
+            contexto.monitor.registrar(0, contexto.monitor.fatorial(resto.length));
+            return new ResultadoCompacto(null, Double.POSITIVE_INFINITY);
+        }
+        int ultima = prefixo[prefixo.length - 1];
+        List<TarefaDoWorker> subtarefas = new ArrayList<>(resto.length);
+        for (int i = 0; i < resto.length; i++) {
+            int proxima = resto[i];
+            // Prefixos em que cidadeDepois aparece antes de cidadeAntes só levam a rotas espelhadas
+            if (proxima == contexto.cidadeDepois && !antesNoPrefixo) {
+                contexto.monitor.registrar(0, contexto.monitor.fatorial(resto.length - 1));
+                continue;
+            }
+            double novaDistancia = distanciaDoPrefixo + contexto.matriz.distancia(ultima, proxima);
+
+            int[] novoResto = new int[resto.length - 1];
+            System.arraycopy(resto, 0, novoResto, 0, i);
+            System.arraycopy(resto, i + 1, novoResto, i, resto.length - i - 1);
+
+            // Nem cria a subtarefa se o prefixo já não pode melhorar a melhor rota conhecida pelo cluster
+            if (novaDistancia + limiteInferior(proxima, novoResto) >= contexto.limite.get()) {
+                contexto.monitor.registrar(0, contexto.monitor.fatorial(novoResto.length));
+                Metricas.doProcesso().registrarPodados(1);
+                continue;
+            }
+
+            int[] novoPrefixo = new int[prefixo.length + 1];
+            System.arraycopy(prefixo, 0, novoPrefixo, 0, prefixo.length);
+            novoPrefixo[prefixo.length] = proxima;
+            subtarefas.add(new TarefaDoWorker(contexto, novoPrefixo, novoResto, novaDistancia));
+        }
+
+        invokeAll(subtarefas);
+
+        // Combina os resultados das subtarefas; em caso de empate mantém a primeira, como na busca sequencial
+        ResultadoCompacto melhor = new ResultadoCompacto(null, Double.POSITIVE_INFINITY);
+        for (TarefaDoWorker subtarefa : subtarefas) {
+            ResultadoCompacto resultado = subtarefa.join();
+            if (resultado.getDistancia() < melhor.getDistancia()) {
+                melhor = resultado;
+            }
+        }
+        return melhor;
+    }
+
+    // Soma das menores saídas da última cidade do prefixo e das cidades ainda não visitadas
+    private double limiteInferior(int ultima, int[] naoVisitadas) {
+        double soma = contexto.menoresSaidas[ultima];
+        for (int cidade : naoVisitadas) {
+            soma += contexto.menoresSaidas[cidade];
+        }
+        return soma;
+    }
+
+    private static boolean contem(int[] cidades, int cidade) {
+        for (int c : cidades) {
+            if (c == cidade) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Dados compartilhados (somente leitura, exceto o limite, o monitor e o prazo) por todas as subtarefas de uma mesma tarefa
+    public static class ContextoDaBusca {
+        final MatrizDistancias matriz;
+        final ModoAvaliacao modo;
+        final int profundidadeDeCorte;
+        final int cidadeAntes;
+        final int cidadeDepois;
+        final LimiteCompartilhado limite;
+        final double[] menoresSaidas;
+        final MonitorDeProgresso monitor;
+        final Prazo prazo;
+
+        public ContextoDaBusca(MatrizDistancias matriz, ModoAvaliacao modo, int profundidadeDeCorte, int cidadeAntes, int cidadeDepois,
+                LimiteCompartilhado limite, double[] menoresSaidas, MonitorDeProgresso monitor, Prazo prazo) {
+            this.matriz = matriz;
+            this.modo = modo;
+            this.profundidadeDeCorte = profundidadeDeCorte;
+            this.cidadeAntes = cidadeAntes;
+            this.cidadeDepois = cidadeDepois;
+            this.limite = limite;
+            this.menoresSaidas = menoresSaidas;
+            this.monitor = monitor;
+            this.prazo = prazo;
+        }
+    }
+}
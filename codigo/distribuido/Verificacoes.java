@@ -0,0 +1,505 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.rmi.RemoteException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
+
+// Verificações rápidas da solução distribuída, sem RMI: java Verificacoes (depois de javac *.java). Os workers
+// rodam no mesmo processo que o Escalonador. Mostra uma linha por verificação e termina com código 1 se alguma
+// falhar.
+//
+// - O Escalonador, com um worker de um núcleo em cada modo de avaliação, com um de três núcleos, que divide cada
+//   tarefa no seu ForkJoinPool, e com três workers que podam pelo limite compartilhado, contra a enumeração de
+//   todas as rotas, em instâncias pequenas.
+// - Os prefixos enviados em instâncias simétricas: nenhum traz a cidade 2 antes da cidade 1, e juntos cobrem
+//   cada rota uma única vez.
+// - Workers que lançam RemoteException: as tarefas que falharam são refeitas por outro, e quando nenhum resta a
+//   execução termina com a melhor rota encontrada até ali (no mínimo a do Vizinho Mais Próximo), que não é
+//   comprovadamente ótima.
+// - Um worker reiniciado, que perde as instâncias carregadas, volta a recebê-la e termina as tarefas.
+// - O Escalonador com um observador de progresso: o último retrato cobre todo o espaço de rotas e traz a
+//   distância do resultado.
+// - O Escalonador com prazo: com tempo de sobra dá o ótimo comprovado; com o prazo já esgotado, inclusive em uma
+//   instância de 5000 cidades, dá uma rota válida que não é comprovadamente ótima.
+// - O Escalonador com ponto de controle: contra a enumeração, e cortado várias vezes pelo prazo e retomado do
+//   mesmo arquivo até o ótimo comprovado, igual ao de uma execução sem interrupção. O arquivo de outra instância
+//   é recusado.
+// - O TSPServer com um CacheDeResultados: a rota ótima de uma instância responde, sem workers, à mesma instância
+//   transladada e com as cidades em outra ordem; ela também é lida do diretório por um cache novo e não serve a
+//   uma instância diferente.
+// - O algoritmo genético com uma ilha em cada worker: em 9 e 300 cidades, uma rota válida, não comprovadamente
+//   ótima e, em 9, não menor que a da enumeração.
+// - As Metricas de uma execução do Escalonador: tarefas, rotas e chamadas remotas registradas, e o JSON com a
+//   latência por método e a ocupação dos workers.
+// - O AvaliadorDeRotas padrão (o vetorial, se disponível): o ponto livre mais próximo, com empates, e a menor
+//   ordem de cada cauda, igual à da implementação escalar bit a bit.
+// - A ida e volta do CarregadorDeCidades pelos formatos binário, TSPLIB e CSV.
+public final class Verificacoes {
+    // O que não passa pelo log vai para System.out e System.err, desligados durante as verificações
+    private static final PrintStream SAIDA = System.out;
+    private static final PrintStream ERROS = System.err;
+    private static int falhas;
+
+    private Verificacoes() {}
+
+    @FunctionalInterface
+    private interface Verificacao {
+        void executar() throws Exception;
+    }
+
+    public static void main(String[] args) {
+        // O ConsoleHandler guarda o System.err de quando é criado; só mensagens SEVERE chegam a ele
+        if (System.getProperty(Log.PROPRIEDADE_NIVEL) == null) {
+            System.setProperty(Log.PROPRIEDADE_NIVEL, "SEVERE");
+        }
+        Log.configurar();
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            verificar("escalonador igual a enumeracao", Verificacoes::escalonadorContraEnumeracao);
+            verificar("prefixos sem rotas espelhadas", Verificacoes::folhasDosPrefixos);
+            verificar("workers com falhas", Verificacoes::workersComFalhas);
+            verificar("worker reiniciado recebe a instancia de novo", Verificacoes::workerReiniciado);
+            verificar("progresso do escalonador", Verificacoes::progresso);
+            verificar("escalonador com prazo", Verificacoes::comPrazo);
+            verificar("ponto de controle", Verificacoes::pontoDeControle);
+            verificar("cache pela forma canonica", Verificacoes::cache);
+            verificar("algoritmo genetico devolve rota valida", Verificacoes::algoritmoGenetico);
+            verificar("metricas de uma execucao", Verificacoes::metricas);
+            verificar("avaliador de rotas", Verificacoes::avaliadores);
+            verificar("carregador: binario, TSPLIB e CSV", Verificacoes::carregador);
+        } finally {
+            System.setOut(SAIDA);
+            System.setErr(ERROS);
+        }
+        if (falhas > 0) {
+            SAIDA.println(falhas + " verificacoes falharam.");
+            System.exit(1);
+        }
+        SAIDA.println("Todas as verificacoes passaram.");
+    }
+
+    private static void verificar(String nome, Verificacao verificacao) {
+        long inicio = System.nanoTime();
+        try {
+            verificacao.executar();
+            SAIDA.printf("ok      %s (%.0f ms)%n", nome, (System.nanoTime() - inicio) / 1e6);
+        } catch (Throwable e) {
+            falhas++;
+            SAIDA.println("FALHOU  " + nome + ": " + e);
+        }
+    }
+
+    private static void escalonadorContraEnumeracao() throws Exception {
+        // Os workers são criados uma vez e atendem todas as instâncias, como em uma execução real
+        for (ModoAvaliacao modo : ModoAvaliacao.values()) {
+            TSPWorker worker = new TSPWorker(modo, 1);
+            InstanciasDeTeste.conferirContraEnumeracao("Escalonador " + modo + ", um worker", 9,
+                    cidades -> new Escalonador(cidades, List.of(worker)).executar());
+        }
+        TSPWorker comTresNucleos = new TSPWorker(ModoAvaliacao.INCREMENTAL, 3);
+        InstanciasDeTeste.conferirContraEnumeracao("Escalonador, um worker de tres nucleos", 9,
+                cidades -> new Escalonador(cidades, List.of(comTresNucleos)).executar());
+        List<TSPInterface> tres = List.of(new TSPWorker(ModoAvaliacao.INCREMENTAL, 1), new TSPWorker(ModoAvaliacao.COMPLETA, 1), comTresNucleos);
+        InstanciasDeTeste.conferirContraEnumeracao("Escalonador, tres workers", 9, cidades -> new Escalonador(cidades, tres).executar());
+    }
+
+    // Nenhum prefixo enviado traz a cidade 2 antes da cidade 1, e a soma das rotas completas avaliadas pelos
+    // workers em todos os prefixos é (n - 1)! / 2: cada rota uma única vez, sem a espelhada
+    private static void folhasDosPrefixos() {
+        for (int n = 3; n <= 9; n++) {
+            MatrizDistancias matriz = new MatrizDistancias(InstanciasDeTeste.aleatoria(n, n, 1000));
+            long esperadas = 1;
+            for (int i = 2; i < n; i++) {
+                esperadas *= i;
+            }
+            esperadas /= 2;
+            for (int profundidade = 1; profundidade <= Math.min(3, n - 1); profundidade++) {
+                long folhas = 0;
+                for (int[] prefixo : Escalonador.gerarPrefixos(n, profundidade, true)) {
+                    String caso = n + " cidades, prefixo " + Arrays.toString(prefixo);
+                    int posicaoDa1 = -1;
+                    int posicaoDa2 = -1;
+                    for (int i = 0; i < prefixo.length; i++) {
+                        if (prefixo[i] == 1) {
+                            posicaoDa1 = i;
+                        } else if (prefixo[i] == 2) {
+                            posicaoDa2 = i;
+                        }
+                    }
+                    InstanciasDeTeste.confirmar(posicaoDa2 < 0 || (posicaoDa1 >= 0 && posicaoDa1 < posicaoDa2),
+                            caso + ": cidade 2 antes da cidade 1");
+                    CalculadorDePermutacao calculador = new CalculadorDePermutacao(matriz, prefixo, ModoAvaliacao.INCREMENTAL, 1, 2);
+                    calculador.permutar(restoDoPrefixo(n, prefixo));
+                    folhas += calculador.getFolhasVisitadas();
+                }
+                InstanciasDeTeste.confirmar(folhas == esperadas, n + " cidades, profundidade " + profundidade + ": "
+                        + folhas + " rotas avaliadas, esperadas " + esperadas);
+            }
+        }
+    }
+
+    private static void workersComFalhas() throws Exception {
+        // O primeiro falha nas duas primeiras tarefas, menos que as falhas seguidas que o descartariam; o segundo
+        // falha sempre e é descartado
+        InstanciasDeTeste.conferirContraEnumeracao("Escalonador com workers falhando", 9,
+                cidades -> new Escalonador(cidades, List.of(new WorkerInstavel(c -> c < 2), new WorkerInstavel(c -> true))).executar());
+
+        // O único worker passa a falhar sempre depois de três tarefas, ou desde a primeira
+        List<CidadePCV> cidades = InstanciasDeTeste.aleatoria(9, 2, 1000);
+        for (int tarefasResolvidas : new int[] {3, 0}) {
+            ResultadoPCV resultado = new Escalonador(cidades, List.of(new WorkerInstavel(c -> c >= tarefasResolvidas))).executar();
+            String caso = "todos os workers falharam depois de " + tarefasResolvidas + " tarefas";
+            InstanciasDeTeste.confirmar(resultado != null && resultado.getRota() != null, caso + ": sem rota");
+            InstanciasDeTeste.confirmar(!resultado.isOtimoComprovado(), caso + ": otimo comprovado");
+            InstanciasDeTeste.confirmarRota(cidades, resultado.getRota(), resultado.getDistancia(), caso);
+        }
+    }
+
+    private static void workerReiniciado() throws Exception {
+        // O worker é trocado por um novo, sem nenhuma instância em cache, a cada quatro tarefas
+        WorkerInstavel[] worker = new WorkerInstavel[1];
+        InstanciasDeTeste.conferirContraEnumeracao("Escalonador com worker reiniciado", 9, cidades -> {
+            worker[0] = new WorkerInstavel(c -> false, c -> c > 0 && c % 4 == 0);
+            return new Escalonador(cidades, List.of(worker[0])).executar();
+        });
+        InstanciasDeTeste.confirmar(worker[0].cargas.get() > 1, "a instancia nao foi reenviada ao worker reiniciado");
+    }
+
+    private static void progresso() throws Exception {
+        AtomicReference<Progresso> ultimo = new AtomicReference<>();
+        List<TSPInterface> workers = List.of(new TSPWorker(ModoAvaliacao.INCREMENTAL, 1), new TSPWorker(ModoAvaliacao.INCREMENTAL, 3));
+        InstanciasDeTeste.conferirContraEnumeracao("Escalonador com observador", 9, cidades -> {
+            ResultadoPCV resultado = new Escalonador(cidades, workers, ultimo::set).executar();
+            Progresso progresso = ultimo.getAndSet(null);
+            String caso = cidades.size() + " cidades";
+            InstanciasDeTeste.confirmar(progresso != null, caso + ": o observador nao recebeu o retrato final");
+            InstanciasDeTeste.confirmar(Math.abs(progresso.getFracaoCoberta() - 1) <= InstanciasDeTeste.TOLERANCIA,
+                    caso + ": fracao coberta " + progresso.getFracaoCoberta());
+            InstanciasDeTeste.confirmar(progresso.getMelhorDistancia() == resultado.getDistancia(),
+                    caso + ": melhor distancia " + progresso.getMelhorDistancia() + ", resultado " + resultado.getDistancia());
+            return resultado;
+        });
+    }
+
+    private static void comPrazo() throws Exception {
+        TSPWorker worker = new TSPWorker(ModoAvaliacao.INCREMENTAL, 3);
+        InstanciasDeTeste.conferirContraEnumeracao("Escalonador com prazo longo", 9, cidades -> {
+            ResultadoPCV resultado = new Escalonador(cidades, List.of(worker), null, Prazo.de(1, TimeUnit.MINUTES)).executar();
+            InstanciasDeTeste.confirmar(resultado.isOtimoComprovado(), cidades.size() + " cidades: otimo nao comprovado");
+            return resultado;
+        });
+
+        // Com 12 cidades os workers são cancelados na primeira verificação do prazo; com 5000 nada é despachado
+        for (int n : new int[] {12, 5000}) {
+            List<CidadePCV> cidades = InstanciasDeTeste.aleatoria(n, n, 100000);
+            ResultadoPCV resultado = new Escalonador(cidades, List.of(worker), null, Prazo.de(0, TimeUnit.SECONDS)).executar();
+            String caso = n + " cidades com o prazo esgotado";
+            InstanciasDeTeste.confirmar(!resultado.isOtimoComprovado(), caso + ": otimo comprovado");
+            InstanciasDeTeste.confirmarRota(cidades, resultado.getRota(), resultado.getDistancia(), caso);
+        }
+    }
+
+    private static void pontoDeControle() throws Exception {
+        TSPWorker worker = new TSPWorker(ModoAvaliacao.INCREMENTAL, 1);
+        Path arquivo = Files.createTempFile("pcv", ".ponto");
+        try {
+            InstanciasDeTeste.conferirContraEnumeracao("Escalonador com ponto de controle", 9, cidades -> {
+                Files.deleteIfExists(arquivo);
+                return new Escalonador(cidades, List.of(worker), null, null, arquivo).executar();
+            });
+
+            // Cada execução é interrompida pelo cancelamento do prazo quando a quinta tarefa chega ao worker, não
+            // importa o quanto ele seja rápido
+            List<CidadePCV> cidades = InstanciasDeTeste.aleatoria(12, 12, 1000);
+            double otimo = new Escalonador(cidades, List.of(worker)).executar().getDistancia();
+            Files.deleteIfExists(arquivo);
+            ResultadoPCV resultado;
+            int execucoes = 0;
+            do {
+                Prazo prazo = Prazo.semLimite();
+                WorkerInstavel cancelaOPrazo = new WorkerInstavel(c -> {
+                    if (c == 4) {
+                        prazo.cancelar();
+                    }
+                    return false;
+                });
+                resultado = new Escalonador(cidades, List.of(cancelaOPrazo), null, prazo, arquivo).executar();
+                execucoes++;
+            } while (!resultado.isOtimoComprovado() && execucoes < 1000);
+            InstanciasDeTeste.confirmar(execucoes > 1, "a busca terminou sem ser interrompida");
+            InstanciasDeTeste.confirmarOtimo(cidades, resultado, otimo, "retomada " + execucoes + " vezes");
+
+            try {
+                new Escalonador(InstanciasDeTeste.aleatoria(12, 13, 1000), List.of(worker), null, null, arquivo).executar();
+                InstanciasDeTeste.confirmar(false, "o ponto de controle de outra instancia foi aceito");
+            } catch (IOException e) {
+                // Esperado: o arquivo é de outra instância
+            }
+        } finally {
+            Files.deleteIfExists(arquivo);
+        }
+    }
+
+    private static void cache() throws Exception {
+        List<CidadePCV> original = InstanciasDeTeste.aleatoria(8, 5, 1000);
+        List<CidadePCV> outra = InstanciasDeTeste.transladadaEmOutraOrdem(original, 7);
+        double otimo = InstanciasDeTeste.menorRotaPorEnumeracao(original);
+        Instancia instancia = Instancia.de(original);
+        Instancia reordenada = Instancia.de(outra);
+
+        int[] otima = new Escalonador(original, List.of(new TSPWorker(ModoAvaliacao.INCREMENTAL, 2))).executar().getIndices();
+        CacheDeResultados cache = new CacheDeResultados();
+        cache.guardar(instancia.getXs(), instancia.getYs(), otima);
+        // Com a rota no cache o servidor responde sem procurar workers no registro RMI
+        ResultadoPCV doCache = TSPServer.resolverDistribuido(reordenada, null, null, null, cache);
+        InstanciasDeTeste.confirmar(cache.getAcertos() == 1, "a mesma instancia transladada e reordenada nao achou a rota guardada");
+        InstanciasDeTeste.confirmar(doCache.isOtimoComprovado(), "rota do cache nao comprovadamente otima");
+        InstanciasDeTeste.confirmarOtimo(outra, doCache, otimo, "rota do cache");
+
+        // Uma coordenada a mais de distância já é outra instância
+        int[] xs = reordenada.getXs().clone();
+        xs[3]++;
+        InstanciasDeTeste.confirmar(cache.buscar(xs, reordenada.getYs()) == null, "instancia diferente achou uma rota no cache");
+
+        Path diretorio = Files.createTempDirectory("verificacoes-cache");
+        try {
+            new CacheDeResultados(CacheDeResultados.BYTES_PADRAO, diretorio).guardar(instancia.getXs(), instancia.getYs(), otima);
+            int[] rota = new CacheDeResultados(CacheDeResultados.BYTES_PADRAO, diretorio).buscar(reordenada.getXs(), reordenada.getYs());
+            InstanciasDeTeste.confirmar(rota != null, "rota gravada no diretorio nao encontrada por um cache novo");
+            InstanciasDeTeste.confirmarRota(outra, reordenada.montarRota(rota), otimo, "rota lida do diretorio");
+        } finally {
+            apagar(diretorio);
+        }
+    }
+
+    private static void algoritmoGenetico() throws Exception {
+        for (int n : new int[] {9, 300}) {
+            List<CidadePCV> cidades = InstanciasDeTeste.aleatoria(n, n, 100000);
+            List<TSPInterface> workers = List.of(new TSPWorker(ModoAvaliacao.INCREMENTAL, 1), new TSPWorker(ModoAvaliacao.INCREMENTAL, 1));
+            ResultadoPCV resultado = new AlgoritmoGenetico(Instancia.de(cidades), workers, n).executar(50, null);
+            String caso = "genetico, " + n + " cidades";
+            InstanciasDeTeste.confirmar(!resultado.isOtimoComprovado(), caso + ": otimo comprovado");
+            InstanciasDeTeste.confirmarRota(cidades, resultado.getRota(), resultado.getDistancia(), caso);
+            if (n == 9) {
+                double otimo = InstanciasDeTeste.menorRotaPorEnumeracao(cidades);
+                InstanciasDeTeste.confirmar(resultado.getDistancia() >= otimo * (1 - InstanciasDeTeste.TOLERANCIA),
+                        caso + ": distancia " + resultado.getDistancia() + " menor que o otimo " + otimo);
+            }
+        }
+    }
+
+    private static void metricas() throws Exception {
+        // As Metricas são do processo e já somam as verificações anteriores: valem as diferenças
+        Metricas metricas = Metricas.doProcesso();
+        long tarefas = metricas.getTarefasResolvidas();
+        long nos = metricas.getRotasAvaliadas() + metricas.getNosPodados();
+        long chamadas = metricas.getChamadasRemotas();
+        List<CidadePCV> cidades = InstanciasDeTeste.aleatoria(9, 11, 1000);
+        ResultadoPCV resultado = new Escalonador(cidades, List.of(new TSPWorker(ModoAvaliacao.INCREMENTAL, 2))).executar();
+        InstanciasDeTeste.confirmarOtimo(cidades, resultado, InstanciasDeTeste.menorRotaPorEnumeracao(cidades), "metricas, 9 cidades");
+
+        long novasTarefas = metricas.getTarefasResolvidas() - tarefas;
+        InstanciasDeTeste.confirmar(novasTarefas > 0, "nenhuma tarefa registrada");
+        InstanciasDeTeste.confirmar(metricas.getRotasAvaliadas() + metricas.getNosPodados() > nos, "nenhuma rota avaliada ou podada registrada");
+        // Cada tarefa é uma chamada de resolverPrefixo, além de carregarInstancia e getNucleos
+        InstanciasDeTeste.confirmar(metricas.getChamadasRemotas() - chamadas >= novasTarefas + 2,
+                (metricas.getChamadasRemotas() - chamadas) + " chamadas remotas para " + novasTarefas + " tarefas");
+        String json = metricas.getJson();
+        InstanciasDeTeste.confirmar(json.contains("\"resolverPrefixo\"") && json.contains("\"ocupacaoPorWorker\""), "JSON sem os campos esperados");
+    }
+
+    // A implementação padrão (a vetorial, se compilada e executada com o módulo) contra uma varredura direta, com
+    // empates, e contra a escalar, bit a bit, em cada pista
+    private static void avaliadores() {
+        AvaliadorDeRotas avaliador = AvaliadorDeRotas.padrao();
+        Random aleatorio = new Random(3);
+        for (int quantos = 0; quantos <= 40; quantos++) {
+            double[] xs = new double[quantos];
+            double[] ys = new double[quantos];
+            for (int i = 0; i < quantos; i++) {
+                xs[i] = aleatorio.nextInt(8);
+                ys[i] = aleatorio.nextInt(8);
+            }
+            double x = aleatorio.nextInt(8);
+            double y = aleatorio.nextInt(8);
+            int esperado = -1;
+            double menor = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < quantos; i++) {
+                double distancia = (xs[i] - x) * (xs[i] - x) + (ys[i] - y) * (ys[i] - y);
+                if (distancia < menor) {
+                    menor = distancia;
+                    esperado = i;
+                }
+            }
+            int obtido = avaliador.maisProximo(xs, ys, quantos, x, y);
+            InstanciasDeTeste.confirmar(obtido == esperado, avaliador + ", " + quantos + " pontos: mais proximo " + obtido + ", esperado " + esperado);
+        }
+
+        // Arestas de uma cauda: da anterior para cada livre, entre cada par de livres e de cada livre à origem
+        int arestasPorCauda = CaudaDaPermutacao.CIDADES * (CaudaDaPermutacao.CIDADES + 2);
+        int pistas = avaliador.getPistas();
+        double[] arestas = new double[arestasPorCauda * pistas];
+        double[] bases = new double[pistas];
+        for (int i = 0; i < arestas.length; i++) {
+            arestas[i] = aleatorio.nextDouble() * 1000;
+        }
+        for (int p = 0; p < pistas; p++) {
+            bases[p] = aleatorio.nextDouble() * 1000;
+        }
+        double[] menores = new double[pistas];
+        avaliador.menoresDasCaudas(arestas, bases, menores);
+        for (int p = 0; p < pistas; p++) {
+            double[] daPista = new double[arestasPorCauda];
+            for (int e = 0; e < arestasPorCauda; e++) {
+                daPista[e] = arestas[e * pistas + p];
+            }
+            double[] esperado = new double[1];
+            AvaliadorDeRotas.escalar().menoresDasCaudas(daPista, new double[] {bases[p]}, esperado);
+            InstanciasDeTeste.confirmar(Double.compare(menores[p], esperado[0]) == 0,
+                    avaliador + ", pista " + p + ": menor cauda " + menores[p] + ", escalar " + esperado[0]);
+        }
+    }
+
+    private static void carregador() throws IOException {
+        Path diretorio = Files.createTempDirectory("verificacoes-carregador");
+        try {
+            Random aleatorio = new Random(9);
+            int[] xs = new int[50];
+            int[] ys = new int[50];
+            for (int i = 0; i < xs.length; i++) {
+                xs[i] = aleatorio.nextInt() >> 8;
+                ys[i] = aleatorio.nextInt() >> 8;
+            }
+            Path binario = diretorio.resolve("cidades.pcvb");
+            CarregadorDeCidades.gravarBinario(new Instancia(xs, ys), binario);
+            confirmarCoordenadas(CarregadorDeCidades.carregar(binario), xs, ys, "binario");
+
+            // Casas decimais são arredondadas para o inteiro mais próximo
+            Path tsplib = diretorio.resolve("cidades.tsp");
+            Files.write(tsplib, ("NAME : teste\nTYPE : TSP\nDIMENSION : 3\nEDGE_WEIGHT_TYPE : EUC_2D\nNODE_COORD_SECTION\n"
+                    + "1 10 20\n2 -3.6 4.4\n3 1e2 7\nEOF\n").getBytes(StandardCharsets.US_ASCII));
+            Instancia lida = CarregadorDeCidades.carregar(tsplib);
+            confirmarCoordenadas(lida, new int[] {10, -4, 100}, new int[] {20, 4, 7}, "TSPLIB");
+            InstanciasDeTeste.confirmar(lida.getNome(1).equals("2"), "nome TSPLIB '" + lida.getNome(1) + "'");
+
+            Path csv = diretorio.resolve("cidades.txt");
+            Files.write(csv, "Sao_Paulo, 0, 0\nlinha sem tres campos\r\nRecife,-7,12\n".getBytes(StandardCharsets.UTF_8));
+            lida = CarregadorDeCidades.carregar(csv);
+            confirmarCoordenadas(lida, new int[] {0, -7}, new int[] {0, 12}, "CSV");
+            InstanciasDeTeste.confirmar(lida.getNome(0).equals("Sao_Paulo") && lida.getNome(1).equals("Recife"), "nomes CSV");
+        } finally {
+            apagar(diretorio);
+        }
+    }
+
+    private static void confirmarCoordenadas(Instancia instancia, int[] xs, int[] ys, String formato) {
+        InstanciasDeTeste.confirmar(instancia.getTamanho() == xs.length, formato + ": " + instancia.getTamanho() + " cidades, esperadas " + xs.length);
+        for (int i = 0; i < xs.length; i++) {
+            InstanciasDeTeste.confirmar(instancia.getXs()[i] == xs[i] && instancia.getYs()[i] == ys[i], formato + ": coordenadas da cidade " + i);
+        }
+    }
+
+    private static void apagar(Path diretorio) throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            for (Path arquivo : (Iterable<Path>) arquivos::iterator) {
+                Files.delete(arquivo);
+            }
+        }
+        Files.delete(diretorio);
+    }
+
+    // Repassa as chamadas a um TSPWorker, menos aquelas em que falhar devolve true para o número da tarefa. Antes
+    // das tarefas em que reiniciar devolve true, troca o TSPWorker por um novo, como um worker reiniciado.
+    private static final class WorkerInstavel implements TSPInterface {
+        private final IntPredicate falhar;
+        private final IntPredicate reiniciar;
+        private final AtomicInteger chamadas = new AtomicInteger();
+        private final AtomicInteger cargas = new AtomicInteger();
+        private volatile TSPWorker worker = new TSPWorker(ModoAvaliacao.INCREMENTAL, 1);
+
+        WorkerInstavel(IntPredicate falhar) {
+            this(falhar, c -> false);
+        }
+
+        WorkerInstavel(IntPredicate falhar, IntPredicate reiniciar) {
+            this.falhar = falhar;
+            this.reiniciar = reiniciar;
+        }
+
+        @Override
+        public int getNucleos() throws RemoteException {
+            return worker.getNucleos();
+        }
+
+        @Override
+        public void carregarInstancia(long idDaInstancia, int[] xs, int[] ys, CanalDeLimites canal) throws RemoteException {
+            cargas.incrementAndGet();
+            worker.carregarInstancia(idDaInstancia, xs, ys, canal);
+        }
+
+        @Override
+        public void atualizarLimite(long idDaInstancia, double limite) throws RemoteException {
+            worker.atualizarLimite(idDaInstancia, limite);
+        }
+
+        @Override
+        public void cancelar(long idDaInstancia) throws RemoteException {
+            worker.cancelar(idDaInstancia);
+        }
+
+        @Override
+        public Progresso getProgresso(long idDaInstancia) throws RemoteException {
+            return worker.getProgresso(idDaInstancia);
+        }
+
+        @Override
+        public ResultadoCompacto resolverPrefixo(long idDaInstancia, int[] prefixo, double limite) throws RemoteException, InstanciaDesconhecidaException {
+            int chamada = chamadas.getAndIncrement();
+            if (reiniciar.test(chamada)) {
+                worker = new TSPWorker(ModoAvaliacao.INCREMENTAL, 1);
+            }
+            if (falhar.test(chamada)) {
+                throw new RemoteException("falha simulada");
+            }
+            return worker.resolverPrefixo(idDaInstancia, prefixo, limite);
+        }
+
+        @Override
+        public void iniciarIlha(long idDaInstancia, int[] xs, int[] ys, int tamanhoDaPopulacao, long semente) throws RemoteException {
+            worker.iniciarIlha(idDaInstancia, xs, ys, tamanhoDaPopulacao, semente);
+        }
+
+        @Override
+        public ResultadoCompacto evoluirIlha(long idDaInstancia, int geracoes, long tempoMaximoMs, int[] imigrante)
+                throws RemoteException, InstanciaDesconhecidaException {
+            return worker.evoluirIlha(idDaInstancia, geracoes, tempoMaximoMs, imigrante);
+        }
+    }
+
+    // As cidades fora do prefixo, como TSPWorker.resolverPrefixo as monta
+    private static int[] restoDoPrefixo(int n, int[] prefixo) {
+        boolean[] noPrefixo = new boolean[n];
+        for (int cidade : prefixo) {
+            noPrefixo[cidade] = true;
+        }
+        int[] resto = new int[n - prefixo.length];
+        int r = 0;
+        for (int i = 0; i < n; i++) {
+            if (!noPrefixo[i]) {
+                resto[r++] = i;
+            }
+        }
+        return resto;
+    }
+}
@@ -0,0 +1,92 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// AvaliadorDeRotas sobre a Vector API (jdk.incubator.vector), com a maior largura de vetor que a CPU oferece:
+// cada pista de um DoubleVector é uma cauda do lote, ou um candidato da varredura. Só é compilado e carregado com
+// --add-modules jdk.incubator.vector; veja AvaliadorDeRotas.
+//
+// Os dados chegam já transpostos, uma pista por posição consecutiva, e são lidos com cargas contíguas. Gathers
+// guiados por índices (fromArray com indexMap) também resolveriam, mas no JDK 17 custam várias vezes uma carga
+// contígua, assim como as conversões entre vetores de int e de double; por isso nada aqui usa inteiros, e a
+// varredura não carrega a posição do mínimo de cada pista: ela só descobre quais vetores têm um ponto mais
+// próximo e os refaz.
+public class AvaliadorVetorial extends AvaliadorDeRotas {
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final int PISTAS = DOUBLES.length();
+    // LINHAS[o * (CIDADES + 1) + e]: início, em arestas, da linha da aresta e da ordem o
+    private static final int[] LINHAS = new int[CaudaDaPermutacao.ORDENS * (CaudaDaPermutacao.CIDADES + 1)];
+
+    static {
+        for (int o = 0; o < CaudaDaPermutacao.ORDENS; o++) {
+            for (int e = 0; e <= CaudaDaPermutacao.CIDADES; e++) {
+                LINHAS[o * (CaudaDaPermutacao.CIDADES + 1) + e] = CaudaDaPermutacao.ARESTA[e][o] * PISTAS;
+            }
+        }
+    }
+
+    @Override
+    public int getPistas() {
+        return PISTAS;
+    }
+
+    @Override
+    public void menoresDasCaudas(double[] arestas, double[] bases, double[] menores) {
+        DoubleVector base = DoubleVector.fromArray(DOUBLES, bases, 0);
+        // Criado aqui, e não lido de uma constante static: um vetor vindo de um campo na entrada do laço impede
+        // o C2 do JDK 17 de eliminar os objetos dos vetores, e cada iteração passa a alocar
+        DoubleVector menor = DoubleVector.broadcast(DOUBLES, Double.POSITIVE_INFINITY);
+        for (int l = 0; l < LINHAS.length; ) {
+            DoubleVector total = base;
+            for (int e = 0; e <= CaudaDaPermutacao.CIDADES; e++) {
+                total = total.add(DoubleVector.fromArray(DOUBLES, arestas, LINHAS[l++]));
+            }
+            menor = menor.min(total);
+        }
+        menor.intoArray(menores, 0);
+    }
+
+    @Override
+    public int maisProximo(double[] xs, double[] ys, int quantos, double x, double y) {
+        DoubleVector px = DoubleVector.broadcast(DOUBLES, x);
+        DoubleVector py = DoubleVector.broadcast(DOUBLES, y);
+        double menor = Double.POSITIVE_INFINITY;
+        int melhor = -1;
+
+        // Cada vetor de distâncias só é comparado com a menor até agora, um double e não um vetor guardado entre
+        // as iterações (pelo mesmo motivo de menoresDasCaudas); os raros que trazem alguma mais curta são refeitos
+        // ponto a ponto, em ordem e com < estrito, como na escalar
+        int i = 0;
+        for (int fim = DOUBLES.loopBound(quantos); i < fim; i += PISTAS) {
+            DoubleVector dx = DoubleVector.fromArray(DOUBLES, xs, i).sub(px);
+            DoubleVector dy = DoubleVector.fromArray(DOUBLES, ys, i).sub(py);
+            if (dx.mul(dx).add(dy.mul(dy)).lt(menor).anyTrue()) {
+                for (int j = i; j < i + PISTAS; j++) {
+                    double ex = xs[j] - x;
+                    double ey = ys[j] - y;
+                    double distancia = ex * ex + ey * ey;
+                    if (distancia < menor) {
+                        menor = distancia;
+                        melhor = j;
+                    }
+                }
+            }
+        }
+
+        for (; i < quantos; i++) {
+            double dx = xs[i] - x;
+            double dy = ys[i] - y;
+            double distancia = dx * dx + dy * dy;
+            if (distancia < menor) {
+                menor = distancia;
+                melhor = i;
+            }
+        }
+        return melhor;
+    }
+
+    @Override
+    public String toString() {
+        return "vetorial (" + PISTAS + " x double)";
+    }
+}
@@ -0,0 +1,104 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Algoritmo genético em ilhas, para instâncias grandes demais para as buscas exatas: cada IlhaGenetica evolui
+// a sua população em uma thread do pool, e a cada GERACOES_ENTRE_MIGRACOES gerações manda uma cópia da sua
+// melhor rota para a ilha seguinte do anel.
+//
+// As ilhas não compartilham nada além das caixas de entrada: caixas[i] guarda a última rota enviada para a
+// ilha i, que ela retira (getAndSet) quando termina a sua próxima rodada de gerações. Uma rota que chega antes
+// de a anterior ser retirada a substitui. Ninguém espera por ninguém, então a busca funciona mesmo com menos threads
+// que ilhas, e cada ilha tem o próprio gerador de números aleatórios, derivado da semente.
+public class AlgoritmoGenetico {
+    public static final int GERACOES_ENTRE_MIGRACOES = 5;
+
+    private final int[] xs;
+    private final int[] ys;
+    private final int ilhas;
+    private final int tamanhoDaPopulacao;
+    private final long[] sementes;
+    private final AtomicReferenceArray<int[]> caixas;
+    private final int[][] melhores;
+    private final double[] comprimentos;
+    private final long[] geracoesPorIlha;
+
+    public AlgoritmoGenetico(int[] xs, int[] ys, int ilhas, long semente) {
+        this(xs, ys, ilhas, IlhaGenetica.POPULACAO_PADRAO, semente);
+    }
+
+    public AlgoritmoGenetico(int[] xs, int[] ys, int ilhas, int tamanhoDaPopulacao, long semente) {
+        this.xs = xs;
+        this.ys = ys;
+        this.ilhas = Math.max(1, ilhas);
+        this.tamanhoDaPopulacao = tamanhoDaPopulacao;
+        SplittableRandom gerador = new SplittableRandom(semente);
+        this.sementes = new long[this.ilhas];
+        for (int i = 0; i < this.ilhas; i++) {
+            sementes[i] = gerador.nextLong();
+        }
+        this.caixas = new AtomicReferenceArray<>(this.ilhas);
+        this.melhores = new int[this.ilhas][];
+        this.comprimentos = new double[this.ilhas];
+        this.geracoesPorIlha = new long[this.ilhas];
+    }
+
+    // Evolui todas as ilhas no pool por até o número de gerações dado, ou até o prazo (que pode ser null), e
+    // devolve o melhor ciclo entre elas, sem repetir a cidade inicial
+    public int[] resolver(int geracoes, Prazo prazo, ForkJoinPool pool) {
+        RecursiveAction[] tarefas = new RecursiveAction[ilhas];
+        for (int i = 0; i < ilhas; i++) {
+            tarefas[i] = new Evolucao(i, geracoes, prazo);
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tarefas);
+            }
+        });
+        int melhor = 0;
+        for (int i = 1; i < ilhas; i++) {
+            if (comprimentos[i] < comprimentos[melhor]) {
+                melhor = i;
+            }
+        }
+        return melhores[melhor];
+    }
+
+    // Gerações completadas por cada ilha na última execução
+    public long[] getGeracoesPorIlha() {
+        return geracoesPorIlha.clone();
+    }
+
+    private final class Evolucao extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int indice;
+        private final int geracoes;
+        private final Prazo prazo;
+
+        Evolucao(int indice, int geracoes, Prazo prazo) {
+            this.indice = indice;
+            this.geracoes = geracoes;
+            this.prazo = prazo;
+        }
+
+        @Override
+        protected void compute() {
+            // A população inicial também é montada aqui, para que as ilhas a calculem em paralelo
+            IlhaGenetica ilha = new IlhaGenetica(xs, ys, tamanhoDaPopulacao, sementes[indice]);
+            int proxima = (indice + 1) % ilhas;
+            for (int feitas = 0; feitas < geracoes && (prazo == null || !prazo.esgotado()); feitas += GERACOES_ENTRE_MIGRACOES) {
+                ilha.receberImigrante(caixas.getAndSet(indice, null));
+                ilha.evoluir(Math.min(GERACOES_ENTRE_MIGRACOES, geracoes - feitas), prazo);
+                if (proxima != indice) {
+                    caixas.set(proxima, ilha.getMelhor());
+                }
+            }
+            melhores[indice] = ilha.getMelhor();
+            comprimentos[indice] = ilha.getMelhorComprimento();
+            geracoesPorIlha[indice] = ilha.getGeracoes();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+// Classe helper que realiza a busca para uma única thread
+// Trabalha sobre os índices das cidades e consulta a matriz de distâncias compartilhada (somente leitura).
+// Explora todas as rotas que começam por um prefixo fixo (origem e as cidades já decididas pela tarefa).
+//
+// A enumeração é iterativa, com uma pilha explícita: escolha[k] guarda o próximo candidato da posição k
+// e parcial[k] a distância desde a origem até a cidade da posição k - 1. Cada passo soma uma única aresta,
+// e nenhum objeto é alocado durante a busca.
+class BuscaDePermutacaoThread {
+    private int[] melhorRotaLocal;
+    private double menorDistanciaLocal = Double.POSITIVE_INFINITY;
+    private long folhasVisitadas;
+    private final MatrizDistancias matriz;
+    private final int[] prefixo;
+    private final double distanciaDoPrefixo;
+    private final ModoAvaliacao modo;
+    // Usados apenas no modo Branch and Bound
+    private final IncumbenteGlobal incumbente;
+    private final double[] menoresSaidas;
+    // Restrição de simetria: só gera rotas em que cidadeAntes aparece antes de cidadeDepois (-1 desliga)
+    private final int cidadeAntes;
+    private final int cidadeDepois;
+
+    public BuscaDePermutacaoThread(TarefaDePermutacao.ContextoDaBusca contexto, int[] prefixo, double distanciaDoPrefixo) {
+        this.matriz = contexto.matriz;
+        this.prefixo = prefixo;
+        this.distanciaDoPrefixo = distanciaDoPrefixo;
+        this.modo = contexto.modo;
+        this.incumbente = contexto.incumbente;
+        this.menoresSaidas = contexto.menoresSaidas;
+        this.cidadeAntes = contexto.cidadeAntes;
+        this.cidadeDepois = contexto.cidadeDepois;
+    }
+
+    //Explora todas as permutações possíveis para um subconjunto de cidades.
+    public void permutar(int[] cidades) {
+        buscar(cidades, false);
+    }
+
+    //Busca com poda: descarta qualquer prefixo cujo comprimento parcial somado ao limite inferior
+    //do trecho restante já não seja menor que a melhor rota conhecida por todas as threads.
+    public void permutarComPoda(int[] cidades) {
+        buscar(cidades, true);
+    }
+
+    private void buscar(int[] cidades, boolean podar) {
+        final int m = cidades.length;
+        final int n = matriz.getTamanho();
+        final double[] d = matriz.getDistancias();
+        final int origem = prefixo[0];
+        final int ultimaDoPrefixo = prefixo[prefixo.length - 1];
+
+        // Buffers alocados uma única vez por busca
+        final double[] parcial = new double[m + 1];
+        final int[] escolha = new int[m + 1];
+        final boolean recalcular = modo == ModoAvaliacao.COMPLETA;
+        final int[] rota = new int[prefixo.length + m + 1];
+        System.arraycopy(prefixo, 0, rota, 0, prefixo.length);
+        rota[prefixo.length + m] = origem;
+        boolean encontrou = false;
+
+        // Se cidadeAntes já está no prefixo, qualquer ordem do restante respeita a restrição de simetria;
+        // se apenas cidadeDepois está, todas as rotas deste prefixo são espelhos de rotas de outros prefixos
+        int depoisRestrita = cidadeDepois;
+        if (cidadeDepois >= 0) {
+            if (contem(prefixo, 0, cidadeAntes)) {
+                depoisRestrita = -1;
+            } else if (contem(prefixo, 0, cidadeDepois)) {
+                return;
+            }
+        }
+
+        // No modo com poda, somaMinimas[k] é a soma das menores saídas das cidades em cidades[k..], ainda não
+        // visitadas. Cada uma delas, e também a última cidade do prefixo, precisa de pelo menos a sua menor
+        // aresta de saída, o que dá um limite inferior para o trecho que falta percorrer.
+        final double[] somaMinimas = podar ? new double[m + 1] : null;
+        parcial[0] = distanciaDoPrefixo;
+        if (podar) {
+            for (int cidade : cidades) {
+                somaMinimas[0] += menoresSaidas[cidade];
+            }
+            if (distanciaDoPrefixo + menoresSaidas[ultimaDoPrefixo] + somaMinimas[0] >= limiteAtual()) {
+                return;
+            }
+        }
+
+        // No modo INCREMENTAL a enumeração para CaudaDaPermutacao.CIDADES posições antes do fim e entrega à cauda
+        // o prefixo montado até ali; as ordens das cidades que restam são avaliadas com as de outros prefixos.
+        // Dentro da cauda não há poda: as ORDENS rotas de cada uma são somadas de uma vez.
+        final CaudaDaPermutacao cauda = !recalcular && m >= CaudaDaPermutacao.CIDADES
+                ? new CaudaDaPermutacao(AvaliadorDeRotas.padrao(), matriz, origem, cidadeAntes, depoisRestrita, m) : null;
+        final int folha = cauda != null ? m - CaudaDaPermutacao.CIDADES : m;
+
+        int k = 0;
+        while (k >= 0) {
+            if (k == folha && cauda != null) {
+                folhasVisitadas += cauda.adicionar(cidades, k == 0 ? ultimaDoPrefixo : cidades[k - 1], parcial[k]);
+                if (cauda.isCheia()) {
+                    encontrou |= avaliarCaudas(cauda, rota, podar);
+                }
+            } else if (k == m) {
+                folhasVisitadas++;
+                int ultima = m == 0 ? ultimaDoPrefixo : cidades[m - 1];
+                double distanciaAtual = recalcular ? calcularDistanciaDaRota(cidades) : parcial[m] + d[ultima * n + origem];
+
+                // Se for a melhor rota encontrada por esta thread até agora, salva
+                if (distanciaAtual < (podar ? limiteAtual() : menorDistanciaLocal)) {
+                    this.menorDistanciaLocal = distanciaAtual;
+                    System.arraycopy(cidades, 0, rota, prefixo.length, m);
+                    encontrou = true;
+                    if (podar) {
+                        // Publica a nova rota para que as outras threads passem a podar com ela
+                        incumbente.atualizar(distanciaAtual);
+                    }
+                }
+            } else if (escolha[k] < m) {
+                trocar(cidades, k, escolha[k]);
+                int atual = cidades[k];
+
+                // Descarta a subárvore em que cidadeDepois vem antes de cidadeAntes: ela só contém rotas espelhadas
+                if (atual == depoisRestrita && contem(cidades, k + 1, cidadeAntes)) {
+                    trocar(cidades, k, escolha[k]);
+                    escolha[k]++;
+                    continue;
+                }
+
+                int anterior = k == 0 ? ultimaDoPrefixo : cidades[k - 1];
+                double novoParcial = parcial[k] + d[anterior * n + atual];
+
+                // A cidade atual passa a ser a última do prefixo e continua precisando de uma saída,
+                // então o limite inferior do restante continua sendo somaMinimas[k]
+                if (podar && novoParcial + somaMinimas[k] >= limiteAtual()) {
+                    trocar(cidades, k, escolha[k]);
+                    escolha[k]++;
+                    continue;
+                }
+
+                parcial[k + 1] = novoParcial;
+                if (podar) {
+                    somaMinimas[k + 1] = somaMinimas[k] - menoresSaidas[atual];
+                }
+                k++;
+                escolha[k] = k;
+                continue;
+            }
+            // Posição esgotada (ou rota completa, ou entregue à cauda): volta um nível, desfaz a troca e avança o candidato
+            k--;
+            if (k >= 0) {
+                trocar(cidades, k, escolha[k]); // Desfaz a troca para verificar outros caminhos
+                escolha[k]++;
+            }
+        }
+        if (cauda != null && cauda.getPendentes() > 0) {
+            encontrou |= avaliarCaudas(cauda, rota, podar);
+        }
+
+        if (encontrou) {
+            this.melhorRotaLocal = rota;
+        }
+    }
+
+    // Avalia as caudas guardadas e fica com a primeira rota, na ordem da enumeração, menor que a melhor conhecida
+    private boolean avaliarCaudas(CaudaDaPermutacao cauda, int[] rota, boolean podar) {
+        cauda.avaliar();
+        boolean encontrou = false;
+        for (int pista = 0; pista < cauda.getPendentes(); pista++) {
+            double distanciaAtual = cauda.getComprimento(pista);
+            if (distanciaAtual < (podar ? limiteAtual() : menorDistanciaLocal)) {
+                this.menorDistanciaLocal = distanciaAtual;
+                cauda.copiarRota(pista, rota, prefixo.length);
+                encontrou = true;
+                if (podar) {
+                    incumbente.atualizar(distanciaAtual);
+                }
+            }
+        }
+        cauda.esvaziar();
+        return encontrou;
+    }
+
+    private double limiteAtual() {
+        return Math.min(menorDistanciaLocal, incumbente.get());
+    }
+
+    private static void trocar(int[] cidades, int i, int j) {
+        int temp = cidades[i];
+        cidades[i] = cidades[j];
+        cidades[j] = temp;
+    }
+
+    static boolean contem(int[] cidades, int inicio, int cidade) {
+        for (int i = inicio; i < cidades.length; i++) {
+            if (cidades[i] == cidade) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Usado apenas no modo COMPLETA: soma a rota inteira, partindo da origem global e passando pelo prefixo
+    private double calcularDistanciaDaRota(int[] cidadesPermutadas) {
+        double distancia = 0;
+        int anterior = prefixo[0];
+        for (int i = 1; i < prefixo.length; i++) {
+            distancia += matriz.distancia(anterior, prefixo[i]);
+            anterior = prefixo[i];
+        }
+
+        // Soma as distâncias entre as cidades da permutação.
+        for (int atual : cidadesPermutadas) {
+            distancia += matriz.distancia(anterior, atual);
+            anterior = atual;
+        }
+
+        distancia += matriz.distancia(anterior, prefixo[0]);
+        return distancia;
+    }
+
+    // Métodos para a thread principal recuperar o melhor resultado encontrado aqui
+    public int[] getMelhorRotaLocal() { return melhorRotaLocal; }
+    public double getMenorDistanciaLocal() { return menorDistanciaLocal; }
+    public long getFolhasVisitadas() { return folhasVisitadas; }
+}
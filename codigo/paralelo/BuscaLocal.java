@@ -0,0 +1,399 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+// Busca local 2-opt / Or-opt sobre uma rota qualquer (por exemplo a do Vizinho Mais Próximo).
+//
+// Cada cidade só tenta movimentos com as suas k cidades mais próximas (listas de candidatos calculadas
+// uma vez pela GradeEspacial), e uma fila de cidades "a olhar" (don't-look bits) faz com que, depois da
+// primeira passada, só as pontas das arestas alteradas voltem a ser examinadas.
+//
+// A rota fica em um vetor (rota[posição] = cidade, posicao[cidade] = posição). Inversões e deslocamentos
+// de segmento sempre mexem no lado mais curto do ciclo.
+//
+// No modo paralelo a rota é cortada em trechos contíguos otimizados ao mesmo tempo no ForkJoinPool (cada
+// trecho só mexe nas suas próprias posições), depois em trechos deslocados de meio trecho para alcançar as
+// emendas, e por fim uma passada sequencial no ciclo inteiro, que já encontra quase tudo resolvido.
+public class BuscaLocal {
+    public static final int VIZINHOS_PADRAO = 10;
+    // Abaixo disso um trecho não compensa o custo de uma tarefa
+    private static final int CIDADES_MINIMAS_POR_TRECHO = 2_000;
+    private static final double EPSILON = 1e-9;
+    // Inversões e deslocamentos custam O(comprimento) no vetor; em instâncias enormes movimentos que
+    // mexeriam em mais cidades que isso são descartados para manter cada passada quase linear
+    private static final int DESLOCAMENTO_MAXIMO = 50_000;
+
+    private final int[] xs;
+    private final int[] ys;
+    private final int n;
+    private final int k;
+    private int[] vizinhos;
+
+    private int[] rota;
+    private int[] posicao;
+    private boolean[] naFila;
+    private final LongAdder movimentos = new LongAdder();
+
+    public BuscaLocal(int[] xs, int[] ys) {
+        this(xs, ys, VIZINHOS_PADRAO);
+    }
+
+    public BuscaLocal(int[] xs, int[] ys, int vizinhosPorCidade) {
+        this.xs = xs;
+        this.ys = ys;
+        this.n = xs.length;
+        this.k = Math.max(0, Math.min(vizinhosPorCidade, n - 1));
+    }
+
+    // Recebe a rota sem repetir a cidade inicial no fim e devolve uma nova rota melhorada
+    public int[] melhorar(int[] rotaInicial) {
+        prepararListasDeVizinhos(null);
+        iniciar(rotaInicial);
+        otimizarCiclo();
+        return rota.clone();
+    }
+
+    // Mesmo resultado de qualidade que melhorar(), mas com as listas de vizinhos e a maior parte das
+    // melhorias calculadas em paralelo no pool
+    public int[] melhorarParalelo(int[] rotaInicial, ForkJoinPool pool) {
+        prepararListasDeVizinhos(pool);
+        iniciar(rotaInicial);
+
+        int trechos = pool.getParallelism() * 4;
+        int tamanhoTrecho = Math.max(CIDADES_MINIMAS_POR_TRECHO, (n + trechos - 1) / trechos);
+        if (n >= 2 * tamanhoTrecho) {
+            // Segunda rodada deslocada de meio trecho, para que as emendas da primeira caiam no meio
+            for (int deslocamento : new int[] { 0, tamanhoTrecho / 2 }) {
+                int quantidade = (n - deslocamento) / tamanhoTrecho;
+                pool.invoke(new PorFaixa(0, quantidade, t -> {
+                    int ini = deslocamento + t * tamanhoTrecho;
+                    int fim = t == quantidade - 1 ? n - 1 : ini + tamanhoTrecho - 1;
+                    Janela trecho = new Janela(ini, fim, false);
+                    trecho.otimizar();
+                    movimentos.add(trecho.movimentosNaJanela);
+                }));
+            }
+        }
+        otimizarCiclo();
+        return rota.clone();
+    }
+
+    public long getMovimentos() { return movimentos.sum(); }
+
+    private void otimizarCiclo() {
+        if (n >= 5) {
+            Janela ciclo = new Janela(0, n - 1, true);
+            ciclo.otimizar();
+            movimentos.add(ciclo.movimentosNaJanela);
+        }
+    }
+
+    private void prepararListasDeVizinhos(ForkJoinPool pool) {
+        if (vizinhos != null) {
+            return;
+        }
+        GradeEspacial grade = new GradeEspacial(xs, ys);
+        int[] listas = new int[n * k];
+        if (pool != null) {
+            pool.invoke(new PorFaixa(0, n, c -> grade.kMaisProximos(c, k, listas, c * k)));
+        } else {
+            for (int c = 0; c < n; c++) {
+                grade.kMaisProximos(c, k, listas, c * k);
+            }
+        }
+        vizinhos = listas;
+    }
+
+    private void iniciar(int[] rotaInicial) {
+        if (rotaInicial.length != n) {
+            throw new IllegalArgumentException("A rota deve conter cada uma das " + n + " cidades uma vez.");
+        }
+        rota = rotaInicial.clone();
+        posicao = new int[n];
+        naFila = new boolean[n];
+        for (int p = 0; p < n; p++) {
+            posicao[rota[p]] = p;
+        }
+        movimentos.reset();
+    }
+
+    private double distancia(int a, int b) {
+        double dx = (double) xs[a] - xs[b];
+        double dy = (double) ys[a] - ys[b];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    // Trecho da rota (posições ini..fim) otimizado por uma única thread. Quando não é o ciclo inteiro,
+    // as duas cidades das pontas ficam fixas e só entram movimentos cujas arestas estão dentro do trecho.
+    private final class Janela {
+        private final int ini;
+        private final int fim;
+        private final boolean ciclica;
+        private final int[] fila;
+        private int cabeca;
+        private int tamanhoFila;
+        private final int[] segmento = new int[3];
+        private long movimentosNaJanela;
+
+        Janela(int ini, int fim, boolean ciclica) {
+            this.ini = ini;
+            this.fim = fim;
+            this.ciclica = ciclica;
+            this.fila = new int[fim - ini + 1];
+        }
+
+        void otimizar() {
+            for (int p = ini; p <= fim; p++) {
+                enfileirar(rota[p]);
+            }
+            while (tamanhoFila > 0) {
+                int a = fila[cabeca];
+                cabeca = (cabeca + 1) % fila.length;
+                tamanhoFila--;
+                naFila[a] = false;
+                if (doisOpt(a) || orOpt(a)) {
+                    enfileirar(a);
+                }
+            }
+        }
+
+        private void enfileirar(int c) {
+            if (c >= 0 && !naFila[c] && dentro(c)) {
+                naFila[c] = true;
+                fila[(cabeca + tamanhoFila) % fila.length] = c;
+                tamanhoFila++;
+            }
+        }
+
+        private boolean dentro(int c) {
+            return ciclica || (posicao[c] >= ini && posicao[c] <= fim);
+        }
+
+        private int proxima(int c) {
+            int p = posicao[c] + 1;
+            if (p > fim) {
+                return ciclica ? rota[ini] : -1;
+            }
+            return rota[p];
+        }
+
+        private int anterior(int c) {
+            int p = posicao[c] - 1;
+            if (p < ini) {
+                return ciclica ? rota[fim] : -1;
+            }
+            return rota[p];
+        }
+
+        // Troca as arestas (a, b) e (c, d) por (a, c) e (b, d)
+        private boolean doisOpt(int a) {
+            for (int sentido = 0; sentido < 2; sentido++) {
+                int b = sentido == 0 ? proxima(a) : anterior(a);
+                if (b < 0) {
+                    continue;
+                }
+                double dab = distancia(a, b);
+                for (int v = a * k; v < a * k + k; v++) {
+                    int c = vizinhos[v];
+                    double ganhoParcial = dab - distancia(a, c);
+                    if (ganhoParcial <= EPSILON) {
+                        break; // lista ordenada: os próximos candidatos estão ainda mais longe
+                    }
+                    if (!dentro(c)) {
+                        continue;
+                    }
+                    int d = sentido == 0 ? proxima(c) : anterior(c);
+                    if (d < 0 || c == b || d == a) {
+                        continue;
+                    }
+                    if (ganhoParcial + distancia(c, d) - distancia(b, d) > EPSILON) {
+                        boolean feito = sentido == 0 ? inverter(a, b, c, d) : inverter(b, a, d, c);
+                        if (!feito) {
+                            continue;
+                        }
+                        movimentosNaJanela++;
+                        enfileirar(b);
+                        enfileirar(c);
+                        enfileirar(d);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        // Com b logo depois de a e d logo depois de c, inverte b..c ou d..a (o que for mais curto)
+        private boolean inverter(int a, int b, int c, int d) {
+            int i = posicao[b], j = posicao[c];
+            if (ciclica) {
+                int tamanho = j - i + 1;
+                if (tamanho <= 0) {
+                    tamanho += n;
+                }
+                if (tamanho > n - tamanho) {
+                    i = posicao[d];
+                    j = posicao[a];
+                }
+            } else if (i > j) {
+                i = posicao[d];
+                j = posicao[a];
+            }
+            int tamanho = j - i + 1;
+            if (tamanho <= 0) {
+                tamanho += n;
+            }
+            if (tamanho > DESLOCAMENTO_MAXIMO) {
+                return false;
+            }
+            for (int t = 0; t < tamanho / 2; t++) {
+                int ci = rota[i], cj = rota[j];
+                rota[i] = cj;
+                posicao[cj] = i;
+                rota[j] = ci;
+                posicao[ci] = j;
+                if (++i == n) i = 0;
+                if (--j < 0) j = n - 1;
+            }
+            return true;
+        }
+
+        // Move o segmento de 1 a 3 cidades que começa em s1 para entre outras duas cidades vizinhas
+        private boolean orOpt(int s1) {
+            int p = anterior(s1);
+            if (p < 0) {
+                return false;
+            }
+            int s2 = s1;
+            for (int tamanho = 1; tamanho <= 3; tamanho++) {
+                if (tamanho > 1) {
+                    s2 = proxima(s2);
+                    if (s2 < 0 || s2 == p) {
+                        return false;
+                    }
+                }
+                int nx = proxima(s2);
+                if (nx < 0 || nx == p) {
+                    return false;
+                }
+                double ganhoRemocao = distancia(p, s1) + distancia(s2, nx) - distancia(p, nx);
+                if (ganhoRemocao <= EPSILON) {
+                    continue;
+                }
+                for (int lado = 0; lado < 2; lado++) {
+                    int ponta = lado == 0 ? s1 : s2;
+                    int outraPonta = lado == 0 ? s2 : s1;
+                    for (int v = ponta * k; v < ponta * k + k; v++) {
+                        int c = vizinhos[v];
+                        double dc = distancia(ponta, c);
+                        if (dc >= ganhoRemocao) {
+                            break;
+                        }
+                        if (!dentro(c) || noSegmento(c, s1, tamanho)) {
+                            continue;
+                        }
+                        for (int sentido = 0; sentido < 2; sentido++) {
+                            int e = sentido == 0 ? proxima(c) : anterior(c);
+                            if (e < 0 || noSegmento(e, s1, tamanho)) {
+                                continue;
+                            }
+                            double ganho = ganhoRemocao - dc - distancia(outraPonta, e) + distancia(c, e);
+                            if (ganho > EPSILON && moverSegmento(s1, tamanho, c, e, ponta)) {
+                                movimentosNaJanela++;
+                                enfileirar(p);
+                                enfileirar(nx);
+                                enfileirar(c);
+                                enfileirar(e);
+                                enfileirar(s2);
+                                return true;
+                            }
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean noSegmento(int c, int s1, int tamanho) {
+            int deslocamento = posicao[c] - posicao[s1];
+            if (deslocamento < 0) {
+                deslocamento += n;
+            }
+            return deslocamento < tamanho;
+        }
+
+        // Reinsere o segmento s1.. (tamanho cidades) entre c e e, com a cidade "ponta" encostada em c
+        private boolean moverSegmento(int s1, int tamanho, int c, int e, int ponta) {
+            int antes = proxima(c) == e ? c : e;
+            int i = posicao[s1];
+            boolean invertido = (antes == c) != (ponta == s1);
+            for (int t = 0; t < tamanho; t++) {
+                int p = i + t;
+                if (p >= n) p -= n;
+                segmento[invertido ? tamanho - 1 - t : t] = rota[p];
+            }
+
+            // Cidades entre o fim do segmento e "antes" (para frente) ou entre "depois" e o início (para trás)
+            int aFrente = posicao[antes] - (i + tamanho - 1);
+            if (aFrente < 0) {
+                aFrente += n;
+            }
+            int atras = n - tamanho - aFrente;
+            boolean paraFrente = ciclica ? aFrente <= atras : posicao[antes] > i;
+            if ((paraFrente ? aFrente : atras) > DESLOCAMENTO_MAXIMO) {
+                return false;
+            }
+
+            int destino;
+            if (paraFrente) {
+                for (int t = 0; t < aFrente; t++) {
+                    int de = (i + tamanho + t) % n;
+                    int para = (i + t) % n;
+                    rota[para] = rota[de];
+                    posicao[rota[para]] = para;
+                }
+                destino = i + aFrente;
+            } else {
+                for (int t = 0; t < atras; t++) {
+                    int de = ((i - 1 - t) % n + n) % n;
+                    int para = (de + tamanho) % n;
+                    rota[para] = rota[de];
+                    posicao[rota[para]] = para;
+                }
+                destino = i - atras;
+            }
+            for (int t = 0; t < tamanho; t++) {
+                int p = ((destino + t) % n + n) % n;
+                rota[p] = segmento[t];
+                posicao[segmento[t]] = p;
+            }
+            return true;
+        }
+    }
+
+    // Aplica a ação a cada índice de [inicio, fim), dividindo a faixa ao meio enquanto houver trabalho para roubar
+    private static final class PorFaixa extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int inicio;
+        private final int fim;
+        private final IntConsumer acao;
+
+        PorFaixa(int inicio, int fim, IntConsumer acao) {
+            this.inicio = inicio;
+            this.fim = fim;
+            this.acao = acao;
+        }
+
+        @Override
+        protected void compute() {
+            if (fim - inicio > 1 && (fim - inicio > 1024 || getSurplusQueuedTaskCount() < 2)) {
+                int meio = (inicio + fim) >>> 1;
+                invokeAll(new PorFaixa(inicio, meio, acao), new PorFaixa(meio, fim, acao));
+                return;
+            }
+            for (int i = inicio; i < fim; i++) {
+                acao.accept(i);
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+// As últimas CIDADES posições da enumeração por trocas, avaliadas de uma vez em vez de percorridas nó a nó.
+//
+// Quando só restam CIDADES cidades livres, as ORDENS rotas que faltam usam apenas 20 arestas distintas: da
+// cidade anterior para cada livre, entre cada par de livres e de cada livre de volta à origem. adicionar lê
+// essas arestas da matriz uma vez e guarda a cauda; quando há uma cauda por pista do AvaliadorDeRotas, avaliar
+// soma as ORDENS ordens de todas elas de uma vez (na AvaliadorVetorial, uma cauda por pista SIMD). ARESTA[e][o]
+// é a posição da aresta e da ordem o entre as 24 guardadas, e cada ordem é somada na mesma sequência de arestas
+// da enumeração, com o mesmo resultado, bit a bit.
+//
+// As ordens seguem a sequência em que a enumeração por trocas as visitaria, e de uma cauda fica a primeira das
+// mais curtas: a mesma rota que a enumeração guardaria. As ordens em que cidadeDepois vem antes de cidadeAntes,
+// que a enumeração descartaria por serem espelhadas, são excluídas pela máscara ESPELHADAS; as caudas com
+// exclusões (só as que têm as duas cidades) são refeitas sem elas, uma a uma.
+//
+// As arestas ficam transpostas, arestas[posição * pistas + pista], para que cada linha seja um vetor, e cada
+// cauda guarda uma cópia das cidades, já que a enumeração segue em frente antes de o lote ser avaliado.
+public class CaudaDaPermutacao {
+    public static final int CIDADES = 4;
+    public static final int ORDENS = 24;
+    // Posições das arestas: [0, 4) saem da anterior, [4, 20) ligam duas livres (4 + 4 * de + para),
+    // [20, 24) voltam à origem
+    private static final int ARESTAS = 24;
+    private static final int PARA_A_ORIGEM = 20;
+
+    // ORDEM[o][p]: posição, entre as livres, da cidade que fica em p na ordem o
+    static final int[][] ORDEM = new int[ORDENS][CIDADES];
+    static final int[][] ARESTA = new int[CIDADES + 1][ORDENS];
+    // ESPELHADAS[i][j]: bits das ordens em que a livre da posição i vem antes da livre da posição j
+    static final long[][] ESPELHADAS = new long[CIDADES][CIDADES];
+
+    static {
+        gerarOrdens(new int[] { 0, 1, 2, 3 }, 0, new int[1]);
+        for (int o = 0; o < ORDENS; o++) {
+            int[] ordem = ORDEM[o];
+            ARESTA[0][o] = ordem[0];
+            for (int p = 1; p < CIDADES; p++) {
+                ARESTA[p][o] = CIDADES + CIDADES * ordem[p - 1] + ordem[p];
+            }
+            ARESTA[CIDADES][o] = PARA_A_ORIGEM + ordem[CIDADES - 1];
+            for (int p = 0; p < CIDADES; p++) {
+                for (int q = p + 1; q < CIDADES; q++) {
+                    ESPELHADAS[ordem[p]][ordem[q]] |= 1L << o;
+                }
+            }
+        }
+    }
+
+    // Mesma sequência de trocas da enumeração: a posição j recebe cada uma das posições j.. por vez
+    private static void gerarOrdens(int[] posicoes, int j, int[] proxima) {
+        if (j == CIDADES) {
+            System.arraycopy(posicoes, 0, ORDEM[proxima[0]++], 0, CIDADES);
+            return;
+        }
+        for (int i = j; i < CIDADES; i++) {
+            trocar(posicoes, j, i);
+            gerarOrdens(posicoes, j + 1, proxima);
+            trocar(posicoes, j, i);
+        }
+    }
+
+    private static void trocar(int[] v, int i, int j) {
+        int t = v[i];
+        v[i] = v[j];
+        v[j] = t;
+    }
+
+    private final AvaliadorDeRotas avaliador;
+    private final double[] d;
+    private final int n;
+    private final int origem;
+    private final int cidadeAntes;
+    private final int cidadeDepois;
+    private final int pistas;
+    // Cidades da permutação; a cauda são as CIDADES últimas
+    private final int m;
+    private final double[] arestas;
+    private final double[] bases;
+    private final double[] menores;
+    private final long[] excluidas;
+    private final int[] cidades;
+    private int pendentes;
+
+    public CaudaDaPermutacao(AvaliadorDeRotas avaliador, MatrizDistancias matriz, int origem, int cidadeAntes, int cidadeDepois, int m) {
+        this.avaliador = avaliador;
+        this.d = matriz.getDistancias();
+        this.n = matriz.getTamanho();
+        this.origem = origem;
+        this.cidadeAntes = cidadeAntes;
+        this.cidadeDepois = cidadeDepois;
+        this.pistas = avaliador.getPistas();
+        this.m = m;
+        this.arestas = new double[ARESTAS * pistas];
+        this.bases = new double[pistas];
+        this.menores = new double[pistas];
+        this.excluidas = new long[pistas];
+        this.cidades = new int[pistas * m];
+    }
+
+    // Guarda a rota que segue por cidades[0 .. m - CIDADES - 1], depois de ter percorrido base até a última
+    // delas (anterior), e termina por alguma ordem da cauda. Devolve quantas ordens dela não são espelhadas.
+    public int adicionar(int[] permutacao, int anterior, double base) {
+        int pista = pendentes++;
+        int inicio = m - CIDADES;
+        long espelhadas = 0;
+        for (int i = 0; i < CIDADES; i++) {
+            int de = permutacao[inicio + i];
+            arestas[i * pistas + pista] = d[anterior * n + de];
+            arestas[(PARA_A_ORIGEM + i) * pistas + pista] = d[de * n + origem];
+            for (int j = 0; j < CIDADES; j++) {
+                arestas[(CIDADES + CIDADES * i + j) * pistas + pista] = d[de * n + permutacao[inicio + j]];
+            }
+            if (de == cidadeDepois) {
+                for (int j = 0; j < CIDADES; j++) {
+                    if (permutacao[inicio + j] == cidadeAntes) {
+                        espelhadas = ESPELHADAS[i][j];
+                    }
+                }
+            }
+        }
+        bases[pista] = base;
+        excluidas[pista] = espelhadas;
+        System.arraycopy(permutacao, 0, cidades, pista * m, m);
+        return ORDENS - Long.bitCount(espelhadas);
+    }
+
+    public boolean isCheia() {
+        return pendentes == pistas;
+    }
+
+    public int getPendentes() {
+        return pendentes;
+    }
+
+    // Calcula o comprimento da melhor rota de cada cauda guardada
+    public void avaliar() {
+        // As pistas além das pendentes guardam caudas já avaliadas e só são refeitas
+        avaliador.menoresDasCaudas(arestas, bases, menores);
+        for (int pista = 0; pista < pendentes; pista++) {
+            if (excluidas[pista] != 0) {
+                double menor = Double.POSITIVE_INFINITY;
+                for (int o = 0; o < ORDENS; o++) {
+                    if ((excluidas[pista] >>> o & 1) == 0) {
+                        menor = Math.min(menor, comprimento(pista, o));
+                    }
+                }
+                menores[pista] = menor;
+            }
+        }
+    }
+
+    // Comprimento da melhor rota da cauda guardada na pista, depois de avaliar(); infinito se todas as ordens
+    // dela forem espelhadas
+    public double getComprimento(int pista) {
+        return menores[pista];
+    }
+
+    // Grava as m cidades da melhor rota da pista, na ordem dela, em destino[inicioDoDestino ..]
+    public void copiarRota(int pista, int[] destino, int inicioDoDestino) {
+        // A primeira ordem com o comprimento mínimo, que a enumeração teria encontrado antes das outras
+        int ordem = 0;
+        while ((excluidas[pista] >>> ordem & 1) != 0 || comprimento(pista, ordem) != menores[pista]) {
+            ordem++;
+        }
+        int inicio = m - CIDADES;
+        System.arraycopy(cidades, pista * m, destino, inicioDoDestino, inicio);
+        for (int p = 0; p < CIDADES; p++) {
+            destino[inicioDoDestino + inicio + p] = cidades[pista * m + inicio + ORDEM[ordem][p]];
+        }
+    }
+
+    public void esvaziar() {
+        pendentes = 0;
+    }
+
+    private double comprimento(int pista, int ordem) {
+        double total = bases[pista];
+        for (int e = 0; e <= CIDADES; e++) {
+            total += arestas[ARESTA[e][ordem] * pistas + pista];
+        }
+        return total;
+    }
+}
@@ -22,8 +22,8 @@ public class CidadePCV {
     }
 
     public double distanciaPara(CidadePCV outra) {
-        double dx = this.x - outra.x;
-        double dy = this.y - outra.y;
+        double dx = (double) this.x - outra.x;
+        double dy = (double) this.y - outra.y;
         return Math.sqrt(dx * dx + dy * dy);
     }
 
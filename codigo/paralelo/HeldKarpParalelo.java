@@ -0,0 +1,170 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Resolvedor exato por programação dinâmica (Held-Karp) sobre subconjuntos representados como máscaras de bits.
+// Custo O(n² · 2ⁿ) em tempo e O(n · 2ⁿ) em memória, contra O(n!) da força bruta.
+//
+// A origem é a cidade 0 e fica fora da máscara; o bit j representa a cidade j + 1.
+// custos[mascara * m + j] guarda o menor caminho que sai da origem, visita exatamente as cidades
+// da máscara e termina na cidade j + 1 (com o bit j ligado na máscara).
+//
+// A tabela é preenchida camada por camada (quantidade de cidades na máscara). Todas as máscaras de
+// uma camada dependem apenas da camada anterior, então cada camada é dividida entre as threads do pool.
+// As máscaras de uma camada são geradas direto, em ordem crescente, em vez de filtradas entre todas as 2^m.
+public class HeldKarpParalelo {
+    // Quantidade de máscaras abaixo da qual uma fatia da camada é processada sem nova divisão
+    private static final int MASCARAS_POR_TAREFA = 1 << 12;
+
+    private final MatrizDistancias matriz;
+    private final int m;
+    private double[] custos;
+    private int[] melhorRota;
+    private double menorDistancia = Double.POSITIVE_INFINITY;
+
+    public HeldKarpParalelo(MatrizDistancias matriz) {
+        this.matriz = matriz;
+        this.m = matriz.getTamanho() - 1;
+    }
+
+    public void resolver(ForkJoinPool pool) {
+        if (m == 0) {
+            this.melhorRota = new int[] {0, 0};
+            this.menorDistancia = 0;
+            return;
+        }
+
+        int totalDeMascaras = 1 << m;
+        this.custos = new double[totalDeMascaras * m];
+
+        // Camada 1: caminhos que saem da origem direto para uma única cidade
+        for (int j = 0; j < m; j++) {
+            custos[(1 << j) * m + j] = matriz.distancia(0, j + 1);
+        }
+
+        // Vetor reaproveitado por todas as camadas, do tamanho da maior delas
+        int[] mascaras = new int[(int) binomial(m, m / 2)];
+        for (int camada = 2; camada <= m; camada++) {
+            int quantidade = listarMascaras(camada, mascaras);
+            pool.invoke(new PreencherCamada(mascaras, 0, quantidade));
+        }
+
+        this.melhorRota = reconstruirRota();
+        this.menorDistancia = calcularDistanciaDaRota(melhorRota);
+        this.custos = null;
+    }
+
+    // Escreve em mascaras, em ordem crescente, todas as máscaras de m bits com exatamente camada bits ligados,
+    // passando de uma à seguinte com o truque de Gosper; devolve quantas são
+    private int listarMascaras(int camada, int[] mascaras) {
+        int limite = 1 << m;
+        int quantidade = 0;
+        for (int mascara = (1 << camada) - 1; mascara < limite; ) {
+            mascaras[quantidade++] = mascara;
+            int menorBit = mascara & -mascara;
+            int soma = mascara + menorBit;
+            mascara = (((soma ^ mascara) >>> 2) / menorBit) | soma;
+        }
+        return quantidade;
+    }
+
+    private static long binomial(int n, int k) {
+        long resultado = 1;
+        for (int i = 1; i <= k; i++) {
+            resultado = resultado * (n - k + i) / i;
+        }
+        return resultado;
+    }
+
+    // Tarefa que preenche as máscaras mascaras[inicio, fim) de uma camada
+    private class PreencherCamada extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] mascaras;
+        private final int inicio;
+        private final int fim;
+
+        PreencherCamada(int[] mascaras, int inicio, int fim) {
+            this.mascaras = mascaras;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        protected void compute() {
+            if (fim - inicio > MASCARAS_POR_TAREFA) {
+                int meio = (inicio + fim) >>> 1;
+                invokeAll(new PreencherCamada(mascaras, inicio, meio), new PreencherCamada(mascaras, meio, fim));
+                return;
+            }
+            for (int i = inicio; i < fim; i++) {
+                preencherMascara(mascaras[i]);
+            }
+        }
+    }
+
+    private void preencherMascara(int mascara) {
+        for (int bits = mascara; bits != 0; bits &= bits - 1) {
+            int j = Integer.numberOfTrailingZeros(bits);
+            int anterior = mascara ^ (1 << j);
+            double melhor = Double.POSITIVE_INFINITY;
+            for (int resto = anterior; resto != 0; resto &= resto - 1) {
+                int k = Integer.numberOfTrailingZeros(resto);
+                double custo = custos[anterior * m + k] + matriz.distancia(k + 1, j + 1);
+                if (custo < melhor) {
+                    melhor = custo;
+                }
+            }
+            custos[mascara * m + j] = melhor;
+        }
+    }
+
+    // Fecha o ciclo escolhendo a última cidade e refaz o caminho de trás para frente pela própria tabela,
+    // sem precisar guardar uma tabela de predecessores
+    private int[] reconstruirRota() {
+        int completa = (1 << m) - 1;
+        int[] rota = new int[m + 2];
+
+        int ultima = 0;
+        double melhor = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < m; j++) {
+            double custo = custos[completa * m + j] + matriz.distancia(j + 1, 0);
+            if (custo < melhor) {
+                melhor = custo;
+                ultima = j;
+            }
+        }
+
+        int mascara = completa;
+        int atual = ultima;
+        for (int posicao = m; posicao >= 1; posicao--) {
+            rota[posicao] = atual + 1;
+            int anterior = mascara ^ (1 << atual);
+            if (anterior == 0) {
+                break;
+            }
+            double alvo = custos[mascara * m + atual];
+            int predecessor = -1;
+            for (int resto = anterior; resto != 0; resto &= resto - 1) {
+                int k = Integer.numberOfTrailingZeros(resto);
+                if (custos[anterior * m + k] + matriz.distancia(k + 1, atual + 1) == alvo) {
+                    predecessor = k;
+                    break;
+                }
+            }
+            mascara = anterior;
+            atual = predecessor;
+        }
+        return rota;
+    }
+
+    private double calcularDistanciaDaRota(int[] rota) {
+        double distancia = 0;
+        for (int i = 0; i < rota.length - 1; i++) {
+            distancia += matriz.distancia(rota[i], rota[i + 1]);
+        }
+        return distancia;
+    }
+
+    public int[] getMelhorRota() { return melhorRota; }
+    public double getMenorDistancia() { return menorDistancia; }
+}
@@ -0,0 +1,201 @@
+import java.util.SplittableRandom;
+
+// Uma ilha do algoritmo genético: uma população pequena de rotas (ciclos de n cidades, sem repetir a inicial)
+// evoluída por uma única thread, sem nada compartilhado com as outras ilhas além das rotas que migram.
+//
+// É um algoritmo memético de estado estacionário. Cada filho nasce do cruzamento OX de dois pais escolhidos por
+// torneio (um trecho do primeiro pai e as demais cidades na ordem em que aparecem no segundo), às vezes
+// perturbado por um double bridge, e passa pela BuscaLocal 2-opt / Or-opt antes de disputar lugar: entra no
+// lugar da pior rota se for melhor que ela e não tiver o mesmo comprimento de outra (o que quase sempre é a
+// mesma rota, e só reduziria a diversidade). Uma geração é um filho por indivíduo da população.
+//
+// A população inicial vem do Vizinho Mais Próximo a partir de cidades sorteadas, melhorado pela busca local.
+// As listas de vizinhos da busca local são calculadas uma vez por ilha; o sorteio usa um SplittableRandom
+// próprio, então a mesma semente sempre dá a mesma evolução.
+public class IlhaGenetica {
+    public static final int POPULACAO_PADRAO = 16;
+    // Probabilidade de um filho receber um double bridge antes da busca local
+    private static final double TAXA_DE_MUTACAO = 0.2;
+    private static final double EPSILON = 1e-7;
+
+    private final int[] xs;
+    private final int[] ys;
+    private final int n;
+    private final SplittableRandom aleatorio;
+    private final BuscaLocal buscaLocal;
+    private final int[][] populacao;
+    private final double[] comprimentos;
+    // Marcas do cruzamento: a cidade c já está no filho se marca[c] == carimbo, sem limpar o vetor a cada filho
+    private final int[] marca;
+    private int carimbo;
+    private int melhor;
+    private int pior;
+    private long geracoes;
+
+    public IlhaGenetica(int[] xs, int[] ys, long semente) {
+        this(xs, ys, POPULACAO_PADRAO, semente);
+    }
+
+    public IlhaGenetica(int[] xs, int[] ys, int tamanhoDaPopulacao, long semente) {
+        if (xs.length < 5) {
+            throw new IllegalArgumentException("O algoritmo genético precisa de pelo menos 5 cidades.");
+        }
+        this.xs = xs;
+        this.ys = ys;
+        this.n = xs.length;
+        this.aleatorio = new SplittableRandom(semente);
+        this.buscaLocal = new BuscaLocal(xs, ys);
+        this.populacao = new int[Math.max(2, tamanhoDaPopulacao)][];
+        this.comprimentos = new double[populacao.length];
+        this.marca = new int[n];
+        for (int i = 0; i < populacao.length; i++) {
+            populacao[i] = buscaLocal.melhorar(vizinhoMaisProximo(aleatorio.nextInt(n)));
+            comprimentos[i] = comprimento(populacao[i]);
+        }
+        atualizarExtremos();
+    }
+
+    // Gera filhos até completar as gerações pedidas ou o prazo esgotar (prazo pode ser null)
+    public void evoluir(int quantidade, Prazo prazo) {
+        for (int g = 0; g < quantidade; g++) {
+            for (int f = 0; f < populacao.length; f++) {
+                if (prazo != null && prazo.esgotado()) {
+                    return;
+                }
+                int[] filho = cruzar(torneio(), torneio());
+                if (aleatorio.nextDouble() < TAXA_DE_MUTACAO) {
+                    filho = doubleBridge(filho);
+                }
+                filho = buscaLocal.melhorar(filho);
+                oferecer(filho, comprimento(filho));
+            }
+            geracoes++;
+        }
+    }
+
+    // Uma rota vinda de outra ilha, que disputa lugar como um filho
+    public void receberImigrante(int[] ciclo) {
+        if (ciclo == null || ciclo.length != n) {
+            return;
+        }
+        oferecer(ciclo.clone(), comprimento(ciclo));
+    }
+
+    // Cópia do melhor ciclo da população
+    public int[] getMelhor() {
+        return populacao[melhor].clone();
+    }
+
+    public double getMelhorComprimento() {
+        return comprimentos[melhor];
+    }
+
+    public long getGeracoes() {
+        return geracoes;
+    }
+
+    private void oferecer(int[] ciclo, double comprimento) {
+        if (comprimento >= comprimentos[pior] - EPSILON) {
+            return;
+        }
+        for (double existente : comprimentos) {
+            if (Math.abs(existente - comprimento) < EPSILON) {
+                return;
+            }
+        }
+        populacao[pior] = ciclo;
+        comprimentos[pior] = comprimento;
+        atualizarExtremos();
+    }
+
+    private void atualizarExtremos() {
+        melhor = 0;
+        pior = 0;
+        for (int i = 1; i < populacao.length; i++) {
+            if (comprimentos[i] < comprimentos[melhor]) {
+                melhor = i;
+            }
+            if (comprimentos[i] > comprimentos[pior]) {
+                pior = i;
+            }
+        }
+    }
+
+    // A mais curta de duas rotas sorteadas
+    private int[] torneio() {
+        int a = aleatorio.nextInt(populacao.length);
+        int b = aleatorio.nextInt(populacao.length);
+        return populacao[comprimentos[a] <= comprimentos[b] ? a : b];
+    }
+
+    // Cruzamento OX: o filho herda as posições ini..fim do primeiro pai e completa o ciclo, a partir de fim + 1,
+    // com as cidades restantes na ordem do segundo
+    private int[] cruzar(int[] primeiro, int[] segundo) {
+        int ini = aleatorio.nextInt(n);
+        int fim = aleatorio.nextInt(n);
+        if (ini > fim) {
+            int t = ini;
+            ini = fim;
+            fim = t;
+        }
+        carimbo++;
+        int[] filho = new int[n];
+        for (int p = ini; p <= fim; p++) {
+            filho[p] = primeiro[p];
+            marca[primeiro[p]] = carimbo;
+        }
+        int destino = (fim + 1) % n;
+        for (int i = 1; i <= n; i++) {
+            int cidade = segundo[(fim + i) % n];
+            if (marca[cidade] != carimbo) {
+                filho[destino] = cidade;
+                destino = (destino + 1) % n;
+            }
+        }
+        return filho;
+    }
+
+    // Corta o ciclo em quatro trechos A B C D e o remonta como A C B D, um movimento que a 2-opt e a Or-opt
+    // não desfazem com facilidade
+    private int[] doubleBridge(int[] ciclo) {
+        int a = 1 + aleatorio.nextInt(n - 3);
+        int b = a + 1 + aleatorio.nextInt(n - a - 2);
+        int c = b + 1 + aleatorio.nextInt(n - b - 1);
+        int[] resultado = new int[n];
+        int p = 0;
+        System.arraycopy(ciclo, 0, resultado, p, a);
+        p += a;
+        System.arraycopy(ciclo, b, resultado, p, c - b);
+        p += c - b;
+        System.arraycopy(ciclo, a, resultado, p, b - a);
+        p += b - a;
+        System.arraycopy(ciclo, c, resultado, p, n - c);
+        return resultado;
+    }
+
+    private int[] vizinhoMaisProximo(int inicio) {
+        GradeEspacial grade = new GradeEspacial(xs, ys);
+        int[] ciclo = new int[n];
+        int atual = inicio;
+        grade.remover(atual);
+        ciclo[0] = atual;
+        for (int i = 1; i < n; i++) {
+            atual = grade.maisProximo(xs[atual], ys[atual]);
+            grade.remover(atual);
+            ciclo[i] = atual;
+        }
+        return ciclo;
+    }
+
+    private double comprimento(int[] ciclo) {
+        double total = 0;
+        int anterior = ciclo[n - 1];
+        for (int cidade : ciclo) {
+            double dx = (double) xs[anterior] - xs[cidade];
+            double dy = (double) ys[anterior] - ys[cidade];
+            total += Math.sqrt(dx * dx + dy * dy);
+            anterior = cidade;
+        }
+        return total;
+    }
+}
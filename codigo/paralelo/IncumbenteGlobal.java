@@ -0,0 +1,27 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+// Melhor distância conhecida entre todas as threads da busca, usada como limite de poda.
+// Guarda os bits do double em um AtomicLong para que leitura e atualização sejam livres de bloqueio.
+public class IncumbenteGlobal {
+    private final AtomicLong bits;
+
+    public IncumbenteGlobal(double distanciaInicial) {
+        this.bits = new AtomicLong(Double.doubleToLongBits(distanciaInicial));
+    }
+
+    public double get() {
+        return Double.longBitsToDouble(bits.get());
+    }
+
+    // Substitui o valor atual apenas se a nova distância for menor. Retorna true se houve atualização.
+    public boolean atualizar(double distancia) {
+        long atual = bits.get();
+        while (distancia < Double.longBitsToDouble(atual)) {
+            if (bits.compareAndSet(atual, Double.doubleToLongBits(distancia))) {
+                return true;
+            }
+            atual = bits.get();
+        }
+        return false;
+    }
+}
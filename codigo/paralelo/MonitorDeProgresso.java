@@ -0,0 +1,102 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+// Contadores de andamento de uma busca exata e a thread que os amostra para um ObservadorDeProgresso.
+//
+// A cobertura é medida em rotas completas: cada folha vale 1, e uma subárvore descartada inteira (por poda
+// ou por conter apenas rotas espelhadas) com r cidades ainda livres vale r!. Ao fim da busca a soma é
+// exatamente o total de ordens das cidades livres.
+//
+// As buscas não tocam nos contadores a cada folha, o que pesaria no laço mais quente: registram uma vez por
+// subárvore terminada (tarefa folha ou bloco de prefixos), em LongAdder/DoubleAdder, que não disputam uma
+// mesma variável entre threads.
+public class MonitorDeProgresso {
+    public static final long INTERVALO_PADRAO_MS = 1000;
+
+    private final double[] fatoriais;
+    private final double totalDeRotas;
+    private final long inicio = System.nanoTime();
+    private final LongAdder rotasAvaliadas = new LongAdder();
+    private final DoubleAdder rotasCobertas = new DoubleAdder();
+    private int[] melhorRota;
+    private volatile double melhorDistancia = Double.POSITIVE_INFINITY;
+    private ObservadorDeProgresso observador;
+    private ScheduledExecutorService amostrador;
+
+    // cidadesLivres: quantas cidades a busca permuta (todas menos a origem)
+    public MonitorDeProgresso(int cidadesLivres) {
+        this.fatoriais = new double[Math.max(cidadesLivres, 0) + 1];
+        fatoriais[0] = 1;
+        for (int i = 1; i < fatoriais.length; i++) {
+            fatoriais[i] = fatoriais[i - 1] * i;
+        }
+        this.totalDeRotas = fatoriais[fatoriais.length - 1];
+    }
+
+    // Quantas rotas completas há em uma subárvore com essa quantidade de cidades livres
+    public double fatorial(int cidadesLivres) {
+        return fatoriais[cidadesLivres];
+    }
+
+    public void registrar(long avaliadas, double cobertas) {
+        rotasAvaliadas.add(avaliadas);
+        rotasCobertas.add(cobertas);
+    }
+
+    // Chamado a cada melhoria de uma busca (raras perto do número de folhas); guarda uma cópia da rota
+    public void oferecerRota(int[] rota, double distancia) {
+        if (distancia >= melhorDistancia) {
+            return;
+        }
+        synchronized (this) {
+            if (distancia < melhorDistancia) {
+                melhorRota = rota.clone();
+                melhorDistancia = distancia;
+            }
+        }
+    }
+
+    public Progresso amostrar() {
+        int[] rota;
+        double distancia;
+        synchronized (this) {
+            rota = melhorRota;
+            distancia = melhorDistancia;
+        }
+        double fracao = Math.min(1.0, rotasCobertas.sum() / totalDeRotas);
+        return new Progresso(rota, distancia, rotasAvaliadas.sum(), fracao, System.nanoTime() - inicio);
+    }
+
+    // Entrega um retrato ao observador a cada intervalo, em uma thread daemon; sem observador não faz nada
+    public void iniciar(ObservadorDeProgresso observador, long intervaloMs) {
+        if (observador == null) {
+            return;
+        }
+        this.observador = observador;
+        this.amostrador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "monitor-de-progresso");
+            t.setDaemon(true);
+            return t;
+        });
+        amostrador.scheduleAtFixedRate(() -> {
+            try {
+                observador.atualizar(amostrar());
+            } catch (RuntimeException e) {
+                // Uma exceção aqui cancelaria as próximas amostras
+                System.err.println("Erro no observador de progresso: " + e);
+            }
+        }, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Para a amostragem e entrega o retrato final, já com a busca concluída
+    public void encerrar() {
+        if (amostrador == null) {
+            return;
+        }
+        amostrador.shutdownNow();
+        observador.atualizar(amostrar());
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.concurrent.TimeUnit;
+
+// Tempo máximo de uma busca e pedido de cancelamento vindo de fora dela.
+// As buscas consultam esgotado() entre blocos de trabalho (blocos de prefixos, tarefas do ForkJoinPool), nunca
+// a cada folha. Ao ver o prazo esgotado elas param e devolvem a melhor rota encontrada até ali, marcada como
+// não comprovadamente ótima.
+public class Prazo {
+    // Acima dessa quantidade de cidades uma busca com prazo não passa à parte exata e devolve a rota heurística
+    // com que começaria, marcada como não comprovadamente ótima. A busca exata não teria chance real de melhorar
+    // essa rota dentro de um prazo, e só montar as n² distâncias (ou os n² prefixos do servidor distribuído) já
+    // tomaria parte dele.
+    public static final int CIDADES_MAXIMAS_PARA_BUSCA_EXATA = 2048;
+
+    private final long fimNs;
+    private final boolean comLimite;
+    private volatile boolean cancelado;
+
+    private Prazo(long fimNs, boolean comLimite) {
+        this.fimNs = fimNs;
+        this.comLimite = comLimite;
+    }
+
+    // O tempo começa a contar na criação
+    public static Prazo de(long duracao, TimeUnit unidade) {
+        return new Prazo(System.nanoTime() + unidade.toNanos(duracao), true);
+    }
+
+    // Sem limite de tempo: a busca só para antes do fim se alguém chamar cancelar()
+    public static Prazo semLimite() {
+        return new Prazo(0, false);
+    }
+
+    public void cancelar() {
+        cancelado = true;
+    }
+
+    public boolean esgotado() {
+        return cancelado || (comLimite && System.nanoTime() - fimNs >= 0);
+    }
+
+    // Quanto falta até o fim do prazo: 0 se já esgotou, Long.MAX_VALUE se não há limite
+    public long getRestanteNs() {
+        if (cancelado) {
+            return 0;
+        }
+        if (!comLimite) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, fimNs - System.nanoTime());
+    }
+}
@@ -1,23 +1,22 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 
 public class ResolvedorParalelo {
+    //Gerações de cada ilha do algoritmo genético quando não há prazo
+    public static final int GERACOES_PADRAO_DO_GENETICO = 100;
 
     public static void main(String[] args) {
-        List<CidadePCV> cidades;
+        Instancia cidades;
         try {
-            //Carrega a lista de cidades do arquivo.
-            cidades = carregarCidadesDeArquivo("cidades.txt");
+            //Carrega as cidades do arquivo.
+            cidades = carregarInstanciaDeArquivo("cidades.txt");
         } catch (IOException e) {
             System.err.println("Erro ao carregar o arquivo de cidades: " + e.getMessage());
             return;
@@ -33,11 +32,33 @@ public class ResolvedorParalelo {
         System.out.printf("Em ms: %.3fms\n", tempoVMP / 1e6);
         System.out.println("Rota VMP: " + resVMP.getRota().stream().map(CidadePCV::getNome).collect(Collectors.joining(", ")));
         System.out.printf("Distancia VMP: %.2f\n", resVMP.getDistancia());
+
+        //Execução da Busca Local sobre a rota do VMP
+        System.out.println("\n--- Executando Busca Local 2-opt / Or-opt ---");
+        long inicioBL = System.nanoTime();
+        ResultadoPCV resBL = melhorarRotaParalelo(cidades, resVMP);
+        long tempoBL = System.nanoTime() - inicioBL;
+
+        System.out.printf("Execucao Busca Local concluida em %.4fs\n", tempoBL / 1e9);
+        System.out.printf("Em ms: %.3fms\n", tempoBL / 1e6);
+        System.out.println("Rota Busca Local: " + resBL.getRota().stream().map(CidadePCV::getNome).collect(Collectors.joining(", ")));
+        System.out.printf("Distancia Busca Local: %.2f\n", resBL.getDistancia());
+
+        //Execução do Algoritmo Genético, uma ilha por núcleo
+        System.out.println("\n--- Executando Algoritmo Genetico em Ilhas ---");
+        long inicioAG = System.nanoTime();
+        ResultadoPCV resAG = resolverAlgoritmoGenetico(cidades);
+        long tempoAG = System.nanoTime() - inicioAG;
+
+        System.out.printf("Execucao Algoritmo Genetico concluida em %.4fs\n", tempoAG / 1e9);
+        System.out.printf("Em ms: %.3fms\n", tempoAG / 1e6);
+        System.out.println("Rota Algoritmo Genetico: " + resAG.getRota().stream().map(CidadePCV::getNome).collect(Collectors.joining(", ")));
+        System.out.printf("Distancia Algoritmo Genetico: %.2f\n", resAG.getDistancia());
         
         //Execução da Força Bruta Paralela 
         System.out.println("\n--- Executando Algoritmo de Forca Bruta ---");
         long inicioFB = System.nanoTime();
-        ResultadoPCV resFB = resolverForcaBrutaParaleloFinal(cidades);
+        ResultadoPCV resFB = resolverForcaBrutaParaleloFinal(cidades, ObservadorDeProgresso.console("Forca Bruta"));
         long tempoFB = System.nanoTime() - inicioFB;
         
         if (resFB.getRota() != null) {
@@ -48,185 +69,436 @@ public class ResolvedorParalelo {
         } else {
             System.out.println("Nenhuma solucao foi encontrada.");
         }
+
+        //Execução do Branch and Bound Paralelo. Primeiro argumento opcional: prazo em segundos (0 para nenhum);
+        //com ele, a busca devolve a melhor rota encontrada até o fim do prazo, para qualquer quantidade de cidades.
+        //Segundo argumento opcional: arquivo de ponto de controle, de onde uma execução interrompida é retomada
+        System.out.println("\n--- Executando Algoritmo de Branch and Bound ---");
+        long inicioBB = System.nanoTime();
+        int paralelismo = Runtime.getRuntime().availableProcessors();
+        ObservadorDeProgresso progressoBB = ObservadorDeProgresso.console("Branch and Bound");
+        long segundosBB = args.length > 0 ? Long.parseLong(args[0]) : 0;
+        ResultadoPCV resBB;
+        if (args.length > 1) {
+            try {
+                resBB = resolverBranchAndBoundRetomavel(cidades, Paths.get(args[1]),
+                        segundosBB > 0 ? Prazo.de(segundosBB, TimeUnit.SECONDS) : null, progressoBB);
+            } catch (IOException e) {
+                System.err.println("Erro no ponto de controle: " + e.getMessage());
+                resBB = new ResultadoPCV(null, Double.POSITIVE_INFINITY);
+            }
+        } else if (segundosBB > 0) {
+            resBB = resolverComPrazo(cidades, Prazo.de(segundosBB, TimeUnit.SECONDS), progressoBB);
+        } else {
+            resBB = resolverBranchAndBoundParalelo(cidades, profundidadeDeCortePadrao(cidades.getTamanho(), paralelismo), paralelismo, progressoBB);
+        }
+        long tempoBB = System.nanoTime() - inicioBB;
+
+        if (resBB.getRota() != null) {
+            System.out.printf("Execucao Branch and Bound concluida em %.4fs\n", tempoBB / 1e9);
+            System.out.printf("Em ms: %.3fms\n", tempoBB / 1e6);
+            System.out.println("Rota Branch and Bound: " + resBB.getRota().stream().map(CidadePCV::getNome).collect(Collectors.joining(", ")));
+            System.out.printf("Distancia Branch and Bound: %.2f\n", resBB.getDistancia());
+            System.out.println("Otimo comprovado: " + (resBB.isOtimoComprovado() ? "sim" : "nao"));
+        }
+
+        //Execução do Held-Karp Paralelo
+        System.out.println("\n--- Executando Algoritmo de Held-Karp ---");
+        long inicioHK = System.nanoTime();
+        ResultadoPCV resHK = resolverHeldKarpParalelo(cidades);
+        long tempoHK = System.nanoTime() - inicioHK;
+
+        if (resHK.getRota() != null) {
+            System.out.printf("Execucao Held-Karp concluida em %.4fs\n", tempoHK / 1e9);
+            System.out.printf("Em ms: %.3fms\n", tempoHK / 1e6);
+            System.out.println("Rota Held-Karp: " + resHK.getRota().stream().map(CidadePCV::getNome).collect(Collectors.joining(", ")));
+            System.out.printf("Distancia Held-Karp: %.2f\n", resHK.getDistancia());
+        }
     }
     
     
     //Resolve o PCV usando uma abordagem de Força Bruta com paralelismo.
     public static ResultadoPCV resolverForcaBrutaParaleloFinal(List<CidadePCV> cidades) {
+        return resolverForcaBrutaParaleloFinal(cidades, null);
+    }
+
+    //Com um observador, entrega a cada MonitorDeProgresso.INTERVALO_PADRAO_MS a melhor rota até o momento,
+    //as rotas avaliadas, a fração do espaço coberta e o tempo restante estimado.
+    public static ResultadoPCV resolverForcaBrutaParaleloFinal(List<CidadePCV> cidades, ObservadorDeProgresso observador) {
+        return resolverForcaBrutaParaleloFinal(instanciaDe(cidades), observador);
+    }
+
+    public static ResultadoPCV resolverForcaBrutaParaleloFinal(Instancia instancia, ObservadorDeProgresso observador) {
+        // Define a quantidade de threads com base nos núcleos de CPU disponíveis
+        int paralelismo = Runtime.getRuntime().availableProcessors();
+        int n = instancia == null ? 0 : instancia.getTamanho();
+        return resolverForcaBrutaForkJoin(instancia, profundidadeDeCortePadrao(n, paralelismo), paralelismo, ModoAvaliacao.INCREMENTAL, observador);
+    }
+
+    //Força Bruta sobre um ForkJoinPool: a árvore de permutações é dividida por prefixos até a profundidade
+    //de corte (e além dela sob demanda), e threads ociosas roubam subárvores das demais.
+    public static ResultadoPCV resolverForcaBrutaForkJoin(List<CidadePCV> cidades, int profundidadeDeCorte, int paralelismo) {
+        return resolverForcaBrutaForkJoin(cidades, profundidadeDeCorte, paralelismo, ModoAvaliacao.INCREMENTAL);
+    }
+
+    public static ResultadoPCV resolverForcaBrutaForkJoin(List<CidadePCV> cidades, int profundidadeDeCorte, int paralelismo, ModoAvaliacao modo) {
+        return resolverForcaBrutaForkJoin(cidades, profundidadeDeCorte, paralelismo, modo, null);
+    }
+
+    public static ResultadoPCV resolverForcaBrutaForkJoin(List<CidadePCV> cidades, int profundidadeDeCorte, int paralelismo, ModoAvaliacao modo, ObservadorDeProgresso observador) {
+        return resolverForcaBrutaForkJoin(instanciaDe(cidades), profundidadeDeCorte, paralelismo, modo, observador);
+    }
+
+    public static ResultadoPCV resolverForcaBrutaForkJoin(Instancia instancia, int profundidadeDeCorte, int paralelismo, ModoAvaliacao modo, ObservadorDeProgresso observador) {
         // Valida se a lista de cidades é suficiente para o cálculo.
-        if (cidades == null || cidades.size() < 2) {
+        if (instancia == null || instancia.getTamanho() < 2) {
             return null;
         }
         // Limita a execução para evitar tempos absurdamente longos.
-        if (cidades.size() > 13) {
+        if (instancia.getTamanho() > 13) {
             System.out.println("AVISO: Forca Bruta e muito lenta para mais de 13 cidades. Execucao abortada.");
             return new ResultadoPCV(null, Double.POSITIVE_INFINITY);
         }
 
-        // Define a quantidade de threads com base nos núcleos de CPU disponíveis
-        int numThreads = Runtime.getRuntime().availableProcessors();
-        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
-        System.out.println(cidades.size() + " cidades, usando " + numThreads + " threads...");
+        ForkJoinPool pool = new ForkJoinPool(paralelismo);
+        System.out.println(instancia.getTamanho() + " cidades, usando " + paralelismo + " threads e profundidade de corte " + profundidadeDeCorte + "...");
 
-        // Define a cidade de origem e a lista das demais cidades a serem visitadas
-        CidadePCV origem = cidades.get(0);
-        List<CidadePCV> cidadesParaPermutar = new ArrayList<>(cidades.subList(1, cidades.size()));
-        
-        List<Future<ResultadoPCV>> futurosResultados = new ArrayList<>();
+        // Pré-calcula todas as distâncias uma única vez; as threads consultam a matriz pelos índices das cidades
+        MatrizDistancias matriz = new MatrizDistancias(instancia.getXs(), instancia.getYs());
 
-        // Cria uma tarefa para cada cidade a ser visitada para uma thread
-        // Cada thread será responsável por todas as rotas que começam com aquela cidade
-        for (final CidadePCV cidadeInicialDaPermutacao : cidadesParaPermutar) {
-            
-            Callable<ResultadoPCV> tarefa = () -> {
+        return executarBusca(instancia, matriz, modo, null, null, profundidadeDeCorte, pool, observador, null, null);
+    }
 
-                List<CidadePCV> restoDasCidades = new ArrayList<>(cidadesParaPermutar);
-                restoDasCidades.remove(cidadeInicialDaPermutacao);
+    //Resolve o PCV com Branch and Bound paralelo: as threads compartilham a melhor distância conhecida
+    //e descartam prefixos que não podem levar a uma rota melhor.
+    public static ResultadoPCV resolverBranchAndBoundParalelo(List<CidadePCV> cidades) {
+        int paralelismo = Runtime.getRuntime().availableProcessors();
+        int n = cidades == null ? 0 : cidades.size();
+        return resolverBranchAndBoundParalelo(cidades, profundidadeDeCortePadrao(n, paralelismo), paralelismo);
+    }
 
-                BuscaDePermutacaoThread buscaDaThread = new BuscaDePermutacaoThread(origem, cidadeInicialDaPermutacao);
-                
-                // Dispara a busca recursiva para o subconjunto desta thread
-                buscaDaThread.permutar(restoDasCidades, 0);
+    public static ResultadoPCV resolverBranchAndBoundParalelo(List<CidadePCV> cidades, int profundidadeDeCorte, int paralelismo) {
+        return resolverBranchAndBoundParalelo(cidades, profundidadeDeCorte, paralelismo, null);
+    }
 
-                return new ResultadoPCV(buscaDaThread.getMelhorRotaLocal(), buscaDaThread.getMenorDistanciaLocal());
-            };
-            // Envia a tarefa para o pool de threads para execução
-            futurosResultados.add(executor.submit(tarefa));
+    public static ResultadoPCV resolverBranchAndBoundParalelo(List<CidadePCV> cidades, int profundidadeDeCorte, int paralelismo, ObservadorDeProgresso observador) {
+        return resolverBranchAndBoundParalelo(instanciaDe(cidades), profundidadeDeCorte, paralelismo, observador);
+    }
+
+    public static ResultadoPCV resolverBranchAndBoundParalelo(Instancia instancia, int profundidadeDeCorte, int paralelismo, ObservadorDeProgresso observador) {
+        if (instancia == null || instancia.getTamanho() < 2) {
+            return null;
         }
+        // A rota do Vizinho Mais Próximo serve como primeiro limite de poda
+        return resolverBranchAndBound(instancia, profundidadeDeCorte, paralelismo, observador, null, resolverVizinhoMaisProximo(instancia), null);
+    }
 
-        // Compara o resultado de todas as threads para encontrar o melhor global
-        ResultadoPCV melhorGlobal = new ResultadoPCV(null, Double.MAX_VALUE);
-        try {
-            for (Future<ResultadoPCV> f : futurosResultados) {
+    //Resposta com latência limitada para qualquer tamanho de instância: parte da rota do Vizinho Mais Próximo
+    //melhorada pela busca local e segue com o Branch and Bound paralelo até o fim do prazo. Se a busca terminar
+    //antes, o resultado é o ótimo comprovado; senão, a melhor rota conhecida quando o prazo acabou. Com mais de
+    //Prazo.CIDADES_MAXIMAS_PARA_BUSCA_EXATA cidades, ou se a matriz não couber na memória, o resultado é a rota
+    //da busca local.
+    public static ResultadoPCV resolverComPrazo(List<CidadePCV> cidades, Prazo prazo) {
+        return resolverComPrazo(cidades, prazo, null);
+    }
+
+    public static ResultadoPCV resolverComPrazo(List<CidadePCV> cidades, Prazo prazo, ObservadorDeProgresso observador) {
+        return resolverComPrazo(instanciaDe(cidades), prazo, observador);
+    }
+
+    public static ResultadoPCV resolverComPrazo(Instancia instancia, Prazo prazo, ObservadorDeProgresso observador) {
+        if (instancia == null || instancia.getTamanho() < 2) {
+            return null;
+        }
+        int paralelismo = Runtime.getRuntime().availableProcessors();
+        ResultadoPCV inicial = melhorarRotaParalelo(instancia, resolverVizinhoMaisProximo(instancia));
+        if (instancia.getTamanho() > Prazo.CIDADES_MAXIMAS_PARA_BUSCA_EXATA) {
+            System.out.println("AVISO: " + instancia.getTamanho() + " cidades sao demais para a busca exata; a rota devolvida e a da busca local.");
+            return inicial;
+        }
+        return resolverBranchAndBound(instancia, profundidadeDeCortePadrao(instancia.getTamanho(), paralelismo), paralelismo, observador, prazo, inicial, null);
+    }
 
-                ResultadoPCV resultadoParcial = f.get();
-                // Se o resultado desta thread for melhor que o melhor global, atualiza
-                if (resultadoParcial != null && resultadoParcial.getDistancia() < melhorGlobal.getDistancia()) {
-                    melhorGlobal = resultadoParcial;
-                }
+    //Branch and Bound que sobrevive a uma interrupção (queda do processo ou prazo, opcional): grava periodicamente
+    //no arquivo os prefixos já resolvidos e a melhor rota. Se o arquivo já existir e for desta instância, a busca
+    //pula o que ele registra e parte da rota gravada, chegando ao mesmo ótimo que uma execução sem interrupção.
+    public static ResultadoPCV resolverBranchAndBoundRetomavel(List<CidadePCV> cidades, Path arquivo) throws IOException {
+        return resolverBranchAndBoundRetomavel(cidades, arquivo, null, null);
+    }
+
+    public static ResultadoPCV resolverBranchAndBoundRetomavel(List<CidadePCV> cidades, Path arquivo, Prazo prazo, ObservadorDeProgresso observador) throws IOException {
+        return resolverBranchAndBoundRetomavel(instanciaDe(cidades), arquivo, prazo, observador);
+    }
+
+    public static ResultadoPCV resolverBranchAndBoundRetomavel(Instancia instancia, Path arquivo, Prazo prazo, ObservadorDeProgresso observador) throws IOException {
+        if (instancia == null || instancia.getTamanho() < 2) {
+            return null;
+        }
+        int n = instancia.getTamanho();
+        int paralelismo = Runtime.getRuntime().availableProcessors();
+        int profundidadeDeCorte = profundidadeDeCortePadrao(n, paralelismo);
+        try (PontoDeControle ponto = PontoDeControle.abrir(arquivo, calcularIdDaInstancia(instancia), n,
+                PontoDeControle.profundidadeSugerida(n, profundidadeDeCorte))) {
+            if (ponto.getConcluidos() > 0) {
+                System.out.println("Retomando de " + arquivo + ": " + ponto.getConcluidos() + " prefixos ja resolvidos, melhor distancia "
+                        + String.format("%.2f", ponto.getMelhorDistancia()) + ".");
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+            ponto.iniciar(PontoDeControle.INTERVALO_PADRAO_MS);
+            ResultadoPCV inicial = melhorarRotaParalelo(instancia, resolverVizinhoMaisProximo(instancia));
+            return resolverBranchAndBound(instancia, profundidadeDeCorte, paralelismo, observador, prazo, inicial, ponto);
+        }
+    }
+
+    private static ResultadoPCV resolverBranchAndBound(Instancia instancia, int profundidadeDeCorte, int paralelismo, ObservadorDeProgresso observador,
+            Prazo prazo, ResultadoPCV inicial, PontoDeControle ponto) {
+        // A melhor rota de uma execução anterior inclui a dos prefixos que não serão explorados de novo
+        if (ponto != null && ponto.getMelhorDistancia() < inicial.getDistancia()) {
+            inicial = montarResultado(instancia, ponto.getMelhorRota(), ponto.getMelhorDistancia(), false);
+        }
+        // Sem a matriz não há busca exata; a rota inicial é a melhor que se pode dar
+        if (!LimitesDeMemoria.cabeNaMemoria(LimitesDeMemoria.matrizDeDistancias(instancia.getTamanho()))) {
+            System.out.println("AVISO: A matriz de distancias nao cabe na memoria para " + instancia.getTamanho() + " cidades; a rota devolvida e a inicial.");
+            return inicial;
+        }
+        ForkJoinPool pool = new ForkJoinPool(paralelismo);
+        System.out.println(instancia.getTamanho() + " cidades, usando " + paralelismo + " threads e profundidade de corte " + profundidadeDeCorte + "...");
+
+        MatrizDistancias matriz = new MatrizDistancias(instancia.getXs(), instancia.getYs());
+        IncumbenteGlobal incumbente = new IncumbenteGlobal(inicial.getDistancia());
+
+        ResultadoPCV melhorGlobal = executarBusca(instancia, matriz, ModoAvaliacao.INCREMENTAL, incumbente, inicial, profundidadeDeCorte, pool, observador, prazo, ponto);
+
+        // Se nenhuma thread encontrou rota menor que a inicial, ela mesma é a melhor (e a ótima, se a busca terminou)
+        if (melhorGlobal.getRota() == null) {
+            return new ResultadoPCV(inicial.getRota(), inicial.getIndices(), inicial.getDistancia(), melhorGlobal.isOtimoComprovado());
+        }
+        return melhorGlobal;
+    }
+
+    //Menor profundidade cujo número de prefixos é bem maior que o número de threads,
+    //para que o roubo de tarefas consiga equilibrar a carga entre elas.
+    public static int profundidadeDeCortePadrao(int n, int paralelismo) {
+        long prefixos = 1;
+        int profundidade = 0;
+        while (profundidade < n - 2 && prefixos < 8L * paralelismo) {
+            prefixos *= (n - 1 - profundidade);
+            profundidade++;
+        }
+        return profundidade;
+    }
+
+    //Dispara a tarefa raiz (apenas a origem fixada) no pool e converte a melhor rota encontrada.
+    //Com um incumbente, as tarefas podam a busca; sem ele, percorrem todas as permutações.
+    //rotaInicial (opcional) é a rota que deu o limite do incumbente; o monitor a informa como a melhor até que
+    //a busca encontre uma menor, e a mantém se nenhuma for encontrada.
+    //Com um prazo, as tarefas que começam depois dele terminar não exploram os seus prefixos.
+    private static ResultadoPCV executarBusca(Instancia instancia, MatrizDistancias matriz, ModoAvaliacao modo, IncumbenteGlobal incumbente,
+            ResultadoPCV rotaInicial, int profundidadeDeCorte, ForkJoinPool pool, ObservadorDeProgresso observador, Prazo prazo, PontoDeControle ponto) {
+        // A origem é a cidade de índice 0; as demais são identificadas pelos índices 1..n-1
+        int[] prefixo = {0};
+        int[] resto = new int[instancia.getTamanho() - 1];
+        for (int i = 0; i < resto.length; i++) {
+            resto[i] = i + 1;
+        }
+
+        TarefaDePermutacao.ContextoDaBusca contexto = new TarefaDePermutacao.ContextoDaBusca(matriz, profundidadeDeCorte, modo, incumbente, prazo, ponto);
+        if (rotaInicial != null) {
+            contexto.getMonitor().oferecerRota(indicesDaRota(instancia, rotaInicial), rotaInicial.getDistancia());
+        }
+        RotaEncontrada melhor;
+        contexto.getMonitor().iniciar(observador, MonitorDeProgresso.INTERVALO_PADRAO_MS);
+        try {
+            melhor = pool.invoke(new TarefaDePermutacao(contexto, prefixo, resto, 0));
         } finally {
+            contexto.getMonitor().encerrar();
             // Encera o pool de threads
-            executor.shutdown();
+            pool.shutdown();
         }
 
-        return melhorGlobal;
+        System.out.println(contexto.getFolhasVisitadas() + " rotas completas avaliadas.");
+        boolean completa = !contexto.isInterrompida();
+        if (!completa) {
+            System.out.println("AVISO: Prazo esgotado; a rota devolvida e a melhor encontrada ate aqui.");
+        }
+        if (melhor == null) {
+            return new ResultadoPCV(null, Double.POSITIVE_INFINITY, completa);
+        }
+        return montarResultado(instancia, melhor.getRota(), melhor.getDistancia(), completa);
     }
-    
-    //Resolve o PCV usando o método do vizinho mais próximo
-    public static ResultadoPCV resolverVizinhoMaisProximo(List<CidadePCV> cidades) {
-        List<CidadePCV> rota = new ArrayList<>();
-        List<CidadePCV> naoVisitadas = new ArrayList<>(cidades);
 
-        CidadePCV cidadeAtual = naoVisitadas.remove(0);
-        rota.add(cidadeAtual);
+    //Resolve o PCV de forma exata com o Held-Karp, preenchendo cada camada da tabela em paralelo.
+    public static ResultadoPCV resolverHeldKarpParalelo(List<CidadePCV> cidades) {
+        return resolverHeldKarpParalelo(instanciaDe(cidades));
+    }
 
-        //Loop para visitar todas as cidades
-        while (!naoVisitadas.isEmpty()) {
-            CidadePCV vizinhoMaisProximo = null;
-            double menorDistanciaLocal = Double.POSITIVE_INFINITY;
-
-            //Loop para encontra a cidade mais próxima da cidade atual
-            for (CidadePCV proxima : naoVisitadas) {
-                double distancia = cidadeAtual.distanciaPara(proxima);
-                if (distancia < menorDistanciaLocal) {
-                    menorDistanciaLocal = distancia;
-                    vizinhoMaisProximo = proxima;
-                }
-            }
-            //Move para a cidade encontrada
-            cidadeAtual = vizinhoMaisProximo;
-            rota.add(cidadeAtual);
-            naoVisitadas.remove(cidadeAtual);
+    public static ResultadoPCV resolverHeldKarpParalelo(Instancia instancia) {
+        if (instancia == null || instancia.getTamanho() < 2) {
+            return null;
+        }
+        // A tabela cresce com n * 2^n; recusa entradas cuja tabela não cabe no heap.
+        if (!LimitesDeMemoria.cabeNaMemoria(LimitesDeMemoria.tabelaDoHeldKarp(instancia.getTamanho()))) {
+            System.out.println("AVISO: A tabela do Held-Karp nao cabe na memoria para " + instancia.getTamanho() + " cidades. Execucao abortada.");
+            return new ResultadoPCV(null, Double.POSITIVE_INFINITY);
         }
-        
-        rota.add(rota.get(0));
 
-        // Calcula a distância total da rota encontrada.
-        double distanciaTotal = 0;
-        for (int i = 0; i < rota.size() - 1; i++) {
-            distanciaTotal += rota.get(i).distanciaPara(rota.get(i + 1));
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        System.out.println(instancia.getTamanho() + " cidades, usando " + numThreads + " threads...");
+
+        try {
+            HeldKarpParalelo hk = new HeldKarpParalelo(new MatrizDistancias(instancia.getXs(), instancia.getYs()));
+            hk.resolver(pool);
+            return montarResultado(instancia, hk.getMelhorRota(), hk.getMenorDistancia(), true);
+        } finally {
+            pool.shutdown();
         }
-        
-        return new ResultadoPCV(rota, distanciaTotal);
     }
 
-    //Carrega uma lista de cidades a partir de um arquivo de texto
-    public static List<CidadePCV> carregarCidadesDeArquivo(String filepath) throws IOException {
-        List<CidadePCV> cidades = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(filepath))) {
-            String linha;
-            while ((linha = br.readLine()) != null) {
-                String[] partes = linha.strip().split(",");
-                if (partes.length == 3) {
-                    cidades.add(new CidadePCV(partes[0].trim(), Integer.parseInt(partes[1].trim()), Integer.parseInt(partes[2].trim())));
-                }
-            }
+    //Busca local 2-opt / Or-opt sobre uma rota já existente (por exemplo a do Vizinho Mais Próximo)
+    public static ResultadoPCV melhorarRota(List<CidadePCV> cidades, ResultadoPCV inicial) {
+        return melhorarRota(instanciaDe(cidades), inicial, null);
+    }
+
+    public static ResultadoPCV melhorarRota(Instancia instancia, ResultadoPCV inicial) {
+        return melhorarRota(instancia, inicial, null);
+    }
+
+    public static ResultadoPCV melhorarRotaParalelo(List<CidadePCV> cidades, ResultadoPCV inicial) {
+        return melhorarRotaParalelo(instanciaDe(cidades), inicial);
+    }
+
+    public static ResultadoPCV melhorarRotaParalelo(Instancia instancia, ResultadoPCV inicial) {
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        try {
+            return melhorarRota(instancia, inicial, pool);
+        } finally {
+            pool.shutdown();
         }
-        System.out.println(cidades.size() + " cidades carregadas do arquivo '" + filepath + "'.");
-        return cidades;
     }
-}
 
-// Classe helper que realiza a busca recursiva para uma única thread
-class BuscaDePermutacaoThread {
-    private List<CidadePCV> melhorRotaLocal;
-    private double menorDistanciaLocal = Double.POSITIVE_INFINITY;
-    private final CidadePCV cidadeOrigem;
-    private final CidadePCV cidadeInicialDaPermutacao;
+    private static ResultadoPCV melhorarRota(Instancia instancia, ResultadoPCV inicial, ForkJoinPool pool) {
+        int n = instancia.getTamanho();
+        // A rota recebida repete a cidade inicial no fim para fechar o ciclo
+        int[] rota = Arrays.copyOf(indicesDaRota(instancia, inicial), n);
+
+        BuscaLocal busca = new BuscaLocal(instancia.getXs(), instancia.getYs());
+        int[] melhorada = pool == null ? busca.melhorar(rota) : busca.melhorarParalelo(rota, pool);
+        System.out.println(busca.getMovimentos() + " movimentos de melhoria aplicados.");
 
-    public BuscaDePermutacaoThread(CidadePCV origem, CidadePCV inicialDaPermutacao) {
-        this.cidadeOrigem = origem;
-        this.cidadeInicialDaPermutacao = inicialDaPermutacao;
+        // Mantém a rota começando pela mesma cidade da rota recebida
+        int[] resultado = fecharCiclo(melhorada, rota[0]);
+        return montarResultado(instancia, resultado, instancia.comprimento(resultado), false);
     }
 
-    //Método recursivo que explora todas as permutações possíveis para um subconjunto de cidades.
-    public void permutar(List<CidadePCV> cidades, int k) {
+    //Algoritmo genético em ilhas (ver AlgoritmoGenetico), uma ilha por núcleo, sem garantia de ótimo
+    public static ResultadoPCV resolverAlgoritmoGenetico(List<CidadePCV> cidades) {
+        return resolverAlgoritmoGenetico(instanciaDe(cidades));
+    }
 
-        if (k == cidades.size()) {
+    public static ResultadoPCV resolverAlgoritmoGenetico(Instancia instancia) {
+        return resolverAlgoritmoGenetico(instancia, Runtime.getRuntime().availableProcessors(), GERACOES_PADRAO_DO_GENETICO, null);
+    }
 
-            double distanciaAtual = calcularDistanciaDaRota(cidades);
+    public static ResultadoPCV resolverAlgoritmoGenetico(Instancia instancia, int ilhas, int geracoes, Prazo prazo) {
+        if (instancia == null || instancia.getTamanho() < 2) {
+            return null;
+        }
+        // Com menos de 5 cidades não há o que cruzar; a busca exata é imediata
+        if (instancia.getTamanho() < 5) {
+            return resolverHeldKarpParalelo(instancia);
+        }
 
-            // Se for a melhor rota encontrada por esta thread até agora, salva
-            if (distanciaAtual < this.menorDistanciaLocal) {
-                this.menorDistanciaLocal = distanciaAtual;
-                // Monta a rota completa apenas para o melhor resultado.
-                this.melhorRotaLocal = new ArrayList<>();
-                this.melhorRotaLocal.add(cidadeOrigem);
-                this.melhorRotaLocal.add(cidadeInicialDaPermutacao);
-                this.melhorRotaLocal.addAll(cidades);
-                this.melhorRotaLocal.add(cidadeOrigem);
-            }
-        } else {
-            for (int i = k; i < cidades.size(); i++) {
-                Collections.swap(cidades, k, i);
-                permutar(cidades, k + 1);
-                Collections.swap(cidades, k, i); // Desfaz a troca para verificar outros caminhos
-            }
+        ForkJoinPool pool = new ForkJoinPool(ilhas);
+        System.out.println(instancia.getTamanho() + " cidades, usando " + ilhas + " ilhas...");
+        try {
+            AlgoritmoGenetico genetico = new AlgoritmoGenetico(instancia.getXs(), instancia.getYs(), ilhas, System.nanoTime());
+            int[] rota = fecharCiclo(genetico.resolver(geracoes, prazo, pool), 0);
+            System.out.println("Geracoes por ilha: " + Arrays.toString(genetico.getGeracoesPorIlha()));
+            return montarResultado(instancia, rota, instancia.comprimento(rota), false);
+        } finally {
+            pool.shutdown();
         }
     }
-    
-    //Calcula a distância total de uma rota específica, partindo da origem global
-    
-    private double calcularDistanciaDaRota(List<CidadePCV> cidadesPermutadas) {
-        double distancia = 0;
-        // Começa da cidade fixa desta thread.
-        CidadePCV anterior = cidadeInicialDaPermutacao;
-        distancia += cidadeOrigem.distanciaPara(anterior);
 
-        // Soma as distâncias entre as cidades da permutação.
-        for (CidadePCV atual : cidadesPermutadas) {
-            distancia += anterior.distanciaPara(atual);
-            anterior = atual;
+    //Gira um ciclo (sem repetir a cidade inicial) para começar pela origem dada e repete a origem no fim
+    static int[] fecharCiclo(int[] ciclo, int origem) {
+        int n = ciclo.length;
+        int inicio = 0;
+        while (ciclo[inicio] != origem) {
+            inicio++;
+        }
+        int[] rota = new int[n + 1];
+        for (int i = 0; i <= n; i++) {
+            rota[i] = ciclo[(inicio + i) % n];
         }
+        return rota;
+    }
+
+    //Identifica a instância no ponto de controle pelas coordenadas, como o servidor distribuído faz
+    static long calcularIdDaInstancia(Instancia instancia) {
+        return HashDeCoordenadas.calcular(instancia.getXs(), instancia.getYs());
+    }
+
+    //As APIs que recebem a lista trabalham sobre a Instancia com as mesmas cidades
+    private static Instancia instanciaDe(List<CidadePCV> cidades) {
+        return cidades == null ? null : Instancia.de(cidades);
+    }
 
-        distancia += anterior.distanciaPara(cidadeOrigem);
-        return distancia;
+    //Único ponto em que a rota de índices vira objetos CidadePCV
+    private static ResultadoPCV montarResultado(Instancia instancia, int[] indices, double distancia, boolean otimoComprovado) {
+        return new ResultadoPCV(instancia.montarRota(indices), indices, distancia, otimoComprovado);
     }
 
-    // Métodos para a thread principal recuperar o melhor resultado encontrado aqui
-    public List<CidadePCV> getMelhorRotaLocal() { return melhorRotaLocal; }
-    public double getMenorDistanciaLocal() { return menorDistanciaLocal; }
-}
\ No newline at end of file
+    //A rota de um ResultadoPCV em índices; só recorre à identidade das cidades se ele não veio deste resolvedor
+    private static int[] indicesDaRota(Instancia instancia, ResultadoPCV resultado) {
+        return resultado.getIndices() != null ? resultado.getIndices() : instancia.indicesDaRota(resultado.getRota());
+    }
+
+    //Resolve o PCV usando o método do vizinho mais próximo
+    public static ResultadoPCV resolverVizinhoMaisProximo(List<CidadePCV> cidades) {
+        return resolverVizinhoMaisProximo(instanciaDe(cidades));
+    }
+
+    public static ResultadoPCV resolverVizinhoMaisProximo(Instancia instancia) {
+        int[] rota = rotaDoVizinhoMaisProximo(instancia);
+        // Calcula a distância total da rota encontrada.
+        return montarResultado(instancia, rota, instancia.comprimento(rota), false);
+    }
+
+    //Rota gulosa a partir da cidade 0, repetida no fim para fechar o ciclo
+    static int[] rotaDoVizinhoMaisProximo(Instancia instancia) {
+        int n = instancia.getTamanho();
+        int[] xs = instancia.getXs();
+        int[] ys = instancia.getYs();
+
+        // A grade responde "cidade não visitada mais próxima" sem varrer todas as cidades a cada passo
+        GradeEspacial grade = new GradeEspacial(xs, ys);
+        int[] rota = new int[n + 1];
+        int atual = 0;
+        grade.remover(atual);
+        rota[0] = atual;
+
+        //Loop para visitar todas as cidades
+        for (int i = 1; i < n; i++) {
+            //Move para a cidade mais próxima da cidade atual
+            atual = grade.maisProximo(xs[atual], ys[atual]);
+            grade.remover(atual);
+            rota[i] = atual;
+        }
+        rota[n] = rota[0];
+        return rota;
+    }
+
+    //Carrega uma lista de cidades a partir de um arquivo de texto
+    public static List<CidadePCV> carregarCidadesDeArquivo(String filepath) throws IOException {
+        return carregarInstanciaDeArquivo(filepath).getCidades();
+    }
+
+    //Lido pelo CarregadorDeCidades: CSV, binário ou TSPLIB, pelo arquivo mapeado em memória
+    public static Instancia carregarInstanciaDeArquivo(String filepath) throws IOException {
+        Instancia instancia = CarregadorDeCidades.carregar(Paths.get(filepath));
+        System.out.println(instancia.getTamanho() + " cidades carregadas do arquivo '" + filepath + "'.");
+        return instancia;
+    }
+}
@@ -3,10 +3,24 @@ import java.util.List;
 public class ResultadoPCV {
     private final List<CidadePCV> rota;
     private final double distancia;
+    // Se a busca terminou e garante que não existe rota menor; falso para heurísticas e buscas interrompidas
+    private final boolean otimoComprovado;
+    // A mesma rota em índices da Instancia, quando foi um dos algoritmos que a montou; nulo se não
+    private final int[] indices;
 
     public ResultadoPCV(List<CidadePCV> rota, double distancia) {
+        this(rota, distancia, false);
+    }
+
+    public ResultadoPCV(List<CidadePCV> rota, double distancia, boolean otimoComprovado) {
+        this(rota, null, distancia, otimoComprovado);
+    }
+
+    ResultadoPCV(List<CidadePCV> rota, int[] indices, double distancia, boolean otimoComprovado) {
         this.rota = rota;
+        this.indices = indices;
         this.distancia = distancia;
+        this.otimoComprovado = otimoComprovado;
     }
 
     public List<CidadePCV> getRota() {
@@ -16,4 +30,12 @@ public class ResultadoPCV {
     public double getDistancia() {
         return distancia;
     }
+
+    public boolean isOtimoComprovado() {
+        return otimoComprovado;
+    }
+
+    int[] getIndices() {
+        return indices;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+// Melhor rota encontrada por uma tarefa, ainda representada pelos índices das cidades
+public class RotaEncontrada {
+    private final int[] rota;
+    private final double distancia;
+
+    public RotaEncontrada(int[] rota, double distancia) {
+        this.rota = rota;
+        this.distancia = distancia;
+    }
+
+    public int[] getRota() { return rota; }
+    public double getDistancia() { return distancia; }
+}
@@ -0,0 +1,283 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Serviço de longa duração que resolve muitas instâncias sobre um único ForkJoinPool, criado uma vez, em vez de
+// um pool por chamada como os métodos de ResolvedorParalelo. Cada instância é resolvida como em resolverComPrazo:
+// a rota do Vizinho Mais Próximo melhorada pela busca local é o primeiro limite, e o Branch and Bound segue até
+// o fim ou até o prazo, se houver um.
+//
+// Instâncias pequenas são resolvidas inteiras por uma única thread, sem dividir a árvore, e várias delas vão em
+// uma mesma tarefa do pool (um pacote), para que o custo de agendar não pese mais que o da busca. Cada instância
+// grande vira uma tarefa que se divide em prefixos, como no Branch and Bound paralelo, e disputa as threads do
+// pool com as demais. O resultado de cada instância sai no seu CompletableFuture assim que ela termina.
+//
+// A fila é limitada: cada instância ocupa uma vaga do envio até terminar, e enviar com todas as vagas ocupadas
+// bloqueia quem envia até que alguma seja liberada.
+//
+// Com um CacheDeResultados, cada instância é procurada nele antes da busca, já na thread do pool, e as rotas
+// ótimas comprovadas são guardadas nele.
+public class ServicoDeResolucao implements AutoCloseable {
+    public static final int CAPACIDADE_PADRAO = 4096;
+    // Até esse tamanho a instância é resolvida por uma única thread (no máximo 9! rotas, antes da poda)
+    public static final int CIDADES_MAXIMAS_SEM_DIVIDIR = 10;
+    // Máximo de instâncias pequenas em um mesmo pacote
+    private static final int INSTANCIAS_POR_PACOTE = 32;
+    // Pacotes mínimos por thread ao dividir um lote, para que todas as threads recebam trabalho
+    private static final int PACOTES_POR_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final Semaphore vagas;
+    private final int capacidade;
+    private final CacheDeResultados cache;
+
+    public ServicoDeResolucao() {
+        this(Runtime.getRuntime().availableProcessors(), CAPACIDADE_PADRAO);
+    }
+
+    public ServicoDeResolucao(int paralelismo, int capacidade) {
+        this(paralelismo, capacidade, null);
+    }
+
+    public ServicoDeResolucao(int paralelismo, int capacidade, CacheDeResultados cache) {
+        if (capacidade < 1) {
+            throw new IllegalArgumentException("A capacidade da fila precisa ser positiva.");
+        }
+        this.pool = new ForkJoinPool(paralelismo);
+        this.vagas = new Semaphore(capacidade);
+        this.capacidade = capacidade;
+        this.cache = cache;
+    }
+
+    public CompletableFuture<ResultadoPCV> resolver(Instancia instancia) throws InterruptedException {
+        return resolver(instancia, null);
+    }
+
+    // Com um prazo, a instância devolve a melhor rota conhecida quando ele esgota. O prazo conta desde a sua
+    // criação, então inclui o tempo de espera na fila.
+    public CompletableFuture<ResultadoPCV> resolver(Instancia instancia, Prazo prazo) throws InterruptedException {
+        return resolverLote(Arrays.asList(instancia), prazo).get(0);
+    }
+
+    public List<CompletableFuture<ResultadoPCV>> resolverLote(List<Instancia> instancias) throws InterruptedException {
+        return resolverLote(instancias, null);
+    }
+
+    // Um futuro por instância, na mesma ordem. Instâncias com menos de duas cidades resultam em null, como nos
+    // métodos de ResolvedorParalelo.
+    public List<CompletableFuture<ResultadoPCV>> resolverLote(List<Instancia> instancias, Prazo prazo) throws InterruptedException {
+        List<CompletableFuture<ResultadoPCV>> futuros = new ArrayList<>(instancias.size());
+        int pequenas = 0;
+        for (Instancia instancia : instancias) {
+            futuros.add(new CompletableFuture<>());
+            if (!dividir(instancia)) {
+                pequenas++;
+            }
+        }
+        // Pacotes menores em lotes pequenos, para que mesmo eles se espalhem por todas as threads
+        int porPacote = Math.min(INSTANCIAS_POR_PACOTE, pequenas / (PACOTES_POR_THREAD * pool.getParallelism()));
+        porPacote = Math.max(1, Math.min(porPacote, capacidade));
+
+        List<Instancia> pacote = new ArrayList<>(porPacote);
+        List<CompletableFuture<ResultadoPCV>> futurosDoPacote = new ArrayList<>(porPacote);
+        for (int i = 0; i < instancias.size(); i++) {
+            Instancia instancia = instancias.get(i);
+            if (dividir(instancia)) {
+                enviar(new InstanciaGrande(instancia, futuros.get(i), prazo), 1);
+                continue;
+            }
+            pacote.add(instancia);
+            futurosDoPacote.add(futuros.get(i));
+            if (pacote.size() == porPacote) {
+                enviar(new Pacote(pacote, futurosDoPacote, prazo), pacote.size());
+                pacote = new ArrayList<>(porPacote);
+                futurosDoPacote = new ArrayList<>(porPacote);
+            }
+        }
+        if (!pacote.isEmpty()) {
+            enviar(new Pacote(pacote, futurosDoPacote, prazo), pacote.size());
+        }
+        return futuros;
+    }
+
+    // Vagas livres na fila neste momento
+    public int getVagas() {
+        return vagas.availablePermits();
+    }
+
+    // Recusa novos envios; as instâncias já enviadas terminam normalmente
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    // Espera as instâncias já enviadas terminarem, depois de close()
+    public boolean aguardarTermino(long tempo, TimeUnit unidade) throws InterruptedException {
+        return pool.awaitTermination(tempo, unidade);
+    }
+
+    private static boolean dividir(Instancia instancia) {
+        return instancia != null && instancia.getTamanho() > CIDADES_MAXIMAS_SEM_DIVIDIR;
+    }
+
+    private void enviar(ForkJoinTask<?> tarefa, int instancias) throws InterruptedException {
+        vagas.acquire(instancias);
+        try {
+            pool.execute(tarefa);
+        } catch (RejectedExecutionException e) {
+            vagas.release(instancias);
+            throw e;
+        }
+    }
+
+    // Entrega o resultado (ou a exceção) da instância e libera a vaga dela. Qualquer falha vai para o futuro,
+    // inclusive um Error como OutOfMemoryError: sem isso quem espera em join() ficaria bloqueado para sempre, e
+    // relançá-la deixaria sem resposta as instâncias seguintes do mesmo pacote.
+    private void concluir(CompletableFuture<ResultadoPCV> futuro, Instancia instancia, Prazo prazo, boolean dividir) {
+        try {
+            ResultadoPCV resultado = buscarNoCache(instancia);
+            if (resultado == null) {
+                resultado = resolverInstancia(instancia, prazo, dividir ? pool.getParallelism() : 0);
+                if (cache != null && resultado != null && resultado.isOtimoComprovado()) {
+                    cache.guardar(instancia.getXs(), instancia.getYs(), resultado.getIndices());
+                }
+            }
+            futuro.complete(resultado);
+        } catch (Throwable e) {
+            futuro.completeExceptionally(e);
+        } finally {
+            vagas.release();
+        }
+    }
+
+    private ResultadoPCV buscarNoCache(Instancia instancia) {
+        if (cache == null || instancia == null || instancia.getTamanho() < 2) {
+            return null;
+        }
+        int[] rota = cache.buscar(instancia.getXs(), instancia.getYs());
+        return rota == null ? null : new ResultadoPCV(instancia.montarRota(rota), rota, instancia.comprimento(rota), true);
+    }
+
+    // Sem paralelismo (0) a busca roda inteira na thread atual e só consulta o prazo antes de começar; com ele,
+    // vira uma TarefaDePermutacao que se divide no pool em que a thread atual está
+    static ResultadoPCV resolverInstancia(Instancia instancia, Prazo prazo, int paralelismo) {
+        if (instancia == null || instancia.getTamanho() < 2) {
+            return null;
+        }
+        int n = instancia.getTamanho();
+
+        // Primeiro limite: Vizinho Mais Próximo melhorado pela busca local, sem passar pelo pool
+        int[] rotaInicial = ResolvedorParalelo.rotaDoVizinhoMaisProximo(instancia);
+        int[] melhorada = new BuscaLocal(instancia.getXs(), instancia.getYs()).melhorar(Arrays.copyOf(rotaInicial, n));
+        int[] melhorRota = ResolvedorParalelo.fecharCiclo(melhorada, rotaInicial[0]);
+        double menorDistancia = instancia.comprimento(melhorRota);
+        // Sem a matriz não há busca exata; a rota da busca local, calculada sem ela, é a resposta
+        if ((prazo != null && prazo.esgotado()) || !LimitesDeMemoria.cabeNaMemoria(LimitesDeMemoria.matrizDeDistancias(n))) {
+            return new ResultadoPCV(instancia.montarRota(melhorRota), melhorRota, menorDistancia, false);
+        }
+
+        MatrizDistancias matriz = new MatrizDistancias(instancia.getXs(), instancia.getYs());
+        IncumbenteGlobal incumbente = new IncumbenteGlobal(menorDistancia);
+        int[] prefixo = {0};
+        int[] resto = new int[n - 1];
+        for (int i = 0; i < resto.length; i++) {
+            resto[i] = i + 1;
+        }
+        boolean completa;
+        if (paralelismo == 0) {
+            TarefaDePermutacao.ContextoDaBusca contexto = new TarefaDePermutacao.ContextoDaBusca(matriz, 0, ModoAvaliacao.INCREMENTAL, incumbente);
+            BuscaDePermutacaoThread busca = new BuscaDePermutacaoThread(contexto, prefixo, 0);
+            busca.permutarComPoda(resto);
+            if (busca.getMelhorRotaLocal() != null) {
+                melhorRota = busca.getMelhorRotaLocal();
+                menorDistancia = busca.getMenorDistanciaLocal();
+            }
+            completa = true;
+        } else {
+            TarefaDePermutacao.ContextoDaBusca contexto = new TarefaDePermutacao.ContextoDaBusca(matriz,
+                    ResolvedorParalelo.profundidadeDeCortePadrao(n, paralelismo), ModoAvaliacao.INCREMENTAL, incumbente, prazo);
+            RotaEncontrada melhor = new TarefaDePermutacao(contexto, prefixo, resto, 0).invoke();
+            if (melhor != null) {
+                melhorRota = melhor.getRota();
+                menorDistancia = melhor.getDistancia();
+            }
+            completa = !contexto.isInterrompida();
+        }
+        return new ResultadoPCV(instancia.montarRota(melhorRota), melhorRota, menorDistancia, completa);
+    }
+
+    // Várias instâncias pequenas resolvidas em sequência pela mesma thread
+    private class Pacote extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Instancia> instancias;
+        private final List<CompletableFuture<ResultadoPCV>> futuros;
+        private final Prazo prazo;
+
+        Pacote(List<Instancia> instancias, List<CompletableFuture<ResultadoPCV>> futuros, Prazo prazo) {
+            this.instancias = instancias;
+            this.futuros = futuros;
+            this.prazo = prazo;
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = 0; i < instancias.size(); i++) {
+                concluir(futuros.get(i), instancias.get(i), prazo, false);
+            }
+        }
+    }
+
+    // Uma instância grande, dividida entre as threads do pool
+    private class InstanciaGrande extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Instancia instancia;
+        private final CompletableFuture<ResultadoPCV> futuro;
+        private final Prazo prazo;
+
+        InstanciaGrande(Instancia instancia, CompletableFuture<ResultadoPCV> futuro, Prazo prazo) {
+            this.instancia = instancia;
+            this.futuro = futuro;
+            this.prazo = prazo;
+        }
+
+        @Override
+        protected void compute() {
+            concluir(futuro, instancia, prazo, true);
+        }
+    }
+
+    // Resolve os arquivos recebidos como um único lote e mostra a vazão: java ServicoDeResolucao a.txt b.tsp ...
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.err.println("Uso: java ServicoDeResolucao <arquivo de cidades> [<arquivo de cidades> ...]");
+            return;
+        }
+        List<Instancia> instancias = new ArrayList<>(args.length);
+        for (String arquivo : args) {
+            instancias.add(CarregadorDeCidades.carregar(Paths.get(arquivo)));
+        }
+
+        try (ServicoDeResolucao servico = new ServicoDeResolucao()) {
+            long inicio = System.nanoTime();
+            List<CompletableFuture<ResultadoPCV>> futuros = servico.resolverLote(instancias);
+            for (int i = 0; i < args.length; i++) {
+                ResultadoPCV resultado = futuros.get(i).join();
+                System.out.printf("%s: %s\n", args[i], resultado == null ? "menos de duas cidades"
+                        : String.format("%.2f%s", resultado.getDistancia(), resultado.isOtimoComprovado() ? "" : " (nao comprovada)"));
+            }
+            long tempo = System.nanoTime() - inicio;
+            System.out.printf("%d instancias em %.3fs (%.1f instancias/s)\n", args.length, tempo / 1e9, args.length / (tempo / 1e9));
+        }
+    }
+}
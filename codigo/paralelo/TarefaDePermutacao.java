@@ -0,0 +1,192 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+// Tarefa do ForkJoinPool que explora todas as rotas que começam por um prefixo.
+// Até a profundidade de corte a tarefa sempre se divide, criando uma subtarefa para cada próxima cidade possível.
+// Depois disso, só continua dividindo se o subproblema ainda for grande e houver poucas tarefas na fila da thread,
+// para que threads ociosas tenham sempre subárvores para roubar; caso contrário, resolve o restante sozinha.
+// Com um prazo, cada tarefa o consulta ao começar e, esgotado, termina sem explorar o seu prefixo.
+// Com um ponto de controle, as tarefas da profundidade dele são as unidades gravadas: até ela a tarefa sempre se
+// divide, e cada uma tem um índice fixo (a posição de cada cidade do prefixo no resto do pai, em base mista),
+// é pulada se já constar como concluída e é marcada ao terminar inteira.
+public class TarefaDePermutacao extends RecursiveTask<RotaEncontrada> {
+    private static final long serialVersionUID = 1L;
+
+    // Além da profundidade de corte, divide apenas se a fila local tiver menos tarefas sobrando que isso
+    private static final int EXCEDENTE_MAXIMO = 2;
+    // Além da profundidade de corte, divide apenas se restarem pelo menos essa quantidade de cidades
+    private static final int MINIMO_PARA_DIVIDIR = 8;
+    // Com prazo, divide sempre que restarem mais cidades que isso, para que nenhuma tarefa folha demore muito
+    // sem consultá-lo (10! são cerca de 3,6 milhões de rotas)
+    private static final int MAXIMO_COM_PRAZO = 10;
+
+    private final ContextoDaBusca contexto;
+    private final int[] prefixo;
+    private final int[] resto;
+    private final double distanciaDoPrefixo;
+    // Índice do prefixo entre os da sua profundidade; só é mantido até a profundidade do ponto de controle
+    private final int indice;
+
+    public TarefaDePermutacao(ContextoDaBusca contexto, int[] prefixo, int[] resto, double distanciaDoPrefixo) {
+        this(contexto, prefixo, resto, distanciaDoPrefixo, 0);
+    }
+
+    private TarefaDePermutacao(ContextoDaBusca contexto, int[] prefixo, int[] resto, double distanciaDoPrefixo, int indice) {
+        this.contexto = contexto;
+        this.prefixo = prefixo;
+        this.resto = resto;
+        this.distanciaDoPrefixo = distanciaDoPrefixo;
+        this.indice = indice;
+    }
+
+    @Override
+    protected RotaEncontrada compute() {
+        if (contexto.prazo != null && contexto.prazo.esgotado()) {
+            contexto.interrompida = true;
+            return null;
+        }
+        int profundidade = prefixo.length - 1;
+        boolean unidadeDoPontoDeControle = contexto.pontoDeControle != null && profundidade == contexto.pontoDeControle.getProfundidade();
+        if (unidadeDoPontoDeControle && contexto.pontoDeControle.isConcluido(indice)) {
+            // Resolvido em uma execução anterior; a melhor rota dele já veio do arquivo para o incumbente
+            contexto.monitor.registrar(0, contexto.monitor.fatorial(resto.length));
+            return null;
+        }
+        RotaEncontrada melhor = dividirOuResolver(profundidade);
+        // Uma tarefa que encontrou o prazo esgotado pode ter deixado a subárvore pela metade
+        if (unidadeDoPontoDeControle && !contexto.interrompida) {
+            contexto.pontoDeControle.marcarConcluido(indice);
+        }
+        return melhor;
+    }
+
+    private RotaEncontrada dividirOuResolver(int profundidade) {
+        boolean dividir = resto.length > 1
+                && (profundidade < contexto.profundidadeDeCorte
+                    || (contexto.pontoDeControle != null && profundidade < contexto.pontoDeControle.getProfundidade())
+                    || (resto.length >= MINIMO_PARA_DIVIDIR && getSurplusQueuedTaskCount() < EXCEDENTE_MAXIMO)
+                    || (contexto.prazo != null && resto.length > MAXIMO_COM_PRAZO));
+
+        if (!dividir) {
+            return resolverSozinha();
+        }
+
+        int ultima = prefixo[prefixo.length - 1];
+        List<TarefaDePermutacao> subtarefas = new ArrayList<>(resto.length);
+        for (int i = 0; i < resto.length; i++) {
+            int proxima = resto[i];
+            // Prefixos em que cidadeDepois aparece antes de cidadeAntes só levam a rotas espelhadas
+            if (proxima == contexto.cidadeDepois && !BuscaDePermutacaoThread.contem(prefixo, 0, contexto.cidadeAntes)) {
+                contexto.monitor.registrar(0, contexto.monitor.fatorial(resto.length - 1));
+                continue;
+            }
+            double novaDistancia = distanciaDoPrefixo + contexto.matriz.distancia(ultima, proxima);
+
+            int[] novoResto = new int[resto.length - 1];
+            System.arraycopy(resto, 0, novoResto, 0, i);
+            System.arraycopy(resto, i + 1, novoResto, i, resto.length - i - 1);
+
+            // No modo Branch and Bound, nem cria a subtarefa se o prefixo já não pode melhorar o incumbente
+            if (contexto.incumbente != null && novaDistancia + limiteInferior(proxima, novoResto) >= contexto.incumbente.get()) {
+                contexto.monitor.registrar(0, contexto.monitor.fatorial(novoResto.length));
+                continue;
+            }
+
+            int[] novoPrefixo = new int[prefixo.length + 1];
+            System.arraycopy(prefixo, 0, novoPrefixo, 0, prefixo.length);
+            novoPrefixo[prefixo.length] = proxima;
+            int novoIndice = contexto.pontoDeControle != null && profundidade < contexto.pontoDeControle.getProfundidade()
+                    ? indice * resto.length + i : 0;
+            subtarefas.add(new TarefaDePermutacao(contexto, novoPrefixo, novoResto, novaDistancia, novoIndice));
+        }
+
+        invokeAll(subtarefas);
+
+        // Combina os resultados das subtarefas; em caso de empate mantém a primeira, como na busca sequencial
+        RotaEncontrada melhor = null;
+        for (TarefaDePermutacao subtarefa : subtarefas) {
+            RotaEncontrada resultado = subtarefa.join();
+            if (resultado != null && (melhor == null || resultado.getDistancia() < melhor.getDistancia())) {
+                melhor = resultado;
+            }
+        }
+        return melhor;
+    }
+
+    private RotaEncontrada resolverSozinha() {
+        BuscaDePermutacaoThread busca = new BuscaDePermutacaoThread(contexto, prefixo, distanciaDoPrefixo);
+        if (contexto.incumbente == null) {
+            busca.permutar(resto);
+        } else {
+            busca.permutarComPoda(resto);
+        }
+        // O andamento é registrado uma vez por tarefa folha, fora do laço da busca: ao terminar, toda a
+        // subárvore do prefixo está coberta, incluindo os ramos podados e os espelhados
+        contexto.monitor.registrar(busca.getFolhasVisitadas(), contexto.monitor.fatorial(resto.length));
+
+        if (busca.getMelhorRotaLocal() == null) {
+            return null;
+        }
+        contexto.monitor.oferecerRota(busca.getMelhorRotaLocal(), busca.getMenorDistanciaLocal());
+        // O prefixo desta tarefa não será explorado de novo na retomada, então a rota dele precisa estar no arquivo
+        if (contexto.pontoDeControle != null) {
+            contexto.pontoDeControle.oferecerRota(busca.getMelhorRotaLocal(), busca.getMenorDistanciaLocal());
+        }
+        return new RotaEncontrada(busca.getMelhorRotaLocal(), busca.getMenorDistanciaLocal());
+    }
+
+    // Soma das menores saídas da última cidade do prefixo e das cidades ainda não visitadas
+    private double limiteInferior(int ultima, int[] naoVisitadas) {
+        double soma = contexto.menoresSaidas[ultima];
+        for (int cidade : naoVisitadas) {
+            soma += contexto.menoresSaidas[cidade];
+        }
+        return soma;
+    }
+
+    // Dados compartilhados (somente leitura, exceto o incumbente e o monitor) por todas as tarefas de uma mesma busca
+    public static class ContextoDaBusca {
+        final MatrizDistancias matriz;
+        final int profundidadeDeCorte;
+        final ModoAvaliacao modo;
+        final IncumbenteGlobal incumbente;
+        final double[] menoresSaidas;
+        // Em instâncias simétricas, só são geradas rotas em que a cidade 1 aparece antes da cidade 2
+        final int cidadeAntes;
+        final int cidadeDepois;
+        final MonitorDeProgresso monitor;
+        // Opcional; se alguma tarefa o encontrar esgotado, a busca fica marcada como interrompida
+        final Prazo prazo;
+        volatile boolean interrompida;
+        // Opcional; recebe os prefixos concluídos da profundidade dele e as rotas encontradas
+        final PontoDeControle pontoDeControle;
+
+        public ContextoDaBusca(MatrizDistancias matriz, int profundidadeDeCorte, ModoAvaliacao modo, IncumbenteGlobal incumbente) {
+            this(matriz, profundidadeDeCorte, modo, incumbente, null);
+        }
+
+        public ContextoDaBusca(MatrizDistancias matriz, int profundidadeDeCorte, ModoAvaliacao modo, IncumbenteGlobal incumbente, Prazo prazo) {
+            this(matriz, profundidadeDeCorte, modo, incumbente, prazo, null);
+        }
+
+        public ContextoDaBusca(MatrizDistancias matriz, int profundidadeDeCorte, ModoAvaliacao modo, IncumbenteGlobal incumbente, Prazo prazo,
+                PontoDeControle pontoDeControle) {
+            this.matriz = matriz;
+            this.profundidadeDeCorte = profundidadeDeCorte;
+            this.modo = modo;
+            this.incumbente = incumbente;
+            this.menoresSaidas = incumbente != null ? matriz.menoresSaidas() : null;
+            boolean usarSimetria = matriz.isSimetrica() && matriz.getTamanho() >= 3;
+            this.cidadeAntes = usarSimetria ? 1 : -1;
+            this.cidadeDepois = usarSimetria ? 2 : -1;
+            this.monitor = new MonitorDeProgresso(matriz.getTamanho() - 1);
+            this.prazo = prazo;
+            this.pontoDeControle = pontoDeControle;
+        }
+
+        public MonitorDeProgresso getMonitor() { return monitor; }
+        public long getFolhasVisitadas() { return monitor.amostrar().getRotasAvaliadas(); }
+        public boolean isInterrompida() { return interrompida; }
+    }
+}
@@ -0,0 +1,361 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+// Verificações rápidas da solução paralela: java Verificacoes (depois de javac *.java). Mostra uma linha por
+// verificação e termina com código 1 se alguma falhar.
+//
+// - O Held-Karp paralelo, a Força Bruta no ForkJoinPool e o Branch and Bound contra a enumeração de todas as
+//   rotas, em instâncias pequenas; as buscas por prefixos com cortes rasos e fundos, que dividem a árvore de
+//   formas diferentes entre as tarefas, e a Força Bruta nos dois modos de avaliação.
+// - A Força Bruta e o Branch and Bound com um observador de progresso: o último retrato cobre todo o espaço de
+//   rotas, contando as subárvores podadas, e traz a distância do resultado.
+// - A resolução com prazo: com tempo de sobra dá o ótimo comprovado; com o prazo já esgotado, inclusive em uma
+//   instância de 5000 cidades, dá uma rota válida que não é comprovadamente ótima.
+// - O Branch and Bound retomável: contra a enumeração, e cortado várias vezes pelo prazo e retomado do mesmo
+//   arquivo até o ótimo comprovado, que é conferido contra o Held-Karp. Um registro gravado pela metade é
+//   descartado, e o arquivo de outra instância é recusado.
+// - O ServicoDeResolucao contra a enumeração, com instâncias pequenas em pacotes e maiores divididas no pool, em
+//   um lote maior que a fila.
+// - O CacheDeResultados no ServicoDeResolucao: a rota ótima de uma instância serve à mesma instância transladada e
+//   com as cidades em outra ordem, também lida do diretório por um cache novo, e não serve a uma instância
+//   diferente.
+// - O algoritmo genético em ilhas: em 9 e 300 cidades, uma rota válida, não comprovadamente ótima e, em 9, não
+//   menor que a da enumeração.
+// - O AvaliadorDeRotas padrão (o vetorial, se disponível): o ponto livre mais próximo, com empates, e a menor
+//   ordem de cada cauda, igual à da implementação escalar bit a bit.
+// - A ida e volta do CarregadorDeCidades pelos formatos binário, TSPLIB e CSV.
+public final class Verificacoes {
+    private static final int PARALELISMO = 4;
+    private static final int[] CORTES = {0, 1, 3};
+
+    // As mensagens dos resolvedores vão para System.out, que fica desligado durante as verificações
+    private static final PrintStream SAIDA = System.out;
+    private static int falhas;
+
+    private Verificacoes() {}
+
+    @FunctionalInterface
+    private interface Verificacao {
+        void executar() throws Exception;
+    }
+
+    public static void main(String[] args) {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            verificar("Held-Karp igual a enumeracao", Verificacoes::heldKarp);
+            verificar("Forca Bruta ForkJoin igual a enumeracao", Verificacoes::forcaBrutaForkJoin);
+            verificar("Branch and Bound igual a enumeracao", Verificacoes::branchAndBound);
+            verificar("progresso das buscas", Verificacoes::progresso);
+            verificar("resolucao com prazo", Verificacoes::comPrazo);
+            verificar("ponto de controle", Verificacoes::pontoDeControle);
+            verificar("servico de resolucao em lote", Verificacoes::servicoDeResolucao);
+            verificar("cache pela forma canonica", Verificacoes::cache);
+            verificar("algoritmo genetico devolve rota valida", Verificacoes::algoritmoGenetico);
+            verificar("avaliador de rotas", Verificacoes::avaliadores);
+            verificar("carregador: binario, TSPLIB e CSV", Verificacoes::carregador);
+        } finally {
+            System.setOut(SAIDA);
+        }
+        if (falhas > 0) {
+            SAIDA.println(falhas + " verificacoes falharam.");
+            System.exit(1);
+        }
+        SAIDA.println("Todas as verificacoes passaram.");
+    }
+
+    private static void verificar(String nome, Verificacao verificacao) {
+        long inicio = System.nanoTime();
+        try {
+            verificacao.executar();
+            SAIDA.printf("ok      %s (%.0f ms)%n", nome, (System.nanoTime() - inicio) / 1e6);
+        } catch (Throwable e) {
+            falhas++;
+            SAIDA.println("FALHOU  " + nome + ": " + e);
+        }
+    }
+
+    private static void heldKarp() throws Exception {
+        InstanciasDeTeste.conferirContraEnumeracao("Held-Karp", 9, ResolvedorParalelo::resolverHeldKarpParalelo);
+    }
+
+    private static void forcaBrutaForkJoin() throws Exception {
+        InstanciasDeTeste.conferirContraEnumeracao("Forca Bruta", 9, ResolvedorParalelo::resolverForcaBrutaParaleloFinal);
+        for (ModoAvaliacao modo : ModoAvaliacao.values()) {
+            for (int corte : CORTES) {
+                InstanciasDeTeste.conferirContraEnumeracao("Forca Bruta " + modo + " com corte " + corte, 9,
+                        cidades -> ResolvedorParalelo.resolverForcaBrutaForkJoin(cidades, corte, PARALELISMO, modo));
+            }
+        }
+    }
+
+    private static void branchAndBound() throws Exception {
+        InstanciasDeTeste.conferirContraEnumeracao("Branch and Bound", 9, ResolvedorParalelo::resolverBranchAndBoundParalelo);
+        for (int corte : CORTES) {
+            InstanciasDeTeste.conferirContraEnumeracao("Branch and Bound com corte " + corte, 9,
+                    cidades -> ResolvedorParalelo.resolverBranchAndBoundParalelo(cidades, corte, PARALELISMO));
+        }
+    }
+
+    private static void progresso() throws Exception {
+        AtomicReference<Progresso> ultimo = new AtomicReference<>();
+        InstanciasDeTeste.conferirContraEnumeracao("Forca Bruta com observador", 9, cidades -> {
+            ResultadoPCV resultado = ResolvedorParalelo.resolverForcaBrutaParaleloFinal(cidades, ultimo::set);
+            confirmarProgressoFinal(ultimo.getAndSet(null), resultado.getDistancia(), "Forca Bruta, " + cidades.size() + " cidades");
+            return resultado;
+        });
+        InstanciasDeTeste.conferirContraEnumeracao("Branch and Bound com observador", 9, cidades -> {
+            ResultadoPCV resultado = ResolvedorParalelo.resolverBranchAndBoundParalelo(cidades, 2, PARALELISMO, ultimo::set);
+            confirmarProgressoFinal(ultimo.getAndSet(null), resultado.getDistancia(), "Branch and Bound, " + cidades.size() + " cidades");
+            return resultado;
+        });
+
+        List<CidadePCV> cidades = InstanciasDeTeste.aleatoria(11, 7, 1000);
+        ResultadoPCV resultado = ResolvedorParalelo.resolverForcaBrutaParaleloFinal(cidades, ultimo::set);
+        InstanciasDeTeste.confirmarOtimo(cidades, resultado, ResolvedorParalelo.resolverHeldKarpParalelo(cidades).getDistancia(),
+                "Forca Bruta com observador, 11 cidades");
+        confirmarProgressoFinal(ultimo.get(), resultado.getDistancia(), "Forca Bruta, 11 cidades");
+    }
+
+    private static void confirmarProgressoFinal(Progresso progresso, double distancia, String caso) {
+        InstanciasDeTeste.confirmar(progresso != null, caso + ": o observador nao recebeu o retrato final");
+        InstanciasDeTeste.confirmar(Math.abs(progresso.getFracaoCoberta() - 1) <= InstanciasDeTeste.TOLERANCIA,
+                caso + ": fracao coberta " + progresso.getFracaoCoberta());
+        InstanciasDeTeste.confirmar(progresso.getMelhorDistancia() == distancia,
+                caso + ": melhor distancia " + progresso.getMelhorDistancia() + ", resultado " + distancia);
+    }
+
+    private static void comPrazo() throws Exception {
+        InstanciasDeTeste.conferirContraEnumeracao("com prazo longo", 9, cidades -> {
+            ResultadoPCV resultado = ResolvedorParalelo.resolverComPrazo(cidades, Prazo.de(1, TimeUnit.MINUTES));
+            InstanciasDeTeste.confirmar(resultado.isOtimoComprovado(), cidades.size() + " cidades: otimo nao comprovado");
+            return resultado;
+        });
+
+        // Com 12 cidades a tarefa raiz já encontra o prazo esgotado; com 5000 a busca exata nem começa
+        for (int n : new int[] {12, 5000}) {
+            List<CidadePCV> cidades = InstanciasDeTeste.aleatoria(n, n, 100000);
+            ResultadoPCV resultado = ResolvedorParalelo.resolverComPrazo(cidades, Prazo.de(0, TimeUnit.SECONDS));
+            String caso = n + " cidades com o prazo esgotado";
+            InstanciasDeTeste.confirmar(!resultado.isOtimoComprovado(), caso + ": otimo comprovado");
+            InstanciasDeTeste.confirmarRota(cidades, resultado.getRota(), resultado.getDistancia(), caso);
+        }
+    }
+
+    private static void pontoDeControle() throws Exception {
+        Path arquivo = Files.createTempFile("pcv", ".ponto");
+        try {
+            InstanciasDeTeste.conferirContraEnumeracao("Branch and Bound retomavel", 9, cidades -> {
+                Files.deleteIfExists(arquivo);
+                return ResolvedorParalelo.resolverBranchAndBoundRetomavel(cidades, arquivo);
+            });
+
+            List<CidadePCV> cidades = InstanciasDeTeste.aleatoria(16, 16, 1000);
+            double otimo = ResolvedorParalelo.resolverHeldKarpParalelo(cidades).getDistancia();
+            Files.deleteIfExists(arquivo);
+            ResultadoPCV resultado;
+            int execucoes = 0;
+            do {
+                resultado = ResolvedorParalelo.resolverBranchAndBoundRetomavel(cidades, arquivo, Prazo.de(20, TimeUnit.MILLISECONDS), null);
+                execucoes++;
+            } while (!resultado.isOtimoComprovado() && execucoes < 1000);
+            InstanciasDeTeste.confirmar(execucoes > 1, "a busca terminou sem ser interrompida");
+            InstanciasDeTeste.confirmarOtimo(cidades, resultado, otimo, "retomada " + execucoes + " vezes");
+
+            // Um registro cortado no meio, como em uma queda durante a gravação
+            try (OutputStream saida = Files.newOutputStream(arquivo, StandardOpenOption.APPEND)) {
+                saida.write(new byte[] {0, 0, 0, 40, 1, 2, 3});
+            }
+            resultado = ResolvedorParalelo.resolverBranchAndBoundRetomavel(cidades, arquivo);
+            InstanciasDeTeste.confirmar(resultado.isOtimoComprovado(), "registro cortado: otimo nao comprovado");
+            InstanciasDeTeste.confirmarOtimo(cidades, resultado, otimo, "registro cortado");
+
+            try {
+                ResolvedorParalelo.resolverBranchAndBoundRetomavel(InstanciasDeTeste.aleatoria(16, 17, 1000), arquivo);
+                InstanciasDeTeste.confirmar(false, "o ponto de controle de outra instancia foi aceito");
+            } catch (IOException e) {
+                // Esperado: o arquivo é de outra instância
+            }
+        } finally {
+            Files.deleteIfExists(arquivo);
+        }
+    }
+
+    private static void servicoDeResolucao() throws Exception {
+        // Até CIDADES_MAXIMAS_SEM_DIVIDIR as instâncias vão em pacotes; a última é dividida em prefixos no pool
+        List<List<CidadePCV>> cidades = new ArrayList<>();
+        List<Instancia> lote = new ArrayList<>();
+        for (int n = 2; n <= ServicoDeResolucao.CIDADES_MAXIMAS_SEM_DIVIDIR + 1; n++) {
+            cidades.add(InstanciasDeTeste.aleatoria(n, n, 1000));
+            lote.add(Instancia.de(cidades.get(cidades.size() - 1)));
+        }
+        try (ServicoDeResolucao servico = new ServicoDeResolucao(PARALELISMO, 4)) {
+            List<CompletableFuture<ResultadoPCV>> futuros = servico.resolverLote(lote);
+            for (int i = 0; i < lote.size(); i++) {
+                InstanciasDeTeste.confirmarOtimo(cidades.get(i), futuros.get(i).get(1, TimeUnit.MINUTES),
+                        InstanciasDeTeste.menorRotaPorEnumeracao(cidades.get(i)), "servico, " + lote.get(i).getTamanho() + " cidades");
+            }
+        }
+    }
+
+    private static void cache() throws Exception {
+        List<CidadePCV> original = InstanciasDeTeste.aleatoria(8, 5, 1000);
+        List<CidadePCV> outra = InstanciasDeTeste.transladadaEmOutraOrdem(original, 7);
+        double otimo = InstanciasDeTeste.menorRotaPorEnumeracao(original);
+        Instancia instancia = Instancia.de(original);
+        Instancia reordenada = Instancia.de(outra);
+
+        CacheDeResultados cache = new CacheDeResultados();
+        int[] otima;
+        ResultadoPCV doCache;
+        try (ServicoDeResolucao servico = new ServicoDeResolucao(PARALELISMO, 8, cache)) {
+            otima = servico.resolver(instancia).get(1, TimeUnit.MINUTES).getIndices();
+            InstanciasDeTeste.confirmar(cache.getEntradas() == 1, cache.getEntradas() + " entradas depois de resolver uma instancia");
+            doCache = servico.resolver(reordenada).get(1, TimeUnit.MINUTES);
+        }
+        InstanciasDeTeste.confirmar(cache.getAcertos() == 1, "a mesma instancia transladada e reordenada nao achou a rota guardada");
+        InstanciasDeTeste.confirmar(doCache.isOtimoComprovado(), "rota do cache nao comprovadamente otima");
+        InstanciasDeTeste.confirmarOtimo(outra, doCache, otimo, "rota do cache");
+
+        // Uma coordenada a mais de distância já é outra instância
+        int[] xs = reordenada.getXs().clone();
+        xs[3]++;
+        InstanciasDeTeste.confirmar(cache.buscar(xs, reordenada.getYs()) == null, "instancia diferente achou uma rota no cache");
+
+        Path diretorio = Files.createTempDirectory("verificacoes-cache");
+        try {
+            new CacheDeResultados(CacheDeResultados.BYTES_PADRAO, diretorio).guardar(instancia.getXs(), instancia.getYs(), otima);
+            int[] rota = new CacheDeResultados(CacheDeResultados.BYTES_PADRAO, diretorio).buscar(reordenada.getXs(), reordenada.getYs());
+            InstanciasDeTeste.confirmar(rota != null, "rota gravada no diretorio nao encontrada por um cache novo");
+            InstanciasDeTeste.confirmarRota(outra, reordenada.montarRota(rota), otimo, "rota lida do diretorio");
+        } finally {
+            apagar(diretorio);
+        }
+    }
+
+    private static void algoritmoGenetico() throws Exception {
+        for (int n : new int[] {9, 300}) {
+            List<CidadePCV> cidades = InstanciasDeTeste.aleatoria(n, n, 100000);
+            ResultadoPCV resultado = ResolvedorParalelo.resolverAlgoritmoGenetico(Instancia.de(cidades), PARALELISMO, 50, null);
+            String caso = "genetico, " + n + " cidades";
+            InstanciasDeTeste.confirmar(!resultado.isOtimoComprovado(), caso + ": otimo comprovado");
+            InstanciasDeTeste.confirmarRota(cidades, resultado.getRota(), resultado.getDistancia(), caso);
+            if (n == 9) {
+                double otimo = InstanciasDeTeste.menorRotaPorEnumeracao(cidades);
+                InstanciasDeTeste.confirmar(resultado.getDistancia() >= otimo * (1 - InstanciasDeTeste.TOLERANCIA),
+                        caso + ": distancia " + resultado.getDistancia() + " menor que o otimo " + otimo);
+            }
+        }
+    }
+
+    // A implementação padrão (a vetorial, se compilada e executada com o módulo) contra uma varredura direta, com
+    // empates, e contra a escalar, bit a bit, em cada pista
+    private static void avaliadores() {
+        AvaliadorDeRotas avaliador = AvaliadorDeRotas.padrao();
+        Random aleatorio = new Random(3);
+        for (int quantos = 0; quantos <= 40; quantos++) {
+            double[] xs = new double[quantos];
+            double[] ys = new double[quantos];
+            for (int i = 0; i < quantos; i++) {
+                xs[i] = aleatorio.nextInt(8);
+                ys[i] = aleatorio.nextInt(8);
+            }
+            double x = aleatorio.nextInt(8);
+            double y = aleatorio.nextInt(8);
+            int esperado = -1;
+            double menor = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < quantos; i++) {
+                double distancia = (xs[i] - x) * (xs[i] - x) + (ys[i] - y) * (ys[i] - y);
+                if (distancia < menor) {
+                    menor = distancia;
+                    esperado = i;
+                }
+            }
+            int obtido = avaliador.maisProximo(xs, ys, quantos, x, y);
+            InstanciasDeTeste.confirmar(obtido == esperado, avaliador + ", " + quantos + " pontos: mais proximo " + obtido + ", esperado " + esperado);
+        }
+
+        // Arestas de uma cauda: da anterior para cada livre, entre cada par de livres e de cada livre à origem
+        int arestasPorCauda = CaudaDaPermutacao.CIDADES * (CaudaDaPermutacao.CIDADES + 2);
+        int pistas = avaliador.getPistas();
+        double[] arestas = new double[arestasPorCauda * pistas];
+        double[] bases = new double[pistas];
+        for (int i = 0; i < arestas.length; i++) {
+            arestas[i] = aleatorio.nextDouble() * 1000;
+        }
+        for (int p = 0; p < pistas; p++) {
+            bases[p] = aleatorio.nextDouble() * 1000;
+        }
+        double[] menores = new double[pistas];
+        avaliador.menoresDasCaudas(arestas, bases, menores);
+        for (int p = 0; p < pistas; p++) {
+            double[] daPista = new double[arestasPorCauda];
+            for (int e = 0; e < arestasPorCauda; e++) {
+                daPista[e] = arestas[e * pistas + p];
+            }
+            double[] esperado = new double[1];
+            AvaliadorDeRotas.escalar().menoresDasCaudas(daPista, new double[] {bases[p]}, esperado);
+            InstanciasDeTeste.confirmar(Double.compare(menores[p], esperado[0]) == 0,
+                    avaliador + ", pista " + p + ": menor cauda " + menores[p] + ", escalar " + esperado[0]);
+        }
+    }
+
+    private static void carregador() throws IOException {
+        Path diretorio = Files.createTempDirectory("verificacoes-carregador");
+        try {
+            Random aleatorio = new Random(9);
+            int[] xs = new int[50];
+            int[] ys = new int[50];
+            for (int i = 0; i < xs.length; i++) {
+                xs[i] = aleatorio.nextInt() >> 8;
+                ys[i] = aleatorio.nextInt() >> 8;
+            }
+            Path binario = diretorio.resolve("cidades.pcvb");
+            CarregadorDeCidades.gravarBinario(new Instancia(xs, ys), binario);
+            confirmarCoordenadas(CarregadorDeCidades.carregar(binario), xs, ys, "binario");
+
+            // Casas decimais são arredondadas para o inteiro mais próximo
+            Path tsplib = diretorio.resolve("cidades.tsp");
+            Files.write(tsplib, ("NAME : teste\nTYPE : TSP\nDIMENSION : 3\nEDGE_WEIGHT_TYPE : EUC_2D\nNODE_COORD_SECTION\n"
+                    + "1 10 20\n2 -3.6 4.4\n3 1e2 7\nEOF\n").getBytes(StandardCharsets.US_ASCII));
+            Instancia lida = CarregadorDeCidades.carregar(tsplib);
+            confirmarCoordenadas(lida, new int[] {10, -4, 100}, new int[] {20, 4, 7}, "TSPLIB");
+            InstanciasDeTeste.confirmar(lida.getNome(1).equals("2"), "nome TSPLIB '" + lida.getNome(1) + "'");
+
+            Path csv = diretorio.resolve("cidades.txt");
+            Files.write(csv, "Sao_Paulo, 0, 0\nlinha sem tres campos\r\nRecife,-7,12\n".getBytes(StandardCharsets.UTF_8));
+            lida = CarregadorDeCidades.carregar(csv);
+            confirmarCoordenadas(lida, new int[] {0, -7}, new int[] {0, 12}, "CSV");
+            InstanciasDeTeste.confirmar(lida.getNome(0).equals("Sao_Paulo") && lida.getNome(1).equals("Recife"), "nomes CSV");
+        } finally {
+            apagar(diretorio);
+        }
+    }
+
+    private static void confirmarCoordenadas(Instancia instancia, int[] xs, int[] ys, String formato) {
+        InstanciasDeTeste.confirmar(instancia.getTamanho() == xs.length, formato + ": " + instancia.getTamanho() + " cidades, esperadas " + xs.length);
+        for (int i = 0; i < xs.length; i++) {
+            InstanciasDeTeste.confirmar(instancia.getXs()[i] == xs[i] && instancia.getYs()[i] == ys[i], formato + ": coordenadas da cidade " + i);
+        }
+    }
+
+    private static void apagar(Path diretorio) throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            for (Path arquivo : (Iterable<Path>) arquivos::iterator) {
+                Files.delete(arquivo);
+            }
+        }
+        Files.delete(diretorio);
+    }
+}
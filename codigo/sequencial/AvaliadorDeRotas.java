@@ -0,0 +1,55 @@
+// Núcleos de avaliação que processam vários candidatos de uma vez: as ordens das últimas cidades livres da
+// Força Bruta (CaudaDaPermutacao) e a varredura linear que procura o ponto livre mais próximo de outro.
+//
+// Há duas implementações com os mesmos resultados, bit a bit: AvaliadorEscalar, sempre disponível, e
+// AvaliadorVetorial, que usa a Vector API do JDK (jdk.incubator.vector) para tratar uma cauda ou um candidato
+// por pista SIMD. Ela fica em vetorial/ e só existe se for compilada e executada com o módulo:
+//
+//     javac --add-modules jdk.incubator.vector *.java vetorial/*.java
+//     java --add-modules jdk.incubator.vector ResolvedorPCV
+//
+// Sem isso (ou com -Dpcv.avaliador=escalar) vetorial() devolve null e padrao() cai na escalar.
+public abstract class AvaliadorDeRotas {
+    public static final String PROPRIEDADE = "pcv.avaliador";
+
+    private static final AvaliadorDeRotas ESCALAR = new AvaliadorEscalar();
+    private static final AvaliadorDeRotas VETORIAL = carregarVetorial();
+
+    // Caudas avaliadas por chamada de menoresDasCaudas
+    public abstract int getPistas();
+
+    // Para cada pista p < getPistas(), menores[p] recebe o menor comprimento entre as CaudaDaPermutacao.ORDENS
+    // ordens o, cada uma somada nesta sequência: bases[p] + arestas[ARESTA[0][o] * getPistas() + p] + ... +
+    // arestas[ARESTA[CIDADES][o] * getPistas() + p]
+    public abstract void menoresDasCaudas(double[] arestas, double[] bases, double[] menores);
+
+    // Posição, entre os quantos primeiros pontos de (xs, ys), do mais próximo de (x, y); em caso de empate, o
+    // primeiro deles. Devolve -1 se quantos == 0.
+    public abstract int maisProximo(double[] xs, double[] ys, int quantos, double x, double y);
+
+    public static AvaliadorDeRotas escalar() {
+        return ESCALAR;
+    }
+
+    // A implementação vetorial, ou null se ela não estiver disponível ou tiver sido desligada
+    public static AvaliadorDeRotas vetorial() {
+        return "escalar".equalsIgnoreCase(System.getProperty(PROPRIEDADE)) ? null : VETORIAL;
+    }
+
+    // A vetorial quando disponível, senão a escalar
+    public static AvaliadorDeRotas padrao() {
+        AvaliadorDeRotas vetorial = vetorial();
+        return vetorial != null ? vetorial : ESCALAR;
+    }
+
+    private static AvaliadorDeRotas carregarVetorial() {
+        try {
+            AvaliadorDeRotas avaliador = (AvaliadorDeRotas) Class.forName("AvaliadorVetorial").getDeclaredConstructor().newInstance();
+            // Uma pista só (CPU sem SIMD para double) não ganha nada sobre o código escalar
+            return avaliador.getPistas() > 1 ? avaliador : null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Compilado sem vetorial/, ou executado sem --add-modules jdk.incubator.vector
+            return null;
+        }
+    }
+}
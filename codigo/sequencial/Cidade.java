@@ -10,8 +10,9 @@ public class Cidade {
     }
 
     public double distanciaPara(Cidade outra) {
-        int deltaX = this.x - outra.x;
-        int deltaY = this.y - outra.y;
+        // Em double para não estourar int com coordenadas grandes
+        double deltaX = (double) this.x - outra.x;
+        double deltaY = (double) this.y - outra.y;
         return Math.sqrt(deltaX * deltaX + deltaY * deltaY);
     }
 
@@ -0,0 +1,232 @@
+// Índice espacial em grade uniforme sobre as coordenadas inteiras das cidades, para responder
+// "qual a cidade ainda não removida mais próxima de (x, y)" sem percorrer todas as cidades.
+//
+// O plano é dividido em células quadradas com, em média, duas cidades cada. As cidades ficam agrupadas
+// por célula em um único vetor (pontos); as de cada célula ocupam pontos[inicioCelula[c] ..], e só as
+// primeiras ativas[c] delas ainda não foram removidas. Remover é trocar a cidade com a última ativa da célula.
+// A consulta percorre anéis de células ao redor do ponto e para assim que nenhuma célula mais distante
+// pode conter cidade mais próxima que a melhor encontrada.
+public class GradeEspacial {
+    private final int[] xs;
+    private final int[] ys;
+    private final int minX;
+    private final int minY;
+    private final long lado;
+    private final int colunas;
+    private final int linhas;
+    private final int[] inicioCelula;
+    private final int[] ativas;
+    private final int[] pontos;
+    private final int[] posicao;
+    private int restantes;
+
+    // Melhor candidato da consulta em andamento
+    private int candidato;
+    private long distanciaCandidato;
+
+    public GradeEspacial(int[] xs, int[] ys) {
+        int n = xs.length;
+        this.xs = xs;
+        this.ys = ys;
+        this.restantes = n;
+
+        int menorX = Integer.MAX_VALUE, menorY = Integer.MAX_VALUE;
+        int maiorX = Integer.MIN_VALUE, maiorY = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            menorX = Math.min(menorX, xs[i]);
+            menorY = Math.min(menorY, ys[i]);
+            maiorX = Math.max(maiorX, xs[i]);
+            maiorY = Math.max(maiorY, ys[i]);
+        }
+        if (n == 0) {
+            menorX = menorY = maiorX = maiorY = 0;
+        }
+        this.minX = menorX;
+        this.minY = menorY;
+
+        // Lado da célula para que haja cerca de duas cidades por célula
+        long largura = (long) maiorX - menorX + 1;
+        long altura = (long) maiorY - menorY + 1;
+        long l = Math.max(1, (long) Math.ceil(Math.sqrt((double) largura * altura / Math.max(1, n / 2.0))));
+        // Instâncias muito alongadas geram grades com muitas células vazias; limita o total de células
+        while ((largura / l + 1) * (altura / l + 1) > 4L * n + 16) {
+            l *= 2;
+        }
+        this.lado = l;
+        this.colunas = (int) (largura / l + 1);
+        this.linhas = (int) (altura / l + 1);
+
+        // Agrupa as cidades por célula (contagem seguida de soma de prefixos)
+        int celulas = colunas * linhas;
+        this.inicioCelula = new int[celulas + 1];
+        this.ativas = new int[celulas];
+        this.pontos = new int[n];
+        this.posicao = new int[n];
+        for (int i = 0; i < n; i++) {
+            ativas[celula(xs[i], ys[i])]++;
+        }
+        for (int c = 0; c < celulas; c++) {
+            inicioCelula[c + 1] = inicioCelula[c] + ativas[c];
+        }
+        int[] proxima = new int[celulas];
+        for (int i = 0; i < n; i++) {
+            int c = celula(xs[i], ys[i]);
+            int p = inicioCelula[c] + proxima[c]++;
+            pontos[p] = i;
+            posicao[i] = p;
+        }
+    }
+
+    private int coluna(int x) {
+        return (int) Math.min(colunas - 1, Math.max(0, ((long) x - minX) / lado));
+    }
+
+    private int linha(int y) {
+        return (int) Math.min(linhas - 1, Math.max(0, ((long) y - minY) / lado));
+    }
+
+    private int celula(int x, int y) {
+        return linha(y) * colunas + coluna(x);
+    }
+
+    public void remover(int cidade) {
+        int c = celula(xs[cidade], ys[cidade]);
+        int p = posicao[cidade];
+        int ultima = inicioCelula[c] + ativas[c] - 1;
+        int outra = pontos[ultima];
+        pontos[p] = outra;
+        posicao[outra] = p;
+        pontos[ultima] = cidade;
+        posicao[cidade] = ultima;
+        ativas[c]--;
+        restantes--;
+    }
+
+    public int getRestantes() { return restantes; }
+
+    // Cidade não removida mais próxima de (x, y), ou -1 se todas já foram removidas.
+    // Em caso de empate devolve a de menor índice, como a varredura linear na ordem da lista.
+    public int maisProximo(int x, int y) {
+        if (restantes == 0) {
+            return -1;
+        }
+        int cx = coluna(x);
+        int cy = linha(y);
+        candidato = -1;
+        distanciaCandidato = Long.MAX_VALUE;
+
+        for (int r = 0; ; r++) {
+            int x0 = cx - r, x1 = cx + r, y0 = cy - r, y1 = cy + r;
+            if (x0 < 0 && y0 < 0 && x1 >= colunas && y1 >= linhas) {
+                break; // o anel já não toca a grade: todas as células foram examinadas
+            }
+            for (int i = x0; i <= x1; i++) {
+                examinar(i, y0, x, y);
+                if (r > 0) {
+                    examinar(i, y1, x, y);
+                }
+            }
+            for (int j = y0 + 1; j < y1; j++) {
+                examinar(x0, j, x, y);
+                examinar(x1, j, x, y);
+            }
+
+            // Qualquer cidade fora do quadrado de anéis já examinados está pelo menos a essa distância
+            if (candidato >= 0) {
+                long folga = Long.MAX_VALUE;
+                if (x0 > 0) folga = Math.min(folga, (long) x - (minX + x0 * lado));
+                if (x1 < colunas - 1) folga = Math.min(folga, minX + (x1 + 1) * lado - x);
+                if (y0 > 0) folga = Math.min(folga, (long) y - (minY + y0 * lado));
+                if (y1 < linhas - 1) folga = Math.min(folga, minY + (y1 + 1) * lado - y);
+                if (folga == Long.MAX_VALUE || distanciaCandidato < folga * folga) {
+                    break;
+                }
+            }
+        }
+        return candidato;
+    }
+
+    // Os k vizinhos mais próximos da cidade (excluindo ela mesma) em ordem crescente de distância,
+    // gravados em destino[inicio ..]. Devolve quantos foram encontrados. Não altera o estado da grade,
+    // então pode ser chamado por várias threads ao mesmo tempo desde que ninguém remova cidades.
+    public int kMaisProximos(int cidade, int k, int[] destino, int inicio) {
+        if (k == 0) {
+            return 0;
+        }
+        int x = xs[cidade], y = ys[cidade];
+        int cx = coluna(x), cy = linha(y);
+        long[] distancias = new long[k];
+        int encontrados = 0;
+
+        for (int r = 0; ; r++) {
+            int x0 = cx - r, x1 = cx + r, y0 = cy - r, y1 = cy + r;
+            if (x0 < 0 && y0 < 0 && x1 >= colunas && y1 >= linhas) {
+                break;
+            }
+            for (int j = Math.max(0, y0); j <= Math.min(linhas - 1, y1); j++) {
+                // Nas linhas internas do anel só as duas colunas das pontas são novas
+                int passo = (j == y0 || j == y1) ? 1 : Math.max(1, x1 - x0);
+                for (int i = x0; i <= x1; i += passo) {
+                    if (i < 0 || i >= colunas) {
+                        continue;
+                    }
+                    int c = j * colunas + i;
+                    int fim = inicioCelula[c] + ativas[c];
+                    for (int p = inicioCelula[c]; p < fim; p++) {
+                        int outra = pontos[p];
+                        if (outra == cidade) {
+                            continue;
+                        }
+                        long dx = (long) xs[outra] - x;
+                        long dy = (long) ys[outra] - y;
+                        long d = dx * dx + dy * dy;
+                        if (encontrados == k && (d > distancias[k - 1]
+                                || (d == distancias[k - 1] && outra > destino[inicio + k - 1]))) {
+                            continue;
+                        }
+                        // Inserção ordenada no vetor dos k melhores (k é pequeno)
+                        int q = encontrados < k ? encontrados++ : k - 1;
+                        while (q > 0 && (distancias[q - 1] > d
+                                || (distancias[q - 1] == d && destino[inicio + q - 1] > outra))) {
+                            distancias[q] = distancias[q - 1];
+                            destino[inicio + q] = destino[inicio + q - 1];
+                            q--;
+                        }
+                        distancias[q] = d;
+                        destino[inicio + q] = outra;
+                    }
+                }
+            }
+
+            if (encontrados == k) {
+                long folga = Long.MAX_VALUE;
+                if (x0 > 0) folga = Math.min(folga, (long) x - (minX + x0 * lado));
+                if (x1 < colunas - 1) folga = Math.min(folga, minX + (x1 + 1) * lado - x);
+                if (y0 > 0) folga = Math.min(folga, (long) y - (minY + y0 * lado));
+                if (y1 < linhas - 1) folga = Math.min(folga, minY + (y1 + 1) * lado - y);
+                if (folga == Long.MAX_VALUE || distancias[k - 1] < folga * folga) {
+                    break;
+                }
+            }
+        }
+        return encontrados;
+    }
+
+    private void examinar(int i, int j, int x, int y) {
+        if (i < 0 || j < 0 || i >= colunas || j >= linhas) {
+            return;
+        }
+        int c = j * colunas + i;
+        int fim = inicioCelula[c] + ativas[c];
+        for (int p = inicioCelula[c]; p < fim; p++) {
+            int cidade = pontos[p];
+            long dx = (long) xs[cidade] - x;
+            long dy = (long) ys[cidade] - y;
+            long d = dx * dx + dy * dy;
+            if (d < distanciaCandidato || (d == distanciaCandidato && cidade < candidato)) {
+                distanciaCandidato = d;
+                candidato = cidade;
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+// Identifica uma instância pelas coordenadas: hash FNV-1a de 64 bits sobre o número de cidades e os pares (x, y).
+final class HashDeCoordenadas {
+    private static final long BASE = 0xcbf29ce484222325L;
+    private static final long PRIMO = 0x100000001b3L;
+
+    private HashDeCoordenadas() {}
+
+    static long calcular(int[] xs, int[] ys) {
+        long hash = BASE;
+        hash = (hash ^ xs.length) * PRIMO;
+        for (int i = 0; i < xs.length; i++) {
+            hash = (hash ^ xs[i]) * PRIMO;
+            hash = (hash ^ ys[i]) * PRIMO;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,104 @@
+// Resolvedor exato por programação dinâmica (Held-Karp) sobre subconjuntos representados como máscaras de bits.
+// Custo O(n² · 2ⁿ) em tempo e O(n · 2ⁿ) em memória, contra O(n!) da força bruta.
+//
+// A origem é a cidade 0 e fica fora da máscara; o bit j representa a cidade j + 1.
+// custos[mascara * m + j] guarda o menor caminho que sai da origem, visita exatamente as cidades
+// da máscara e termina na cidade j + 1 (com o bit j ligado na máscara).
+public class HeldKarp {
+    private final MatrizDistancias matriz;
+    private final int m;
+    private int[] melhorRota;
+    private double menorDistancia = Double.POSITIVE_INFINITY;
+
+    public HeldKarp(MatrizDistancias matriz) {
+        this.matriz = matriz;
+        this.m = matriz.getTamanho() - 1;
+    }
+
+    public void resolver() {
+        if (m == 0) {
+            this.melhorRota = new int[] {0, 0};
+            this.menorDistancia = 0;
+            return;
+        }
+
+        int completa = (1 << m) - 1;
+        double[] custos = new double[(completa + 1) * m];
+
+        // As máscaras menores são sempre subconjuntos das maiores, então a ordem numérica já respeita as dependências
+        for (int mascara = 1; mascara <= completa; mascara++) {
+            for (int j = 0; j < m; j++) {
+                if ((mascara & (1 << j)) == 0) {
+                    continue;
+                }
+                int anterior = mascara ^ (1 << j);
+                if (anterior == 0) {
+                    custos[mascara * m + j] = matriz.distancia(0, j + 1);
+                    continue;
+                }
+                double melhor = Double.POSITIVE_INFINITY;
+                for (int resto = anterior; resto != 0; resto &= resto - 1) {
+                    int k = Integer.numberOfTrailingZeros(resto);
+                    double custo = custos[anterior * m + k] + matriz.distancia(k + 1, j + 1);
+                    if (custo < melhor) {
+                        melhor = custo;
+                    }
+                }
+                custos[mascara * m + j] = melhor;
+            }
+        }
+
+        this.melhorRota = reconstruirRota(custos);
+        this.menorDistancia = calcularDistanciaDaRota(melhorRota);
+    }
+
+    // Fecha o ciclo escolhendo a última cidade e refaz o caminho de trás para frente pela própria tabela,
+    // sem precisar guardar uma tabela de predecessores
+    private int[] reconstruirRota(double[] custos) {
+        int completa = (1 << m) - 1;
+        int[] rota = new int[m + 2];
+
+        int ultima = 0;
+        double melhor = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < m; j++) {
+            double custo = custos[completa * m + j] + matriz.distancia(j + 1, 0);
+            if (custo < melhor) {
+                melhor = custo;
+                ultima = j;
+            }
+        }
+
+        int mascara = completa;
+        int atual = ultima;
+        for (int posicao = m; posicao >= 1; posicao--) {
+            rota[posicao] = atual + 1;
+            int anterior = mascara ^ (1 << atual);
+            if (anterior == 0) {
+                break;
+            }
+            double alvo = custos[mascara * m + atual];
+            int predecessor = -1;
+            for (int resto = anterior; resto != 0; resto &= resto - 1) {
+                int k = Integer.numberOfTrailingZeros(resto);
+                if (custos[anterior * m + k] + matriz.distancia(k + 1, atual + 1) == alvo) {
+                    predecessor = k;
+                    break;
+                }
+            }
+            mascara = anterior;
+            atual = predecessor;
+        }
+        return rota;
+    }
+
+    private double calcularDistanciaDaRota(int[] rota) {
+        double distancia = 0;
+        for (int i = 0; i < rota.length - 1; i++) {
+            distancia += matriz.distancia(rota[i], rota[i + 1]);
+        }
+        return distancia;
+    }
+
+    public int[] getMelhorRota() { return melhorRota; }
+    public double getMenorDistancia() { return menorDistancia; }
+}
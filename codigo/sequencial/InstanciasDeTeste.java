@@ -0,0 +1,118 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// Instâncias e conferências usadas pelas Verificacoes. A referência de cada algoritmo exato é a enumeração
+// direta de todas as rotas, escrita aqui com a sua própria conta de distância e sem nada dos resolvedores.
+final class InstanciasDeTeste {
+    static final double TOLERANCIA = 1e-9;
+    // Uma das sementes usa coordenadas próximas, com cidades repetidas e rotas empatadas
+    private static final int SEMENTES = 4;
+
+    private InstanciasDeTeste() {}
+
+    @FunctionalInterface
+    interface Resolvedor {
+        Resultado resolver(List<Cidade> cidades) throws Exception;
+    }
+
+    // Confere o resolvedor contra a enumeração em instâncias aleatórias de 2 a maximoDeCidades cidades
+    static void conferirContraEnumeracao(String algoritmo, int maximoDeCidades, Resolvedor resolvedor) throws Exception {
+        for (int n = 2; n <= maximoDeCidades; n++) {
+            for (int semente = 0; semente < SEMENTES; semente++) {
+                List<Cidade> cidades = aleatoria(n, semente, semente == SEMENTES - 1 ? 4 : 1000);
+                confirmarOtimo(cidades, resolvedor.resolver(cidades), menorRotaPorEnumeracao(cidades),
+                        algoritmo + ", " + n + " cidades, semente " + semente);
+            }
+        }
+    }
+
+    static List<Cidade> aleatoria(int n, long semente, int limite) {
+        Random aleatorio = new Random(semente);
+        List<Cidade> cidades = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            cidades.add(new Cidade("C" + i, aleatorio.nextInt(limite), aleatorio.nextInt(limite)));
+        }
+        return cidades;
+    }
+
+    // As mesmas cidades, como objetos novos, deslocadas e embaralhadas: outra instância com a mesma forma
+    static List<Cidade> transladadaEmOutraOrdem(List<Cidade> cidades, long semente) {
+        List<Cidade> outra = new ArrayList<>(cidades.size());
+        for (Cidade cidade : cidades) {
+            outra.add(new Cidade(cidade.nome, cidade.x - 5000, cidade.y + 123));
+        }
+        Collections.shuffle(outra, new Random(semente));
+        return outra;
+    }
+
+    // Menor rota pela enumeração de todas as ordens das cidades 1..n-1, com a cidade 0 fixa no início
+    static double menorRotaPorEnumeracao(List<Cidade> cidades) {
+        List<Cidade> rota = new ArrayList<>(cidades);
+        rota.add(cidades.get(0));
+        return enumerar(rota, 1);
+    }
+
+    private static double enumerar(List<Cidade> rota, int posicao) {
+        if (posicao >= rota.size() - 2) {
+            return comprimento(rota);
+        }
+        double menor = Double.POSITIVE_INFINITY;
+        for (int i = posicao; i < rota.size() - 1; i++) {
+            trocar(rota, posicao, i);
+            menor = Math.min(menor, enumerar(rota, posicao + 1));
+            trocar(rota, posicao, i);
+        }
+        return menor;
+    }
+
+    private static void trocar(List<Cidade> rota, int i, int j) {
+        rota.set(i, rota.set(j, rota.get(i)));
+    }
+
+    static double comprimento(List<Cidade> rota) {
+        double soma = 0;
+        for (int i = 0; i + 1 < rota.size(); i++) {
+            double dx = (double) rota.get(i).x - rota.get(i + 1).x;
+            double dy = (double) rota.get(i).y - rota.get(i + 1).y;
+            soma += Math.sqrt(dx * dx + dy * dy);
+        }
+        return soma;
+    }
+
+    static void confirmarOtimo(List<Cidade> cidades, Resultado resultado, double otimo, String caso) {
+        confirmar(resultado != null, caso + ": sem resultado");
+        confirmar(Math.abs(resultado.getDistancia() - otimo) <= TOLERANCIA * Math.max(1, otimo),
+                caso + ": distancia " + resultado.getDistancia() + ", esperada " + otimo);
+        confirmarRota(cidades, resultado.getRota(), resultado.getDistancia(), caso);
+    }
+
+    // Começa e termina na cidade 0, passa uma vez por cada cidade e tem o comprimento informado
+    static void confirmarRota(List<Cidade> cidades, List<Cidade> rota, double distancia, String caso) {
+        int n = cidades.size();
+        confirmar(rota != null && rota.size() == n + 1 && rota.get(0) == cidades.get(0) && rota.get(n) == cidades.get(0),
+                caso + ": rota sem a forma esperada");
+        boolean[] visitada = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            // Comparação por identidade: cidades diferentes podem estar no mesmo ponto
+            int indice = -1;
+            for (int j = 0; j < n && indice < 0; j++) {
+                if (cidades.get(j) == rota.get(i)) {
+                    indice = j;
+                }
+            }
+            confirmar(indice >= 0 && !visitada[indice], caso + ": cidade " + rota.get(i) + " ausente da instancia ou repetida");
+            visitada[indice] = true;
+        }
+        double medido = comprimento(rota);
+        confirmar(Math.abs(medido - distancia) <= TOLERANCIA * Math.max(1, distancia),
+                caso + ": rota mede " + medido + ", informada " + distancia);
+    }
+
+    static void confirmar(boolean condicao, String mensagem) {
+        if (!condicao) {
+            throw new AssertionError(mensagem);
+        }
+    }
+}
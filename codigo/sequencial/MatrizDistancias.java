@@ -0,0 +1,69 @@
+import java.util.List;
+
+// Matriz de distâncias pré-calculada uma única vez no carregamento das cidades.
+// Fica armazenada em um vetor plano, linha a linha: a distância de i para j está em distancias[i * n + j].
+public class MatrizDistancias {
+    private final int n;
+    private final double[] distancias;
+    private final boolean simetrica;
+
+    public MatrizDistancias(List<Cidade> cidades) {
+        this.n = cidades.size();
+        this.distancias = alocar(n);
+        for (int i = 0; i < n; i++) {
+            Cidade origem = cidades.get(i);
+            for (int j = i + 1; j < n; j++) {
+                double d = origem.distanciaPara(cidades.get(j));
+                distancias[i * n + j] = d;
+                distancias[j * n + i] = d;
+            }
+        }
+        this.simetrica = verificarSimetria();
+    }
+
+    // Mesma matriz a partir das coordenadas de uma Instancia
+    public MatrizDistancias(int[] xs, int[] ys) {
+        this.n = xs.length;
+        this.distancias = alocar(n);
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double dx = (double) xs[i] - xs[j];
+                double dy = (double) ys[i] - ys[j];
+                double d = Math.sqrt(dx * dx + dy * dy);
+                distancias[i * n + j] = d;
+                distancias[j * n + i] = d;
+            }
+        }
+        this.simetrica = verificarSimetria();
+    }
+
+    private static double[] alocar(int n) {
+        // n * n em long: acima de 46340 cidades o produto não cabe em um int
+        if (LimitesDeMemoria.matrizDeDistancias(n) < 0) {
+            throw new IllegalArgumentException("Matriz de distancias de " + n + " cidades (" + (long) n * n
+                    + " posicoes) maior que o maior vetor possivel; calcule as distancias sob demanda pela Instancia");
+        }
+        return new double[n * n];
+    }
+
+    // As distâncias euclidianas são simétricas, mas a busca só pode descartar rotas espelhadas se isso valer
+    // de fato para a matriz; a verificação protege o dia em que outras métricas forem aceitas
+    private boolean verificarSimetria() {
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (distancias[i * n + j] != distancias[j * n + i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public boolean isSimetrica() { return simetrica; }
+
+    public double distancia(int i, int j) { return distancias[i * n + j]; }
+    public int getTamanho() { return n; }
+
+    // Vetor interno, para laços críticos que indexam diretamente por i * n + j. Não deve ser alterado.
+    public double[] getDistancias() { return distancias; }
+}
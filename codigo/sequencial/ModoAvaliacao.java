@@ -0,0 +1,7 @@
+// Como a Força Bruta calcula o comprimento de cada rota completa.
+public enum ModoAvaliacao {
+    // Padrão: a distância parcial acompanha a busca e cada rota completa só soma a aresta de volta à origem
+    INCREMENTAL,
+    // Recalcula a rota inteira em cada folha, como a implementação original; serve para conferir o modo incremental
+    COMPLETA
+}
@@ -0,0 +1,42 @@
+// Retrato do andamento de uma busca em um instante, montado pelo MonitorDeProgresso.
+// A rota vem nos índices das cidades da instância, começando e terminando na origem (nula se ainda não há).
+public class Progresso {
+    private final int[] melhorRota;
+    private final double melhorDistancia;
+    private final long rotasAvaliadas;
+    private final double fracaoCoberta;
+    private final long decorridoNs;
+
+    public Progresso(int[] melhorRota, double melhorDistancia, long rotasAvaliadas, double fracaoCoberta, long decorridoNs) {
+        this.melhorRota = melhorRota;
+        this.melhorDistancia = melhorDistancia;
+        this.rotasAvaliadas = rotasAvaliadas;
+        this.fracaoCoberta = fracaoCoberta;
+        this.decorridoNs = decorridoNs;
+    }
+
+    public int[] getMelhorRota() { return melhorRota; }
+    public double getMelhorDistancia() { return melhorDistancia; }
+    public long getRotasAvaliadas() { return rotasAvaliadas; }
+    // Fração (0 a 1) do espaço de rotas já avaliada ou descartada com segurança
+    public double getFracaoCoberta() { return fracaoCoberta; }
+    public long getDecorridoNs() { return decorridoNs; }
+
+    // Extrapolação linear do ritmo até aqui; -1 enquanto nada foi coberto
+    public long getRestanteEstimadoNs() {
+        if (fracaoCoberta <= 0) {
+            return -1;
+        }
+        if (fracaoCoberta >= 1) {
+            return 0;
+        }
+        return (long) (decorridoNs * (1 - fracaoCoberta) / fracaoCoberta);
+    }
+
+    @Override
+    public String toString() {
+        long restante = getRestanteEstimadoNs();
+        return String.format("%.1f%% coberto, %d rotas avaliadas, melhor distância %.2f, restante estimado %s",
+                fracaoCoberta * 100, rotasAvaliadas, melhorDistancia, restante < 0 ? "?" : String.format("%.1fs", restante / 1e9));
+    }
+}
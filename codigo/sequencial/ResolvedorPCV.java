@@ -1,92 +1,248 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+// Os algoritmos trabalham sobre a Instancia (coordenadas em arrays e cidades identificadas pelo índice);
+// objetos Cidade só aparecem na rota de cada Resultado.
 public class ResolvedorPCV {
 
-    private List<Cidade> cidades;
+    private final Instancia instancia;
+    private MatrizDistancias matriz;
+    // Opcional; os algoritmos exatos consultam o cache antes de buscar e guardam nele as rotas ótimas
+    private final CacheDeResultados cache;
 
     public ResolvedorPCV(List<Cidade> cidades) {
-        if (cidades == null || cidades.isEmpty()) {
+        this(cidades == null ? null : Instancia.de(cidades));
+    }
+
+    public ResolvedorPCV(Instancia instancia) {
+        this(instancia, null);
+    }
+
+    public ResolvedorPCV(Instancia instancia, CacheDeResultados cache) {
+        if (instancia == null || instancia.getTamanho() == 0) {
             throw new IllegalArgumentException("A lista de cidades não pode ser vazia.");
         }
-        this.cidades = cidades;
+        this.instancia = instancia;
+        this.cache = cache;
+    }
+
+    // A matriz só é montada quando um algoritmo exato precisa dela: as heurísticas rodam em instâncias
+    // grandes demais para guardar n² distâncias
+    private MatrizDistancias getMatriz() {
+        if (matriz == null) {
+            matriz = new MatrizDistancias(instancia.getXs(), instancia.getYs());
+        }
+        return matriz;
     }
 
     //  Algoritmo de Força Bruta 
     public Resultado resolverForcaBruta() {
+        return resolverForcaBruta(ModoAvaliacao.INCREMENTAL);
+    }
+
+    public Resultado resolverForcaBruta(ModoAvaliacao modo) {
+        return resolverForcaBruta(modo, null);
+    }
+
+    // Com um observador, entrega a cada MonitorDeProgresso.INTERVALO_PADRAO_MS a melhor rota até o momento,
+    // as rotas avaliadas, a fração do espaço coberta e o tempo restante estimado
+    public Resultado resolverForcaBruta(ModoAvaliacao modo, ObservadorDeProgresso observador) {
+        Resultado doCache = buscarNoCache();
+        if (doCache != null) {
+            return doCache;
+        }
+        return resolverForcaBruta(modo, observador, null, null);
+    }
+
+    // Resposta com latência limitada para qualquer tamanho de instância: parte da rota do Vizinho Mais Próximo
+    // melhorada pela busca local e segue com a Força Bruta até o fim do prazo. Se a busca terminar antes,
+    // o resultado é o ótimo comprovado; senão, a melhor rota conhecida quando o prazo acabou. Com mais de
+    // Prazo.CIDADES_MAXIMAS_PARA_BUSCA_EXATA cidades, ou se a matriz não couber na memória, o resultado é a rota
+    // da busca local.
+    public Resultado resolverComPrazo(Prazo prazo) {
+        return resolverComPrazo(prazo, null);
+    }
+
+    public Resultado resolverComPrazo(Prazo prazo, ObservadorDeProgresso observador) {
+        Resultado doCache = buscarNoCache();
+        if (doCache != null) {
+            return doCache;
+        }
+        Resultado inicial = melhorarRota(resolverVizinhoMaisProximo());
+        int n = instancia.getTamanho();
+        if (n > Prazo.CIDADES_MAXIMAS_PARA_BUSCA_EXATA || !LimitesDeMemoria.cabeNaMemoria(LimitesDeMemoria.matrizDeDistancias(n))) {
+            System.out.println("AVISO: " + n + " cidades são demais para a busca exata; a rota devolvida é a da busca local.");
+            return inicial;
+        }
+        return resolverForcaBruta(ModoAvaliacao.INCREMENTAL, observador, prazo, inicial);
+    }
+
+    // inicial (opcional) é uma rota já conhecida: a busca só registra rotas menores que ela
+    private Resultado resolverForcaBruta(ModoAvaliacao modo, ObservadorDeProgresso observador, Prazo prazo, Resultado inicial) {
         System.out.println("\n-- Executando Algoritmo de Força Bruta --");
         
-        Permutacao p = new Permutacao(cidades.get(0));
-        p.permutar(new ArrayList<>(cidades.subList(1, cidades.size())), 0);
+        // As cidades são representadas pelos seus índices na lista; a origem é o índice 0
+        int[] restantes = new int[instancia.getTamanho() - 1];
+        for (int i = 0; i < restantes.length; i++) {
+            restantes[i] = i + 1;
+        }
+
+        // Em instâncias simétricas cada rota tem uma espelhada de mesmo comprimento; exigir que a cidade 1
+        // apareça antes da cidade 2 gera apenas um dos dois sentidos e corta a busca pela metade
+        MatrizDistancias matriz = getMatriz();
+        // Sem observador não há monitor; sem monitor nem prazo a Permutacao enumera tudo no laço direto, sem a
+        // divisão em blocos
+        MonitorDeProgresso monitor = observador == null ? null : new MonitorDeProgresso(restantes.length);
+        Permutacao p;
+        if (matriz.isSimetrica() && instancia.getTamanho() >= 3) {
+            p = new Permutacao(matriz, 0, modo, 1, 2, monitor, prazo);
+        } else {
+            p = new Permutacao(matriz, 0, modo, -1, -1, monitor, prazo);
+        }
+        if (inicial != null && inicial.getRota() != null) {
+            p.iniciarCom(indicesDaRota(inicial), inicial.getDistancia());
+        }
+        if (monitor == null) {
+            p.permutar(restantes);
+        } else {
+            monitor.iniciar(observador, MonitorDeProgresso.INTERVALO_PADRAO_MS);
+            try {
+                p.permutar(restantes);
+            } finally {
+                monitor.encerrar();
+            }
+        }
 
-        return new Resultado(p.getMelhorRota(), p.getMenorDistancia());
+        if (p.isInterrompida()) {
+            System.out.println("AVISO: Prazo esgotado; a rota devolvida é a melhor encontrada até aqui.");
+        }
+        int[] melhor = p.getMelhorRota();
+        if (melhor == null) {
+            return new Resultado(null, p.getMenorDistancia(), !p.isInterrompida());
+        }
+        return montarResultado(melhor, p.getMenorDistancia(), !p.isInterrompida());
+    }
+
+    //  Algoritmo exato de Held-Karp (programação dinâmica sobre subconjuntos)
+    public Resultado resolverHeldKarp() {
+        System.out.println("\n-- Executando Algoritmo de Held-Karp --");
+        Resultado doCache = buscarNoCache();
+        if (doCache != null) {
+            return doCache;
+        }
+
+        if (!LimitesDeMemoria.cabeNaMemoria(LimitesDeMemoria.tabelaDoHeldKarp(instancia.getTamanho()))) {
+            System.out.println("AVISO: A tabela do Held-Karp não cabe na memória para " + instancia.getTamanho() + " cidades. Execução abortada.");
+            return new Resultado(null, Double.POSITIVE_INFINITY);
+        }
+
+        HeldKarp hk = new HeldKarp(getMatriz());
+        hk.resolver();
+
+        return montarResultado(hk.getMelhorRota(), hk.getMenorDistancia(), true);
+    }
+
+    // Único ponto em que a rota de índices vira objetos Cidade
+    private Resultado montarResultado(int[] indices, double distancia, boolean otimoComprovado) {
+        // Uma rota ótima comprovada vale para as mesmas cidades em qualquer ordem ou posição
+        if (otimoComprovado && cache != null) {
+            cache.guardar(instancia.getXs(), instancia.getYs(), indices);
+        }
+        return new Resultado(instancia.montarRota(indices), indices, distancia, otimoComprovado);
+    }
+
+    // A rota ótima já calculada para este conjunto de cidades, se houver cache e ela estiver nele
+    private Resultado buscarNoCache() {
+        if (cache == null) {
+            return null;
+        }
+        int[] rota = cache.buscar(instancia.getXs(), instancia.getYs());
+        if (rota == null) {
+            return null;
+        }
+        System.out.println("Rota ótima encontrada no cache de resultados.");
+        return new Resultado(instancia.montarRota(rota), rota, instancia.comprimento(rota), true);
+    }
+
+    // A rota de um Resultado em índices; só recorre à identidade das cidades se ele não veio deste resolvedor
+    private int[] indicesDaRota(Resultado resultado) {
+        return resultado.getIndices() != null ? resultado.getIndices() : instancia.indicesDaRota(resultado.getRota());
     }
 
     //  Algoritmo do Vizinho Mais Próximo
     public Resultado resolverVizinhoMaisProximo() {
         System.out.println("\n-- Executando Algoritmo do Vizinho Mais Próximo --");
-        List<Cidade> rota = new ArrayList<>();
-        List<Cidade> naoVisitadas = new ArrayList<>(this.cidades);
-
-        Cidade cidadeAtual = naoVisitadas.remove(0);
-        rota.add(cidadeAtual);
+        int n = instancia.getTamanho();
+        int[] xs = instancia.getXs();
+        int[] ys = instancia.getYs();
 
-        while (!naoVisitadas.isEmpty()) {
-            Cidade vizinhoMaisProximo = null;
-            double menorDistanciaLocal = Double.POSITIVE_INFINITY;
+        // A grade responde "cidade não visitada mais próxima" sem varrer todas as cidades a cada passo
+        GradeEspacial grade = new GradeEspacial(xs, ys);
+        int[] rota = new int[n + 1];
+        int atual = 0;
+        grade.remover(atual);
 
-            for (Cidade proxima : naoVisitadas) {
-                double distancia = cidadeAtual.distanciaPara(proxima);
-                if (distancia < menorDistanciaLocal) {
-                    menorDistanciaLocal = distancia;
-                    vizinhoMaisProximo = proxima;
-                }
-            }
-            cidadeAtual = vizinhoMaisProximo;
-            rota.add(cidadeAtual);
-            naoVisitadas.remove(cidadeAtual);
+        for (int i = 1; i < n; i++) {
+            atual = grade.maisProximo(xs[atual], ys[atual]);
+            grade.remover(atual);
+            rota[i] = atual;
         }
-        rota.add(rota.get(0)); // Fecha o ciclo
+        rota[n] = rota[0]; // Fecha o ciclo
+
+        return montarResultado(rota, instancia.comprimento(rota), false);
+    }
+    
+    //  Busca local 2-opt / Or-opt sobre uma rota já existente (por exemplo a do Vizinho Mais Próximo)
+    public Resultado melhorarRota(Resultado inicial) {
+        System.out.println("\n-- Executando Busca Local 2-opt / Or-opt --");
+        int n = instancia.getTamanho();
+
+        // A rota recebida repete a cidade inicial no fim para fechar o ciclo; a busca recebe só as n primeiras
+        int[] rota = Arrays.copyOf(indicesDaRota(inicial), n);
+
+        BuscaLocal busca = new BuscaLocal(instancia.getXs(), instancia.getYs());
+        int[] melhorada = busca.melhorar(rota);
+        System.out.println(busca.getMovimentos() + " movimentos de melhoria aplicados.");
 
-        double distanciaTotal = 0;
-        for (int i = 0; i < rota.size() - 1; i++) {
-            distanciaTotal += rota.get(i).distanciaPara(rota.get(i + 1));
+        // Mantém a rota começando pela mesma cidade da rota recebida
+        int inicio = 0;
+        while (melhorada[inicio] != rota[0]) {
+            inicio++;
         }
-        
-        return new Resultado(rota, distanciaTotal);
+        int[] resultado = new int[n + 1];
+        for (int i = 0; i <= n; i++) {
+            resultado[i] = melhorada[(inicio + i) % n];
+        }
+
+        return montarResultado(resultado, instancia.comprimento(resultado), false);
     }
     
     //Método de Geração e Carregamento de Dados
     public static List<Cidade> carregarCidadesDeArquivo(String filepath) throws IOException {
-        List<Cidade> cidades = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(filepath))) {
-            String linha;
-            while ((linha = br.readLine()) != null) {
-                String[] partes = linha.strip().split(",");
-                if (partes.length == 3) {
-                    cidades.add(new Cidade(partes[0], Integer.parseInt(partes[1]), Integer.parseInt(partes[2])));
-                }
-            }
-        }
-        System.out.println(cidades.size() + " cidades carregadas do arquivo '" + filepath + "'.");
-        return cidades;
+        return carregarInstanciaDeArquivo(filepath).getCidades();
+    }
+
+    // Lida pelo CarregadorDeCidades: CSV, binário ou TSPLIB, pelo arquivo mapeado em memória
+    public static Instancia carregarInstanciaDeArquivo(String filepath) throws IOException {
+        Instancia instancia = CarregadorDeCidades.carregar(Paths.get(filepath));
+        System.out.println(instancia.getTamanho() + " cidades carregadas do arquivo '" + filepath + "'.");
+        return instancia;
     }
     
     //  Ponto de Entrada do Programa 
     public static void main(String[] args) {
-        List<Cidade> cidadesParaResolver;
+        Instancia cidadesParaResolver;
         try {
-            cidadesParaResolver = carregarCidadesDeArquivo("cidades.txt");
+            cidadesParaResolver = carregarInstanciaDeArquivo("cidades.txt");
         } catch (IOException e) {
             System.err.println("Erro: Arquivo 'cidades.txt' não encontrado. Encerrando.");
             return;
         }
 
-        if (cidadesParaResolver != null && !cidadesParaResolver.isEmpty()) {
+        if (cidadesParaResolver.getTamanho() > 0) {
             ResolvedorPCV resolvedor = new ResolvedorPCV(cidadesParaResolver);
             
             // Mede e executa o Vizinho Mais Próximo
@@ -97,10 +253,23 @@ public class ResolvedorPCV {
             System.out.printf("Em ms: %.3fms\n", tempoVMP / 1e6);
             System.out.println("Rota VMP: " + resVMP.getRota());
             System.out.printf("Distância VMP: %.2f\n", resVMP.getDistancia());
+
+            // Mede e executa a Busca Local sobre a rota do VMP
+            long inicioBL = System.nanoTime();
+            Resultado resBL = resolvedor.melhorarRota(resVMP);
+            long tempoBL = System.nanoTime() - inicioBL;
+            System.out.printf("Execução Busca Local concluída em %.4fs\n", tempoBL / 1e9);
+            System.out.printf("Em ms: %.3fms\n", tempoBL / 1e6);
+            System.out.println("Rota Busca Local: " + resBL.getRota());
+            System.out.printf("Distância Busca Local: %.2f\n", resBL.getDistancia());
             
-            // Mede e executa a Força Bruta
+            // Mede e executa a Força Bruta. Argumento opcional: prazo em segundos; com ele, a busca devolve
+            // a melhor rota encontrada até o fim do prazo
             long inicioFB = System.nanoTime();
-            Resultado resFB = resolvedor.resolverForcaBruta();
+            ObservadorDeProgresso progressoFB = ObservadorDeProgresso.console("Força Bruta");
+            Resultado resFB = args.length > 0
+                    ? resolvedor.resolverComPrazo(Prazo.de(Long.parseLong(args[0]), TimeUnit.SECONDS), progressoFB)
+                    : resolvedor.resolverForcaBruta(ModoAvaliacao.INCREMENTAL, progressoFB);
             long tempoFB = System.nanoTime() - inicioFB;
             
             if (resFB.getRota() != null) {
@@ -108,6 +277,19 @@ public class ResolvedorPCV {
                 System.out.printf("Em ms: %.3fms\n", tempoFB / 1e6);
                 System.out.println("Rota Força Bruta: " + resFB.getRota());
                 System.out.printf("Distância Força Bruta: %.2f\n", resFB.getDistancia());
+                System.out.println("Ótimo comprovado: " + (resFB.isOtimoComprovado() ? "sim" : "não"));
+            }
+
+            // Mede e executa o Held-Karp
+            long inicioHK = System.nanoTime();
+            Resultado resHK = resolvedor.resolverHeldKarp();
+            long tempoHK = System.nanoTime() - inicioHK;
+
+            if (resHK.getRota() != null) {
+                System.out.printf("Execução Held-Karp concluída em %.4fs\n", tempoHK / 1e9);
+                System.out.printf("Em ms: %.3fms\n", tempoHK / 1e6);
+                System.out.println("Rota Held-Karp: " + resHK.getRota());
+                System.out.printf("Distância Held-Karp: %.2f\n", resHK.getDistancia());
             }
         }
     }
@@ -115,45 +297,247 @@ public class ResolvedorPCV {
 
 
 //  Classe Auxiliar para a lógica de permutação da Força Bruta 
+// Trabalha sobre os índices das cidades e consulta a matriz de distâncias pré-calculada.
+// A enumeração é iterativa, com uma pilha explícita: escolha[k] guarda o próximo candidato da posição k
+// e parcial[k] a distância da origem até a cidade da posição k - 1. Cada passo soma uma única aresta,
+// e nenhum objeto é alocado durante a busca.
 class Permutacao {
-    private List<Cidade> melhorRota;
+    // Com monitor ou prazo, a busca fixa as primeiras posições e enumera as demais em blocos de até essa
+    // quantidade de cidades (10! são cerca de 3,6 milhões de rotas), registrando o andamento e consultando o
+    // prazo entre um bloco e outro. Assim o laço de cada bloco é exatamente o da busca sem monitor, sem nenhum
+    // contador ou verificação a mais por folha.
+    private static final int CIDADES_POR_BLOCO = 10;
+
+    private int[] melhorRota;
     private double menorDistancia = Double.POSITIVE_INFINITY;
-    private final Cidade cidadeInicial;
+    private final MatrizDistancias matriz;
+    private final int cidadeInicial;
+    private final ModoAvaliacao modo;
+    // Restrição de simetria: só gera rotas em que cidadeAntes aparece antes de cidadeDepois (-1 desliga)
+    private final int cidadeAntes;
+    private final int cidadeDepois;
+    // Opcional: recebe as contagens de andamento e a melhor rota ao fim de cada bloco
+    private final MonitorDeProgresso monitor;
+    // Opcional: consultado antes de cada bloco; esgotado, a busca para onde está
+    private final Prazo prazo;
+    private boolean interrompida;
+    // No modo INCREMENTAL, as últimas posições de cada bloco são avaliadas de uma vez pela cauda
+    private CaudaDaPermutacao cauda;
+
+    public Permutacao(MatrizDistancias matriz, int inicial) {
+        this(matriz, inicial, ModoAvaliacao.INCREMENTAL);
+    }
 
-    public Permutacao(Cidade inicial) {
+    public Permutacao(MatrizDistancias matriz, int inicial, ModoAvaliacao modo) {
+        this(matriz, inicial, modo, -1, -1);
+    }
+
+    public Permutacao(MatrizDistancias matriz, int inicial, ModoAvaliacao modo, int cidadeAntes, int cidadeDepois) {
+        this(matriz, inicial, modo, cidadeAntes, cidadeDepois, null);
+    }
+
+    public Permutacao(MatrizDistancias matriz, int inicial, ModoAvaliacao modo, int cidadeAntes, int cidadeDepois, MonitorDeProgresso monitor) {
+        this(matriz, inicial, modo, cidadeAntes, cidadeDepois, monitor, null);
+    }
+
+    public Permutacao(MatrizDistancias matriz, int inicial, ModoAvaliacao modo, int cidadeAntes, int cidadeDepois, MonitorDeProgresso monitor,
+            Prazo prazo) {
+        this.matriz = matriz;
         this.cidadeInicial = inicial;
+        this.modo = modo;
+        this.cidadeAntes = cidadeAntes;
+        this.cidadeDepois = cidadeDepois;
+        this.monitor = monitor;
+        this.prazo = prazo;
+    }
+
+    // Parte de uma rota já conhecida (índices, começando e terminando na origem): só rotas menores a substituem
+    public void iniciarCom(int[] rota, double distancia) {
+        this.melhorRota = rota;
+        this.menorDistancia = distancia;
+    }
+
+    public void permutar(int[] cidades) {
+        final int m = cidades.length;
+
+        // Buffers alocados uma única vez por busca
+        final double[] parcial = new double[m + 1];
+        final int[] escolha = new int[m + 1];
+        final int[] rota = new int[m + 2];
+        rota[0] = cidadeInicial;
+        rota[m + 1] = cidadeInicial;
+
+        if (modo == ModoAvaliacao.INCREMENTAL && m >= CaudaDaPermutacao.CIDADES) {
+            cauda = new CaudaDaPermutacao(AvaliadorDeRotas.padrao(), matriz, cidadeInicial, cidadeAntes, cidadeDepois, m);
+        }
+
+        int fixas = monitor == null && prazo == null ? 0 : Math.max(0, m - CIDADES_POR_BLOCO);
+        if (fixarPrefixos(cidades, fixas, parcial, escolha, rota)) {
+            this.melhorRota = rota;
+        }
     }
 
-    public void permutar(List<Cidade> cidades, int k) {
-        if (k == cidades.size()) {
-            double distanciaAtual = calcularDistanciaDaRota(cidades);
-            if (distanciaAtual < this.menorDistancia) {
-                this.menorDistancia = distanciaAtual;
-                this.melhorRota = new ArrayList<>();
-                this.melhorRota.add(cidadeInicial);
-                this.melhorRota.addAll(cidades);
-                this.melhorRota.add(cidadeInicial);
+    // Percorre as cidades possíveis para as posições 0..fixas-1, na mesma ordem e com a mesma pilha explícita
+    // da enumeração de um bloco (escolha[0..fixas-1]; o bloco usa as posições seguintes), e enumera o restante
+    // de cada prefixo em um bloco. Devolve se alguma rota melhor foi encontrada.
+    private boolean fixarPrefixos(int[] cidades, int fixas, double[] parcial, int[] escolha, int[] rota) {
+        final int m = cidades.length;
+        boolean encontrou = false;
+
+        int j = 0;
+        escolha[j] = j;
+        while (j >= 0) {
+            if (j == fixas) {
+                if (prazo != null && prazo.esgotado()) {
+                    interrompida = true;
+                    break;
+                }
+                boolean doBloco = enumerarBloco(cidades, fixas, parcial, escolha, rota);
+                if (monitor != null) {
+                    monitor.registrar(folhasDoBloco(cidades, fixas), monitor.fatorial(m - fixas));
+                    if (doBloco) {
+                        monitor.oferecerRota(rota, menorDistancia);
+                    }
+                }
+                encontrou |= doBloco;
+            } else if (escolha[j] < m) {
+                trocar(cidades, j, escolha[j]);
+                if (cidades[j] == cidadeDepois && contem(cidades, j + 1, cidadeAntes)) {
+                    // Só rotas espelhadas: contam como cobertas sem serem avaliadas
+                    if (monitor != null) {
+                        monitor.registrar(0, monitor.fatorial(m - j - 1));
+                    }
+                    trocar(cidades, j, escolha[j]);
+                    escolha[j]++;
+                    continue;
+                }
+                int anterior = j == 0 ? cidadeInicial : cidades[j - 1];
+                parcial[j + 1] = parcial[j] + matriz.distancia(anterior, cidades[j]);
+                j++;
+                escolha[j] = j;
+                continue;
             }
-        } else {
-            for (int i = k; i < cidades.size(); i++) {
-                Collections.swap(cidades, k, i);
-                permutar(cidades, k + 1);
-                Collections.swap(cidades, k, i); // backtrack
+            // Bloco enumerado ou posição esgotada: volta um nível, desfaz a troca e avança o candidato
+            j--;
+            if (j >= 0) {
+                trocar(cidades, j, escolha[j]);
+                escolha[j]++;
             }
         }
+        return encontrou;
     }
-    
-    private double calcularDistanciaDaRota(List<Cidade> cidadesPermutadas) {
+
+    // Enumera todas as ordens de cidades[inicio..], com as posições anteriores fixas e parcial[inicio] já somado
+    private boolean enumerarBloco(int[] cidades, int inicio, double[] parcial, int[] escolha, int[] rota) {
+        final int m = cidades.length;
+        final int n = matriz.getTamanho();
+        final double[] d = matriz.getDistancias();
+        final boolean recalcular = modo == ModoAvaliacao.COMPLETA;
+        // Com a cauda, a enumeração para CaudaDaPermutacao.CIDADES posições antes do fim e entrega à cauda o
+        // prefixo montado até ali; as ordens das cidades que restam são avaliadas com as de outros prefixos
+        final boolean comCauda = cauda != null && m - inicio >= CaudaDaPermutacao.CIDADES;
+        final int folha = comCauda ? m - CaudaDaPermutacao.CIDADES : m;
+        boolean encontrou = false;
+
+        int k = inicio;
+        escolha[k] = k;
+        while (k >= inicio) {
+            if (k == folha) {
+                if (comCauda) {
+                    cauda.adicionar(cidades, k == 0 ? cidadeInicial : cidades[k - 1], parcial[k]);
+                    if (cauda.isCheia()) {
+                        encontrou |= avaliarCaudas(rota);
+                    }
+                } else {
+                    int ultima = m == 0 ? cidadeInicial : cidades[m - 1];
+                    double distanciaAtual = recalcular ? calcularDistanciaDaRota(cidades) : parcial[m] + d[ultima * n + cidadeInicial];
+                    if (distanciaAtual < this.menorDistancia) {
+                        this.menorDistancia = distanciaAtual;
+                        System.arraycopy(cidades, 0, rota, 1, m);
+                        encontrou = true;
+                    }
+                }
+            } else if (escolha[k] < m) {
+                trocar(cidades, k, escolha[k]);
+                // Descarta a subárvore em que cidadeDepois vem antes de cidadeAntes: ela só contém rotas espelhadas
+                if (cidades[k] == cidadeDepois && contem(cidades, k + 1, cidadeAntes)) {
+                    trocar(cidades, k, escolha[k]);
+                    escolha[k]++;
+                    continue;
+                }
+                int anterior = k == 0 ? cidadeInicial : cidades[k - 1];
+                parcial[k + 1] = parcial[k] + d[anterior * n + cidades[k]];
+                k++;
+                escolha[k] = k;
+                continue;
+            }
+            // Posição esgotada (ou rota completa, ou entregue à cauda): volta um nível, desfaz a troca e avança o candidato
+            k--;
+            if (k >= inicio) {
+                trocar(cidades, k, escolha[k]); // backtrack
+                escolha[k]++;
+            }
+        }
+        if (comCauda && cauda.getPendentes() > 0) {
+            encontrou |= avaliarCaudas(rota);
+        }
+        return encontrou;
+    }
+
+    // Avalia as caudas guardadas e fica com a primeira rota, na ordem da enumeração, menor que a melhor conhecida
+    private boolean avaliarCaudas(int[] rota) {
+        cauda.avaliar();
+        boolean encontrou = false;
+        for (int pista = 0; pista < cauda.getPendentes(); pista++) {
+            if (cauda.getComprimento(pista) < this.menorDistancia) {
+                this.menorDistancia = cauda.getComprimento(pista);
+                cauda.copiarRota(pista, rota, 1);
+                encontrou = true;
+            }
+        }
+        cauda.esvaziar();
+        return encontrou;
+    }
+
+    // Folhas que um bloco avalia, sem precisar contá-las no laço: todas as ordens das cidades livres, ou
+    // metade delas quando cidadeAntes e cidadeDepois estão ambas entre as livres
+    private long folhasDoBloco(int[] cidades, int inicio) {
+        double ordens = monitor.fatorial(cidades.length - inicio);
+        if (cidadeDepois >= 0 && contem(cidades, inicio, cidadeAntes) && contem(cidades, inicio, cidadeDepois)) {
+            ordens /= 2;
+        }
+        return (long) ordens;
+    }
+
+    private static void trocar(int[] cidades, int i, int j) {
+        int temp = cidades[i];
+        cidades[i] = cidades[j];
+        cidades[j] = temp;
+    }
+
+    private static boolean contem(int[] cidades, int inicio, int cidade) {
+        for (int i = inicio; i < cidades.length; i++) {
+            if (cidades[i] == cidade) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Usado apenas no modo COMPLETA: soma a rota inteira a partir da origem
+    private double calcularDistanciaDaRota(int[] cidadesPermutadas) {
         double distancia = 0;
-        Cidade anterior = cidadeInicial;
-        for (Cidade atual : cidadesPermutadas) {
-            distancia += anterior.distanciaPara(atual);
+        int anterior = cidadeInicial;
+        for (int atual : cidadesPermutadas) {
+            distancia += matriz.distancia(anterior, atual);
             anterior = atual;
         }
-        distancia += anterior.distanciaPara(cidadeInicial);
+        distancia += matriz.distancia(anterior, cidadeInicial);
         return distancia;
     }
 
-    public List<Cidade> getMelhorRota() { return melhorRota; }
+    public int[] getMelhorRota() { return melhorRota; }
     public double getMenorDistancia() { return menorDistancia; }
-}
\ No newline at end of file
+    // Se o prazo esgotou antes do fim da enumeração
+    public boolean isInterrompida() { return interrompida; }
+}
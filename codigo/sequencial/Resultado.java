@@ -3,12 +3,28 @@ import java.util.List;
 public class Resultado {
     private final List<Cidade> rota;
     private final double distancia;
+    // Se a busca terminou e garante que não existe rota menor; falso para heurísticas e buscas interrompidas
+    private final boolean otimoComprovado;
+    // A mesma rota em índices da Instancia, quando foi um dos algoritmos que a montou; nulo se não
+    private final int[] indices;
 
     public Resultado(List<Cidade> rota, double distancia) {
+        this(rota, distancia, false);
+    }
+
+    public Resultado(List<Cidade> rota, double distancia, boolean otimoComprovado) {
+        this(rota, null, distancia, otimoComprovado);
+    }
+
+    Resultado(List<Cidade> rota, int[] indices, double distancia, boolean otimoComprovado) {
         this.rota = rota;
+        this.indices = indices;
         this.distancia = distancia;
+        this.otimoComprovado = otimoComprovado;
     }
 
     public List<Cidade> getRota() { return rota; }
     public double getDistancia() { return distancia; }
+    public boolean isOtimoComprovado() { return otimoComprovado; }
+    int[] getIndices() { return indices; }
 }
\ No newline at end of file
@@ -0,0 +1,251 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+// Verificações rápidas da solução sequencial: java Verificacoes (depois de javac *.java). Mostra uma linha por
+// verificação e termina com código 1 se alguma falhar.
+//
+// - A Força Bruta, nos dois modos de avaliação, e o Held-Karp contra a enumeração de todas as rotas, em
+//   instâncias pequenas.
+// - A Força Bruta com um observador de progresso, também com a busca dividida em blocos: o último retrato cobre
+//   todo o espaço de rotas e traz a distância do resultado.
+// - A resolução com prazo: com tempo de sobra dá o ótimo comprovado; com o prazo já esgotado, inclusive em uma
+//   instância de 5000 cidades, dá uma rota válida que não é comprovadamente ótima.
+// - O CacheDeResultados: a rota ótima de uma instância serve à mesma instância transladada e com as cidades em
+//   outra ordem, também lida do diretório por um cache novo, e não serve a uma instância diferente.
+// - O AvaliadorDeRotas padrão (o vetorial, se disponível): o ponto livre mais próximo, com empates, e a menor
+//   ordem de cada cauda, igual à da implementação escalar bit a bit.
+// - A ida e volta do CarregadorDeCidades pelos formatos binário, TSPLIB e CSV.
+public final class Verificacoes {
+    // As mensagens dos resolvedores vão para System.out, que fica desligado durante as verificações
+    private static final PrintStream SAIDA = System.out;
+    private static int falhas;
+
+    private Verificacoes() {}
+
+    @FunctionalInterface
+    private interface Verificacao {
+        void executar() throws Exception;
+    }
+
+    public static void main(String[] args) {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            verificar("Forca Bruta igual a enumeracao", Verificacoes::forcaBruta);
+            verificar("Held-Karp igual a enumeracao", Verificacoes::heldKarp);
+            verificar("progresso da Forca Bruta", Verificacoes::progresso);
+            verificar("resolucao com prazo", Verificacoes::comPrazo);
+            verificar("cache pela forma canonica", Verificacoes::cache);
+            verificar("avaliador de rotas", Verificacoes::avaliadores);
+            verificar("carregador: binario, TSPLIB e CSV", Verificacoes::carregador);
+        } finally {
+            System.setOut(SAIDA);
+        }
+        if (falhas > 0) {
+            SAIDA.println(falhas + " verificacoes falharam.");
+            System.exit(1);
+        }
+        SAIDA.println("Todas as verificacoes passaram.");
+    }
+
+    private static void verificar(String nome, Verificacao verificacao) {
+        long inicio = System.nanoTime();
+        try {
+            verificacao.executar();
+            SAIDA.printf("ok      %s (%.0f ms)%n", nome, (System.nanoTime() - inicio) / 1e6);
+        } catch (Throwable e) {
+            falhas++;
+            SAIDA.println("FALHOU  " + nome + ": " + e);
+        }
+    }
+
+    private static void forcaBruta() throws Exception {
+        for (ModoAvaliacao modo : ModoAvaliacao.values()) {
+            InstanciasDeTeste.conferirContraEnumeracao("Forca Bruta " + modo, 9, cidades -> new ResolvedorPCV(cidades).resolverForcaBruta(modo));
+        }
+    }
+
+    private static void heldKarp() throws Exception {
+        InstanciasDeTeste.conferirContraEnumeracao("Held-Karp", 9, cidades -> new ResolvedorPCV(cidades).resolverHeldKarp());
+    }
+
+    private static void progresso() throws Exception {
+        AtomicReference<Progresso> ultimo = new AtomicReference<>();
+        InstanciasDeTeste.conferirContraEnumeracao("Forca Bruta com observador", 9, cidades -> {
+            Resultado resultado = new ResolvedorPCV(cidades).resolverForcaBruta(ModoAvaliacao.INCREMENTAL, ultimo::set);
+            confirmarProgressoFinal(ultimo.getAndSet(null), resultado.getDistancia(), cidades.size() + " cidades");
+            return resultado;
+        });
+
+        // Com 12 cidades a busca fixa a primeira posição e enumera o resto em blocos
+        List<Cidade> cidades = InstanciasDeTeste.aleatoria(12, 7, 1000);
+        Resultado resultado = new ResolvedorPCV(cidades).resolverForcaBruta(ModoAvaliacao.INCREMENTAL, ultimo::set);
+        InstanciasDeTeste.confirmarOtimo(cidades, resultado, new ResolvedorPCV(cidades).resolverHeldKarp().getDistancia(),
+                "Forca Bruta com observador, 12 cidades");
+        confirmarProgressoFinal(ultimo.get(), resultado.getDistancia(), "12 cidades");
+    }
+
+    private static void confirmarProgressoFinal(Progresso progresso, double distancia, String caso) {
+        InstanciasDeTeste.confirmar(progresso != null, caso + ": o observador nao recebeu o retrato final");
+        InstanciasDeTeste.confirmar(Math.abs(progresso.getFracaoCoberta() - 1) <= InstanciasDeTeste.TOLERANCIA,
+                caso + ": fracao coberta " + progresso.getFracaoCoberta());
+        InstanciasDeTeste.confirmar(progresso.getMelhorDistancia() == distancia,
+                caso + ": melhor distancia " + progresso.getMelhorDistancia() + ", resultado " + distancia);
+    }
+
+    private static void comPrazo() throws Exception {
+        InstanciasDeTeste.conferirContraEnumeracao("com prazo longo", 9, cidades -> {
+            Resultado resultado = new ResolvedorPCV(cidades).resolverComPrazo(Prazo.de(1, TimeUnit.MINUTES));
+            InstanciasDeTeste.confirmar(resultado.isOtimoComprovado(), cidades.size() + " cidades: otimo nao comprovado");
+            return resultado;
+        });
+
+        // Com 12 cidades a busca exata para no primeiro bloco; com 5000 ela nem começa
+        for (int n : new int[] {12, 5000}) {
+            List<Cidade> cidades = InstanciasDeTeste.aleatoria(n, n, 100000);
+            Resultado resultado = new ResolvedorPCV(cidades).resolverComPrazo(Prazo.de(0, TimeUnit.SECONDS));
+            String caso = n + " cidades com o prazo esgotado";
+            InstanciasDeTeste.confirmar(!resultado.isOtimoComprovado(), caso + ": otimo comprovado");
+            InstanciasDeTeste.confirmarRota(cidades, resultado.getRota(), resultado.getDistancia(), caso);
+        }
+    }
+
+    private static void cache() throws IOException {
+        List<Cidade> original = InstanciasDeTeste.aleatoria(8, 5, 1000);
+        List<Cidade> outra = InstanciasDeTeste.transladadaEmOutraOrdem(original, 7);
+        double otimo = InstanciasDeTeste.menorRotaPorEnumeracao(original);
+        Instancia instancia = Instancia.de(original);
+        Instancia reordenada = Instancia.de(outra);
+
+        CacheDeResultados cache = new CacheDeResultados();
+        int[] otima = new ResolvedorPCV(instancia, cache).resolverHeldKarp().getIndices();
+        InstanciasDeTeste.confirmar(cache.getEntradas() == 1, cache.getEntradas() + " entradas depois de resolver uma instancia");
+        Resultado doCache = new ResolvedorPCV(reordenada, cache).resolverForcaBruta();
+        InstanciasDeTeste.confirmar(cache.getAcertos() == 1, "a mesma instancia transladada e reordenada nao achou a rota guardada");
+        InstanciasDeTeste.confirmar(doCache.isOtimoComprovado(), "rota do cache nao comprovadamente otima");
+        InstanciasDeTeste.confirmarOtimo(outra, doCache, otimo, "rota do cache");
+
+        // Uma coordenada a mais de distância já é outra instância
+        int[] xs = reordenada.getXs().clone();
+        xs[3]++;
+        InstanciasDeTeste.confirmar(cache.buscar(xs, reordenada.getYs()) == null, "instancia diferente achou uma rota no cache");
+
+        Path diretorio = Files.createTempDirectory("verificacoes-cache");
+        try {
+            new CacheDeResultados(CacheDeResultados.BYTES_PADRAO, diretorio).guardar(instancia.getXs(), instancia.getYs(), otima);
+            int[] rota = new CacheDeResultados(CacheDeResultados.BYTES_PADRAO, diretorio).buscar(reordenada.getXs(), reordenada.getYs());
+            InstanciasDeTeste.confirmar(rota != null, "rota gravada no diretorio nao encontrada por um cache novo");
+            InstanciasDeTeste.confirmarRota(outra, reordenada.montarRota(rota), otimo, "rota lida do diretorio");
+        } finally {
+            apagar(diretorio);
+        }
+    }
+
+    // A implementação padrão (a vetorial, se compilada e executada com o módulo) contra uma varredura direta, com
+    // empates, e contra a escalar, bit a bit, em cada pista
+    private static void avaliadores() {
+        AvaliadorDeRotas avaliador = AvaliadorDeRotas.padrao();
+        Random aleatorio = new Random(3);
+        for (int quantos = 0; quantos <= 40; quantos++) {
+            double[] xs = new double[quantos];
+            double[] ys = new double[quantos];
+            for (int i = 0; i < quantos; i++) {
+                xs[i] = aleatorio.nextInt(8);
+                ys[i] = aleatorio.nextInt(8);
+            }
+            double x = aleatorio.nextInt(8);
+            double y = aleatorio.nextInt(8);
+            int esperado = -1;
+            double menor = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < quantos; i++) {
+                double distancia = (xs[i] - x) * (xs[i] - x) + (ys[i] - y) * (ys[i] - y);
+                if (distancia < menor) {
+                    menor = distancia;
+                    esperado = i;
+                }
+            }
+            int obtido = avaliador.maisProximo(xs, ys, quantos, x, y);
+            InstanciasDeTeste.confirmar(obtido == esperado, avaliador + ", " + quantos + " pontos: mais proximo " + obtido + ", esperado " + esperado);
+        }
+
+        // Arestas de uma cauda: da anterior para cada livre, entre cada par de livres e de cada livre à origem
+        int arestasPorCauda = CaudaDaPermutacao.CIDADES * (CaudaDaPermutacao.CIDADES + 2);
+        int pistas = avaliador.getPistas();
+        double[] arestas = new double[arestasPorCauda * pistas];
+        double[] bases = new double[pistas];
+        for (int i = 0; i < arestas.length; i++) {
+            arestas[i] = aleatorio.nextDouble() * 1000;
+        }
+        for (int p = 0; p < pistas; p++) {
+            bases[p] = aleatorio.nextDouble() * 1000;
+        }
+        double[] menores = new double[pistas];
+        avaliador.menoresDasCaudas(arestas, bases, menores);
+        for (int p = 0; p < pistas; p++) {
+            double[] daPista = new double[arestasPorCauda];
+            for (int e = 0; e < arestasPorCauda; e++) {
+                daPista[e] = arestas[e * pistas + p];
+            }
+            double[] esperado = new double[1];
+            AvaliadorDeRotas.escalar().menoresDasCaudas(daPista, new double[] {bases[p]}, esperado);
+            InstanciasDeTeste.confirmar(Double.compare(menores[p], esperado[0]) == 0,
+                    avaliador + ", pista " + p + ": menor cauda " + menores[p] + ", escalar " + esperado[0]);
+        }
+    }
+
+    private static void carregador() throws IOException {
+        Path diretorio = Files.createTempDirectory("verificacoes-carregador");
+        try {
+            Random aleatorio = new Random(9);
+            int[] xs = new int[50];
+            int[] ys = new int[50];
+            for (int i = 0; i < xs.length; i++) {
+                xs[i] = aleatorio.nextInt() >> 8;
+                ys[i] = aleatorio.nextInt() >> 8;
+            }
+            Path binario = diretorio.resolve("cidades.pcvb");
+            CarregadorDeCidades.gravarBinario(new Instancia(xs, ys), binario);
+            confirmarCoordenadas(CarregadorDeCidades.carregar(binario), xs, ys, "binario");
+
+            // Casas decimais são arredondadas para o inteiro mais próximo
+            Path tsplib = diretorio.resolve("cidades.tsp");
+            Files.write(tsplib, ("NAME : teste\nTYPE : TSP\nDIMENSION : 3\nEDGE_WEIGHT_TYPE : EUC_2D\nNODE_COORD_SECTION\n"
+                    + "1 10 20\n2 -3.6 4.4\n3 1e2 7\nEOF\n").getBytes(StandardCharsets.US_ASCII));
+            Instancia lida = CarregadorDeCidades.carregar(tsplib);
+            confirmarCoordenadas(lida, new int[] {10, -4, 100}, new int[] {20, 4, 7}, "TSPLIB");
+            InstanciasDeTeste.confirmar(lida.getNome(1).equals("2"), "nome TSPLIB '" + lida.getNome(1) + "'");
+
+            Path csv = diretorio.resolve("cidades.txt");
+            Files.write(csv, "Sao_Paulo, 0, 0\nlinha sem tres campos\r\nRecife,-7,12\n".getBytes(StandardCharsets.UTF_8));
+            lida = CarregadorDeCidades.carregar(csv);
+            confirmarCoordenadas(lida, new int[] {0, -7}, new int[] {0, 12}, "CSV");
+            InstanciasDeTeste.confirmar(lida.getNome(0).equals("Sao_Paulo") && lida.getNome(1).equals("Recife"), "nomes CSV");
+        } finally {
+            apagar(diretorio);
+        }
+    }
+
+    private static void confirmarCoordenadas(Instancia instancia, int[] xs, int[] ys, String formato) {
+        InstanciasDeTeste.confirmar(instancia.getTamanho() == xs.length, formato + ": " + instancia.getTamanho() + " cidades, esperadas " + xs.length);
+        for (int i = 0; i < xs.length; i++) {
+            InstanciasDeTeste.confirmar(instancia.getXs()[i] == xs[i] && instancia.getYs()[i] == ys[i], formato + ": coordenadas da cidade " + i);
+        }
+    }
+
+    private static void apagar(Path diretorio) throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            for (Path arquivo : (Iterable<Path>) arquivos::iterator) {
+                Files.delete(arquivo);
+            }
+        }
+        Files.delete(diretorio);
+    }
+}